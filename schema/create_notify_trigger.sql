@@ -0,0 +1,43 @@
+-- reservation の変更を NOTIFY で通知するトリガー（ReservationSnapshot を使う場合のみ create_table.sql の後に実行する）
+-- NOTIFY はコミット時にデータベース全体で直列化されるため、書き込みが多い環境ではコミットのスループットが下がる
+-- ペイロードは変更された行の ID のカンマ区切り。10000件を超える変更と TRUNCATE では '*'（全件の再読み込み）
+-- NOTIFY のペイロードは8000バイト未満に制限されるため、ID の文字数の累計で約7900バイトごとに分割する
+-- （ID は最大20文字のため、1つのペイロードは7920バイトを超えない）
+CREATE OR REPLACE FUNCTION reservation_notify() RETURNS trigger
+    LANGUAGE plpgsql AS
+'
+DECLARE
+    ids text;
+BEGIN
+    IF TG_OP = ''TRUNCATE'' THEN
+        PERFORM pg_notify(''reservation_changed'', ''*'');
+    ELSIF (SELECT count(*) FROM changed) > 10000 THEN
+        PERFORM pg_notify(''reservation_changed'', ''*'');
+    ELSE
+        FOR ids IN SELECT string_agg(id::text, '','')
+                   FROM (SELECT id, (sum(length(id::text) + 1) OVER (ORDER BY id) - 1) / 7900 AS chunk
+                         FROM changed) c
+                   GROUP BY chunk
+        LOOP
+            PERFORM pg_notify(''reservation_changed'', ids);
+        END LOOP;
+    END IF;
+    RETURN NULL;
+END
+';
+DROP TRIGGER IF EXISTS reservation_notify_insert ON reservation;
+DROP TRIGGER IF EXISTS reservation_notify_update ON reservation;
+DROP TRIGGER IF EXISTS reservation_notify_delete ON reservation;
+DROP TRIGGER IF EXISTS reservation_notify_truncate ON reservation;
+CREATE TRIGGER reservation_notify_insert
+    AFTER INSERT ON reservation REFERENCING NEW TABLE AS changed
+    FOR EACH STATEMENT EXECUTE FUNCTION reservation_notify();
+CREATE TRIGGER reservation_notify_update
+    AFTER UPDATE ON reservation REFERENCING NEW TABLE AS changed
+    FOR EACH STATEMENT EXECUTE FUNCTION reservation_notify();
+CREATE TRIGGER reservation_notify_delete
+    AFTER DELETE ON reservation REFERENCING OLD TABLE AS changed
+    FOR EACH STATEMENT EXECUTE FUNCTION reservation_notify();
+CREATE TRIGGER reservation_notify_truncate
+    AFTER TRUNCATE ON reservation
+    FOR EACH STATEMENT EXECUTE FUNCTION reservation_notify();
\ No newline at end of file
@@ -0,0 +1,119 @@
+-- reservation のIDの範囲のパーティションを管理する関数（create_table.sql または migrate_to_partitioned.sql の後に実行する）
+-- 範囲のパーティションの名前と下限・上限（上限は含まない）。bigint の境界は引用符付きで表示されるため引用符を取り除く
+-- MINVALUE と MAXVALUE は bigint の範囲外の値として返すため numeric にする（以前の定義とは戻り値の型が異なるため削除する）
+DROP FUNCTION IF EXISTS reservation_partition_bounds();
+CREATE FUNCTION reservation_partition_bounds() RETURNS TABLE (name text, lower numeric, upper numeric)
+    LANGUAGE sql STABLE AS
+'
+SELECT b.name,
+       CASE b.lower WHEN ''MINVALUE'' THEN -9223372036854775808 ELSE b.lower::numeric END,
+       CASE b.upper WHEN ''MAXVALUE'' THEN 9223372036854775808 ELSE b.upper::numeric END
+FROM (SELECT c.relname::text AS name,
+             replace(split_part(split_part(pg_get_expr(c.relpartbound, c.oid), ''FROM ('', 2), '')'', 1),
+                     chr(39), '''') AS lower,
+             replace(split_part(split_part(pg_get_expr(c.relpartbound, c.oid), ''TO ('', 2), '')'', 1),
+                     chr(39), '''') AS upper
+      FROM pg_inherits i
+               JOIN pg_class c ON c.oid = i.inhrelid
+      WHERE i.inhparent = ''reservation''::regclass
+        AND pg_get_expr(c.relpartbound, c.oid) <> ''DEFAULT'') b
+';
+-- IDの範囲のパーティションを作成し、作成した数を返す。範囲は partition_size の倍数で区切り、次の範囲を作成する
+--   1. 採番済みのIDの次のIDを含む範囲から premake 個先までの範囲
+--   2. reservation_default に行がある範囲（その行は作成したパーティションに移す）
+-- ATTACH PARTITION は reservation_default を排他ロックして読み直し、ロックはコミットまで保持されるため、
+-- 1回の呼び出しで作成するのは max_create 個までとし、残りは次回の呼び出しで作成する
+-- 範囲の境界は numeric で計算し、bigint の最大値を超える上限は MAXVALUE にする
+-- シーケンスの値 v を v * id_scale + シャード番号 に変換してIDとする場合（ShardedReservationDao）は id_scale にシャード数を指定する
+-- 引数が異なる以前の定義を削除する
+DROP FUNCTION IF EXISTS reservation_create_partitions(integer, integer);
+DROP FUNCTION IF EXISTS reservation_create_partitions(integer, integer, integer);
+CREATE OR REPLACE FUNCTION reservation_create_partitions(partition_size integer, premake integer, id_scale integer,
+                                                         max_create integer)
+    RETURNS integer
+    LANGUAGE plpgsql AS
+'
+DECLARE
+    frontier    numeric;
+    first_range numeric;
+    last_range  numeric;
+    max_range   numeric := floor(9223372036854775807 / partition_size::numeric);
+    range_index numeric;
+    lower_bound numeric;
+    upper_bound numeric;
+    next_lower  numeric;
+    part        text;
+    created     integer := 0;
+BEGIN
+    IF partition_size <= 0 OR premake < 0 OR id_scale <= 0 OR max_create <= 0 THEN
+        RAISE EXCEPTION ''invalid partition_size %, premake %, id_scale % or max_create %'',
+            partition_size, premake, id_scale, max_create;
+    END IF;
+    -- 複数のノードから同時に呼ばれた場合は順に実行する
+    PERFORM pg_advisory_xact_lock(hashtext(''reservation_create_partitions''));
+    -- ATTACH PARTITION が取る親テーブルのロックを先に取り、TRUNCATE などと同じく親テーブル、パーティションの順にロックする
+    LOCK TABLE reservation IN SHARE UPDATE EXCLUSIVE MODE;
+    -- 次に払い出されるブロックの先頭の値をIDに変換した値（未使用のシーケンスでは開始値）
+    SELECT coalesce(last_value::numeric + increment_by, start_value)::numeric * id_scale
+    INTO frontier
+    FROM pg_sequences
+    WHERE sequencename = ''reservation_id_seq'';
+    first_range := least(floor(greatest(frontier - 1, 0) / partition_size), max_range);
+    last_range := least(first_range + premake, max_range);
+    FOR range_index IN
+        SELECT r.range_index
+        FROM (SELECT g AS range_index, 0 AS priority
+              FROM generate_series(first_range, last_range) g
+              UNION ALL
+              SELECT DISTINCT floor(id::numeric / partition_size), 1
+              FROM reservation_default) r
+        GROUP BY r.range_index
+        ORDER BY min(r.priority), r.range_index
+    LOOP
+        EXIT WHEN created >= max_create;
+        lower_bound := range_index * partition_size;
+        upper_bound := lower_bound + partition_size;
+        -- 既存のパーティションと重なる部分を除く（移行した最初のパーティションの上限は範囲の途中にある）
+        SELECT greatest(lower_bound, max(b.upper)) INTO lower_bound
+        FROM reservation_partition_bounds() b
+        WHERE b.lower <= lower_bound AND b.upper > lower_bound;
+        CONTINUE WHEN lower_bound >= upper_bound;
+        SELECT min(b.lower) INTO next_lower
+        FROM reservation_partition_bounds() b
+        WHERE b.lower > lower_bound AND b.lower < upper_bound;
+        upper_bound := coalesce(next_lower, upper_bound);
+        part := format(''reservation_p%s'', lower_bound);
+        EXECUTE format(''CREATE TABLE %I (LIKE reservation INCLUDING DEFAULTS)'', part);
+        EXECUTE format(''WITH moved AS (DELETE FROM reservation_default WHERE id >= %s AND id < %s RETURNING *) ''
+                       ''INSERT INTO %I SELECT * FROM moved'', lower_bound, upper_bound, part);
+        EXECUTE format(''ALTER TABLE reservation ATTACH PARTITION %I FOR VALUES FROM (%s) TO (%s)'',
+                       part, lower_bound,
+                       CASE WHEN upper_bound > 9223372036854775807 THEN ''MAXVALUE'' ELSE upper_bound::text END);
+        created := created + 1;
+    END LOOP;
+    RETURN created;
+END
+';
+-- 指定したIDより前の範囲だけを持つパーティションを削除し、reservation_default の該当する行を削除して、削除したパーティションの数を返す
+-- 引数が integer だった以前の定義を削除する
+DROP FUNCTION IF EXISTS reservation_drop_partitions_before(integer);
+CREATE OR REPLACE FUNCTION reservation_drop_partitions_before(before_id bigint) RETURNS integer
+    LANGUAGE plpgsql AS
+'
+DECLARE
+    part    text;
+    dropped integer := 0;
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext(''reservation_create_partitions''));
+    -- パーティションの削除に必要なロックを先に取る（削除が終わるまで reservation の読み書きは待たされる）
+    LOCK TABLE reservation IN ACCESS EXCLUSIVE MODE;
+    FOR part IN SELECT name FROM reservation_partition_bounds() WHERE upper <= before_id ORDER BY upper LOOP
+        EXECUTE format(''DROP TABLE %I'', part);
+        dropped := dropped + 1;
+    END LOOP;
+    DELETE FROM reservation_default WHERE id < before_id;
+    -- パーティションの削除では行単位の通知が発生しないため、ReservationSnapshot に全件を読み直させる
+    PERFORM pg_notify(''reservation_changed'', ''*'');
+    RETURN dropped;
+END
+';
\ No newline at end of file
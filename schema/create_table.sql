@@ -1,6 +1,37 @@
 DROP TABLE IF EXISTS reservation;
+DROP SEQUENCE IF EXISTS reservation_id_seq;
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+-- INCREMENT BY は Reservation の @SequenceGenerator(allocationSize) と一致させる
+-- 列のデフォルト値・insertReturning.sql・一括インポートのマージなど nextval を1行ごとに呼ぶ経路はブロックの残り99件を使わないため、
+-- IDは bigint とし、払い出しの欠番で枯渇しないようにする
+CREATE SEQUENCE reservation_id_seq AS bigint INCREMENT BY 100;
+-- IDの範囲でパーティション分割する（範囲のパーティションは create_partition_functions.sql の reservation_create_partitions で作成する）
 CREATE TABLE reservation
 (
-    id   serial primary key,
-    name varchar(100)
-);
\ No newline at end of file
+    id          bigint  primary key default nextval('reservation_id_seq'),
+    name        varchar(100),
+    version     integer not null default 1,
+    -- 最後に挿入・更新したトランザクションのID（変更フィードのウォーターマーク）
+    changed_xid xid8    not null default pg_current_xact_id()
+) PARTITION BY RANGE (id);
+ALTER SEQUENCE reservation_id_seq OWNED BY reservation.id;
+-- 範囲のパーティションがまだないIDの行を受け入れる（reservation_create_partitions が範囲のパーティションに移す）
+CREATE TABLE reservation_default PARTITION OF reservation DEFAULT;
+CREATE OR REPLACE FUNCTION reservation_set_changed_xid() RETURNS trigger
+    LANGUAGE plpgsql AS
+'
+BEGIN
+    NEW.changed_xid := pg_current_xact_id();
+    RETURN NEW;
+END
+';
+CREATE TRIGGER reservation_set_changed_xid
+    BEFORE UPDATE ON reservation
+    FOR EACH ROW EXECUTE FUNCTION reservation_set_changed_xid();
+CREATE INDEX reservation_name_id_idx ON reservation (name, id);
+-- 名前の前方一致検索（照合順序によらず LIKE 'abc%' と ORDER BY name USING ~<~ に使用）
+CREATE INDEX reservation_name_pattern_idx ON reservation (name text_pattern_ops, id);
+-- 名前の部分一致・類似検索（LIKE '%abc%' と pg_trgm の % 演算子に使用）
+CREATE INDEX reservation_name_trgm_idx ON reservation USING gin (name gin_trgm_ops);
+-- 変更フィード（(changed_xid, id) のキーセットページング）
+CREATE INDEX reservation_changed_xid_id_idx ON reservation (changed_xid, id);
\ No newline at end of file
@@ -0,0 +1,53 @@
+-- パーティション分割前の reservation を、IDの範囲でパーティション分割したテーブルに移行する
+-- 既存のテーブルは行をコピーせずに最初のパーティション（既存の最大IDの次の区切りまで）として接続する
+-- 接続時に既存のテーブルを1回読んで範囲を検証するため、その間は reservation の読み書きが待たされる
+-- IDが integer の場合は bigint に変更するため、既存のテーブルを書き直す時間も待たされる
+-- 実行後に create_partition_functions.sql を実行し、ReservationSnapshot を使う場合は create_notify_trigger.sql も再実行する
+BEGIN;
+LOCK TABLE reservation IN ACCESS EXCLUSIVE MODE;
+-- 行トリガーは親テーブルから複製され、遷移テーブルを使う文トリガーはパーティションに置けないため削除する
+DROP TRIGGER IF EXISTS reservation_set_changed_xid ON reservation;
+DROP TRIGGER IF EXISTS reservation_notify_insert ON reservation;
+DROP TRIGGER IF EXISTS reservation_notify_update ON reservation;
+DROP TRIGGER IF EXISTS reservation_notify_delete ON reservation;
+DROP TRIGGER IF EXISTS reservation_notify_truncate ON reservation;
+ALTER TABLE reservation RENAME TO reservation_p0;
+ALTER INDEX reservation_pkey RENAME TO reservation_p0_pkey;
+ALTER INDEX reservation_name_id_idx RENAME TO reservation_p0_name_id_idx;
+ALTER INDEX reservation_name_pattern_idx RENAME TO reservation_p0_name_pattern_idx;
+ALTER INDEX reservation_name_trgm_idx RENAME TO reservation_p0_name_trgm_idx;
+ALTER INDEX reservation_changed_xid_id_idx RENAME TO reservation_p0_changed_xid_id_idx;
+-- 以降は create_table.sql と同じ定義
+CREATE TABLE reservation
+(
+    id          bigint  primary key default nextval('reservation_id_seq'),
+    name        varchar(100),
+    version     integer not null default 1,
+    -- 最後に挿入・更新したトランザクションのID（変更フィードのウォーターマーク）
+    changed_xid xid8    not null default pg_current_xact_id()
+) PARTITION BY RANGE (id);
+ALTER SEQUENCE reservation_id_seq OWNED BY reservation.id;
+ALTER TABLE reservation_p0 ALTER COLUMN id DROP DEFAULT;
+-- パーティションの列の型は親テーブルと一致させる必要がある（integer の場合はテーブルとインデックスを書き直す）
+ALTER TABLE reservation_p0 ALTER COLUMN id TYPE bigint;
+ALTER SEQUENCE reservation_id_seq AS bigint;
+CREATE TABLE reservation_default PARTITION OF reservation DEFAULT;
+CREATE TRIGGER reservation_set_changed_xid
+    BEFORE UPDATE ON reservation
+    FOR EACH ROW EXECUTE FUNCTION reservation_set_changed_xid();
+CREATE INDEX reservation_name_id_idx ON reservation (name, id);
+CREATE INDEX reservation_name_pattern_idx ON reservation (name text_pattern_ops, id);
+CREATE INDEX reservation_name_trgm_idx ON reservation USING gin (name gin_trgm_ops);
+CREATE INDEX reservation_changed_xid_id_idx ON reservation (changed_xid, id);
+-- 既存のインデックスは同じ定義の親テーブルのインデックスに対応付けられ、作り直されない
+-- 上限は reservation.partition.size（デフォルト 1000000）の倍数に揃える
+DO
+'
+DECLARE
+    upper_bound bigint := (coalesce((SELECT max(id) FROM reservation_p0), 0) / 1000000 + 1) * 1000000;
+BEGIN
+    EXECUTE format(''ALTER TABLE reservation ATTACH PARTITION reservation_p0 FOR VALUES FROM (MINVALUE) TO (%s)'',
+                   upper_bound);
+END
+';
+COMMIT;
\ No newline at end of file
@@ -0,0 +1,169 @@
+package com.example.benchmark;
+
+import com.example.Application;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ベンチマーク用のデータベースとアプリケーションコンテキスト。
+ *
+ * <p>組み込みPostgreSQL（zonky embedded-postgres）を起動し、
+ * {@code schema/create_table.sql}と{@code schema/create_partition_functions.sql}でスキーマを作成した上で{@link Application}を起動します。
+ * DockerやネットワークなしでJMHのフォークごとに独立した環境を用意します。
+ * </p>
+ *
+ * <p>本番と同じ構成で計測するため、{@code devel}以外のプロファイルで起動し、
+ * コネクションプールにはHikariCPを使用します（接続時の{@code plan_cache_mode}も{@code application.properties}に合わせます）。
+ * </p>
+ */
+@State(Scope.Benchmark)
+public class BenchmarkDatabase {
+
+    private EmbeddedPostgres postgres;
+    private ConfigurableApplicationContext context;
+
+    /**
+     * 組み込みPostgreSQLとアプリケーションコンテキストを起動します。
+     *
+     * @throws IOException PostgreSQLの起動に失敗した場合
+     */
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        launch();
+    }
+
+    /**
+     * 追加の引数を指定して組み込みPostgreSQLとアプリケーションコンテキストを起動します。
+     *
+     * <p>JMHの状態として注入せずに、ベンチマーク側で起動条件を変える場合に使用します。
+     *
+     * @param additionalArgs アプリケーションに渡す追加の引数（例: {@code --reservation.warmup.enabled=false}）
+     * @throws IOException PostgreSQLの起動に失敗した場合
+     */
+    public void launch(String... additionalArgs) throws IOException {
+        startPostgres();
+        var args = new ArrayList<>(List.of("--spring.profiles.active=benchmark",
+                "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                "--spring.datasource.username=postgres",
+                "--spring.datasource.password=postgres",
+                "--spring.datasource.type=com.zaxxer.hikari.HikariDataSource",
+                "--spring.datasource.hikari.connection-init-sql=SET plan_cache_mode = force_custom_plan",
+                "--spring.sql.init.mode=always",
+                "--spring.sql.init.schema-locations=file:schema/create_table.sql,file:schema/create_partition_functions.sql",
+                "--logging.level.root=WARN",
+                "--logging.level.org.seasar.doma=WARN",
+                "--logging.level.org.seasar.doma.jdbc.UtilLoggingJdbcLogger=WARN"));
+        args.addAll(List.of(additionalArgs));
+        context = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .run(args.toArray(String[]::new));
+    }
+
+    /**
+     * 組み込みPostgreSQLのみを起動します（起動済みの場合は何もしません）。
+     *
+     * <p>アプリケーションの起動時間だけを計測する場合に、{@link #launch}の前に呼び出します。
+     *
+     * @throws IOException PostgreSQLの起動に失敗した場合
+     */
+    public void startPostgres() throws IOException {
+        if (postgres == null) {
+            postgres = EmbeddedPostgres.builder().start();
+        }
+    }
+
+    /**
+     * 組み込みPostgreSQLに別のデータベースを作成し、{@code schema/create_table.sql}でスキーマを作成します。
+     *
+     * <p>シャードなど、アプリケーションのデータソースとは別の接続先として使用します。
+     * 照合順序は{@code "C"}です。{@link #launch}の前に呼び出す場合は{@link #startPostgres}で先に起動してください。
+     *
+     * @param name データベース名
+     * @return 作成したデータベースのJDBC URL（ユーザー名・パスワードは{@code postgres}）
+     */
+    public String createDatabase(String name) {
+        new JdbcTemplate(postgres.getPostgresDatabase())
+                .execute("CREATE DATABASE " + name + " TEMPLATE template0 LC_COLLATE 'C' LC_CTYPE 'C'");
+        var url = postgres.getJdbcUrl("postgres", name);
+        var dataSource = new SingleConnectionDataSource(url, "postgres", "postgres", true);
+        try {
+            new ResourceDatabasePopulator(new FileSystemResource("schema/create_table.sql")).execute(dataSource);
+        } finally {
+            dataSource.destroy();
+        }
+        return url;
+    }
+
+    /**
+     * アプリケーションコンテキストと組み込みPostgreSQLを停止します。
+     *
+     * @throws IOException PostgreSQLの停止に失敗した場合
+     */
+    @TearDown(Level.Trial)
+    public void stop() throws IOException {
+        if (context != null) {
+            context.close();
+        }
+        if (postgres != null) {
+            postgres.close();
+        }
+    }
+
+    /**
+     * アプリケーションコンテキストからBeanを取得します。
+     *
+     * @param type Beanの型
+     * @param <T>  Beanの型
+     * @return Bean
+     */
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    /**
+     * 予約テーブルの変更を{@code NOTIFY}で通知するトリガー（{@code schema/create_notify_trigger.sql}）を作成します。
+     *
+     * <p>通知のコストを含めずに書き込みを計測できるよう、{@link #launch}では作成しません。
+     */
+    public void installNotifyTrigger() {
+        new ResourceDatabasePopulator(new FileSystemResource("schema/create_notify_trigger.sql"))
+                .execute(bean(DataSource.class));
+    }
+
+    /**
+     * 予約テーブルを空にし、指定件数の行を投入します。
+     *
+     * <p>IDは1から{@code rows}までの連番になります。
+     * 名前は並び順がIDと相関しないようにハッシュ値を使用します。
+     *
+     * @param rows 投入する行数
+     */
+    public void seed(int rows) {
+        var jdbcTemplate = bean(JdbcTemplate.class);
+        jdbcTemplate.execute("TRUNCATE reservation");
+        jdbcTemplate.update("INSERT INTO reservation (id, name) SELECT g, md5(g::text) FROM generate_series(1, ?) g",
+                rows);
+        // 以降にDomaが払い出すIDのブロックが投入した行と重ならないようにする
+        jdbcTemplate.queryForObject(
+                "SELECT setval('reservation_id_seq', GREATEST(last_value, ?)) FROM reservation_id_seq",
+                Long.class, rows);
+        jdbcTemplate.execute("ANALYZE reservation");
+    }
+}
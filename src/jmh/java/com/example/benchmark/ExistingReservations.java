@@ -0,0 +1,54 @@
+package com.example.benchmark;
+
+import com.example.entity.Reservation;
+import com.example.entity.ReservationId;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 既存の行を更新するベンチマークのためのスレッドごとの状態。
+ *
+ * <p>更新はバージョンで楽観的排他制御されるため、スレッドごとに互いに重ならないIDを割り当て、
+ * 各IDの現在のバージョンを保持します。{@link BenchmarkDatabase#seed}直後の行のバージョンは1で、
+ * 計測対象の更新は必ず成功してバージョンを1つ進めるものとして扱います。
+ * </p>
+ */
+@State(Scope.Thread)
+public class ExistingReservations {
+
+    private int threadIndex;
+    private int threadCount;
+    private int[] versions;
+
+    @Setup(Level.Trial)
+    public void setUp(ThreadParams params) {
+        threadIndex = params.getThreadIndex();
+        threadCount = params.getThreadCount();
+        versions = null;
+    }
+
+    /**
+     * このスレッドに割り当てられたIDからランダムに選んだ、更新用のエンティティを返します。
+     *
+     * @param tableSize {@link BenchmarkDatabase#seed}で投入した行数
+     * @return 現在のバージョンを設定した予約エンティティ
+     */
+    Reservation next(int tableSize) {
+        if (versions == null) {
+            versions = new int[(tableSize - threadIndex + threadCount - 1) / threadCount];
+            Arrays.fill(versions, 1);
+        }
+        var slot = ThreadLocalRandom.current().nextInt(versions.length);
+        var entity = new Reservation();
+        entity.setId(ReservationId.of(threadIndex + 1 + slot * threadCount));
+        entity.setVersion(versions[slot]++);
+        entity.name = "benchmark";
+        return entity;
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.benchmark;
+
+import org.seasar.doma.Entity;
+import org.seasar.doma.GeneratedValue;
+import org.seasar.doma.GenerationType;
+import org.seasar.doma.Id;
+import org.seasar.doma.Table;
+
+/**
+ * {@link ReservationIdGenerationBenchmark}の比較対象として、
+ * IDを{@code IDENTITY}戦略で採番する予約エンティティ。
+ *
+ * <p>{@link ReservationIdGenerationBenchmark}が作成する{@code reservation_identity}テーブルに対応します。
+ * </p>
+ */
+@Entity
+@Table(name = "reservation_identity")
+public class IdentityReservation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    public Long id;
+
+    public String name;
+}
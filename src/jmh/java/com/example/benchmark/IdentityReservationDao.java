@@ -0,0 +1,24 @@
+package com.example.benchmark;
+
+import org.seasar.doma.BatchInsert;
+import org.seasar.doma.Dao;
+import org.seasar.doma.Insert;
+
+import java.util.List;
+
+/**
+ * {@link IdentityReservation}のDAO。
+ *
+ * <p>ベンチマーク専用のため、Springのコンポーネントとしては登録せず、
+ * 生成された実装クラスを{@link org.seasar.doma.jdbc.Config}で直接生成します。
+ * </p>
+ */
+@Dao
+public interface IdentityReservationDao {
+
+    @Insert
+    int insert(IdentityReservation reservation);
+
+    @BatchInsert
+    int[] insertAll(List<IdentityReservation> reservations);
+}
@@ -0,0 +1,118 @@
+package com.example.benchmark;
+
+import com.example.entity.Reservation;
+import com.example.entity.ReservationId;
+import com.example.service.ReservationAsyncService;
+import com.example.service.ReservationService;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ReservationAsyncService#findById}を大量に同時発行した場合の所要時間を、
+ * 仮想スレッドとプラットフォームスレッドのプールで比較するベンチマーク。
+ *
+ * <p>キャッシュを無効にして毎回データベースにアクセスさせます。
+ * 各イテレーション中のプラットフォームスレッドの最大数は{@code peakPlatformThreads}として出力されます。
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dreservation.cache.enabled=false")
+@State(Scope.Benchmark)
+public class ReservationAsyncBenchmark {
+
+    private static final int TABLE_SIZE = 10_000;
+    private static final int PLATFORM_POOL_SIZE = 200;
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    @Param({"virtual", "platform"})
+    public String executor;
+
+    @Param({"1000"})
+    public int concurrency;
+
+    private ExecutorService executorService;
+    private ReservationAsyncService service;
+
+    /**
+     * テーブルにデータを投入し、指定されたエグゼキューターで非同期サービスを構築します。
+     *
+     * @param database ベンチマーク用のデータベース
+     */
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkDatabase database) {
+        database.seed(TABLE_SIZE);
+        executorService = switch (executor) {
+            case "virtual" -> Executors.newVirtualThreadPerTaskExecutor();
+            case "platform" -> Executors.newFixedThreadPool(PLATFORM_POOL_SIZE);
+            default -> throw new IllegalArgumentException("Unknown executor: " + executor);
+        };
+        service = new ReservationAsyncService(database.bean(ReservationService.class),
+                new TaskExecutorAdapter(executorService));
+    }
+
+    /**
+     * エグゼキューターを停止します。
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executorService.close();
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public Optional<Reservation>[] findByIdFanOut(PlatformThreads threads) {
+        var random = ThreadLocalRandom.current();
+        var futures = new CompletableFuture[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            futures[i] = service.findById(ReservationId.of(random.nextInt(1, TABLE_SIZE + 1)));
+        }
+        CompletableFuture.allOf(futures).join();
+        var results = new Optional[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            results[i] = (Optional<Reservation>) futures[i].join();
+        }
+        threads.peakPlatformThreads = THREADS.getPeakThreadCount();
+        return results;
+    }
+
+    /**
+     * イテレーション中のプラットフォームスレッドの最大数。
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class PlatformThreads {
+
+        public long peakPlatformThreads;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            peakPlatformThreads = 0;
+            THREADS.resetPeakThreadCount();
+        }
+    }
+}
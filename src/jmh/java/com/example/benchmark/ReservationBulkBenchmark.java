@@ -0,0 +1,152 @@
+package com.example.benchmark;
+
+import com.example.entity.Reservation;
+import com.example.service.CopyFormat;
+import com.example.service.CopyResult;
+import com.example.service.ReservationBulkService;
+import com.example.service.ReservationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code COPY}による一括インポート・エクスポートと、
+ * エンティティ経由の{@link ReservationService#saveAll} / {@link ReservationService#streamAll}を比較するベンチマーク。
+ *
+ * <p>インポート系は呼び出しごとにテーブルを空にしてから計測します。
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ReservationBulkBenchmark {
+
+    @Benchmark
+    public CopyResult importCsv(Import state) {
+        return state.bulkService.importFile(state.csv, CopyFormat.CSV);
+    }
+
+    @Benchmark
+    public CopyResult importBinary(Import state) {
+        return state.bulkService.importFile(state.binary, CopyFormat.BINARY);
+    }
+
+    @Benchmark
+    public CopyResult importCsvViaStaging(Import state) {
+        return state.bulkService.importFileViaStaging(state.csv, CopyFormat.CSV);
+    }
+
+    @Benchmark
+    public int importSaveAll(Import state) {
+        return state.service.saveAll(state.entities);
+    }
+
+    @Benchmark
+    public CopyResult exportCsv(Export state) {
+        return state.bulkService.exportFile(state.target, CopyFormat.CSV);
+    }
+
+    @Benchmark
+    public CopyResult exportBinary(Export state) {
+        return state.bulkService.exportFile(state.target, CopyFormat.BINARY);
+    }
+
+    @Benchmark
+    public long exportStreamAll(Export state) {
+        return state.service.streamAll(stream -> stream.mapToLong(entity -> entity.name.length()).sum());
+    }
+
+    /**
+     * インポートするファイルを用意し、呼び出しごとにテーブルを空にする状態。
+     */
+    @State(Scope.Benchmark)
+    public static class Import {
+
+        @Param({"100000"})
+        public int rows;
+
+        ReservationBulkService bulkService;
+        ReservationService service;
+        Path csv;
+        Path binary;
+        List<Reservation> entities;
+        private JdbcTemplate jdbcTemplate;
+
+        @Setup(Level.Trial)
+        public void setUp(BenchmarkDatabase database) throws IOException {
+            database.seed(rows);
+            bulkService = database.bean(ReservationBulkService.class);
+            service = database.bean(ReservationService.class);
+            jdbcTemplate = database.bean(JdbcTemplate.class);
+            csv = Files.createTempFile("reservation", ".csv");
+            binary = Files.createTempFile("reservation", ".bin");
+            bulkService.exportFile(csv, CopyFormat.CSV);
+            bulkService.exportFile(binary, CopyFormat.BINARY);
+        }
+
+        @Setup(Level.Invocation)
+        public void truncate() {
+            // DomaがメモリにIDのブロックを保持しているため、シーケンスは戻さない
+            jdbcTemplate.execute("TRUNCATE reservation");
+            entities = new ArrayList<>(rows);
+            for (var i = 0; i < rows; i++) {
+                var entity = new Reservation();
+                entity.name = "benchmark-" + i;
+                entities.add(entity);
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            Files.deleteIfExists(csv);
+            Files.deleteIfExists(binary);
+        }
+    }
+
+    /**
+     * テーブルにデータを投入し、エクスポート先のファイルを用意した状態。
+     */
+    @State(Scope.Benchmark)
+    public static class Export {
+
+        @Param({"100000"})
+        public int rows;
+
+        ReservationBulkService bulkService;
+        ReservationService service;
+        Path target;
+
+        @Setup(Level.Trial)
+        public void setUp(BenchmarkDatabase database) throws IOException {
+            database.seed(rows);
+            bulkService = database.bean(ReservationBulkService.class);
+            service = database.bean(ReservationService.class);
+            target = Files.createTempFile("reservation", ".export");
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            Files.deleteIfExists(target);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.benchmark;
+
+import com.example.service.ReservationChangeCursor;
+import com.example.service.ReservationChangeFeed;
+import com.example.service.ReservationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 下流のシステムが前回の読み込み以降の変更を取得するコストのベンチマーク。
+ *
+ * <p>{@link BenchmarkDatabase#seed}で{@code tableSize}件を投入した後に{@code changedRows}件を更新し、
+ * 投入直後のウォーターマークから変更フィードを最後まで読む場合（{@code changeFeed}）と、
+ * テーブル全体を読み直す場合（{@code fullScan}）の1回あたりの時間を比較します。
+ * 変更フィードの時間は変更の件数に、全件の読み直しはテーブルの件数に比例します。
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReservationChangeFeedBenchmark {
+
+    private static final int PAGE_SIZE = 1000;
+
+    @Param({"100000", "1000000"})
+    public int tableSize;
+
+    @Param({"100", "10000"})
+    public int changedRows;
+
+    private ReservationChangeFeed feed;
+    private ReservationService service;
+    private ReservationChangeCursor watermark;
+
+    /**
+     * テーブルに{@link #tableSize}件の行を投入し、ウォーターマークを記録してから{@link #changedRows}件を更新します。
+     *
+     * @param database ベンチマーク用のデータベース
+     */
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkDatabase database) {
+        database.seed(tableSize);
+        feed = database.bean(ReservationChangeFeed.class);
+        service = database.bean(ReservationService.class);
+        watermark = drain(null);
+        var jdbcTemplate = database.bean(JdbcTemplate.class);
+        jdbcTemplate.update("UPDATE reservation SET name = name || '!', version = version + 1 "
+                + "WHERE id IN (SELECT id FROM reservation ORDER BY random() LIMIT ?)", changedRows);
+        jdbcTemplate.execute("ANALYZE reservation");
+    }
+
+    @Benchmark
+    public ReservationChangeCursor changeFeed() {
+        return drain(watermark);
+    }
+
+    @Benchmark
+    public long fullScan() {
+        return service.streamAll(stream -> stream.filter(entity -> entity.name.endsWith("!")).count());
+    }
+
+    private ReservationChangeCursor drain(ReservationChangeCursor after) {
+        var cursor = after;
+        while (true) {
+            var page = feed.findChangesSince(cursor, PAGE_SIZE);
+            cursor = page.next();
+            if (!page.hasMore()) {
+                return cursor;
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.benchmark;
+
+import com.example.entity.Reservation;
+import com.example.entity.ReservationId;
+import com.example.service.ReservationCreateCoalescer;
+import com.example.service.ReservationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 64スレッドが同時に予約を作成する条件で、呼び出しごとにコミットする{@link ReservationService#create}と
+ * 同時の要求を1回のコミットにまとめる{@link ReservationCreateCoalescer#create}のスループットを比較するベンチマーク。
+ *
+ * <p>{@code window}は{@code reservation.create.coalescing.window}です。
+ * 1回のコミットにまとめた件数は{@code reservation.create.coalescing.batch.size}メトリクスで確認できます。
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(64)
+public class ReservationCreateBenchmark {
+
+    @Benchmark
+    public int create(Application application) {
+        return application.service.create(newReservation());
+    }
+
+    @Benchmark
+    public ReservationId createCoalesced(Application application) {
+        return application.coalescer.create(newReservation()).join();
+    }
+
+    private static Reservation newReservation() {
+        var entity = new Reservation();
+        entity.name = "benchmark";
+        return entity;
+    }
+
+    /**
+     * 作成要求の待ち合わせを有効にして起動したアプリケーション。
+     */
+    @State(Scope.Benchmark)
+    public static class Application {
+
+        @Param({"1ms", "5ms"})
+        public String window;
+
+        final BenchmarkDatabase database = new BenchmarkDatabase();
+        ReservationService service;
+        ReservationCreateCoalescer coalescer;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            database.launch("--reservation.create.coalescing.enabled=true",
+                    "--reservation.create.coalescing.window=" + window);
+            database.seed(0);
+            service = database.bean(ReservationService.class);
+            coalescer = database.bean(ReservationCreateCoalescer.class);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            database.stop();
+        }
+    }
+}
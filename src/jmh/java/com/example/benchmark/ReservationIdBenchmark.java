@@ -0,0 +1,46 @@
+package com.example.benchmark;
+
+import com.example.entity.ReservationId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ReservationId}の生成コストのベンチマーク。
+ *
+ * <p>データベースを使用しません。割り当て量は{@code -Djmh.args="-prof gc"}で確認してください。
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ReservationIdBenchmark {
+
+    private long next;
+
+    @Benchmark
+    public ReservationId of() {
+        return ReservationId.of(nextValue());
+    }
+
+    @Benchmark
+    public ReservationId constructor() {
+        return new ReservationId(nextValue());
+    }
+
+    private long nextValue() {
+        // Longキャッシュ（-128〜127）に収まらない値を使う
+        return 1_000 + (next++ & 0xFFFF);
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.benchmark;
+
+import com.example.dao.ReservationDao;
+import com.example.entity.Reservation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.seasar.doma.jdbc.Config;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * IDの採番方式による挿入のスループットを比較するベンチマーク。
+ *
+ * <ul>
+ * <li>{@code sequence*} - {@link Reservation}（{@code SEQUENCE}戦略、100件単位のブロックをメモリから払い出し）</li>
+ * <li>{@code identity*} - {@link IdentityReservation}（{@code IDENTITY}戦略、
+ * 単件では生成されたキーの取得、バッチでは行数分のシーケンス値の予約が挿入ごとに発生）</li>
+ * </ul>
+ *
+ * <p>{@code *All}は{@code batchSize}件を1つのトランザクション内でJDBCバッチにより挿入します。
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReservationIdGenerationBenchmark {
+
+    @Param({"100", "1000"})
+    public int batchSize;
+
+    private ReservationDao sequenceDao;
+    private IdentityReservationDao identityDao;
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * 比較対象の{@code IDENTITY}列のテーブルを作成します。
+     *
+     * @param database ベンチマーク用のデータベース
+     */
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkDatabase database) {
+        database.seed(0);
+        database.bean(JdbcTemplate.class).execute("""
+                CREATE TABLE IF NOT EXISTS reservation_identity
+                (
+                    id   bigserial primary key,
+                    name varchar(100)
+                )""");
+        sequenceDao = database.bean(ReservationDao.class);
+        identityDao = new IdentityReservationDaoImpl(database.bean(Config.class));
+        transactionTemplate = new TransactionTemplate(database.bean(PlatformTransactionManager.class));
+    }
+
+    @Benchmark
+    public int sequence() {
+        var entity = new Reservation();
+        entity.name = "benchmark";
+        return sequenceDao.insert(entity);
+    }
+
+    @Benchmark
+    public int identity() {
+        var entity = new IdentityReservation();
+        entity.name = "benchmark";
+        return identityDao.insert(entity);
+    }
+
+    @Benchmark
+    public int[] sequenceAll() {
+        var entities = new ArrayList<Reservation>(batchSize);
+        for (var i = 0; i < batchSize; i++) {
+            var entity = new Reservation();
+            entity.name = "benchmark";
+            entities.add(entity);
+        }
+        return transactionTemplate.execute(status -> sequenceDao.insertAll(entities));
+    }
+
+    @Benchmark
+    public int[] identityAll() {
+        List<IdentityReservation> entities = new ArrayList<>(batchSize);
+        for (var i = 0; i < batchSize; i++) {
+            var entity = new IdentityReservation();
+            entity.name = "benchmark";
+            entities.add(entity);
+        }
+        return transactionTemplate.execute(status -> identityDao.insertAll(entities));
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.benchmark;
+
+import com.example.service.ReservationPartitionMaintainer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * IDの範囲でパーティション分割した予約テーブルと、分割しない同じ内容のテーブルの読み込みのベンチマーク。
+ *
+ * <p>{@link #tableSize}件の行を{@code reservation.partition.size=100000}で10個のパーティションに分け、
+ * 同じ行・インデックスを持つ分割しないテーブル（{@code reservation_unpartitioned}）を作成して、
+ * 直近に作成された行（最後のパーティション）を読む場合の1回あたりの時間を比較します。
+ * SQLはDAOのSQLファイルと同じ形で、JDBCのプリペアドステートメントとして実行します。
+ * 接続の設定は{@code application.properties}と同じく{@code plan_cache_mode = force_custom_plan}です。
+ * </p>
+ *
+ * <ul>
+ * <li>{@code findById} - IDによる1件の検索</li>
+ * <li>{@code findByIds} - 50件のIDによる検索（{@code id IN (SELECT unnest(?))}）</li>
+ * <li>{@code recentPage} - 指定したIDより後の100件をID順に取得</li>
+ * <li>{@code namePage} - 名前順の先頭20件（IDの条件がないため、分割した場合はすべてのパーティションを探索）</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReservationPartitionBenchmark {
+
+    private static final int PARTITION_SIZE = 100_000;
+    private static final int BATCH_SIZE = 50;
+
+    @Param({"1000000"})
+    public int tableSize;
+
+    @Param({"reservation", "reservation_unpartitioned"})
+    public String table;
+
+    private final BenchmarkDatabase database = new BenchmarkDatabase();
+    private JdbcTemplate jdbcTemplate;
+    private String findByIdSql;
+    private String findByIdsSql;
+    private String recentPageSql;
+    private String namePageSql;
+
+    /**
+     * パーティションの大きさを指定して起動し、{@link #tableSize}件の行を投入して範囲のパーティションに移してから、
+     * 分割しないテーブルに同じ行をコピーします。
+     *
+     * @throws IOException PostgreSQLの起動に失敗した場合
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        database.launch("--reservation.partition.size=" + PARTITION_SIZE, "--reservation.partition.premake=1");
+        database.seed(tableSize);
+        database.bean(ReservationPartitionMaintainer.class).createPartitions();
+        jdbcTemplate = database.bean(JdbcTemplate.class);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS reservation_unpartitioned");
+        jdbcTemplate.execute("CREATE TABLE reservation_unpartitioned (LIKE reservation INCLUDING ALL)");
+        jdbcTemplate.execute("INSERT INTO reservation_unpartitioned SELECT id, name, version, changed_xid FROM reservation");
+        // 範囲のパーティションに移した後のデフォルトパーティションの不要な行も回収する
+        jdbcTemplate.execute("VACUUM ANALYZE");
+        findByIdSql = "SELECT id, name, version FROM " + table + " WHERE id = ?";
+        findByIdsSql = "SELECT id, name, version FROM " + table + " WHERE id IN (SELECT unnest(?::bigint[]))";
+        recentPageSql = "SELECT id, name, version FROM " + table + " WHERE id > ? ORDER BY id LIMIT 100";
+        namePageSql = "SELECT id, name, version FROM " + table + " ORDER BY name, id LIMIT 20";
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        database.stop();
+    }
+
+    @Benchmark
+    public Map<String, Object> findById() {
+        return jdbcTemplate.queryForMap(findByIdSql, hotId());
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> findByIds() {
+        var ids = new Long[BATCH_SIZE];
+        for (var i = 0; i < ids.length; i++) {
+            ids[i] = (long) hotId();
+        }
+        return jdbcTemplate.queryForList(findByIdsSql, (Object) ids);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> recentPage() {
+        return jdbcTemplate.queryForList(recentPageSql, hotId() - 100);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> namePage() {
+        return jdbcTemplate.queryForList(namePageSql);
+    }
+
+    // 最後のパーティション（直近に作成された行）のID
+    private int hotId() {
+        return ThreadLocalRandom.current().nextInt(tableSize - PARTITION_SIZE + 1, tableSize + 1);
+    }
+}
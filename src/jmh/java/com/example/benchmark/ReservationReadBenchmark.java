@@ -0,0 +1,93 @@
+package com.example.benchmark;
+
+import com.example.dao.ReservationDao;
+import com.example.entity.Reservation;
+import com.example.entity.ReservationId;
+import com.example.service.ReservationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 読み込み系のベンチマーク。
+ *
+ * <p>テーブルの件数を変えながら、主キー検索と全件取得（リスト版・ストリーム版）を計測します。
+ * {@code *FirstRow}は先頭の1行を受け取るまでの時間で、リスト版は全件の読み込みを待つ必要があります。
+ * ヒープ使用量は{@code -Djmh.args="-prof gc"}で確認してください。
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReservationReadBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int tableSize;
+
+    private ReservationDao dao;
+    private ReservationService service;
+
+    /**
+     * テーブルに{@link #tableSize}件の行を投入します。
+     *
+     * @param database ベンチマーク用のデータベース
+     */
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkDatabase database) {
+        database.seed(tableSize);
+        dao = database.bean(ReservationDao.class);
+        service = database.bean(ReservationService.class);
+    }
+
+    @Benchmark
+    public Optional<Reservation> selectById() {
+        return dao.selectById(randomId());
+    }
+
+    @Benchmark
+    public Optional<Reservation> findById() {
+        return service.findById(randomId());
+    }
+
+    @Benchmark
+    public List<Reservation> selectAll() {
+        return dao.selectAll();
+    }
+
+    @Benchmark
+    public long streamAll() {
+        return service.streamAll(Stream::count);
+    }
+
+    @Benchmark
+    public Reservation selectAllFirstRow() {
+        return dao.selectAll().getFirst();
+    }
+
+    @Benchmark
+    public Optional<Reservation> streamAllFirstRow() {
+        return service.streamAll(Stream::findFirst);
+    }
+
+    private ReservationId randomId() {
+        return ReservationId.of(ThreadLocalRandom.current().nextInt(1, tableSize + 1));
+    }
+}
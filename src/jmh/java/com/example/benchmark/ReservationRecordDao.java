@@ -0,0 +1,26 @@
+package com.example.benchmark;
+
+import com.example.entity.ReservationRecord;
+import org.seasar.doma.Dao;
+import org.seasar.doma.Select;
+import org.seasar.doma.SelectType;
+import org.seasar.doma.Sql;
+
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * {@link ReservationRecord}をDomaのエンティティのマッピングで読み込むDAO。
+ *
+ * <p>{@code ReservationDao#streamAllRecords}（結果セットから直接生成）との比較用です。
+ * ベンチマーク専用のため、Springのコンポーネントとしては登録せず、
+ * 生成された実装クラスを{@link org.seasar.doma.jdbc.Config}で直接生成します。
+ * </p>
+ */
+@Dao
+public interface ReservationRecordDao {
+
+    @Sql("SELECT id, name, version FROM reservation ORDER BY name, id")
+    @Select(strategy = SelectType.STREAM)
+    <R> R selectAll(Function<Stream<ReservationRecord>, R> mapper);
+}
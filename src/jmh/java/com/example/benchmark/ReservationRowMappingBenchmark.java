@@ -0,0 +1,108 @@
+package com.example.benchmark;
+
+import com.example.entity.ReservationIdCache;
+import com.example.service.ReservationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.seasar.doma.jdbc.Config;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 全件の読み込みで、1行あたりの割り当て量を行のマッピング方法別に比較するベンチマーク。
+ *
+ * <ul>
+ * <li>{@code entity} - {@link ReservationService#streamAll}（可変の{@code Reservation}、Domaのマッピング）</li>
+ * <li>{@code recordDomaMapped} - {@link ReservationRecordDao}（不変の{@code ReservationRecord}、Domaのマッピング）</li>
+ * <li>{@code record} - {@link ReservationService#streamAllRecords}（不変の{@code ReservationRecord}、結果セットから直接生成）</li>
+ * </ul>
+ *
+ * <p>{@code idCache=true}ではテーブルのIDの範囲全体に{@link ReservationIdCache}をインストールします。
+ * 各行はストリームから{@link Blackhole}に渡し、リストに保持しません。
+ * 割り当て量は{@code -Djmh.args="-prof gc"}の{@code gc.alloc.rate.norm}を{@code tableSize}で割って比較してください。
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReservationRowMappingBenchmark {
+
+    @Param({"100000"})
+    public int tableSize;
+
+    @Param({"false", "true"})
+    public boolean idCache;
+
+    private ReservationService service;
+    private ReservationRecordDao recordDao;
+    private TransactionTemplate readOnly;
+    private ReservationIdCache cache;
+
+    /**
+     * テーブルに{@link #tableSize}件の行を投入し、必要に応じてIDのキャッシュをインストールします。
+     *
+     * @param database ベンチマーク用のデータベース
+     */
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkDatabase database) {
+        database.seed(tableSize);
+        service = database.bean(ReservationService.class);
+        recordDao = new ReservationRecordDaoImpl(database.bean(Config.class));
+        readOnly = new TransactionTemplate(database.bean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+        if (idCache) {
+            cache = ReservationIdCache.install(1, tableSize);
+        }
+    }
+
+    /**
+     * インストールしたIDのキャッシュをアンインストールします。
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (cache != null) {
+            cache.close();
+        }
+    }
+
+    @Benchmark
+    public Object entity(Blackhole blackhole) {
+        return service.streamAll(stream -> {
+            stream.forEach(blackhole::consume);
+            return null;
+        });
+    }
+
+    @Benchmark
+    public Object recordDomaMapped(Blackhole blackhole) {
+        return readOnly.execute(status -> recordDao.selectAll(stream -> {
+            stream.forEach(blackhole::consume);
+            return null;
+        }));
+    }
+
+    @Benchmark
+    public Object record(Blackhole blackhole) {
+        return service.streamAllRecords(stream -> {
+            stream.forEach(blackhole::consume);
+            return null;
+        });
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.benchmark;
+
+import com.example.entity.Reservation;
+import com.example.service.ReservationService;
+import com.example.service.SaveMode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SaveMode}ごとの{@link ReservationService#save}のスループットを、
+ * 複数スレッドから同時に書き込む条件で比較するベンチマーク。
+ *
+ * <p>{@code *InTransaction}は外側のトランザクション内での呼び出しで、
+ * どちらの方式でもセーブポイントが作成されます。
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class ReservationSaveModeBenchmark {
+
+    private static final int TABLE_SIZE = 10_000;
+
+    @Param({"NESTED", "UPSERT"})
+    public SaveMode mode;
+
+    private ReservationService service;
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * テーブルに更新対象の行を投入します。
+     *
+     * @param database ベンチマーク用のデータベース
+     */
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkDatabase database) {
+        database.seed(TABLE_SIZE);
+        service = database.bean(ReservationService.class);
+        transactionTemplate = new TransactionTemplate(database.bean(PlatformTransactionManager.class));
+    }
+
+    @Benchmark
+    public int saveInsert() {
+        return service.save(newReservation(), mode);
+    }
+
+    @Benchmark
+    public int saveUpdate(ExistingReservations rows) {
+        return service.save(rows.next(TABLE_SIZE), mode);
+    }
+
+    @Benchmark
+    public Integer saveUpdateInTransaction(ExistingReservations rows) {
+        return transactionTemplate.execute(status -> service.save(rows.next(TABLE_SIZE), mode));
+    }
+
+    private static Reservation newReservation() {
+        var entity = new Reservation();
+        entity.name = "benchmark";
+        return entity;
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.benchmark;
+
+import com.example.entity.ReservationSummary;
+import com.example.service.ReservationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 名前による検索のベンチマーク。
+ *
+ * <p>{@link BenchmarkDatabase#seed}で投入した{@code md5(id)}の名前に対し、
+ * インデックスを使う前方一致・部分一致・類似検索と、全件を読み込んでメモリ上で絞り込む場合
+ * （{@code prefixInMemory}）の1回あたりの時間を比較します。
+ * 類似検索には、既存の行の名前の1文字を置き換えた文字列を使います。
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReservationSearchBenchmark {
+
+    private static final int LIMIT = 20;
+
+    @Param({"100000", "1000000"})
+    public int tableSize;
+
+    private ReservationService service;
+
+    /**
+     * テーブルに{@link #tableSize}件の行を投入します。
+     *
+     * @param database ベンチマーク用のデータベース
+     */
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkDatabase database) {
+        database.seed(tableSize);
+        service = database.bean(ReservationService.class);
+    }
+
+    @Benchmark
+    public List<ReservationSummary> prefix() {
+        return service.findSummariesByNamePrefix(randomName().substring(0, 4), LIMIT);
+    }
+
+    @Benchmark
+    public List<ReservationSummary> containing() {
+        return service.findSummariesByNameContaining(randomName().substring(10, 15), LIMIT);
+    }
+
+    @Benchmark
+    public List<ReservationSummary> similar() {
+        var name = randomName();
+        return service.findSummariesBySimilarName(name.substring(0, 16) + "x" + name.substring(17), LIMIT);
+    }
+
+    @Benchmark
+    public List<String> prefixInMemory() {
+        var prefix = randomName().substring(0, 4);
+        return service.streamAll(stream -> stream
+                .map(entity -> entity.name)
+                .filter(name -> name.startsWith(prefix))
+                .sorted()
+                .limit(LIMIT)
+                .toList());
+    }
+
+    private String randomName() {
+        return md5(Integer.toString(ThreadLocalRandom.current().nextInt(1, tableSize + 1)));
+    }
+
+    private static String md5(String value) {
+        try {
+            var digest = MessageDigest.getInstance("MD5").digest(value.getBytes(StandardCharsets.UTF_8));
+            return String.format("%032x", new BigInteger(1, digest));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
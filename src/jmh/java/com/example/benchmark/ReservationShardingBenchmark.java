@@ -0,0 +1,126 @@
+package com.example.benchmark;
+
+import com.example.dao.ShardedReservationDao;
+import com.example.entity.Reservation;
+import com.example.entity.ReservationId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ShardedReservationDao}のシャード数別のベンチマーク。
+ *
+ * <p>組み込みPostgreSQLに{@link #shards}個のデータベースを作成してシャードとし、
+ * {@link #tableSize}件の行をIDのハッシュ（シャード数で割った余り）で振り分けて投入します。
+ * シャードは同じPostgreSQLのプロセスを共有するため、書き込みの分散による向上ではなく、
+ * 1つのシャードへの振り分けのコストと、すべてのシャードへの並列の問い合わせとマージのコストを計測します。
+ * </p>
+ *
+ * <ul>
+ * <li>{@code findById} - IDによる1件の検索（1つのシャード）</li>
+ * <li>{@code insert} - IDを採番して1件挿入（ラウンドロビンで選んだシャード）</li>
+ * <li>{@code namePage} - ランダムなカーソルより後の20件を名前順に取得（すべてのシャードに並列に問い合わせてマージ）</li>
+ * <li>{@code selectAll} - 全件を名前順に取得（同上）</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReservationShardingBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"10000"})
+    public int tableSize;
+
+    @Param({"1", "4"})
+    public int shards;
+
+    private final BenchmarkDatabase database = new BenchmarkDatabase();
+    private ShardedReservationDao dao;
+
+    /**
+     * シャードのデータベースを作成して行を振り分けてから、シャードを指定してアプリケーションを起動します。
+     *
+     * @throws IOException PostgreSQLの起動に失敗した場合
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        database.startPostgres();
+        var urls = new ArrayList<String>(shards);
+        for (var i = 0; i < shards; i++) {
+            var url = database.createDatabase("shard" + i);
+            seed(url, i);
+            urls.add(url);
+        }
+        database.launch("--reservation.shards.urls=" + String.join(",", urls),
+                "--reservation.shards.username=postgres",
+                "--reservation.shards.password=postgres");
+        dao = database.bean(ShardedReservationDao.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        database.stop();
+    }
+
+    @Benchmark
+    public Optional<Reservation> findById() {
+        return dao.selectById(ReservationId.of(ThreadLocalRandom.current().nextInt(1, tableSize + 1)));
+    }
+
+    @Benchmark
+    public int insert() {
+        var reservation = new Reservation();
+        reservation.name = "benchmark";
+        return dao.insert(reservation);
+    }
+
+    @Benchmark
+    public List<Reservation> namePage() {
+        var name = HexFormat.of().toHexDigits(ThreadLocalRandom.current().nextInt());
+        return dao.selectPageByName(name, ReservationId.of(0), PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Reservation> selectAll() {
+        return dao.selectAll();
+    }
+
+    // 1から tableSize までのIDのうちシャード shard に振り分けられる行を投入し、以降に採番するIDと重ならないようにする
+    private void seed(String url, int shard) {
+        var dataSource = new SingleConnectionDataSource(url, "postgres", "postgres", true);
+        try {
+            var jdbcTemplate = new JdbcTemplate(dataSource);
+            jdbcTemplate.update("INSERT INTO reservation (id, name) SELECT g, md5(g::text) "
+                    + "FROM generate_series(1, ?) g WHERE g % ? = ?", tableSize, shards, shard);
+            jdbcTemplate.queryForObject("SELECT setval('reservation_id_seq', ?)", Long.class, tableSize / shards + 1);
+            jdbcTemplate.execute("ANALYZE reservation");
+        } finally {
+            dataSource.destroy();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.benchmark;
+
+import com.example.entity.ReservationId;
+import com.example.entity.ReservationSummary;
+import com.example.service.ReservationService;
+import com.example.service.ReservationSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ReservationSnapshot}のベンチマーク。
+ *
+ * <ul>
+ * <li>{@code selectAll} / {@code snapshotFindAll} - ノードが参照表を作り直すために全件を読み込む場合と、
+ * スナップショットを参照する場合の比較</li>
+ * <li>{@code snapshotFindById} - スナップショットの主キー検索</li>
+ * <li>{@code updateAndAwait} - 1行を更新してから、その変更がスナップショットに反映されるまでの時間
+ * （コミット・{@code NOTIFY}・変更行の読み直し・スナップショットの作り直しを含む）</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReservationSnapshotBenchmark {
+
+    @Param({"10000", "100000"})
+    public int tableSize;
+
+    private final BenchmarkDatabase database = new BenchmarkDatabase();
+    private ReservationService service;
+    private ReservationSnapshot snapshot;
+    private int updates;
+
+    /**
+     * スナップショットを有効にして起動し、通知のトリガーを作成してから{@link #tableSize}件の行を投入します。
+     *
+     * @throws IOException PostgreSQLの起動に失敗した場合
+     * @throws InterruptedException 全件の反映を待つ間に割り込まれた場合
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, InterruptedException {
+        database.launch("--reservation.snapshot.enabled=true");
+        database.installNotifyTrigger();
+        service = database.bean(ReservationService.class);
+        snapshot = database.bean(ReservationSnapshot.class);
+        database.seed(tableSize);
+        while (snapshot.size() != tableSize) {
+            Thread.sleep(10);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        database.stop();
+    }
+
+    @Benchmark
+    public List<ReservationSummary> selectAll() {
+        return service.streamAll(stream -> stream
+                .map(entity -> new ReservationSummary(entity.getId(), entity.name))
+                .toList());
+    }
+
+    @Benchmark
+    public List<ReservationSummary> snapshotFindAll() {
+        return snapshot.findAll();
+    }
+
+    @Benchmark
+    public Optional<ReservationSummary> snapshotFindById() {
+        return snapshot.findById(randomId());
+    }
+
+    @Benchmark
+    public ReservationSummary updateAndAwait() {
+        var id = randomId();
+        var name = "updated-" + updates++;
+        service.update(id, entity -> entity.name = name);
+        while (true) {
+            var summary = snapshot.findById(id).orElseThrow();
+            if (name.equals(summary.name())) {
+                return summary;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    private ReservationId randomId() {
+        return ReservationId.of(ThreadLocalRandom.current().nextInt(1, tableSize + 1));
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.benchmark;
+
+import com.example.entity.ReservationId;
+import com.example.service.ReservationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 起動時のウォームアップ（{@code reservation.warmup.enabled}）の有無による、
+ * アプリケーションの起動時間と最初のリクエストのレイテンシを比較するベンチマーク。
+ *
+ * <p>JVMが冷えた状態を計測するため、フォークごとに1回だけ計測します。
+ * </p>
+ * <ul>
+ * <li>{@code startup} - アプリケーションコンテキストの起動から準備完了まで
+ * （組み込みPostgreSQLの起動は含みません）</li>
+ * <li>{@code firstRequest} - 準備完了後の最初の検索（SQLファイルの解析と接続の確立を含む）</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+public class ReservationStartupBenchmark {
+
+    @Benchmark
+    public Object startup(Startup state) throws IOException {
+        state.database.launch("--reservation.warmup.enabled=" + state.warmup);
+        return state.database;
+    }
+
+    @Benchmark
+    public Object firstRequest(Ready state) {
+        var service = state.service;
+        return new Object[]{
+                service.findById(ReservationId.of(1)),
+                service.findPage(null, 10),
+                service.findAllById(1, 2, 3)
+        };
+    }
+
+    /**
+     * 組み込みPostgreSQLのみを起動した状態。
+     */
+    @State(Scope.Benchmark)
+    public static class Startup {
+
+        @Param({"true", "false"})
+        public boolean warmup;
+
+        final BenchmarkDatabase database = new BenchmarkDatabase();
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            database.startPostgres();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            database.stop();
+        }
+    }
+
+    /**
+     * アプリケーションの起動が完了し、まだ1件もリクエストを処理していない状態。
+     */
+    @State(Scope.Benchmark)
+    public static class Ready {
+
+        @Param({"true", "false"})
+        public boolean warmup;
+
+        final BenchmarkDatabase database = new BenchmarkDatabase();
+        ReservationService service;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            database.launch("--reservation.warmup.enabled=" + warmup);
+            service = database.bean(ReservationService.class);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            database.stop();
+        }
+    }
+}
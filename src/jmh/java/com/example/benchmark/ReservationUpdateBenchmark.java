@@ -0,0 +1,85 @@
+package com.example.benchmark;
+
+import com.example.entity.ReservationId;
+import com.example.service.ReservationService;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ReservationService#update(ReservationId, java.util.function.Consumer)}のスループットを、
+ * 8スレッドが更新する行数（{@code hotRows}）を変えて競合の度合いごとに計測するベンチマーク。
+ *
+ * <p>{@code hotRows=1}ではすべてのスレッドが同じ行を更新します。
+ * 再試行しても競合が解消しなかった呼び出しの数は{@code exhausted}として出力されます。
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class ReservationUpdateBenchmark {
+
+    private static final int TABLE_SIZE = 10_000;
+
+    @Param({"1", "16", "10000"})
+    public int hotRows;
+
+    private ReservationService service;
+
+    /**
+     * テーブルに更新対象の行を投入します。
+     *
+     * @param database ベンチマーク用のデータベース
+     */
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkDatabase database) {
+        database.seed(TABLE_SIZE);
+        service = database.bean(ReservationService.class);
+    }
+
+    @Benchmark
+    public Optional<?> update(Conflicts conflicts) {
+        var id = ReservationId.of(ThreadLocalRandom.current().nextInt(1, hotRows + 1));
+        try {
+            return service.update(id, entity -> entity.name = "benchmark");
+        } catch (OptimisticLockingFailureException e) {
+            conflicts.exhausted++;
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * 再試行回数を超えて失敗した呼び出しの数。
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Conflicts {
+
+        public long exhausted;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            exhausted = 0;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.benchmark;
+
+import com.example.dao.ReservationDao;
+import com.example.entity.Reservation;
+import com.example.service.ReservationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 書き込み系のベンチマーク。
+ *
+ * <p>DAOの{@code insert}/{@code update}と、{@link ReservationService#save}を計測します。
+ * {@code updateInTransaction}と{@code saveUpdateInTransaction}の差が、
+ * 外側のトランザクション内で{@code PROPAGATION_NESTED}が作成するセーブポイントのコストです。
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReservationWriteBenchmark {
+
+    private static final int TABLE_SIZE = 10_000;
+
+    private ReservationDao dao;
+    private ReservationService service;
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * テーブルに更新対象の行を投入します。
+     *
+     * @param database ベンチマーク用のデータベース
+     */
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkDatabase database) {
+        database.seed(TABLE_SIZE);
+        dao = database.bean(ReservationDao.class);
+        service = database.bean(ReservationService.class);
+        transactionTemplate = new TransactionTemplate(database.bean(PlatformTransactionManager.class));
+    }
+
+    @Benchmark
+    public int insert() {
+        return dao.insert(newReservation());
+    }
+
+    @Benchmark
+    public int update(ExistingReservations rows) {
+        return dao.update(rows.next(TABLE_SIZE));
+    }
+
+    @Benchmark
+    public int saveInsert() {
+        return service.save(newReservation());
+    }
+
+    @Benchmark
+    public int saveUpdate(ExistingReservations rows) {
+        return service.save(rows.next(TABLE_SIZE));
+    }
+
+    @Benchmark
+    public Integer updateInTransaction(ExistingReservations rows) {
+        return transactionTemplate.execute(status -> dao.update(rows.next(TABLE_SIZE)));
+    }
+
+    @Benchmark
+    public Integer saveUpdateInTransaction(ExistingReservations rows) {
+        return transactionTemplate.execute(status -> service.save(rows.next(TABLE_SIZE)));
+    }
+
+    private static Reservation newReservation() {
+        var entity = new Reservation();
+        entity.name = "benchmark";
+        return entity;
+    }
+}
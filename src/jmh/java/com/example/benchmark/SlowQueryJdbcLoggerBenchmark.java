@@ -0,0 +1,71 @@
+package com.example.benchmark;
+
+import com.example.doma.jdbc.MeteredJdbcLogger;
+import com.example.doma.jdbc.SlowQueryJdbcLogger;
+import com.example.doma.jdbc.SlowQueryLog;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.seasar.doma.jdbc.JdbcLogger;
+import org.seasar.doma.jdbc.PreparedSql;
+import org.seasar.doma.jdbc.SqlKind;
+import org.seasar.doma.jdbc.SqlLogType;
+import org.seasar.doma.jdbc.UtilLoggingJdbcLogger;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * しきい値以下のSQLに対する{@link SlowQueryJdbcLogger}の追加コストを、
+ * {@link MeteredJdbcLogger}のみの場合と比較するベンチマーク。
+ *
+ * <p>データベースを使用せず、DAOメソッド1回分の通知（開始・SQL・終了）のみを計測します。
+ * 割り当て量は{@code -Djmh.args="-prof gc"}で確認してください。
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SlowQueryJdbcLoggerBenchmark {
+
+    private static final String DAO_IMPL = "com.example.dao.ReservationDaoImpl";
+    private static final PreparedSql SQL = new PreparedSql(SqlKind.SELECT,
+            "select id, name, version from reservation where id = ?",
+            "select id, name, version from reservation where id = 1",
+            "META-INF/com/example/dao/ReservationDao/selectById.sql", List.of(), SqlLogType.FORMATTED);
+
+    // ログ出力自体のコストを除くため、出力されないレベルを指定する
+    private final JdbcLogger metered = new MeteredJdbcLogger(
+            new UtilLoggingJdbcLogger(Level.FINEST), new SimpleMeterRegistry());
+    private final JdbcLogger slowQuery = new SlowQueryJdbcLogger(
+            new MeteredJdbcLogger(new UtilLoggingJdbcLogger(Level.FINEST), new SimpleMeterRegistry()),
+            new SlowQueryLog(256), Duration.ofMillis(500), null);
+
+    @Benchmark
+    public void metered() {
+        invoke(metered);
+    }
+
+    @Benchmark
+    public void slowQueryBelowThreshold() {
+        invoke(slowQuery);
+    }
+
+    private static void invoke(JdbcLogger logger) {
+        logger.logDaoMethodEntering(DAO_IMPL, "selectById");
+        logger.logSql(DAO_IMPL, "selectById", SQL);
+        logger.logDaoMethodExiting(DAO_IMPL, "selectById", null);
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.actuator;
+
+import com.example.doma.jdbc.SlowQuery;
+import com.example.doma.jdbc.SlowQueryLog;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * しきい値を超えたSQLの記録を参照するアクチュエーターのエンドポイント（{@code /actuator/slowqueries}）。
+ *
+ * <p>GETで新しい順の記録を返し、DELETEで記録を削除します。
+ * 記録にはバインド変数の値が含まれるため、デフォルトでは公開しません。
+ * 公開するには、アクセスを制限した環境で{@code management.endpoints.web.exposure.include}に{@code slowqueries}を含めてください。
+ * </p>
+ */
+@Component
+@Endpoint(id = "slowqueries")
+public class SlowQueryEndpoint {
+
+    private final SlowQueryLog log;
+
+    /**
+     * SlowQueryEndpointを構築します。
+     *
+     * @param log しきい値を超えたSQLの記録
+     */
+    SlowQueryEndpoint(SlowQueryLog log) {
+        this.log = log;
+    }
+
+    /**
+     * 保持している記録を新しい順に返します。
+     *
+     * @return 記録のリスト
+     */
+    @ReadOperation
+    public List<SlowQuery> slowQueries() {
+        return log.snapshot();
+    }
+
+    /**
+     * 保持している記録をすべて削除します。
+     */
+    @DeleteOperation
+    public void clear() {
+        log.clear();
+    }
+}
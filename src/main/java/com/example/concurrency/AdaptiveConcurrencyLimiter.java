@@ -0,0 +1,248 @@
+package com.example.concurrency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * 観測したレイテンシに応じて同時実行数の上限を調整するリミッター。
+ *
+ * <p>上限に達している場合、{@link #acquire()}は待たずに{@link ConcurrencyLimitExceededException}で拒否します。
+ * 上限は勾配法（Netflixのconcurrency-limitsのGradient2と同じ考え方）で調整します。
+ * 完了した呼び出しの所要時間を{@code window}ごとに平均し（短期のレイテンシ）、
+ * その指数移動平均（長期のレイテンシ）と比較します。
+ * </p>
+ * <ul>
+ * <li>短期のレイテンシが長期の{@code tolerance}倍以内 - 上限を{@code sqrt(上限)}ずつ増やす</li>
+ * <li>短期のレイテンシが長期の{@code tolerance}倍を超える - 比率（最小0.5）に応じて上限を減らす</li>
+ * <li>過負荷を示す失敗（{@link Permit#drop()}）があった - 上限を0.9倍にする</li>
+ * </ul>
+ * <p>上限の変化は平滑化し、{@code minLimit}から{@code maxLimit}の範囲に収めます。
+ * 同時実行数が上限の半分に届かないウィンドウでは、負荷が上限を決めていないため上限を増やしません。
+ * </p>
+ *
+ * <h3>メトリクス</h3>
+ * <p>いずれもタグ{@code kind}にリミッターの名前を設定します。</p>
+ * <ul>
+ * <li>{@code reservation.concurrency.limit} - 現在の上限</li>
+ * <li>{@code reservation.concurrency.in.flight} - 実行中の呼び出しの数</li>
+ * <li>{@code reservation.concurrency.rejected} - 上限を超えて拒否した呼び出しの数</li>
+ * </ul>
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    static final String LIMIT_METER = "reservation.concurrency.limit";
+    static final String IN_FLIGHT_METER = "reservation.concurrency.in.flight";
+    static final String REJECTED_METER = "reservation.concurrency.rejected";
+
+    // 上限の変化の平滑化係数
+    private static final double SMOOTHING = 0.2;
+    // 長期のレイテンシ（ウィンドウの平均の指数移動平均）の平滑化係数（約100ウィンドウ）。
+    // 持続的なレイテンシの増加は、この期間をかけて新しい基準として受け入れる
+    private static final double LONG_RTT_SMOOTHING = 0.01;
+    // 過負荷を示す失敗があった場合に上限に掛ける比率
+    private static final double BACKOFF_RATIO = 0.9;
+    // ウィンドウを締めるのに必要な最小の完了数（過負荷を示す失敗があった場合を除く）
+    private static final int MIN_WINDOW_SAMPLES = 10;
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final long windowNanos;
+    private final LongSupplier nanoClock;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter rejected;
+    private volatile int limit;
+
+    // 以下はthisで保護する
+    private double estimatedLimit;
+    private double longRtt;
+    private long windowStart;
+    private long windowRttSum;
+    private int windowSamples;
+    private int windowMaxInFlight;
+    private boolean windowDropped;
+
+    /**
+     * AdaptiveConcurrencyLimiterを構築し、メトリクスを登録します。
+     *
+     * @param name          リミッターの名前（メトリクスのタグ{@code kind}と拒否のメッセージに使用）
+     * @param initialLimit  上限の初期値
+     * @param minLimit      上限の最小値
+     * @param maxLimit      上限の最大値
+     * @param tolerance     上限を減らし始める、長期のレイテンシに対する短期のレイテンシの比率
+     * @param window        短期のレイテンシを平均する期間
+     * @param meterRegistry メトリクスの登録先
+     */
+    public AdaptiveConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit,
+                                      double tolerance, Duration window, MeterRegistry meterRegistry) {
+        this(name, initialLimit, minLimit, maxLimit, tolerance, window, meterRegistry, System::nanoTime);
+    }
+
+    AdaptiveConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit,
+                               double tolerance, Duration window, MeterRegistry meterRegistry,
+                               LongSupplier nanoClock) {
+        if (minLimit <= 0 || minLimit > maxLimit) {
+            throw new IllegalArgumentException(
+                    "limits must satisfy 0 < min <= max: min=" + minLimit + ", max=" + maxLimit);
+        }
+        if (initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("initial limit must be between " + minLimit + " and " + maxLimit
+                    + ": " + initialLimit);
+        }
+        if (tolerance < 1.0) {
+            throw new IllegalArgumentException("tolerance must be at least 1.0: " + tolerance);
+        }
+        if (!window.isPositive()) {
+            throw new IllegalArgumentException("window must be positive: " + window);
+        }
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.windowNanos = window.toNanos();
+        this.nanoClock = nanoClock;
+        this.limit = initialLimit;
+        this.estimatedLimit = initialLimit;
+        Gauge.builder(LIMIT_METER, this, AdaptiveConcurrencyLimiter::limit)
+                .description("Current adaptive concurrency limit")
+                .tag("kind", name)
+                .register(meterRegistry);
+        Gauge.builder(IN_FLIGHT_METER, inFlight, AtomicInteger::get)
+                .description("Number of calls currently holding a concurrency permit")
+                .tag("kind", name)
+                .register(meterRegistry);
+        this.rejected = Counter.builder(REJECTED_METER)
+                .description("Number of calls rejected because the concurrency limit was reached")
+                .tag("kind", name)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 実行の許可を取得します。
+     *
+     * <p>取得した許可は、呼び出しの完了後に必ず{@link Permit#release()}または{@link Permit#drop()}で返してください。
+     *
+     * @return 実行の許可
+     * @throws ConcurrencyLimitExceededException 実行中の呼び出しの数が上限に達している場合
+     */
+    public Permit acquire() {
+        while (true) {
+            var current = inFlight.get();
+            var currentLimit = limit;
+            if (current >= currentLimit) {
+                rejected.increment();
+                throw new ConcurrencyLimitExceededException(name, currentLimit);
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return new Permit(nanoClock.getAsLong(), current + 1);
+            }
+        }
+    }
+
+    /**
+     * 現在の上限を返します。
+     *
+     * @return 同時実行数の上限
+     */
+    public int limit() {
+        return limit;
+    }
+
+    /**
+     * 実行中の呼び出しの数を返します。
+     *
+     * @return 許可を保持している呼び出しの数
+     */
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    private synchronized void onComplete(long startNanos, int inFlightAtStart, boolean dropped) {
+        var now = nanoClock.getAsLong();
+        if (windowSamples == 0 && !windowDropped) {
+            windowStart = startNanos;
+        }
+        if (dropped) {
+            // タイムアウトなどの所要時間はレイテンシとして扱わない
+            windowDropped = true;
+        } else {
+            windowRttSum += now - startNanos;
+            windowSamples++;
+        }
+        windowMaxInFlight = Math.max(windowMaxInFlight, inFlightAtStart);
+        if (now - windowStart >= windowNanos && (windowDropped || windowSamples >= MIN_WINDOW_SAMPLES)) {
+            update();
+        }
+    }
+
+    private void update() {
+        if (windowDropped) {
+            estimatedLimit *= BACKOFF_RATIO;
+        } else {
+            // 0除算を避けるため1ナノ秒を下限とする
+            var shortRtt = Math.max(1.0, (double) windowRttSum / windowSamples);
+            longRtt = longRtt == 0 ? shortRtt : longRtt * (1 - LONG_RTT_SMOOTHING) + shortRtt * LONG_RTT_SMOOTHING;
+            // 負荷が下がってレイテンシが回復した場合は、長期のレイテンシも早めに追従させる
+            if (longRtt / shortRtt > 2) {
+                longRtt *= 0.95;
+            }
+            if (windowMaxInFlight * 2 >= estimatedLimit) {
+                var gradient = Math.clamp(tolerance * longRtt / shortRtt, 0.5, 1.0);
+                var newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+                estimatedLimit = estimatedLimit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+            }
+        }
+        estimatedLimit = Math.clamp(estimatedLimit, minLimit, maxLimit);
+        limit = (int) estimatedLimit;
+        windowRttSum = 0;
+        windowSamples = 0;
+        windowMaxInFlight = 0;
+        windowDropped = false;
+    }
+
+    /**
+     * {@link #acquire()}で取得した実行の許可。
+     */
+    public final class Permit {
+
+        private final long startNanos;
+        private final int inFlightAtStart;
+        private boolean released;
+
+        private Permit(long startNanos, int inFlightAtStart) {
+            this.startNanos = startNanos;
+            this.inFlightAtStart = inFlightAtStart;
+        }
+
+        /**
+         * 呼び出しが完了したことを通知し、所要時間をレイテンシとして記録して許可を返します。
+         */
+        public void release() {
+            complete(false);
+        }
+
+        /**
+         * 過負荷を示す失敗（タイムアウトなど）で呼び出しが終了したことを通知し、許可を返します。
+         *
+         * <p>所要時間はレイテンシとして記録せず、次のウィンドウで上限を減らします。
+         */
+        public void drop() {
+            complete(true);
+        }
+
+        private void complete(boolean dropped) {
+            if (released) {
+                return;
+            }
+            released = true;
+            inFlight.decrementAndGet();
+            onComplete(startNanos, inFlightAtStart, dropped);
+        }
+    }
+}
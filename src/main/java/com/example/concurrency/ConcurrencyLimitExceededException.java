@@ -0,0 +1,45 @@
+package com.example.concurrency;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 同時実行数が{@link AdaptiveConcurrencyLimiter}の上限に達しているため、呼び出しを実行せずに拒否したことを示す例外。
+ *
+ * <p>呼び出しは開始されていないため、時間をおいて再試行できます。
+ * HTTPなどで公開する場合は{@code 503 Service Unavailable}に対応します。
+ */
+public class ConcurrencyLimitExceededException extends RejectedExecutionException {
+
+    private final String kind;
+    private final int limit;
+
+    /**
+     * ConcurrencyLimitExceededExceptionを構築します。
+     *
+     * @param kind  拒否したリミッターの名前（{@code read}・{@code write}）
+     * @param limit 拒否した時点の上限
+     */
+    public ConcurrencyLimitExceededException(String kind, int limit) {
+        super("Concurrency limit for " + kind + " calls exceeded (limit " + limit + ")");
+        this.kind = kind;
+        this.limit = limit;
+    }
+
+    /**
+     * 拒否したリミッターの名前を返します。
+     *
+     * @return リミッターの名前
+     */
+    public String getKind() {
+        return kind;
+    }
+
+    /**
+     * 拒否した時点の上限を返します。
+     *
+     * @return 同時実行数の上限
+     */
+    public int getLimit() {
+        return limit;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.concurrency;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+/**
+ * メソッドの呼び出しを読み込み用・書き込み用の{@link AdaptiveConcurrencyLimiter}で制限するインターセプター。
+ *
+ * <p>メソッド名が{@code find}・{@code stream}・{@code forEach}で始まるメソッドは読み込み用、
+ * それ以外は書き込み用のリミッターの許可を取得してから呼び出し、完了後の所要時間を記録します。
+ * 上限に達している場合は呼び出さずに{@link ConcurrencyLimitExceededException}をスローします。
+ * </p>
+ *
+ * <p>コネクションの取得やトランザクションの開始の失敗、クエリのタイムアウトは過負荷を示すものとして
+ * {@link AdaptiveConcurrencyLimiter.Permit#drop()}で通知し、上限を減らします。
+ * その他の例外（楽観的排他制御の競合など）は通常の完了として所要時間を記録します。
+ * </p>
+ */
+public class ConcurrencyLimitInterceptor implements MethodInterceptor {
+
+    private static final List<String> READ_PREFIXES = List.of("find", "stream", "forEach");
+
+    private final AdaptiveConcurrencyLimiter readLimiter;
+    private final AdaptiveConcurrencyLimiter writeLimiter;
+
+    /**
+     * ConcurrencyLimitInterceptorを構築します。
+     *
+     * @param readLimiter  読み込み用のリミッター
+     * @param writeLimiter 書き込み用のリミッター
+     */
+    public ConcurrencyLimitInterceptor(AdaptiveConcurrencyLimiter readLimiter,
+                                       AdaptiveConcurrencyLimiter writeLimiter) {
+        this.readLimiter = readLimiter;
+        this.writeLimiter = writeLimiter;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        var limiter = isRead(invocation.getMethod()) ? readLimiter : writeLimiter;
+        var permit = limiter.acquire();
+        try {
+            var result = invocation.proceed();
+            permit.release();
+            return result;
+        } catch (Throwable e) {
+            if (isOverload(e)) {
+                permit.drop();
+            } else {
+                permit.release();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 読み込み用のリミッターで制限するメソッドかどうかを判定します。
+     *
+     * @param method メソッド
+     * @return メソッド名が読み込みの接頭辞で始まる場合はtrue
+     */
+    static boolean isRead(Method method) {
+        var name = method.getName();
+        return READ_PREFIXES.stream().anyMatch(name::startsWith);
+    }
+
+    /**
+     * 過負荷を示す例外かどうかを判定します。
+     *
+     * @param e 呼び出しがスローした例外
+     * @return コネクションの取得・トランザクションの開始の失敗、またはタイムアウトの場合はtrue
+     */
+    static boolean isOverload(Throwable e) {
+        return e instanceof CannotGetJdbcConnectionException
+                || e instanceof CannotCreateTransactionException
+                || e instanceof QueryTimeoutException
+                || e instanceof TransientDataAccessResourceException;
+    }
+}
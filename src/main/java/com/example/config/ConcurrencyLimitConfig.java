@@ -0,0 +1,118 @@
+package com.example.config;
+
+import com.example.concurrency.AdaptiveConcurrencyLimiter;
+import com.example.concurrency.ConcurrencyLimitInterceptor;
+import com.example.service.ReservationService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.RootClassFilter;
+import org.springframework.aop.support.StaticMethodMatcher;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.time.Duration;
+
+/**
+ * {@link ReservationService}の呼び出しの同時実行数を適応的に制限する設定クラス。
+ *
+ * <p>{@code reservation.concurrency.enabled=true}の場合にのみ有効になり、
+ * {@link ReservationService}のpublicメソッドを{@link ConcurrencyLimitInterceptor}で囲みます。
+ * 読み込みと書き込みはそれぞれのリミッターで制限され、上限を超えた呼び出しは待たずに
+ * {@link com.example.concurrency.ConcurrencyLimitExceededException}で拒否されます。
+ * </p>
+ *
+ * <p>インターセプターはトランザクションのインターセプターより外側で実行されるため、
+ * 拒否された呼び出しはトランザクションを開始せず、コネクションプールの取得待ちにも並びません。
+ * 所要時間にはコネクションの取得待ちとトランザクションのコミットが含まれます。
+ * {@code findById}のキャッシュヒットも短い所要時間として記録されます。
+ * </p>
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty("reservation.concurrency.enabled")
+public class ConcurrencyLimitConfig {
+
+    /**
+     * 読み込み用のリミッターのBean定義。
+     *
+     * @param meterRegistry メトリクスの登録先
+     * @param initialLimit  上限の初期値
+     * @param minLimit      上限の最小値
+     * @param maxLimit      上限の最大値
+     * @param tolerance     上限を減らし始める、長期のレイテンシに対する短期のレイテンシの比率
+     * @param window        短期のレイテンシを平均する期間
+     * @return 読み込み用の{@link AdaptiveConcurrencyLimiter}
+     */
+    @Bean
+    public AdaptiveConcurrencyLimiter readConcurrencyLimiter(
+            MeterRegistry meterRegistry,
+            @Value("${reservation.concurrency.read.initial-limit:20}") int initialLimit,
+            @Value("${reservation.concurrency.min-limit:1}") int minLimit,
+            @Value("${reservation.concurrency.read.max-limit:200}") int maxLimit,
+            @Value("${reservation.concurrency.tolerance:1.5}") double tolerance,
+            @Value("${reservation.concurrency.window:100ms}") Duration window) {
+        return new AdaptiveConcurrencyLimiter("read", initialLimit, minLimit, maxLimit, tolerance, window,
+                meterRegistry);
+    }
+
+    /**
+     * 書き込み用のリミッターのBean定義。
+     *
+     * @param meterRegistry メトリクスの登録先
+     * @param initialLimit  上限の初期値
+     * @param minLimit      上限の最小値
+     * @param maxLimit      上限の最大値
+     * @param tolerance     上限を減らし始める、長期のレイテンシに対する短期のレイテンシの比率
+     * @param window        短期のレイテンシを平均する期間
+     * @return 書き込み用の{@link AdaptiveConcurrencyLimiter}
+     */
+    @Bean
+    public AdaptiveConcurrencyLimiter writeConcurrencyLimiter(
+            MeterRegistry meterRegistry,
+            @Value("${reservation.concurrency.write.initial-limit:10}") int initialLimit,
+            @Value("${reservation.concurrency.min-limit:1}") int minLimit,
+            @Value("${reservation.concurrency.write.max-limit:100}") int maxLimit,
+            @Value("${reservation.concurrency.tolerance:1.5}") double tolerance,
+            @Value("${reservation.concurrency.window:100ms}") Duration window) {
+        return new AdaptiveConcurrencyLimiter("write", initialLimit, minLimit, maxLimit, tolerance, window,
+                meterRegistry);
+    }
+
+    /**
+     * {@link ReservationService}のpublicメソッドに{@link ConcurrencyLimitInterceptor}を適用するアドバイザーのBean定義。
+     *
+     * <p>トランザクションのアドバイザーより外側で実行されるよう、最も高い優先順位を設定します。
+     * アドバイザーはBeanの後処理の前に作成されるため、リミッター（とメトリクスの登録先）は最初の呼び出しまで解決しません。
+     *
+     * @param readLimiter  読み込み用のリミッター
+     * @param writeLimiter 書き込み用のリミッター
+     * @return {@link ConcurrencyLimitInterceptor}を適用するアドバイザー
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor reservationConcurrencyLimitAdvisor(
+            @Lazy @Qualifier("readConcurrencyLimiter") AdaptiveConcurrencyLimiter readLimiter,
+            @Lazy @Qualifier("writeConcurrencyLimiter") AdaptiveConcurrencyLimiter writeLimiter) {
+        var pointcut = new ComposablePointcut(new RootClassFilter(ReservationService.class),
+                new StaticMethodMatcher() {
+                    @Override
+                    public boolean matches(Method method, Class<?> targetClass) {
+                        return method.getDeclaringClass() == ReservationService.class
+                                && Modifier.isPublic(method.getModifiers());
+                    }
+                });
+        var advisor = new DefaultPointcutAdvisor(pointcut, new ConcurrencyLimitInterceptor(readLimiter, writeLimiter));
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return advisor;
+    }
+}
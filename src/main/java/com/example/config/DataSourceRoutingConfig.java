@@ -0,0 +1,125 @@
+package com.example.config;
+
+import com.example.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.boot.jdbc.autoconfigure.JdbcConnectionDetails;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+
+/**
+ * 読み取り専用トランザクションをレプリカに振り分けるデータソースの設定クラス。
+ *
+ * <p>{@code reservation.datasource.replica.urls}が設定されている場合にのみ有効になり、
+ * Spring Bootが作成する単一のデータソースを次の構成に置き換えます。
+ * </p>
+ * <ul>
+ * <li>書き込み可能なトランザクション（{@code PROPAGATION_NESTED}のセーブポイントを含む）と
+ * トランザクション外のアクセス - プライマリ</li>
+ * <li>読み取り専用トランザクション - レプリカ（ラウンドロビン）。
+ * ただし書き込みのコミット直後は{@code reservation.datasource.read-your-writes}の間プライマリ</li>
+ * </ul>
+ *
+ * <p>振り分けは{@link LazyConnectionDataSourceProxy}が物理接続を取得する時点の
+ * 読み取り専用フラグで行われるため、DomaとSpringのトランザクション管理はこの設定を意識しません。
+ * トランザクション外のアクセスは書き込みの可能性があるためプライマリに送られます。
+ * レプリカから読み込むには読み取り専用トランザクションで実行してください。
+ * </p>
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty("reservation.datasource.replica.urls")
+public class DataSourceRoutingConfig {
+
+    /**
+     * プライマリのデータソースのBean定義。
+     *
+     * <p>接続先は{@link JdbcConnectionDetails}（Testcontainersなど）があればそれを、
+     * なければ{@code spring.datasource.*}を使用します。
+     * プールの設定は{@code spring.datasource.hikari.*}でバインドされます。
+     *
+     * @param properties        データソースの設定
+     * @param connectionDetails 接続情報
+     * @return プライマリのコネクションプール
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties,
+                                              ObjectProvider<JdbcConnectionDetails> connectionDetails) {
+        var dataSource = new HikariDataSource();
+        var details = connectionDetails.getIfAvailable();
+        if (details != null) {
+            dataSource.setJdbcUrl(details.getJdbcUrl());
+            dataSource.setUsername(details.getUsername());
+            dataSource.setPassword(details.getPassword());
+            dataSource.setDriverClassName(details.getDriverClassName());
+        } else {
+            dataSource.setJdbcUrl(properties.determineUrl());
+            dataSource.setUsername(properties.determineUsername());
+            dataSource.setPassword(properties.determinePassword());
+            dataSource.setDriverClassName(properties.determineDriverClassName());
+        }
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    /**
+     * レプリカへの振り分けを行うデータソースのBean定義。
+     *
+     * <p>レプリカのコネクションプールはプライマリのプール設定を引き継ぎ、
+     * 接続先と（指定された場合は）認証情報のみを差し替えて作成します。
+     *
+     * @param primary        プライマリのデータソース
+     * @param urls           レプリカのJDBC URL（カンマ区切り）
+     * @param username       レプリカのユーザー名（空の場合はプライマリと同じ）
+     * @param password       レプリカのパスワード（空の場合はプライマリと同じ）
+     * @param readYourWrites コミット後にプライマリから読み取る期間（0の場合は無効）
+     * @return {@link ReplicaRoutingDataSource}
+     */
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(
+            HikariDataSource primary,
+            @Value("${reservation.datasource.replica.urls}") String[] urls,
+            @Value("${reservation.datasource.replica.username:}") String username,
+            @Value("${reservation.datasource.replica.password:}") String password,
+            @Value("${reservation.datasource.read-your-writes:1s}") Duration readYourWrites) {
+        var replicas = new ArrayList<DataSource>(urls.length);
+        for (var i = 0; i < urls.length; i++) {
+            var config = new HikariConfig();
+            primary.copyStateTo(config);
+            config.setJdbcUrl(urls[i].trim());
+            config.setPoolName("replica-" + i);
+            if (!username.isEmpty()) {
+                config.setUsername(username);
+                config.setPassword(password);
+            }
+            replicas.add(new HikariDataSource(config));
+        }
+        return new ReplicaRoutingDataSource(primary, replicas, readYourWrites);
+    }
+
+    /**
+     * アプリケーションが使用するデータソースのBean定義。
+     *
+     * @param primary  プライマリのデータソース
+     * @param replicas レプリカへの振り分けを行うデータソース
+     * @return 読み取り専用フラグで接続先を切り替える{@link LazyConnectionDataSourceProxy}
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primary, ReplicaRoutingDataSource replicas) {
+        var dataSource = new LazyConnectionDataSourceProxy(primary);
+        dataSource.setReadOnlyDataSource(replicas);
+        return dataSource;
+    }
+}
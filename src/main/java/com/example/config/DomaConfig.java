@@ -1,15 +1,26 @@
 package com.example.config;
 
+import com.example.doma.jdbc.MeteredJdbcLogger;
+import com.example.doma.jdbc.SlowQueryJdbcLogger;
+import com.example.doma.jdbc.SlowQueryLog;
 import com.example.doma.jdbc.UnknownColumnIgnoreHandler;
+import com.example.entity.ReservationIdCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.seasar.doma.boot.autoconfigure.DomaProperties;
 import org.seasar.doma.jdbc.GreedyCacheSqlFileRepository;
+import org.seasar.doma.jdbc.JdbcLogger;
 import org.seasar.doma.jdbc.NoCacheSqlFileRepository;
 import org.seasar.doma.jdbc.SqlFileRepository;
 import org.seasar.doma.jdbc.UnknownColumnHandler;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import javax.sql.DataSource;
+import java.time.Duration;
+
 /**
  * Doma2のカスタム設定クラス。
  *
@@ -38,6 +49,73 @@ public class DomaConfig {
         }
     }
 
+    /**
+     * JDBCロガーのBean定義。
+     *
+     * <p>{@code doma.jdbc-logger}で選択されたロガーにログ出力を委譲しつつ、
+     * DAOメソッドごとの実行時間と行数をMicrometerに記録する
+     * {@link MeteredJdbcLogger}を提供します。
+     *
+     * <p>{@code reservation.slow-query.enabled=true}（デフォルト）の場合は、さらに
+     * {@code reservation.slow-query.threshold}を超えたSQLを{@link SlowQueryLog}に記録する
+     * {@link SlowQueryJdbcLogger}で包みます。
+     *
+     * @param domaProperties     Domaの設定
+     * @param meterRegistry      メトリクスの登録先
+     * @param slowQueryLog       しきい値を超えたSQLの記録先
+     * @param dataSources        実行計画を取得する接続のデータソース
+     * @param slowQueryEnabled   しきい値を超えたSQLを記録する場合はtrue
+     * @param slowQueryThreshold 記録するSQLの実行時間のしきい値
+     * @param explain            しきい値を超えたSQLの実行計画を取得する場合はtrue
+     * @return {@link MeteredJdbcLogger}または{@link SlowQueryJdbcLogger}
+     */
+    @Bean
+    public JdbcLogger jdbcLogger(DomaProperties domaProperties, MeterRegistry meterRegistry,
+                                 SlowQueryLog slowQueryLog, ObjectProvider<DataSource> dataSources,
+                                 @Value("${reservation.slow-query.enabled:true}") boolean slowQueryEnabled,
+                                 @Value("${reservation.slow-query.threshold:500ms}") Duration slowQueryThreshold,
+                                 @Value("${reservation.slow-query.explain:true}") boolean explain) {
+        var metered = new MeteredJdbcLogger(domaProperties.getJdbcLogger().create(), meterRegistry);
+        if (!slowQueryEnabled) {
+            return metered;
+        }
+        // 実行計画を取得するデータソース（@Primary）は最初に取得するときに解決する
+        return new SlowQueryJdbcLogger(metered, slowQueryLog, slowQueryThreshold,
+                explain ? dataSources::getObject : null);
+    }
+
+    /**
+     * しきい値を超えたSQLの記録先のBean定義。
+     *
+     * <p>記録はアクチュエーターのエンドポイント{@code slowqueries}で参照できます。
+     *
+     * @param capacity 保持する最大件数
+     * @return {@link SlowQueryLog}
+     */
+    @Bean
+    public SlowQueryLog slowQueryLog(@Value("${reservation.slow-query.capacity:256}") int capacity) {
+        return new SlowQueryLog(capacity);
+    }
+
+    /**
+     * {@link com.example.entity.ReservationId}のキャッシュのBean定義。
+     *
+     * <p>{@code reservation.id-cache.size}が正の場合にのみ有効になり、
+     * {@code reservation.id-cache.low}から{@code size}個のIDについて、
+     * Domaのマッピングや{@code ReservationId.of}が同じインスタンスを返すようにします。
+     * キャッシュはプロセス全体で共有され、コンテキストの終了時にアンインストールされます。
+     *
+     * @param low  キャッシュする最小のID値
+     * @param size キャッシュするID値の数
+     * @return インストールした{@link ReservationIdCache}
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnExpression("${reservation.id-cache.size:0} > 0")
+    public ReservationIdCache reservationIdCache(@Value("${reservation.id-cache.low:1}") long low,
+                                                 @Value("${reservation.id-cache.size}") int size) {
+        return ReservationIdCache.install(low, size);
+    }
+
     /**
      * 未知のカラムハンドラーのBean定義。
      *
@@ -47,11 +125,14 @@ public class DomaConfig {
      * <p>開発環境では、Spring Boot DomaのAutoConfigurationが提供する
      * デフォルトハンドラー（例外を投げる）が使用されます。
      *
+     * <p>無視したカラムの数はメトリクス{@code doma.unknown.columns}として記録されます。
+     *
+     * @param meterRegistry メトリクスの登録先
      * @return {@link UnknownColumnIgnoreHandler}
      */
     @Bean
     @ConditionalOnExpression("!'devel'.equals('${spring.profiles.active:}')")
-    public UnknownColumnHandler unknownColumnHandler() {
-        return new UnknownColumnIgnoreHandler();
+    public UnknownColumnHandler unknownColumnHandler(MeterRegistry meterRegistry) {
+        return new UnknownColumnIgnoreHandler(meterRegistry);
     }
 }
\ No newline at end of file
@@ -0,0 +1,232 @@
+package com.example.config;
+
+import com.example.dao.ReservationDao;
+import com.example.dao.ReservationDaoImpl;
+import com.example.dao.ShardedReservationDao;
+import com.example.service.ReservationPartitionMaintainer;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.seasar.doma.jdbc.ClassHelper;
+import org.seasar.doma.jdbc.CommandImplementors;
+import org.seasar.doma.jdbc.Commenter;
+import org.seasar.doma.jdbc.Config;
+import org.seasar.doma.jdbc.DuplicateColumnHandler;
+import org.seasar.doma.jdbc.EntityListenerProvider;
+import org.seasar.doma.jdbc.JdbcLogger;
+import org.seasar.doma.jdbc.MapKeyNaming;
+import org.seasar.doma.jdbc.Naming;
+import org.seasar.doma.jdbc.QueryImplementors;
+import org.seasar.doma.jdbc.RequiresNewController;
+import org.seasar.doma.jdbc.ScriptFileLoader;
+import org.seasar.doma.jdbc.SqlBuilderSettings;
+import org.seasar.doma.jdbc.SqlFileRepository;
+import org.seasar.doma.jdbc.SqlLogType;
+import org.seasar.doma.jdbc.UnknownColumnHandler;
+import org.seasar.doma.jdbc.dialect.Dialect;
+import org.seasar.doma.jdbc.statistic.StatisticManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.dao.support.PersistenceExceptionTranslator;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 予約をIDのハッシュで複数のデータベースに分散する{@link ShardedReservationDao}の設定クラス。
+ *
+ * <p>{@code reservation.shards.urls}が設定されている場合にのみ有効になり、
+ * 指定されたデータベースごとにコネクションプールとDAOを作成します（URLの順序がシャード番号）。
+ * Spring Bootが作成するデータソースと{@link ReservationDao}はそのまま残り、
+ * {@code ReservationService}などの既存のサービスは引き続きそちらを使用します。
+ * </p>
+ *
+ * <p>シャードのDAOはアプリケーションのDomaの設定（方言、SQLファイル、ロガーなど）を共有し、
+ * データソースのみを差し替えます。各シャードには{@code schema/create_table.sql}と
+ * {@code schema/create_partition_functions.sql}でスキーマを作成してください。
+ * </p>
+ *
+ * <p>シャードごとに{@link ReservationPartitionMaintainer#forShard}でパーティションを管理するインスタンスを作成し、
+ * {@code reservation.partition.*}の設定でパーティションを作成します。
+ * インスタンスは{@link ShardedReservationDao}の終了時に、コネクションプールより先に停止します。
+ * </p>
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty("reservation.shards.urls")
+public class ShardingConfig {
+
+    /**
+     * シャードに振り分けるDAOのBean定義。
+     *
+     * @param config              アプリケーションのDomaの設定
+     * @param exceptionTranslator Domaの例外をSpringの例外に変換するトランスレーター
+     * @param urls                シャードのJDBC URL（カンマ区切り、順序がシャード番号）
+     * @param username            シャードのユーザー名
+     * @param password            シャードのパスワード
+     * @param poolSize            シャードごとのコネクションプールの最大サイズ
+     * @param connectionInitSql   接続時に実行するSQL（プライマリの設定を引き継ぐ）
+     * @param partitionSize       1つのパーティションに含めるIDの数
+     * @param premake             作成しておく先の範囲の数
+     * @param maxCreate           1回に作成するパーティションの上限
+     * @param autoCreate          シャードのパーティションを定期的に作成する場合はtrue
+     * @param checkInterval       パーティションを作成する間隔
+     * @return {@link ShardedReservationDao}
+     */
+    @Bean
+    public ShardedReservationDao shardedReservationDao(
+            Config config,
+            PersistenceExceptionTranslator exceptionTranslator,
+            @Value("${reservation.shards.urls}") String[] urls,
+            @Value("${reservation.shards.username:${spring.datasource.username:}}") String username,
+            @Value("${reservation.shards.password:${spring.datasource.password:}}") String password,
+            @Value("${reservation.shards.pool-size:10}") int poolSize,
+            @Value("${spring.datasource.hikari.connection-init-sql:}") String connectionInitSql,
+            @Value("${reservation.partition.size:1000000}") int partitionSize,
+            @Value("${reservation.partition.premake:2}") int premake,
+            @Value("${reservation.partition.max-create:100}") int maxCreate,
+            @Value("${reservation.partition.auto-create:true}") boolean autoCreate,
+            @Value("${reservation.partition.check-interval:1h}") Duration checkInterval) {
+        var dataSources = new ArrayList<HikariDataSource>(urls.length);
+        var daos = new ArrayList<ReservationDao>(urls.length);
+        for (var i = 0; i < urls.length; i++) {
+            var hikari = new HikariConfig();
+            hikari.setJdbcUrl(urls[i].trim());
+            hikari.setUsername(username);
+            hikari.setPassword(password);
+            hikari.setMaximumPoolSize(poolSize);
+            hikari.setPoolName("shard-" + i);
+            if (!connectionInitSql.isEmpty()) {
+                hikari.setConnectionInitSql(connectionInitSql);
+            }
+            var dataSource = new HikariDataSource(hikari);
+            dataSources.add(dataSource);
+            daos.add(new ReservationDaoImpl(new ShardConfig(config, dataSource)));
+        }
+        var resources = new ArrayList<AutoCloseable>(urls.length * 2);
+        for (var i = 0; i < daos.size(); i++) {
+            resources.add(ReservationPartitionMaintainer.forShard(daos.get(i), i, daos.size(),
+                    partitionSize, premake, maxCreate, autoCreate, checkInterval));
+        }
+        resources.addAll(dataSources);
+        return new ShardedReservationDao(daos, exceptionTranslator, resources);
+    }
+
+    /**
+     * データソースのみを差し替え、その他の設定はアプリケーションのDomaの設定に委譲する設定。
+     */
+    private record ShardConfig(Config delegate, DataSource dataSource) implements Config {
+
+        @Override
+        public DataSource getDataSource() {
+            return dataSource;
+        }
+
+        @Override
+        public Dialect getDialect() {
+            return delegate.getDialect();
+        }
+
+        @Override
+        public SqlFileRepository getSqlFileRepository() {
+            return delegate.getSqlFileRepository();
+        }
+
+        @Override
+        public ScriptFileLoader getScriptFileLoader() {
+            return delegate.getScriptFileLoader();
+        }
+
+        @Override
+        public JdbcLogger getJdbcLogger() {
+            return delegate.getJdbcLogger();
+        }
+
+        @Override
+        public RequiresNewController getRequiresNewController() {
+            return delegate.getRequiresNewController();
+        }
+
+        @Override
+        public ClassHelper getClassHelper() {
+            return delegate.getClassHelper();
+        }
+
+        @Override
+        public CommandImplementors getCommandImplementors() {
+            return delegate.getCommandImplementors();
+        }
+
+        @Override
+        public QueryImplementors getQueryImplementors() {
+            return delegate.getQueryImplementors();
+        }
+
+        @Override
+        public SqlLogType getExceptionSqlLogType() {
+            return delegate.getExceptionSqlLogType();
+        }
+
+        @Override
+        public UnknownColumnHandler getUnknownColumnHandler() {
+            return delegate.getUnknownColumnHandler();
+        }
+
+        @Override
+        public DuplicateColumnHandler getDuplicateColumnHandler() {
+            return delegate.getDuplicateColumnHandler();
+        }
+
+        @Override
+        public Naming getNaming() {
+            return delegate.getNaming();
+        }
+
+        @Override
+        public MapKeyNaming getMapKeyNaming() {
+            return delegate.getMapKeyNaming();
+        }
+
+        @Override
+        public Commenter getCommenter() {
+            return delegate.getCommenter();
+        }
+
+        @Override
+        public int getMaxRows() {
+            return delegate.getMaxRows();
+        }
+
+        @Override
+        public int getFetchSize() {
+            return delegate.getFetchSize();
+        }
+
+        @Override
+        public int getQueryTimeout() {
+            return delegate.getQueryTimeout();
+        }
+
+        @Override
+        public int getBatchSize() {
+            return delegate.getBatchSize();
+        }
+
+        @Override
+        public EntityListenerProvider getEntityListenerProvider() {
+            return delegate.getEntityListenerProvider();
+        }
+
+        @Override
+        public SqlBuilderSettings getSqlBuilderSettings() {
+            return delegate.getSqlBuilderSettings();
+        }
+
+        @Override
+        public StatisticManager getStatisticManager() {
+            return delegate.getStatisticManager();
+        }
+    }
+}
@@ -1,15 +1,30 @@
 package com.example.dao;
 
 import com.example.entity.Reservation;
+import com.example.entity.ReservationChange;
 import com.example.entity.ReservationId;
+import com.example.entity.ReservationRecord;
+import com.example.entity.ReservationSummary;
+import org.seasar.doma.ArrayFactory;
+import org.seasar.doma.BatchInsert;
+import org.seasar.doma.BatchUpdate;
 import org.seasar.doma.Dao;
+import org.seasar.doma.In;
 import org.seasar.doma.Insert;
 import org.seasar.doma.Select;
+import org.seasar.doma.SelectType;
+import org.seasar.doma.SqlProcessor;
 import org.seasar.doma.Update;
 import org.seasar.doma.boot.ConfigAutowireable;
+import org.seasar.doma.jdbc.Config;
+import org.seasar.doma.jdbc.PreparedSql;
 
+import java.sql.Array;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * 予約エンティティのデータアクセスオブジェクト（DAO）。
@@ -23,11 +38,39 @@ import java.util.Optional;
  * <h3>SQLファイルマッピング</h3>
  * <ul>
  * <li>{@code selectById} → selectById.sql</li>
- * <li>{@code selectAll} → selectAll.sql</li>
+ * <li>{@code selectByIds} → selectByIds.sql</li>
+ * <li>{@code selectSummaryById} → selectSummaryById.sql</li>
+ * <li>{@code selectSummariesByIds} → selectSummariesByIds.sql</li>
+ * <li>{@code selectSummariesByNamePrefix} → selectSummariesByNamePrefix.sql</li>
+ * <li>{@code selectSummariesByNameContaining} → selectSummariesByNameContaining.sql</li>
+ * <li>{@code selectSummariesBySimilarName} → selectSummariesBySimilarName.sql</li>
+ * <li>{@code selectAll} → selectAll.sql（リスト版・ストリーム版で共用）</li>
+ * <li>{@code selectAllRecords} → selectAllRecords.sql（{@code streamAllRecords}から使用）</li>
+ * <li>{@code selectPageByName} → selectPageByName.sql</li>
+ * <li>{@code selectPageWithoutName} → selectPageWithoutName.sql</li>
+ * <li>{@code selectChangesSince} → selectChangesSince.sql</li>
+ * <li>{@code selectNextIdBlock} → selectNextIdBlock.sql</li>
+ * <li>{@code upsert} → デフォルトメソッド（{@code insertReturning}または{@code updateReturning}に委譲）</li>
+ * <li>{@code insertReturning} → insertReturning.sql</li>
+ * <li>{@code updateReturning} → updateReturning.sql</li>
  * <li>{@code insert} → 自動生成SQL</li>
+ * <li>{@code insertWithId} → insertWithId.sql</li>
  * <li>{@code update} → 自動生成SQL</li>
+ * <li>{@code insertAll} → 自動生成SQL（JDBCバッチ）</li>
+ * <li>{@code updateAll} → 自動生成SQL（JDBCバッチ）</li>
+ * <li>{@code createPartitions} → ストアドファンクション{@code reservation_create_partitions}</li>
+ * <li>{@code dropPartitionsBefore} → ストアドファンクション{@code reservation_drop_partitions_before}</li>
  * </ul>
  *
+ * <p>予約テーブルはIDの範囲でパーティション分割されています（{@code schema/create_table.sql}）。
+ * IDを条件に含むクエリは該当するパーティションだけを探索し、
+ * 名前などID以外の条件のクエリはすべてのパーティションのインデックスを探索して結果をマージします。
+ * </p>
+ *
+ * <p>SQLファイルでは{@code SELECT *}を使用せず、結果型のプロパティに対応するカラムを明示します
+ * （{@code DaoSqlFileTest}で検査されます）。
+ * </p>
+ *
  * <p>このDAOは{@code @ConfigAutowireable}により、
  * Spring BootのDomaAutoConfigurationで自動的にBeanとして登録されます。
  * </p>
@@ -47,22 +90,273 @@ public interface ReservationDao {
     @Select
     Optional<Reservation> selectById(ReservationId id);
 
+    /**
+     * 指定された複数のIDの予約を1回のクエリで検索します。
+     *
+     * <p>対応するSQLファイル: {@code selectByIds.sql}
+     * 配列を1つだけバインドするため、IDの件数によらずSQLは同一で、プリペアドステートメントが再利用されます。
+     * {@code id IN (SELECT unnest(?))}で各IDを該当するパーティションのみから探すため、
+     * 汎用プランでもパーティションが絞り込まれます（{@code id = ANY(?)}ではすべてのパーティションを探索します）。
+     * 結果の順序は保証されません。</p>
+     *
+     * @param ids 検索する予約IDの配列（{@link #createIdArray}で生成）
+     * @return 見つかった予約エンティティのリスト（存在しないIDは含まれません）
+     */
+    @Select
+    List<Reservation> selectByIds(Array ids);
+
+    /**
+     * {@link #selectByIds}にバインドする{@code bigint[]}型の配列を生成します。
+     *
+     * <p>生成した配列は使用後に{@link Array#free()}で解放してください。</p>
+     *
+     * @param elements 配列の要素
+     * @return JDBCの配列
+     */
+    @ArrayFactory(typeName = "bigint")
+    Array createIdArray(Long[] elements);
+
+    /**
+     * 指定されたIDの予約のIDと名前のみを検索します。
+     *
+     * <p>対応するSQLファイル: {@code selectSummaryById.sql}
+     * 結果は不変の{@link ReservationSummary}で返されます。</p>
+     *
+     * @param id 検索する予約ID
+     * @return 予約のIDと名前（存在しない場合は空のOptional）
+     */
+    @Select
+    Optional<ReservationSummary> selectSummaryById(ReservationId id);
+
+    /**
+     * 指定された複数のIDの予約のIDと名前のみを1回のクエリで検索します。
+     *
+     * <p>対応するSQLファイル: {@code selectSummariesByIds.sql}
+     * バインド方法は{@link #selectByIds}と同じです。結果の順序は保証されません。</p>
+     *
+     * @param ids 検索する予約IDの配列（{@link #createIdArray}で生成）
+     * @return 見つかった予約のIDと名前のリスト（存在しないIDは含まれません）
+     */
+    @Select
+    List<ReservationSummary> selectSummariesByIds(Array ids);
+
+    /**
+     * 名前が指定した文字列で始まる予約のIDと名前を検索します。
+     *
+     * <p>対応するSQLファイル: {@code selectSummariesByNamePrefix.sql}
+     * {@code prefix}に含まれる{@code %}・{@code _}・{@code $}は{@code @prefix}でエスケープされ、文字として比較されます。
+     * {@code (name text_pattern_ops, id)}のインデックスを使うため、データベースの照合順序によらず
+     * 一致する行をインデックス順に先頭から{@code limit}件だけ読み込みます。
+     * 結果は名前の文字コード順（{@code ~<~}）、IDの順でソートされます。</p>
+     *
+     * @param prefix 名前の接頭辞
+     * @param limit  取得する最大件数
+     * @return 予約のIDと名前のリスト（空の場合は空のリスト）
+     */
+    @Select
+    List<ReservationSummary> selectSummariesByNamePrefix(String prefix, int limit);
+
+    /**
+     * 名前に指定した文字列を含む予約のIDと名前を検索します。
+     *
+     * <p>対応するSQLファイル: {@code selectSummariesByNameContaining.sql}
+     * {@code text}に含まれる{@code %}・{@code _}・{@code $}は{@code @infix}でエスケープされ、文字として比較されます。
+     * {@code pg_trgm}のGINインデックスで候補の行を絞り込むため、{@code text}は3文字以上を想定しています
+     * （2文字以下ではトライグラムを取り出せず、インデックス全体を読み込みます）。
+     * 結果は名前、IDの順でソートされます。</p>
+     *
+     * @param text  名前に含まれる文字列
+     * @param limit 取得する最大件数
+     * @return 予約のIDと名前のリスト（空の場合は空のリスト）
+     */
+    @Select
+    List<ReservationSummary> selectSummariesByNameContaining(String text, int limit);
+
+    /**
+     * 名前が指定した文字列に類似する予約のIDと名前を検索します。
+     *
+     * <p>対応するSQLファイル: {@code selectSummariesBySimilarName.sql}
+     * {@code pg_trgm}の{@code %}演算子（トライグラムの類似度が{@code pg_trgm.similarity_threshold}以上、
+     * デフォルトは0.3）で判定し、GINインデックスで候補の行を絞り込みます。
+     * 結果は類似度の高い順、名前、IDの順でソートされます。</p>
+     *
+     * @param name  比較する名前
+     * @param limit 取得する最大件数
+     * @return 予約のIDと名前のリスト（空の場合は空のリスト）
+     */
+    @Select
+    List<ReservationSummary> selectSummariesBySimilarName(String name, int limit);
+
     /**
      * 全ての予約を取得します。
      *
      * <p>対応するSQLファイル: {@code selectAll.sql}
-     * 結果は名前順でソートされます。</p>
+     * 結果は名前、IDの順でソートされます。</p>
      *
      * @return 予約エンティティのリスト（空の場合は空のリスト）
      */
     @Select
     List<Reservation> selectAll();
 
+    /**
+     * 全ての予約を名前順のストリームとして関数に渡します。
+     *
+     * <p>対応するSQLファイル: {@code selectAll.sql}
+     * 結果セットはカーソルで逐次読み込まれるため、テーブル全体をヒープに保持しません。
+     * フェッチサイズは{@code doma.fetch-size}に従います。
+     * PostgreSQLではオートコミットが無効な接続（トランザクション内）でのみ
+     * カーソルによる分割フェッチが行われます。</p>
+     *
+     * <p>ストリームは{@code mapper}の実行中のみ有効で、終了後にクローズされます。</p>
+     *
+     * @param mapper ストリームを処理する関数
+     * @param <R>    処理結果の型
+     * @return {@code mapper}の戻り値
+     */
+    @Select(strategy = SelectType.STREAM)
+    <R> R selectAll(Function<Stream<Reservation>, R> mapper);
+
+    /**
+     * 全ての予約を取得するSQLをハンドラーで実行します。
+     *
+     * <p>対応するSQLファイル: {@code selectAllRecords.sql}（{@code selectAll.sql}と同じ列と並び順）
+     * 結果のマッピングはハンドラーが行います。通常は{@link #streamAllRecords}を使用してください。</p>
+     *
+     * @param handler SQLを実行して結果を返すハンドラー
+     * @param <R>     処理結果の型
+     * @return {@code handler}の戻り値
+     */
+    @SqlProcessor
+    <R> R selectAllRecords(BiFunction<Config, PreparedSql, R> handler);
+
+    /**
+     * 全ての予約を名前順の不変の{@link ReservationRecord}のストリームとして関数に渡します。
+     *
+     * <p>{@link #selectAll(Function)}と同じ行を同じ順序で返しますが、Domaのエンティティのマッピングを経由せず、
+     * 結果セットの列から直接{@link ReservationRecord}を生成するため、1行あたりの割り当てが約半分になります。
+     * カーソルによる分割フェッチの条件は{@link #selectAll(Function)}と同じです。</p>
+     *
+     * <p>ストリームは{@code mapper}の実行中のみ有効で、終了後にクローズされます。</p>
+     *
+     * @param mapper ストリームを処理する関数
+     * @param <R>    処理結果の型
+     * @return {@code mapper}の戻り値
+     */
+    default <R> R streamAllRecords(Function<Stream<ReservationRecord>, R> mapper) {
+        return selectAllRecords(new ReservationRecordReader<>(mapper));
+    }
+
+    /**
+     * 名前が設定された予約を{@code (name, id)}順に1ページ分取得します。
+     *
+     * <p>対応するSQLファイル: {@code selectPageByName.sql}
+     * {@code (name, id)}の複合インデックスを使ったキーセットページングで、
+     * 指定したカーソルより後ろの行のみを読み込みます。
+     * 名前がnullの行は含まれません。</p>
+     *
+     * @param name  直前のページの最終行の名前（先頭ページの場合はnull）
+     * @param id    直前のページの最終行のID（先頭ページの場合はnull）
+     * @param limit 取得する最大件数
+     * @return 予約エンティティのリスト（空の場合は空のリスト）
+     */
+    @Select
+    List<Reservation> selectPageByName(String name, ReservationId id, int limit);
+
+    /**
+     * 名前がnullの予約をID順に1ページ分取得します。
+     *
+     * <p>対応するSQLファイル: {@code selectPageWithoutName.sql}
+     * {@code ORDER BY name}ではnullが末尾に並ぶため、
+     * {@link #selectPageByName}を読み終えた後の続きとして使用します。</p>
+     *
+     * @param id    直前のページの最終行のID（先頭から読む場合はnull）
+     * @param limit 取得する最大件数
+     * @return 予約エンティティのリスト（空の場合は空のリスト）
+     */
+    @Select
+    List<Reservation> selectPageWithoutName(ReservationId id, int limit);
+
+    /**
+     * 指定したウォーターマークより後に挿入・更新された予約を{@code (changed_xid, id)}順に取得します。
+     *
+     * <p>対応するSQLファイル: {@code selectChangesSince.sql}
+     * {@code (changed_xid, id)}の複合インデックスを使ったキーセットページングで、
+     * 変更された行のみを読み込みます。
+     * トランザクションIDは開始順に採番され、コミット順とは一致しないため、
+     * 実行中のトランザクションのうち最も古いもの（スナップショットのxmin）より前の変更のみを返します。
+     * これにより、読み込んだ後により小さいトランザクションIDの変更がコミットされて読み飛ばされることはありません。
+     * 長時間実行中のトランザクションがある間は、それ以降の変更が返されなくなります。
+     * 削除された行は含まれません。</p>
+     *
+     * @param changedXid 直前のページの最終行のトランザクションID（先頭から読む場合はnull）
+     * @param id         直前のページの最終行のID（先頭から読む場合はnull）
+     * @param limit      取得する最大件数
+     * @return 変更された予約のリスト（空の場合は空のリスト）
+     */
+    @Select
+    List<ReservationChange> selectChangesSince(Long changedXid, ReservationId id, int limit);
+
+    /**
+     * シーケンス{@code reservation_id_seq}から次のIDのブロックを払い出します。
+     *
+     * <p>対応するSQLファイル: {@code selectNextIdBlock.sql}
+     * シーケンスは{@code INCREMENT BY 100}のため、戻り値から100個のIDを呼び出し側で使用できます。
+     * {@link ShardedReservationDao}がシャードごとのIDの採番に使用します。</p>
+     *
+     * @return ブロックの先頭の値
+     */
+    @Select
+    long selectNextIdBlock();
+
+    /**
+     * 予約を1文で挿入または更新し、保存後の行を返します。
+     *
+     * <p>IDがnullの場合は{@link #insertReturning}で挿入し、
+     * IDが設定されている場合は{@link #updateReturning}で該当行を更新します。
+     * 呼び出し側が決めたIDで挿入するとシーケンスが払い出すIDと重複しうるため、
+     * IDが設定されていて該当行が存在しない場合は挿入しません。</p>
+     *
+     * @param entity 保存する予約エンティティ
+     * @return 保存後の予約エンティティ（該当行が存在しないかバージョンが一致せず更新されなかった場合は空のOptional）
+     */
+    default Optional<Reservation> upsert(Reservation entity) {
+        return entity.getId() == null
+                ? Optional.of(insertReturning(entity))
+                : updateReturning(entity);
+    }
+
+    /**
+     * シーケンスから採番したIDで予約を挿入し、挿入後の行を返します。
+     *
+     * <p>対応するSQLファイル: {@code insertReturning.sql}
+     * {@code INSERT ... RETURNING}を使用し、エンティティのIDは参照しません。
+     * 通常は{@link #upsert}を使用してください。</p>
+     *
+     * @param entity 挿入する予約エンティティ
+     * @return 挿入後の予約エンティティ
+     */
+    @Select(ensureResult = true)
+    Reservation insertReturning(Reservation entity);
+
+    /**
+     * 既存の予約を更新し、更新後の行を返します。
+     *
+     * <p>対応するSQLファイル: {@code updateReturning.sql}
+     * {@code UPDATE ... RETURNING}を使用し、{@link #update}と同様に
+     * エンティティのバージョンが一致する場合のみ更新してバージョンを1つ進めます。
+     * 通常は{@link #upsert}を使用してください。</p>
+     *
+     * @param entity 更新する予約エンティティ
+     * @return 更新後の予約エンティティ（該当行が存在しないかバージョンが一致しない場合は空のOptional）
+     */
+    @Select
+    Optional<Reservation> updateReturning(Reservation entity);
+
     /**
      * 新しい予約を挿入します。
      *
-     * <p>SQLは自動生成され、IDは{@code IDENTITY}戦略により
-     * データベースで自動採番されます。</p>
+     * <p>SQLは自動生成され、IDは{@code SEQUENCE}戦略により
+     * 挿入前にメモリ上のブロックから払い出されます（{@link Reservation}）。</p>
      *
      * @param reservation 挿入する予約エンティティ
      * @return 影響を受けた行数（通常は1）
@@ -70,14 +364,93 @@ public interface ReservationDao {
     @Insert
     int insert(Reservation reservation);
 
+    /**
+     * IDを指定して新しい予約を挿入します。
+     *
+     * <p>対応するSQLファイル: {@code insertWithId.sql}
+     * {@link #insert}はIDの値を{@code int}として検査し、負の値として扱われるID（下位32ビットの最上位ビットが立った値）を
+     * シーケンスから払い出した値で置き換えるため、呼び出し側で採番したIDはこのメソッドで挿入します。
+     * バージョンは列のデフォルト値（1）になり、エンティティには設定されません。
+     * {@link ShardedReservationDao}がシャードごとに変換したIDの挿入に使用します。</p>
+     *
+     * @param reservation 挿入する予約エンティティ（IDは必須）
+     * @return 影響を受けた行数（通常は1）
+     */
+    @Insert(sqlFile = true)
+    int insertWithId(Reservation reservation);
+
     /**
      * 既存の予約を更新します。
      *
-     * <p>SQLは自動生成され、IDに基づいて対象レコードが特定されます。</p>
+     * <p>SQLは自動生成され、IDとバージョンに基づいて対象レコードが特定されます。
+     * 更新に成功するとエンティティのバージョンが1つ進みます。</p>
      *
      * @param reservation 更新する予約エンティティ
-     * @return 影響を受けた行数（レコードが存在する場合は1、存在しない場合は0）
+     * @return 影響を受けた行数（1）
+     * @throws org.springframework.dao.OptimisticLockingFailureException
+     *         レコードが存在しないか、バージョンが一致しない場合
      */
     @Update
     int update(Reservation reservation);
+
+    /**
+     * 複数の予約をJDBCバッチで一括挿入します。
+     *
+     * <p>SQLは自動生成され、IDは挿入前にメモリ上のブロックからまとめて払い出されるため、
+     * 行ごとに生成されたキーを取得せずにJDBCバッチで送信されます。
+     * 1回のバッチで送信される件数は{@code doma.batch-size}に従います。</p>
+     *
+     * @param reservations 挿入する予約エンティティのリスト
+     * @return 各エンティティごとの影響を受けた行数
+     */
+    @BatchInsert
+    int[] insertAll(List<Reservation> reservations);
+
+    /**
+     * 複数の既存予約をJDBCバッチで一括更新します。
+     *
+     * <p>SQLは自動生成され、IDとバージョンに基づいて対象レコードが特定されます。
+     * 1回のバッチで送信される件数は{@code doma.batch-size}に従います。</p>
+     *
+     * @param reservations 更新する予約エンティティのリスト
+     * @return 各エンティティごとの影響を受けた行数
+     * @throws org.springframework.dao.OptimisticLockingFailureException
+     *         いずれかのレコードが存在しないか、バージョンが一致しない場合
+     */
+    @BatchUpdate
+    int[] updateAll(List<Reservation> reservations);
+
+    /**
+     * 採番済みのIDより先のIDの範囲と、デフォルトパーティションに行がある範囲のパーティションを作成します。
+     *
+     * <p>ストアドファンクション{@code reservation_create_partitions}を呼び出します。
+     * 範囲は{@code partitionSize}の倍数で区切り、シーケンスが次に払い出す値に{@code idScale}を掛けたIDを含む範囲から
+     * {@code premake}個先までの範囲と、デフォルトパーティションに行がある範囲を作成します。
+     * デフォルトパーティションにある該当範囲の行は作成したパーティションに移します。
+     * 作成は先の範囲を優先して{@code maxCreate}個までとし、残りは次回の呼び出しで作成します。
+     * 複数のノードから同時に呼び出された場合は勧告的ロックで順に実行されます。</p>
+     *
+     * @param partitionSize 1つのパーティションに含めるIDの数
+     * @param premake       作成しておく先の範囲の数
+     * @param idScale       シーケンスの値からIDへの倍率（{@link ShardedReservationDao}のシャードではシャード数、それ以外は1）
+     * @param maxCreate     1回の呼び出しで作成するパーティションの上限
+     * @return 作成したパーティションの数
+     */
+    @org.seasar.doma.Function(name = "reservation_create_partitions")
+    int createPartitions(@In int partitionSize, @In int premake, @In int idScale, @In int maxCreate);
+
+    /**
+     * 指定したIDより前の範囲だけを持つパーティションを削除します。
+     *
+     * <p>ストアドファンクション{@code reservation_drop_partitions_before}を呼び出します。
+     * 行ごとに削除する代わりにパーティションのテーブルを削除するため、
+     * 削除する行数によらず短時間で終わり、VACUUMの対象となる不要な行も残りません。
+     * 指定したIDを含むパーティションは削除せず、デフォルトパーティションの該当する行のみ行単位で削除します。
+     * 削除後に{@code reservation_changed}チャネルへ全件の再読み込みを通知します。</p>
+     *
+     * @param id この値より小さいIDの行が削除の対象
+     * @return 削除したパーティションの数
+     */
+    @org.seasar.doma.Function(name = "reservation_drop_partitions_before")
+    int dropPartitionsBefore(@In ReservationId id);
 }
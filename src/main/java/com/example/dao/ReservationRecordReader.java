@@ -0,0 +1,121 @@
+package com.example.dao;
+
+import com.example.entity.ReservationRecord;
+import org.seasar.doma.jdbc.Config;
+import org.seasar.doma.jdbc.PreparedSql;
+import org.seasar.doma.jdbc.SqlExecutionException;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * {@link ReservationDao#selectAllRecords}のSQLを実行し、結果を{@link ReservationRecord}のストリームとして関数に渡すハンドラー。
+ *
+ * <p>Domaのエンティティのマッピングは行ごとにプロパティのマップとプロパティを生成するため、
+ * 列を{@link ResultSet#getLong}・{@link ResultSet#getInt}・{@link ResultSet#getString}で読み込んで{@link ReservationRecord#of}で直接生成します。
+ * 列の位置はラベル（{@code id}・{@code name}・{@code version}）で最初に1回だけ求めます。
+ * </p>
+ *
+ * <p>接続はDomaの設定のデータソース（Springのトランザクションに参加）から取得し、
+ * フェッチサイズ・最大行数・クエリタイムアウトは{@link Config}の値を使用します。
+ * SQLは{@link org.seasar.doma.jdbc.JdbcLogger#logSql}に渡すため、DAOメソッドのメトリクスとスロークエリの記録の対象になります。
+ * 失敗は{@link SqlExecutionException}としてスローし、Domaの他のDAOメソッドと同様に例外変換されます。
+ * </p>
+ *
+ * @param <R> 処理結果の型
+ */
+final class ReservationRecordReader<R> implements BiFunction<Config, PreparedSql, R> {
+
+    private final Function<Stream<ReservationRecord>, R> mapper;
+
+    /**
+     * ReservationRecordReaderを構築します。
+     *
+     * @param mapper ストリームを処理する関数
+     */
+    ReservationRecordReader(Function<Stream<ReservationRecord>, R> mapper) {
+        this.mapper = mapper;
+    }
+
+    @Override
+    public R apply(Config config, PreparedSql sql) {
+        if (!sql.getParameters().isEmpty()) {
+            throw new IllegalArgumentException("SQL with bind parameters is not supported: " + sql.getSqlFilePath());
+        }
+        config.getJdbcLogger().logSql(ReservationRecordReader.class.getName(), "apply", sql);
+        try (var connection = config.getDataSource().getConnection();
+             var statement = connection.prepareStatement(sql.getRawSql())) {
+            if (config.getFetchSize() > 0) {
+                statement.setFetchSize(config.getFetchSize());
+            }
+            if (config.getMaxRows() > 0) {
+                statement.setMaxRows(config.getMaxRows());
+            }
+            if (config.getQueryTimeout() > 0) {
+                statement.setQueryTimeout(config.getQueryTimeout());
+            }
+            try (var resultSet = statement.executeQuery();
+                 var stream = StreamSupport.stream(new RecordSpliterator(resultSet, config, sql), false)) {
+                return mapper.apply(stream);
+            }
+        } catch (SQLException e) {
+            throw executionException(config, sql, e);
+        }
+    }
+
+    private static SqlExecutionException executionException(Config config, PreparedSql sql, SQLException e) {
+        return new SqlExecutionException(config.getExceptionSqlLogType(), sql, e, rootCause(e));
+    }
+
+    private static Throwable rootCause(Throwable e) {
+        var cause = e;
+        while (cause.getCause() != null && cause.getCause() != cause) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    /**
+     * 結果セットを1行ずつ{@link ReservationRecord}に変換する{@link Spliterator}。
+     */
+    private static final class RecordSpliterator extends Spliterators.AbstractSpliterator<ReservationRecord> {
+
+        private final ResultSet resultSet;
+        private final Config config;
+        private final PreparedSql sql;
+        private final int idColumn;
+        private final int nameColumn;
+        private final int versionColumn;
+
+        private RecordSpliterator(ResultSet resultSet, Config config, PreparedSql sql) throws SQLException {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.resultSet = resultSet;
+            this.config = config;
+            this.sql = sql;
+            this.idColumn = resultSet.findColumn("id");
+            this.nameColumn = resultSet.findColumn("name");
+            this.versionColumn = resultSet.findColumn("version");
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super ReservationRecord> action) {
+            try {
+                if (!resultSet.next()) {
+                    return false;
+                }
+                action.accept(ReservationRecord.of(resultSet.getLong(idColumn), resultSet.getString(nameColumn),
+                        resultSet.getInt(versionColumn)));
+                return true;
+            } catch (SQLException e) {
+                throw executionException(config, sql, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,322 @@
+package com.example.dao;
+
+import com.example.entity.Reservation;
+import com.example.entity.ReservationId;
+import org.springframework.dao.support.PersistenceExceptionTranslator;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 予約をIDのハッシュで複数のデータベース（シャード）に分散するデータアクセスオブジェクト。
+ *
+ * <p>シャードごとの{@link ReservationDao}の前段に置き、次のように振り分けます。
+ * </p>
+ * <ul>
+ * <li>{@code selectById} / {@code insert} / {@code update} - IDから求めた1つのシャード</li>
+ * <li>{@code selectAll} / {@code selectPageByName} / {@code selectPageWithoutName}
+ * - すべてのシャードに仮想スレッドで並列に発行し、各シャードのソート済みの結果をk-wayマージ</li>
+ * </ul>
+ *
+ * <h3>シャードの決定とIDの採番</h3>
+ * <p>IDの値をシャード数で割った余りをハッシュとしてシャードを決めます（{@link #shardOf}）。
+ * IDがnullの予約を挿入する場合は、シャードをラウンドロビンで選び、
+ * そのシャードのシーケンス{@code reservation_id_seq}から払い出した値{@code v}を
+ * {@code v * シャード数 + シャード番号}に変換してIDとします。
+ * シーケンスはシャードごとに独立していますが、変換後のIDはシャード間で重複せず、
+ * 常に採番したシャードに振り分けられます。ブロック（100件）単位で払い出すのは{@link Reservation}と同じです。
+ * IDは{@code bigint}のため、変換後のIDが{@code long}の範囲を超えるのはシーケンスの値が{@code Long.MAX_VALUE / シャード数}を
+ * 超えた場合のみです（その場合は{@link ArithmeticException}で挿入を拒否します）。
+ * IDはシャードごとに昇順に払い出されるため、IDの範囲によるパーティション分割とも両立します。
+ * 各シャードのパーティションは、シーケンスの値にシャード数を掛けたIDを基準に
+ * {@code ReservationPartitionMaintainer.forShard}で作成したインスタンスが作成します。
+ * シャード数を変更すると既存の行の振り分け先が変わるため、シャード数は運用中に変更できません。
+ * </p>
+ *
+ * <h3>マージの順序</h3>
+ * <p>マージはJavaの{@link String#compareTo}で名前を比較するため、シャードのデータベースは
+ * 照合順序{@code "C"}で作成してください（SQLの{@code ORDER BY name}と順序を一致させるため）。
+ * </p>
+ *
+ * <h3>トランザクション</h3>
+ * <p>シャードへのアクセスはSpringのトランザクションに参加せず、DAOメソッドの呼び出しごとにオートコミットで実行されます。
+ * Domaの例外は{@code @Repository}のDAOと同様にSpringの{@link org.springframework.dao.DataAccessException}に変換します。
+ * </p>
+ */
+public class ShardedReservationDao implements AutoCloseable {
+
+    private static final Comparator<Reservation> BY_NAME = Comparator
+            .comparing((Reservation reservation) -> reservation.name, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(reservation -> reservation.getId().value());
+
+    private static final Comparator<Reservation> BY_ID = Comparator.comparing(reservation -> reservation.getId().value());
+
+    /**
+     * シーケンスの1回の払い出しで確保するIDの数（{@code reservation_id_seq}の{@code INCREMENT BY}）。
+     */
+    private static final int ALLOCATION_SIZE = 100;
+
+    private final List<ReservationDao> shards;
+    private final List<IdBlock> idBlocks;
+    private final PersistenceExceptionTranslator exceptionTranslator;
+    private final List<? extends AutoCloseable> resources;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicInteger nextShard = new AtomicInteger();
+
+    /**
+     * ShardedReservationDaoを構築します。
+     *
+     * @param shards              シャードごとのDAO（リストの位置がシャード番号）
+     * @param exceptionTranslator Domaの例外をSpringの例外に変換するトランスレーター
+     * @param resources           {@link #close()}で閉じるリソース（シャードのコネクションプールなど）
+     */
+    public ShardedReservationDao(List<ReservationDao> shards, PersistenceExceptionTranslator exceptionTranslator,
+                                 List<? extends AutoCloseable> resources) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("shards must not be empty");
+        }
+        this.shards = List.copyOf(shards);
+        this.idBlocks = this.shards.stream().map(IdBlock::new).toList();
+        this.exceptionTranslator = Objects.requireNonNull(exceptionTranslator, "exceptionTranslator must not be null");
+        this.resources = List.copyOf(resources);
+    }
+
+    /**
+     * シャードの数を返します。
+     *
+     * @return シャードの数
+     */
+    public int shardCount() {
+        return shards.size();
+    }
+
+    /**
+     * 指定された番号のシャードのDAOを返します。
+     *
+     * <p>パーティションの管理など、シャードごとの操作に使用します。</p>
+     *
+     * @param shard シャードの番号（0からシャード数-1）
+     * @return シャードのDAO
+     * @throws IndexOutOfBoundsException シャードの番号が範囲外の場合
+     */
+    public ReservationDao shard(int shard) {
+        return shards.get(shard);
+    }
+
+    /**
+     * 指定されたIDの予約を格納するシャードの番号を返します。
+     *
+     * @param id 予約ID
+     * @return シャードの番号（0からシャード数-1）
+     */
+    public int shardOf(ReservationId id) {
+        return Math.floorMod(id.value(), shards.size());
+    }
+
+    /**
+     * 指定されたIDで予約を検索します。
+     *
+     * @param id 検索する予約ID
+     * @return 予約エンティティ（存在しない場合は空のOptional）
+     * @see ReservationDao#selectById
+     */
+    public Optional<Reservation> selectById(ReservationId id) {
+        Objects.requireNonNull(id, "id must not be null");
+        return translate(() -> shard(id).selectById(id));
+    }
+
+    /**
+     * 新しい予約を挿入します。
+     *
+     * <p>IDがnullの場合はラウンドロビンで選んだシャードで採番し、エンティティに設定してから挿入します。
+     * IDが設定されている場合はそのIDのシャードに挿入します。
+     * いずれの場合もIDを指定して挿入し（{@link ReservationDao#insertWithId}）、バージョンを1に設定します。</p>
+     *
+     * @param reservation 挿入する予約エンティティ
+     * @return 影響を受けた行数（通常は1）
+     * @throws ArithmeticException 変換後のIDが{@code long}の範囲を超える場合
+     * @see ReservationDao#insertWithId
+     */
+    public int insert(Reservation reservation) {
+        return translate(() -> {
+            if (reservation.getId() == null) {
+                var shard = Math.floorMod(nextShard.getAndIncrement(), shards.size());
+                reservation.setId(idBlocks.get(shard).next(shard));
+            }
+            var count = shard(reservation.getId()).insertWithId(reservation);
+            reservation.setVersion(1);
+            return count;
+        });
+    }
+
+    /**
+     * 既存の予約をそのIDのシャードで更新します。
+     *
+     * @param reservation 更新する予約エンティティ
+     * @return 影響を受けた行数（1）
+     * @throws org.springframework.dao.OptimisticLockingFailureException
+     *         レコードが存在しないか、バージョンが一致しない場合
+     * @see ReservationDao#update
+     */
+    public int update(Reservation reservation) {
+        Objects.requireNonNull(reservation.getId(), "id must not be null");
+        return translate(() -> shard(reservation.getId()).update(reservation));
+    }
+
+    /**
+     * すべてのシャードの予約を名前順に取得します。
+     *
+     * <p>各シャードの{@link ReservationDao#selectAll()}を並列に実行し、名前、IDの順でマージします。</p>
+     *
+     * @return 予約エンティティのリスト（空の場合は空のリスト）
+     */
+    public List<Reservation> selectAll() {
+        return merge(scatter(ReservationDao::selectAll), BY_NAME, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 名前が設定された予約を{@code (name, id)}順に1ページ分取得します。
+     *
+     * <p>各シャードから指定したカーソルより後ろの{@code limit}件を並列に取得し、
+     * マージした先頭の{@code limit}件を返します。引数と結果は{@link ReservationDao#selectPageByName}と同じです。</p>
+     *
+     * @param name  直前のページの最終行の名前（先頭ページの場合はnull）
+     * @param id    直前のページの最終行のID（先頭ページの場合はnull）
+     * @param limit 取得する最大件数
+     * @return 予約エンティティのリスト（空の場合は空のリスト）
+     */
+    public List<Reservation> selectPageByName(String name, ReservationId id, int limit) {
+        return merge(scatter(dao -> dao.selectPageByName(name, id, limit)), BY_NAME, limit);
+    }
+
+    /**
+     * 名前がnullの予約をID順に1ページ分取得します。
+     *
+     * <p>各シャードから指定したIDより後ろの{@code limit}件を並列に取得し、
+     * マージした先頭の{@code limit}件を返します。引数と結果は{@link ReservationDao#selectPageWithoutName}と同じです。</p>
+     *
+     * @param id    直前のページの最終行のID（先頭から読む場合はnull）
+     * @param limit 取得する最大件数
+     * @return 予約エンティティのリスト（空の場合は空のリスト）
+     */
+    public List<Reservation> selectPageWithoutName(ReservationId id, int limit) {
+        return merge(scatter(dao -> dao.selectPageWithoutName(id, limit)), BY_ID, limit);
+    }
+
+    /**
+     * 並列実行のエグゼキューターを停止し、シャードのリソースを閉じます。
+     *
+     * @throws Exception リソースを閉じるときに発生した例外
+     */
+    @Override
+    public void close() throws Exception {
+        executor.shutdownNow();
+        for (var resource : resources) {
+            resource.close();
+        }
+    }
+
+    /**
+     * ソート済みの複数のリストを1つのソート済みのリストにマージします。
+     *
+     * <p>各リストの先頭をヒープに保持し、最小の要素を取り出すたびにそのリストの次の要素を加えるため、
+     * 全体の件数を{@code n}、リストの数を{@code k}として{@code O(n log k)}で、先頭の{@code limit}件で打ち切ります。</p>
+     *
+     * @param sorted マージするリスト（それぞれ{@code order}の順にソート済み）
+     * @param order  ソート順
+     * @param limit  取得する最大件数
+     * @param <T>    要素の型
+     * @return マージしたリスト
+     */
+    static <T> List<T> merge(List<List<T>> sorted, Comparator<? super T> order, int limit) {
+        var total = sorted.stream().mapToInt(List::size).sum();
+        var merged = new ArrayList<T>(Math.min(total, limit));
+        var heap = new PriorityQueue<Head<T>>(Math.max(sorted.size(), 1),
+                (left, right) -> order.compare(left.value(), right.value()));
+        for (var list : sorted) {
+            Head.first(list.iterator()).ifPresent(heap::add);
+        }
+        while (merged.size() < limit && !heap.isEmpty()) {
+            var head = heap.poll();
+            merged.add(head.value());
+            Head.first(head.rest()).ifPresent(heap::add);
+        }
+        return merged;
+    }
+
+    private ReservationDao shard(ReservationId id) {
+        return shards.get(shardOf(id));
+    }
+
+    private <T> List<T> scatter(Function<ReservationDao, T> query) {
+        var futures = shards.stream()
+                .map(dao -> CompletableFuture.supplyAsync(() -> query.apply(dao), executor))
+                .toList();
+        try {
+            return futures.stream().map(CompletableFuture::join).toList();
+        } catch (CompletionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw translate(cause);
+            }
+            throw e;
+        }
+    }
+
+    private <T> T translate(Supplier<T> action) {
+        try {
+            return action.get();
+        } catch (RuntimeException e) {
+            throw translate(e);
+        }
+    }
+
+    private RuntimeException translate(RuntimeException e) {
+        var translated = exceptionTranslator.translateExceptionIfPossible(e);
+        return translated != null ? translated : e;
+    }
+
+    /**
+     * ヒープに保持するリストの先頭の要素と残りの要素。
+     */
+    private record Head<T>(T value, Iterator<T> rest) {
+
+        static <T> Optional<Head<T>> first(Iterator<T> iterator) {
+            return iterator.hasNext() ? Optional.of(new Head<>(iterator.next(), iterator)) : Optional.empty();
+        }
+    }
+
+    /**
+     * シャードのシーケンスから払い出したIDのブロック。
+     */
+    private final class IdBlock {
+
+        private final ReservationDao dao;
+        private long next;
+        private long limit;
+
+        IdBlock(ReservationDao dao) {
+            this.dao = dao;
+        }
+
+        synchronized ReservationId next(int shard) {
+            if (next == limit) {
+                next = dao.selectNextIdBlock();
+                limit = next + ALLOCATION_SIZE;
+            }
+            return ReservationId.of(Math.addExact(Math.multiplyExact(next++, shards.size()), shard));
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 読み取り専用の接続をレプリカに振り分ける{@link DataSource}。
+ *
+ * <p>{@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}の
+ * 読み取り専用データソースとして使用し、読み取り専用トランザクションの接続を
+ * 複数のレプリカにラウンドロビンで割り当てます。
+ * </p>
+ *
+ * <h3>Read-your-writes</h3>
+ * <p>書き込み可能なトランザクションがコミットされてから{@code readYourWritesWindow}の間は、
+ * 同じスレッドの読み取りをプライマリに割り当てます。
+ * レプリカの反映遅延によって、直前に書き込んだ値が読めなくなることを防ぎます。
+ * 判定はスレッド単位のため、別スレッド（非同期処理など）の読み取りには適用されません。
+ * </p>
+ *
+ * <p>このクラスは{@link TransactionExecutionListener}としてトランザクションマネージャーに登録され、
+ * コミットの通知を受け取ります。
+ * </p>
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource
+        implements TransactionExecutionListener, AutoCloseable {
+
+    static final String PRIMARY = "primary";
+
+    private final List<DataSource> replicas;
+    private final long readYourWritesNanos;
+    private final AtomicInteger next = new AtomicInteger();
+    private final ThreadLocal<long[]> lastCommitNanos = ThreadLocal.withInitial(() -> new long[]{Long.MIN_VALUE});
+
+    /**
+     * ReplicaRoutingDataSourceを構築します。
+     *
+     * @param primary              プライマリのデータソース
+     * @param replicas             レプリカのデータソース（1件以上）
+     * @param readYourWritesWindow コミット後にプライマリから読み取る期間（0の場合は無効）
+     */
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, Duration readYourWritesWindow) {
+        if (replicas.isEmpty()) {
+            throw new IllegalArgumentException("replicas must not be empty");
+        }
+        this.replicas = List.copyOf(replicas);
+        this.readYourWritesNanos = readYourWritesWindow.toNanos();
+        var targets = new HashMap<Object, Object>();
+        targets.put(PRIMARY, primary);
+        for (var i = 0; i < this.replicas.size(); i++) {
+            targets.put(i, this.replicas.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (isWithinReadYourWritesWindow()) {
+            return PRIMARY;
+        }
+        return Math.floorMod(next.getAndIncrement(), replicas.size());
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+        if (commitFailure == null && transaction.isNewTransaction() && !transaction.isReadOnly()) {
+            lastCommitNanos.get()[0] = System.nanoTime();
+        }
+    }
+
+    /**
+     * 現在のスレッドで直前にコミットした書き込みからの経過時間が、
+     * Read-your-writesの期間内かどうかを判定します。
+     *
+     * @return 期間内の場合はtrue
+     */
+    boolean isWithinReadYourWritesWindow() {
+        if (readYourWritesNanos <= 0) {
+            return false;
+        }
+        var last = lastCommitNanos.get()[0];
+        return last != Long.MIN_VALUE && System.nanoTime() - last < readYourWritesNanos;
+    }
+
+    /**
+     * レプリカのデータソースを閉じます。プライマリはBeanとして別に管理されるため閉じません。
+     *
+     * @throws Exception データソースのクローズに失敗した場合
+     */
+    @Override
+    public void close() throws Exception {
+        for (var replica : replicas) {
+            if (replica instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
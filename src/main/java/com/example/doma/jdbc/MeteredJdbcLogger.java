@@ -0,0 +1,294 @@
+package com.example.doma.jdbc;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.seasar.doma.jdbc.BatchResult;
+import org.seasar.doma.jdbc.JdbcLogger;
+import org.seasar.doma.jdbc.Result;
+import org.seasar.doma.jdbc.Sql;
+import org.seasar.doma.jdbc.SqlExecutionSkipCause;
+import org.seasar.doma.jdbc.SqlKind;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DAOメソッドごとの実行時間と行数をMicrometerに記録する{@link JdbcLogger}。
+ *
+ * <p>ログ出力は委譲先の{@link JdbcLogger}がそのまま行い、このクラスは
+ * DAOメソッドの開始・終了の通知から次のメトリクスを記録します。
+ * </p>
+ * <ul>
+ * <li>{@code doma.dao.method} - 実行時間（タグ: {@code dao}, {@code method}, {@code outcome}）</li>
+ * <li>{@code doma.dao.rows} - 行数（タグ: {@code dao}, {@code method}, {@code type=fetched|affected}）</li>
+ * </ul>
+ *
+ * <p>メーターはDAOメソッドごとに一度だけ生成してキャッシュし、
+ * 実行中の計測状態はスレッドごとのプリミティブ配列で保持するため、
+ * 1回の呼び出しあたりの追加の割り当てはありません。
+ * </p>
+ */
+public final class MeteredJdbcLogger implements JdbcLogger {
+
+    static final String METHOD_METER = "doma.dao.method";
+    static final String ROWS_METER = "doma.dao.rows";
+
+    private final JdbcLogger delegate;
+    private final MeterRegistry registry;
+    private final ConcurrentMap<String, ConcurrentMap<String, DaoMethodMeters>> meters = new ConcurrentHashMap<>();
+    private final ThreadLocal<InvocationStack> invocations = ThreadLocal.withInitial(InvocationStack::new);
+
+    /**
+     * MeteredJdbcLoggerを構築します。
+     *
+     * @param delegate ログ出力を委譲する{@link JdbcLogger}
+     * @param registry メトリクスの登録先
+     */
+    public MeteredJdbcLogger(JdbcLogger delegate, MeterRegistry registry) {
+        this.delegate = delegate;
+        this.registry = registry;
+    }
+
+    @Override
+    public void logDaoMethodEntering(String callerClassName, String callerMethodName, Object... args) {
+        delegate.logDaoMethodEntering(callerClassName, callerMethodName, args);
+        invocations.get().push(System.nanoTime());
+    }
+
+    @Override
+    public void logSql(String callerClassName, String callerMethodName, Sql<?> sql) {
+        delegate.logSql(callerClassName, callerMethodName, sql);
+        invocations.get().kind(sql.getKind());
+    }
+
+    @Override
+    public void logDaoMethodExiting(String callerClassName, String callerMethodName, Object result) {
+        delegate.logDaoMethodExiting(callerClassName, callerMethodName, result);
+        var stack = invocations.get();
+        if (stack.isEmpty()) {
+            return;
+        }
+        var kind = stack.kind();
+        var elapsed = System.nanoTime() - stack.pop();
+        var methodMeters = meters(callerClassName, callerMethodName);
+        methodMeters.success.record(elapsed, TimeUnit.NANOSECONDS);
+        var rows = rows(kind, result);
+        if (rows >= 0) {
+            (kind == SqlKind.SELECT ? methodMeters.fetched : methodMeters.affected).record(rows);
+        }
+    }
+
+    @Override
+    public void logDaoMethodThrowing(String callerClassName, String callerMethodName, RuntimeException e) {
+        delegate.logDaoMethodThrowing(callerClassName, callerMethodName, e);
+        var stack = invocations.get();
+        if (stack.isEmpty()) {
+            return;
+        }
+        var elapsed = System.nanoTime() - stack.pop();
+        meters(callerClassName, callerMethodName).failure.record(elapsed, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void logSqlExecutionSkipping(String callerClassName, String callerMethodName,
+                                        SqlExecutionSkipCause cause) {
+        delegate.logSqlExecutionSkipping(callerClassName, callerMethodName, cause);
+    }
+
+    @Override
+    public void logTransactionBegun(String callerClassName, String callerMethodName, String transactionId) {
+        delegate.logTransactionBegun(callerClassName, callerMethodName, transactionId);
+    }
+
+    @Override
+    public void logTransactionEnded(String callerClassName, String callerMethodName, String transactionId) {
+        delegate.logTransactionEnded(callerClassName, callerMethodName, transactionId);
+    }
+
+    @Override
+    public void logTransactionCommitted(String callerClassName, String callerMethodName, String transactionId) {
+        delegate.logTransactionCommitted(callerClassName, callerMethodName, transactionId);
+    }
+
+    @Override
+    public void logTransactionSavepointCreated(String callerClassName, String callerMethodName,
+                                               String transactionId, String savepointName) {
+        delegate.logTransactionSavepointCreated(callerClassName, callerMethodName, transactionId, savepointName);
+    }
+
+    @Override
+    public void logTransactionRolledback(String callerClassName, String callerMethodName, String transactionId) {
+        delegate.logTransactionRolledback(callerClassName, callerMethodName, transactionId);
+    }
+
+    @Override
+    public void logTransactionSavepointRolledback(String callerClassName, String callerMethodName,
+                                                  String transactionId, String savepointName) {
+        delegate.logTransactionSavepointRolledback(callerClassName, callerMethodName, transactionId, savepointName);
+    }
+
+    @Override
+    public void logTransactionSavepointReleased(String callerClassName, String callerMethodName,
+                                                String transactionId, String savepointName) {
+        delegate.logTransactionSavepointReleased(callerClassName, callerMethodName, transactionId, savepointName);
+    }
+
+    @Override
+    public void logTransactionRollbackFailure(String callerClassName, String callerMethodName,
+                                              String transactionId, SQLException e) {
+        delegate.logTransactionRollbackFailure(callerClassName, callerMethodName, transactionId, e);
+    }
+
+    @Override
+    public void logAutoCommitEnablingFailure(String callerClassName, String callerMethodName, SQLException e) {
+        delegate.logAutoCommitEnablingFailure(callerClassName, callerMethodName, e);
+    }
+
+    @Override
+    public void logTransactionIsolationSettingFailure(String callerClassName, String callerMethodName,
+                                                      int transactionIsolationLevel, SQLException e) {
+        delegate.logTransactionIsolationSettingFailure(callerClassName, callerMethodName,
+                transactionIsolationLevel, e);
+    }
+
+    @Override
+    public void logConnectionClosingFailure(String callerClassName, String callerMethodName, SQLException e) {
+        delegate.logConnectionClosingFailure(callerClassName, callerMethodName, e);
+    }
+
+    @Override
+    public void logStatementClosingFailure(String callerClassName, String callerMethodName, SQLException e) {
+        delegate.logStatementClosingFailure(callerClassName, callerMethodName, e);
+    }
+
+    @Override
+    public void logResultSetClosingFailure(String callerClassName, String callerMethodName, SQLException e) {
+        delegate.logResultSetClosingFailure(callerClassName, callerMethodName, e);
+    }
+
+    private DaoMethodMeters meters(String className, String methodName) {
+        var byMethod = meters.get(className);
+        if (byMethod == null) {
+            byMethod = meters.computeIfAbsent(className, key -> new ConcurrentHashMap<>());
+        }
+        var methodMeters = byMethod.get(methodName);
+        if (methodMeters == null) {
+            methodMeters = byMethod.computeIfAbsent(methodName,
+                    key -> new DaoMethodMeters(registry, daoName(className), methodName));
+        }
+        return methodMeters;
+    }
+
+    /**
+     * DAOメソッドの戻り値から行数を求めます。
+     *
+     * @return 行数（判定できない場合は-1）
+     */
+    static long rows(SqlKind kind, Object result) {
+        return switch (result) {
+            case null -> -1;
+            case Collection<?> collection -> collection.size();
+            case Optional<?> optional -> optional.isPresent() ? 1 : 0;
+            case int[] counts -> Arrays.stream(counts).sum();
+            case Result<?> r -> r.getCount();
+            case BatchResult<?> r -> Arrays.stream(r.getCounts()).sum();
+            // ストリーム検索の集計結果などSELECTの数値は行数ではない
+            case Integer count when kind != SqlKind.SELECT -> count;
+            case Number ignored -> -1;
+            default -> kind == SqlKind.SELECT ? 1 : -1;
+        };
+    }
+
+    /**
+     * 生成されたDAO実装クラスの完全修飾名からDAO名を求めます。
+     *
+     * @param className 完全修飾名（例: {@code com.example.dao.ReservationDaoImpl}）
+     * @return DAO名（例: {@code ReservationDao}）
+     */
+    static String daoName(String className) {
+        var simpleName = className.substring(className.lastIndexOf('.') + 1);
+        return simpleName.endsWith("Impl") ? simpleName.substring(0, simpleName.length() - 4) : simpleName;
+    }
+
+    /**
+     * 1つのDAOメソッドに対応するメーター。
+     */
+    private static final class DaoMethodMeters {
+
+        final Timer success;
+        final Timer failure;
+        final DistributionSummary fetched;
+        final DistributionSummary affected;
+
+        DaoMethodMeters(MeterRegistry registry, String dao, String method) {
+            this.success = timer(registry, dao, method, "success");
+            this.failure = timer(registry, dao, method, "failure");
+            this.fetched = rows(registry, dao, method, "fetched");
+            this.affected = rows(registry, dao, method, "affected");
+        }
+
+        private static Timer timer(MeterRegistry registry, String dao, String method, String outcome) {
+            return Timer.builder(METHOD_METER)
+                    .description("Execution time of Doma DAO methods")
+                    .tags("dao", dao, "method", method, "outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(registry);
+        }
+
+        private static DistributionSummary rows(MeterRegistry registry, String dao, String method, String type) {
+            return DistributionSummary.builder(ROWS_METER)
+                    .description("Rows fetched or affected by Doma DAO methods")
+                    .baseUnit("rows")
+                    .tags("dao", dao, "method", method, "type", type)
+                    .register(registry);
+        }
+    }
+
+    /**
+     * スレッドごとの実行中DAOメソッドの開始時刻とSQL種別のスタック。
+     *
+     * <p>DAOのデフォルトメソッドから別のDAOメソッドを呼ぶ場合に備えてスタックで保持します。
+     */
+    private static final class InvocationStack {
+
+        private long[] startNanos = new long[4];
+        private SqlKind[] kinds = new SqlKind[4];
+        private int depth;
+
+        void push(long start) {
+            if (depth == startNanos.length) {
+                startNanos = Arrays.copyOf(startNanos, depth * 2);
+                kinds = Arrays.copyOf(kinds, depth * 2);
+            }
+            startNanos[depth] = start;
+            kinds[depth] = null;
+            depth++;
+        }
+
+        long pop() {
+            depth--;
+            kinds[depth] = null;
+            return startNanos[depth];
+        }
+
+        boolean isEmpty() {
+            return depth == 0;
+        }
+
+        SqlKind kind() {
+            return depth == 0 ? null : kinds[depth - 1];
+        }
+
+        void kind(SqlKind kind) {
+            if (depth > 0) {
+                kinds[depth - 1] = kind;
+            }
+        }
+    }
+}
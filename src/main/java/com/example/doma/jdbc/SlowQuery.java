@@ -0,0 +1,34 @@
+package com.example.doma.jdbc;
+
+import org.seasar.doma.jdbc.SqlKind;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * しきい値を超えたSQLの記録。
+ *
+ * @param sequence    記録の通し番号（新しいほど大きい）
+ * @param timestamp   SQLの実行が終了した時刻
+ * @param dao         DAO名（例: {@code ReservationDao}）
+ * @param method      DAOメソッド名
+ * @param kind        SQLの種類
+ * @param sqlFilePath SQLファイルのパス（自動生成されたSQLの場合はnull）
+ * @param sql         バインド変数の値を埋め込んだSQL
+ * @param elapsed     SQLの発行からDAOメソッドの終了までの時間
+ * @param failed      DAOメソッドが例外で終了した場合はtrue
+ * @param plan        {@code EXPLAIN (FORMAT JSON)}の結果（取得前・取得できない場合はnull）
+ */
+public record SlowQuery(long sequence, Instant timestamp, String dao, String method, SqlKind kind,
+                        String sqlFilePath, String sql, Duration elapsed, boolean failed, String plan) {
+
+    /**
+     * 実行計画を設定した記録を返します。
+     *
+     * @param plan {@code EXPLAIN (FORMAT JSON)}の結果
+     * @return 実行計画を設定した記録
+     */
+    SlowQuery withPlan(String plan) {
+        return new SlowQuery(sequence, timestamp, dao, method, kind, sqlFilePath, sql, elapsed, failed, plan);
+    }
+}
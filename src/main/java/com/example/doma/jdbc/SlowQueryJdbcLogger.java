@@ -0,0 +1,303 @@
+package com.example.doma.jdbc;
+
+import org.seasar.doma.jdbc.JdbcLogger;
+import org.seasar.doma.jdbc.JdbcMappable;
+import org.seasar.doma.jdbc.Sql;
+import org.seasar.doma.jdbc.SqlExecutionSkipCause;
+import org.seasar.doma.jdbc.SqlKind;
+import org.seasar.doma.jdbc.SqlParameter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Array;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * 実行時間がしきい値を超えたSQLを{@link SlowQueryLog}に記録する{@link JdbcLogger}。
+ *
+ * <p>ログ出力は委譲先の{@link JdbcLogger}がそのまま行います。
+ * DAOメソッド内で最初にSQLが発行されてからDAOメソッドが終了するまでの時間を計測し、
+ * しきい値を超えた場合にSQLファイルのパス、バインド変数の値を埋め込んだSQL、
+ * {@code EXPLAIN (FORMAT JSON)}による実行計画を記録します。
+ * ストリーム検索では、呼び出し元がストリームを処理する時間も含まれます。
+ * </p>
+ *
+ * <p>しきい値以下の場合、計測状態はスレッドごとの配列で保持するため、
+ * 1回の呼び出しあたりの追加のコストは{@link System#nanoTime()}の呼び出しと配列への書き込みのみです。
+ * </p>
+ *
+ * <p>実行計画は呼び出し元のスレッドを待たせないよう仮想スレッドで別の接続から取得し、
+ * 同時に取得する数は{@link #MAX_CONCURRENT_EXPLAINS}に制限します（超えた場合は取得しません）。
+ * {@code EXPLAIN}は{@code ANALYZE}なしで実行するため、更新系のSQLも実際には実行されません。
+ * JDBCバッチ・スクリプト・ストアドの呼び出しの実行計画は取得しません。
+ * </p>
+ */
+public final class SlowQueryJdbcLogger implements JdbcLogger {
+
+    private static final Logger logger = LoggerFactory.getLogger(SlowQueryJdbcLogger.class);
+
+    static final int MAX_CONCURRENT_EXPLAINS = 2;
+    private static final int EXPLAIN_TIMEOUT_SECONDS = 5;
+    private static final Set<SqlKind> EXPLAINABLE = EnumSet.of(
+            SqlKind.SELECT, SqlKind.INSERT, SqlKind.UPDATE, SqlKind.DELETE);
+
+    private final JdbcLogger delegate;
+    private final SlowQueryLog log;
+    private final long thresholdNanos;
+    private final Supplier<DataSource> explainDataSource;
+    private final Semaphore explains = new Semaphore(MAX_CONCURRENT_EXPLAINS);
+    private final ThreadLocal<StatementStack> statements = ThreadLocal.withInitial(StatementStack::new);
+
+    /**
+     * SlowQueryJdbcLoggerを構築します。
+     *
+     * @param delegate          ログ出力を委譲する{@link JdbcLogger}
+     * @param log               記録先
+     * @param threshold         記録するSQLの実行時間のしきい値
+     * @param explainDataSource 実行計画を取得する接続のデータソース（nullの場合は実行計画を取得しません）
+     */
+    public SlowQueryJdbcLogger(JdbcLogger delegate, SlowQueryLog log, Duration threshold,
+                               Supplier<DataSource> explainDataSource) {
+        this.delegate = delegate;
+        this.log = log;
+        this.thresholdNanos = threshold.toNanos();
+        this.explainDataSource = explainDataSource;
+    }
+
+    @Override
+    public void logDaoMethodEntering(String callerClassName, String callerMethodName, Object... args) {
+        delegate.logDaoMethodEntering(callerClassName, callerMethodName, args);
+        statements.get().push();
+    }
+
+    @Override
+    public void logSql(String callerClassName, String callerMethodName, Sql<?> sql) {
+        delegate.logSql(callerClassName, callerMethodName, sql);
+        statements.get().sql(sql, System.nanoTime());
+    }
+
+    @Override
+    public void logDaoMethodExiting(String callerClassName, String callerMethodName, Object result) {
+        delegate.logDaoMethodExiting(callerClassName, callerMethodName, result);
+        exit(callerClassName, callerMethodName, false);
+    }
+
+    @Override
+    public void logDaoMethodThrowing(String callerClassName, String callerMethodName, RuntimeException e) {
+        delegate.logDaoMethodThrowing(callerClassName, callerMethodName, e);
+        exit(callerClassName, callerMethodName, true);
+    }
+
+    private void exit(String callerClassName, String callerMethodName, boolean failed) {
+        var stack = statements.get();
+        if (stack.isEmpty()) {
+            return;
+        }
+        var start = stack.start();
+        var sql = stack.pop();
+        if (sql == null) {
+            return;
+        }
+        var elapsed = System.nanoTime() - start;
+        if (elapsed > thresholdNanos) {
+            record(callerClassName, callerMethodName, sql, elapsed, failed);
+        }
+    }
+
+    private void record(String callerClassName, String callerMethodName, Sql<?> sql, long elapsed, boolean failed) {
+        var query = new SlowQuery(log.nextSequence(), Instant.now(), MeteredJdbcLogger.daoName(callerClassName),
+                callerMethodName, sql.getKind(), sql.getSqlFilePath(), sql.getFormattedSql(),
+                Duration.ofNanos(elapsed), failed, null);
+        log.add(query);
+        if (explainDataSource == null || !EXPLAINABLE.contains(sql.getKind()) || !explains.tryAcquire()) {
+            return;
+        }
+        try {
+            // 配列などの値は呼び出し元が解放する前にコピーする
+            var parameters = parameters(sql.getParameters());
+            Thread.ofVirtual().name("slow-query-explain").start(() -> {
+                try {
+                    log.replace(query, query.withPlan(explain(sql.getRawSql(), parameters)));
+                } catch (SQLException | RuntimeException e) {
+                    logger.debug("Failed to explain slow query {}.{}", query.dao(), query.method(), e);
+                } finally {
+                    explains.release();
+                }
+            });
+        } catch (SQLException | RuntimeException e) {
+            explains.release();
+            logger.debug("Failed to capture parameters of slow query {}.{}", query.dao(), query.method(), e);
+        }
+    }
+
+    private String explain(String rawSql, List<Object> parameters) throws SQLException {
+        try (var connection = explainDataSource.get().getConnection();
+             var statement = connection.prepareStatement("EXPLAIN (FORMAT JSON) " + rawSql)) {
+            statement.setQueryTimeout(EXPLAIN_TIMEOUT_SECONDS);
+            for (var i = 0; i < parameters.size(); i++) {
+                if (parameters.get(i) instanceof ArrayValue(var baseTypeName, var elements)) {
+                    statement.setArray(i + 1, connection.createArrayOf(baseTypeName, elements));
+                } else {
+                    statement.setObject(i + 1, parameters.get(i));
+                }
+            }
+            try (var resultSet = statement.executeQuery()) {
+                return resultSet.next() ? resultSet.getString(1) : null;
+            }
+        }
+    }
+
+    private static List<Object> parameters(List<? extends SqlParameter> parameters) throws SQLException {
+        var values = new ArrayList<>(parameters.size());
+        for (var parameter : parameters) {
+            var value = parameter instanceof JdbcMappable<?> mappable
+                    ? mappable.getWrapper().get()
+                    : parameter.getValue();
+            if (value instanceof Array array) {
+                var elements = (Object[]) array.getArray();
+                value = new ArrayValue(array.getBaseTypeName(), Arrays.copyOf(elements, elements.length));
+            }
+            values.add(value);
+        }
+        return values;
+    }
+
+    @Override
+    public void logSqlExecutionSkipping(String callerClassName, String callerMethodName,
+                                        SqlExecutionSkipCause cause) {
+        delegate.logSqlExecutionSkipping(callerClassName, callerMethodName, cause);
+    }
+
+    @Override
+    public void logTransactionBegun(String callerClassName, String callerMethodName, String transactionId) {
+        delegate.logTransactionBegun(callerClassName, callerMethodName, transactionId);
+    }
+
+    @Override
+    public void logTransactionEnded(String callerClassName, String callerMethodName, String transactionId) {
+        delegate.logTransactionEnded(callerClassName, callerMethodName, transactionId);
+    }
+
+    @Override
+    public void logTransactionCommitted(String callerClassName, String callerMethodName, String transactionId) {
+        delegate.logTransactionCommitted(callerClassName, callerMethodName, transactionId);
+    }
+
+    @Override
+    public void logTransactionSavepointCreated(String callerClassName, String callerMethodName,
+                                               String transactionId, String savepointName) {
+        delegate.logTransactionSavepointCreated(callerClassName, callerMethodName, transactionId, savepointName);
+    }
+
+    @Override
+    public void logTransactionRolledback(String callerClassName, String callerMethodName, String transactionId) {
+        delegate.logTransactionRolledback(callerClassName, callerMethodName, transactionId);
+    }
+
+    @Override
+    public void logTransactionSavepointRolledback(String callerClassName, String callerMethodName,
+                                                  String transactionId, String savepointName) {
+        delegate.logTransactionSavepointRolledback(callerClassName, callerMethodName, transactionId, savepointName);
+    }
+
+    @Override
+    public void logTransactionSavepointReleased(String callerClassName, String callerMethodName,
+                                                String transactionId, String savepointName) {
+        delegate.logTransactionSavepointReleased(callerClassName, callerMethodName, transactionId, savepointName);
+    }
+
+    @Override
+    public void logTransactionRollbackFailure(String callerClassName, String callerMethodName,
+                                              String transactionId, SQLException e) {
+        delegate.logTransactionRollbackFailure(callerClassName, callerMethodName, transactionId, e);
+    }
+
+    @Override
+    public void logAutoCommitEnablingFailure(String callerClassName, String callerMethodName, SQLException e) {
+        delegate.logAutoCommitEnablingFailure(callerClassName, callerMethodName, e);
+    }
+
+    @Override
+    public void logTransactionIsolationSettingFailure(String callerClassName, String callerMethodName,
+                                                      int transactionIsolationLevel, SQLException e) {
+        delegate.logTransactionIsolationSettingFailure(callerClassName, callerMethodName,
+                transactionIsolationLevel, e);
+    }
+
+    @Override
+    public void logConnectionClosingFailure(String callerClassName, String callerMethodName, SQLException e) {
+        delegate.logConnectionClosingFailure(callerClassName, callerMethodName, e);
+    }
+
+    @Override
+    public void logStatementClosingFailure(String callerClassName, String callerMethodName, SQLException e) {
+        delegate.logStatementClosingFailure(callerClassName, callerMethodName, e);
+    }
+
+    @Override
+    public void logResultSetClosingFailure(String callerClassName, String callerMethodName, SQLException e) {
+        delegate.logResultSetClosingFailure(callerClassName, callerMethodName, e);
+    }
+
+    /**
+     * 実行計画の取得のためにコピーしたJDBC配列の値。
+     */
+    private record ArrayValue(String baseTypeName, Object[] elements) {
+    }
+
+    /**
+     * スレッドごとの実行中DAOメソッドの最初のSQLの発行時刻と最後に発行したSQLのスタック。
+     *
+     * <p>DAOのデフォルトメソッドから別のDAOメソッドを呼ぶ場合に備えてスタックで保持します。
+     */
+    private static final class StatementStack {
+
+        private long[] startNanos = new long[4];
+        private Sql<?>[] sqls = new Sql<?>[4];
+        private int depth;
+
+        void push() {
+            if (depth == startNanos.length) {
+                startNanos = Arrays.copyOf(startNanos, depth * 2);
+                sqls = Arrays.copyOf(sqls, depth * 2);
+            }
+            sqls[depth] = null;
+            depth++;
+        }
+
+        void sql(Sql<?> sql, long now) {
+            if (depth == 0) {
+                return;
+            }
+            if (sqls[depth - 1] == null) {
+                startNanos[depth - 1] = now;
+            }
+            sqls[depth - 1] = sql;
+        }
+
+        long start() {
+            return startNanos[depth - 1];
+        }
+
+        Sql<?> pop() {
+            depth--;
+            var sql = sqls[depth];
+            sqls[depth] = null;
+            return sql;
+        }
+
+        boolean isEmpty() {
+            return depth == 0;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.doma.jdbc;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * {@link SlowQuery}を新しいものから一定件数だけ保持するリングバッファ。
+ *
+ * <p>書き込みは通し番号の{@code getAndIncrement}とスロットへの書き込みだけで行い、ロックを使用しません。
+ * 容量を超えた場合は最も古い記録から上書きされます。
+ * 読み込み中に上書きされた記録は、スナップショットに含まれないか新しい記録として含まれます。
+ * </p>
+ */
+public final class SlowQueryLog {
+
+    private final AtomicReferenceArray<SlowQuery> slots;
+    private final AtomicLong next = new AtomicLong();
+
+    /**
+     * SlowQueryLogを構築します。
+     *
+     * @param capacity 保持する最大件数
+     * @throws IllegalArgumentException capacityが1未満の場合
+     */
+    public SlowQueryLog(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    /**
+     * 次の記録の通し番号を払い出します。
+     *
+     * @return 通し番号
+     */
+    long nextSequence() {
+        return next.getAndIncrement();
+    }
+
+    /**
+     * 記録を追加します。
+     *
+     * @param query 記録（{@link SlowQuery#sequence()}は{@link #nextSequence()}で払い出したもの）
+     */
+    void add(SlowQuery query) {
+        slots.set(index(query.sequence()), query);
+    }
+
+    /**
+     * 記録がまだ上書きされていなければ置き換えます。
+     *
+     * @param expected 置き換える記録
+     * @param updated  新しい記録
+     * @return 置き換えた場合はtrue
+     */
+    boolean replace(SlowQuery expected, SlowQuery updated) {
+        return slots.compareAndSet(index(expected.sequence()), expected, updated);
+    }
+
+    /**
+     * 保持している記録を新しい順に返します。
+     *
+     * @return 記録のリスト
+     */
+    public List<SlowQuery> snapshot() {
+        var result = new ArrayList<SlowQuery>(slots.length());
+        for (var i = 0; i < slots.length(); i++) {
+            var query = slots.get(i);
+            if (query != null) {
+                result.add(query);
+            }
+        }
+        result.sort(Comparator.comparingLong(SlowQuery::sequence).reversed());
+        return result;
+    }
+
+    /**
+     * 保持している記録をすべて削除します。
+     */
+    public void clear() {
+        for (var i = 0; i < slots.length(); i++) {
+            slots.set(i, null);
+        }
+    }
+
+    /**
+     * 保持できる最大件数を返します。
+     *
+     * @return 最大件数
+     */
+    public int capacity() {
+        return slots.length();
+    }
+
+    private int index(long sequence) {
+        return (int) (sequence % slots.length());
+    }
+}
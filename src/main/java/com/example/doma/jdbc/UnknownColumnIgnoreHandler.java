@@ -1,16 +1,67 @@
 package com.example.doma.jdbc;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.seasar.doma.jdbc.UnknownColumnHandler;
 import org.seasar.doma.jdbc.entity.EntityType;
 import org.seasar.doma.jdbc.query.Query;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.function.Supplier;
 
+/**
+ * 結果セットのエンティティに対応しないカラムを無視する{@link UnknownColumnHandler}。
+ *
+ * <p>無視したカラムは読み込まれて転送された後に捨てられるため、
+ * クエリとエンティティ型ごとの件数を{@code doma.unknown.columns}カウンター
+ * （タグ: {@code dao}, {@code method}, {@code entity}, {@code column}）に記録し、
+ * 組み合わせごとに初回のみ警告ログを出力します。
+ * カウンターが増えるSQLは、{@code SELECT *}をやめて必要なカラムだけを選択するよう修正してください。
+ * </p>
+ */
 public final class UnknownColumnIgnoreHandler implements UnknownColumnHandler {
 
+    private static final Logger logger = LoggerFactory.getLogger(UnknownColumnIgnoreHandler.class);
+
+    static final String METER = "doma.unknown.columns";
+
+    private final MeterRegistry registry;
+    private final ConcurrentMap<Key, Counter> counters = new ConcurrentHashMap<>();
+
+    /**
+     * UnknownColumnIgnoreHandlerを構築します。
+     *
+     * @param registry メトリクスの登録先
+     */
+    public UnknownColumnIgnoreHandler(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
     @Override
     public void handle(Query query, EntityType<?> entityType, String unknownColumnName,
                        Supplier<String> informationSupplier) {
-        // do nothing
+        var key = new Key(query.getClassName(), query.getMethodName(), entityType.getName(), unknownColumnName);
+        var counter = counters.get(key);
+        if (counter == null) {
+            counter = counters.computeIfAbsent(key, this::register);
+        }
+        counter.increment();
+    }
+
+    private Counter register(Key key) {
+        var dao = MeteredJdbcLogger.daoName(key.className());
+        logger.warn("Ignored unknown column '{}' for entity {} in {}.{}; select only the mapped columns",
+                key.column(), key.entity(), dao, key.method());
+        return Counter.builder(METER)
+                .description("Columns fetched by Doma queries but not mapped to the result entity")
+                .baseUnit("columns")
+                .tags("dao", dao, "method", key.method(), "entity", key.entity(), "column", key.column())
+                .register(registry);
+    }
+
+    private record Key(String className, String method, String entity, String column) {
     }
 }
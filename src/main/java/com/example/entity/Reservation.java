@@ -4,6 +4,8 @@ import org.seasar.doma.Entity;
 import org.seasar.doma.GeneratedValue;
 import org.seasar.doma.GenerationType;
 import org.seasar.doma.Id;
+import org.seasar.doma.SequenceGenerator;
+import org.seasar.doma.Version;
 
 /**
  * Reservation entity representing a reservation record.
@@ -11,6 +13,17 @@ import org.seasar.doma.Id;
  * This entity maps to the reservation table in the database.
  * The ID field uses a value object pattern for type safety.
  * </p>
+ * <p>
+ * IDs are allocated from {@code reservation_id_seq} in blocks of 100: Doma fetches
+ * {@code nextval} once per block and hands out the rest from memory, so batch inserts
+ * need no per-row key retrieval. The sequence's {@code INCREMENT BY} must match the
+ * allocation size.
+ * </p>
+ * <p>
+ * Updates are guarded by optimistic locking on the version field:
+ * an update whose version no longer matches the row affects no rows
+ * and fails instead of overwriting a concurrent change.
+ * </p>
  */
 @Entity
 public class Reservation {
@@ -19,7 +32,8 @@ public class Reservation {
      * The reservation ID as a value object.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE)
+    @SequenceGenerator(sequence = "reservation_id_seq", allocationSize = 100)
     private ReservationId id;
 
     /**
@@ -27,6 +41,13 @@ public class Reservation {
      */
     public String name;
 
+    /**
+     * The version number for optimistic locking.
+     * Doma sets it to 1 on insert and increments it on every update.
+     */
+    @Version
+    private Integer version;
+
     /**
      * Gets the reservation ID.
      *
@@ -44,4 +65,22 @@ public class Reservation {
     public void setId(ReservationId id) {
         this.id = id;
     }
+
+    /**
+     * Gets the version number.
+     *
+     * @return the version number, or null if the entity has not been persisted
+     */
+    public Integer getVersion() {
+        return version;
+    }
+
+    /**
+     * Sets the version number.
+     *
+     * @param version the version number read from the database
+     */
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
 }
@@ -0,0 +1,25 @@
+package com.example.entity;
+
+import org.seasar.doma.Column;
+import org.seasar.doma.Entity;
+import org.seasar.doma.Id;
+
+/**
+ * Immutable read projection of a reservation row as seen by the change feed.
+ * <p>
+ * Besides the current column values it carries the ID of the transaction that last
+ * inserted or updated the row ({@code changed_xid}), which together with the reservation ID
+ * forms the watermark a consumer resumes from.
+ * </p>
+ *
+ * @param id         the reservation ID
+ * @param name       the reservation name
+ * @param version    the optimistic-locking version of the row
+ * @param changedXid the ID of the transaction that last inserted or updated the row
+ */
+@Entity
+public record ReservationChange(@Id ReservationId id,
+                                String name,
+                                Integer version,
+                                @Column(name = "changed_xid") Long changedXid) {
+}
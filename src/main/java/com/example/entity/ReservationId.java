@@ -8,11 +8,11 @@ import java.util.Objects;
 /**
  * 予約IDを表す値オブジェクト。
  * <p>
- * 整数のID値をラップし、nullは許容しません。
+ * 64ビット整数のID値をラップし、nullは許容しません。
  * </p>
  */
-@Domain(valueType = Integer.class, accessorMethod = "value", factoryMethod = "of")
-public record ReservationId(Integer value) {
+@Domain(valueType = Long.class, accessorMethod = "value", factoryMethod = "of")
+public record ReservationId(Long value) {
 
     /**
      * 指定された非nullの値でReservationIdを生成します。
@@ -27,22 +27,45 @@ public record ReservationId(Integer value) {
     /**
      * 整数値からReservationIdを生成します。
      *
+     * <p>Domaが読み込んだ値から生成する際のファクトリメソッドです。
+     * {@link ReservationIdCache}の範囲内の値はキャッシュ済みのインスタンスを返します。
+     * nullの検査はコンストラクタで1回だけ行います。
+     *
      * @param value ID値（null不可）
      * @return 指定値を持つReservationId
      * @throws NullPointerException valueがnullの場合
      */
-    public static ReservationId of(Integer value) {
-        Objects.requireNonNull(value, "value must not be null");
+    public static ReservationId of(Long value) {
+        if (value != null) {
+            var cached = ReservationIdCache.lookup(value);
+            if (cached != null) {
+                return cached;
+            }
+        }
         return new ReservationId(value);
     }
 
+    /**
+     * プリミティブの整数値からReservationIdを生成します。
+     *
+     * <p>{@code ResultSet#getLong}などで読み込んだ値から直接生成する場合に使用します。
+     * {@link ReservationIdCache}の範囲内の値はボックス化せずにキャッシュ済みのインスタンスを返します。
+     *
+     * @param value ID値
+     * @return 指定値を持つReservationId
+     */
+    public static ReservationId of(long value) {
+        var cached = ReservationIdCache.lookup(value);
+        return cached != null ? cached : new ReservationId(value);
+    }
+
     /**
      * 内部のID値を返します（nullはありません）。
      *
      * @return ID値（nullなし）
      */
     @Override
-    public Integer value() {
+    public Long value() {
         return value;
     }
 
@@ -0,0 +1,105 @@
+package com.example.entity;
+
+/**
+ * よく読み込まれる範囲の{@link ReservationId}を使い回すためのキャッシュ。
+ * <p>
+ * キャッシュをインストールしている間、{@link ReservationId#of(long)}と{@link ReservationId#of(Long)}は
+ * {@code [low, low + size)}の値に対して常に同じインスタンスを返します。
+ * 直近の予約など、同じ範囲の行を繰り返し読み込む場合に{@code ReservationId}とボックス化した{@code Long}を生成しません。
+ * 範囲外の値は通常どおり生成します。
+ * </p>
+ * <p>
+ * インスタンスは最初に要求された時に生成します。{@code ReservationId}は不変のため、
+ * 複数のスレッドが同時に生成しても等価なインスタンスのいずれかが残るだけで問題ありません。
+ * 配列は最初に確保するため、{@code size}個の参照と、要求された値ごとの{@code ReservationId}・{@code Long}を保持します。
+ * </p>
+ * <p>
+ * Domaのドメインのファクトリメソッドはstaticのため、キャッシュはプロセス全体で1つです。
+ * 範囲外の値やコンストラクタで生成したIDは別のインスタンスになるため、IDは引き続き{@code equals}で比較してください。
+ * </p>
+ */
+public final class ReservationIdCache implements AutoCloseable {
+
+    private static volatile ReservationIdCache installed;
+
+    private final long low;
+    private final ReservationId[] ids;
+
+    private ReservationIdCache(long low, int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("size must be positive: " + size);
+        }
+        if (low > Long.MAX_VALUE - size + 1) {
+            throw new IllegalArgumentException("range exceeds Long.MAX_VALUE: low=" + low + ", size=" + size);
+        }
+        this.low = low;
+        this.ids = new ReservationId[size];
+    }
+
+    /**
+     * {@code [low, low + size)}のIDのキャッシュをインストールします。インストール済みのキャッシュは置き換えます。
+     *
+     * @param low  キャッシュする最小のID値
+     * @param size キャッシュするID値の数
+     * @return インストールしたキャッシュ（{@link #close()}でアンインストール）
+     * @throws IllegalArgumentException sizeが正でない場合、または範囲が{@code Long.MAX_VALUE}を超える場合
+     */
+    public static ReservationIdCache install(long low, int size) {
+        var cache = new ReservationIdCache(low, size);
+        installed = cache;
+        return cache;
+    }
+
+    /**
+     * 指定された値のキャッシュ済みのインスタンスを返します（最初の要求時に生成します）。
+     *
+     * @param value ID値
+     * @return キャッシュ済みのインスタンス（キャッシュがない場合、または範囲外の場合はnull）
+     */
+    static ReservationId lookup(long value) {
+        var cache = installed;
+        if (cache == null) {
+            return null;
+        }
+        // 符号なしで比較し、下限未満の値と差がオーバーフローする値を1回の比較で範囲外とする
+        var offset = value - cache.low;
+        if (Long.compareUnsigned(offset, cache.ids.length) >= 0) {
+            return null;
+        }
+        var index = (int) offset;
+        var id = cache.ids[index];
+        if (id == null) {
+            id = new ReservationId(value);
+            cache.ids[index] = id;
+        }
+        return id;
+    }
+
+    /**
+     * キャッシュする最小のID値を返します。
+     *
+     * @return 範囲の下限（この値を含む）
+     */
+    public long low() {
+        return low;
+    }
+
+    /**
+     * キャッシュするID値の数を返します。
+     *
+     * @return 範囲の大きさ
+     */
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * このキャッシュがインストールされている場合はアンインストールします。
+     */
+    @Override
+    public void close() {
+        if (installed == this) {
+            installed = null;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.entity;
+
+import org.seasar.doma.Entity;
+import org.seasar.doma.Id;
+import org.seasar.doma.Version;
+
+/**
+ * Immutable full-row view of a reservation.
+ * <p>
+ * Holds the same columns as {@link Reservation} but, being a record, can be shared without
+ * defensive copies. Doma treats it as an immutable entity, so it can be the result type of
+ * {@code @Select} methods like {@link ReservationSummary}.
+ * </p>
+ * <p>
+ * Large scans use it through {@code ReservationDao#streamAllRecords}, which maps each row with
+ * {@link #of(long, String, int)} directly from the result set. That path allocates only the record,
+ * the name and, outside a {@link ReservationIdCache} range, the ID, instead of Doma's per-row
+ * property map. Writes still go through the mutable {@link Reservation}, whose generated ID and
+ * version Doma sets in place.
+ * </p>
+ *
+ * @param id      the reservation ID
+ * @param name    the reservation name
+ * @param version the version number for optimistic locking
+ */
+@Entity
+public record ReservationRecord(@Id ReservationId id, String name, @Version Integer version) {
+
+    /**
+     * Creates a record from primitive column values.
+     *
+     * @param id      the reservation ID value
+     * @param name    the reservation name
+     * @param version the version number
+     * @return the record
+     */
+    public static ReservationRecord of(long id, String name, int version) {
+        return new ReservationRecord(ReservationId.of(id), name, version);
+    }
+
+    /**
+     * Copies this record into a new mutable entity, for example to update it.
+     *
+     * @return a {@link Reservation} with the same ID, name and version
+     */
+    public Reservation toReservation() {
+        var reservation = new Reservation();
+        reservation.setId(id);
+        reservation.name = name;
+        reservation.setVersion(version);
+        return reservation;
+    }
+}
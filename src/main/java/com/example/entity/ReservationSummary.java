@@ -0,0 +1,19 @@
+package com.example.entity;
+
+import org.seasar.doma.Entity;
+import org.seasar.doma.Id;
+
+/**
+ * Immutable read projection of a reservation holding only its ID and name.
+ * <p>
+ * Used as the result type of list and lookup queries that select exactly these columns,
+ * so that no unused column is transferred and no mutable {@link Reservation} is created.
+ * Being a record, instances can be shared (for example in caches) without defensive copies.
+ * </p>
+ *
+ * @param id   the reservation ID
+ * @param name the reservation name
+ */
+@Entity
+public record ReservationSummary(@Id ReservationId id, String name) {
+}
@@ -0,0 +1,339 @@
+package com.example.loadtest;
+
+import com.example.concurrency.ConcurrencyLimitExceededException;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * 操作の比率に従って操作を繰り返し実行し、操作ごとのレイテンシをHdrHistogramに記録する負荷生成器。
+ *
+ * <p>{@code rate}に正の値を指定した場合は開ループで動作し、{@code 1 / rate}秒ごとに予定した開始時刻で操作を開始します。
+ * 同時に実行中の操作が{@code concurrency}件に達している間は開始を待ちますが、予定の開始時刻は後ろにずらしません。
+ * レイテンシは予定の開始時刻から完了までの時間として記録するため、待たされた時間も含まれ、
+ * Coordinated Omission（応答が遅い間の計測が抜け落ちること）の影響を受けません。
+ * </p>
+ *
+ * <p>{@code rate}が0の場合は閉ループで動作し、{@code concurrency}個のワーカーが前の操作の完了後すぐに次の操作を開始します。
+ * 記録したレイテンシは、実行全体の平均レイテンシを各ワーカーが操作を開始する間隔の期待値として
+ * {@link Histogram#copyCorrectedForCoordinatedOmission(long)}で補正します。
+ * </p>
+ *
+ * <p>ウォームアップ中に開始した操作は記録しません。計測は{@code warmup}の経過後から{@code duration}の間に
+ * 開始した操作を対象とし、{@code reportInterval}ごとの区間のヒストグラム（補正前）を{@code intervalListener}に渡します。
+ * 区間のヒストグラムのタグには操作名が設定されます。
+ * </p>
+ *
+ * <p>{@link ConcurrencyLimitExceededException}で失敗した操作は拒否、それ以外の例外で失敗した操作はエラーとして数え、
+ * レイテンシは成功した操作のみ記録します。
+ * </p>
+ */
+public class LoadGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadGenerator.class);
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    /**
+     * 負荷試験で実行する操作。
+     */
+    @FunctionalInterface
+    public interface Operation {
+
+        /**
+         * 操作を1回実行します。
+         *
+         * <p>{@code random}は{@code randomSeed}から導出した乱数で、この呼び出しの間だけ使用できます。
+         * 操作の対象の選択などに使用すると、同じ種で同じ順序の選択を再現できます。</p>
+         *
+         * @param random 操作内の選択に使用する乱数
+         * @throws Exception 操作が失敗した場合
+         */
+        void run(SplittableRandom random) throws Exception;
+    }
+
+    private final Map<String, Operation> operations;
+    private final LoadTestMix mix;
+    private final double rate;
+    private final int concurrency;
+    private final Duration warmup;
+    private final Duration duration;
+    private final Duration reportInterval;
+    private final long randomSeed;
+
+    /**
+     * LoadGeneratorを構築します。
+     *
+     * @param operations     操作名と操作の対応
+     * @param mix            操作の比率（すべての操作名が{@code operations}に含まれている必要があります）
+     * @param rate           1秒あたりに開始する操作の数（0の場合は閉ループ）
+     * @param concurrency    同時に実行する操作の最大数（閉ループの場合はワーカーの数）
+     * @param warmup         記録を開始するまでの時間
+     * @param duration       記録する時間
+     * @param reportInterval 区間のヒストグラムを出力する間隔
+     * @param randomSeed     操作の選択と{@link Operation}に渡す乱数の種
+     */
+    public LoadGenerator(Map<String, Operation> operations, LoadTestMix mix, double rate, int concurrency,
+                         Duration warmup, Duration duration, Duration reportInterval, long randomSeed) {
+        for (var operation : mix.operations()) {
+            if (!operations.containsKey(operation)) {
+                throw new IllegalArgumentException("unknown operation in mix: " + operation
+                        + " (available: " + String.join(", ", operations.keySet()) + ")");
+            }
+        }
+        if (rate < 0 || Double.isNaN(rate)) {
+            throw new IllegalArgumentException("rate must not be negative: " + rate);
+        }
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("concurrency must be positive: " + concurrency);
+        }
+        if (warmup.isNegative()) {
+            throw new IllegalArgumentException("warmup must not be negative: " + warmup);
+        }
+        if (!duration.isPositive() || !reportInterval.isPositive()) {
+            throw new IllegalArgumentException("duration and report interval must be positive: "
+                    + duration + ", " + reportInterval);
+        }
+        this.operations = Map.copyOf(operations);
+        this.mix = mix;
+        this.rate = rate;
+        this.concurrency = concurrency;
+        this.warmup = warmup;
+        this.duration = duration;
+        this.reportInterval = reportInterval;
+        this.randomSeed = randomSeed;
+    }
+
+    /**
+     * 負荷試験を実行し、完了した操作を待って結果を返します。
+     *
+     * @param intervalListener 区間のヒストグラムを受け取るリスナー（計測中は1つのスレッドから呼ばれます）
+     * @return 負荷試験の結果
+     * @throws InterruptedException 実行中に割り込まれた場合
+     */
+    public LoadTestResult run(Consumer<Histogram> intervalListener) throws InterruptedException {
+        var stats = new LinkedHashMap<String, OperationStats>();
+        for (var operation : mix.operations()) {
+            stats.put(operation, new OperationStats(operation));
+        }
+        var start = System.nanoTime();
+        var measureStart = start + warmup.toNanos();
+        var end = measureStart + duration.toNanos();
+
+        var reporter = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("loadtest-reporter")
+                .daemon().factory());
+        // 最初の区間が計測の開始時刻から始まるように区間を切り替える
+        // （切り替えが遅れて計測対象の値が記録済みの場合は、合計と一致するよう区間として渡す）
+        reporter.schedule(() -> report(stats.values(), histogram -> {
+            if (histogram.getTotalCount() > 0) {
+                intervalListener.accept(histogram);
+            }
+        }), measureStart - System.nanoTime(), TimeUnit.NANOSECONDS);
+        reporter.scheduleAtFixedRate(() -> report(stats.values(), intervalListener),
+                measureStart - System.nanoTime() + reportInterval.toNanos(), reportInterval.toNanos(),
+                TimeUnit.NANOSECONDS);
+        try {
+            if (rate > 0) {
+                runOpenLoop(stats, start, measureStart, end);
+            } else {
+                runClosedLoop(stats, measureStart, end);
+            }
+        } finally {
+            reporter.shutdownNow();
+            reporter.awaitTermination(1, TimeUnit.MINUTES);
+        }
+        report(stats.values(), intervalListener);
+
+        var results = new ArrayList<LoadTestResult.OperationResult>();
+        var expectedInterval = rate > 0 ? 0 : meanLatency(stats.values());
+        for (var operation : stats.values()) {
+            var serviceTime = operation.serviceTimeTotal;
+            var responseTime = rate > 0 || expectedInterval == 0
+                    ? operation.responseTimeTotal
+                    : operation.responseTimeTotal.copyCorrectedForCoordinatedOmission(expectedInterval);
+            results.add(new LoadTestResult.OperationResult(operation.name, responseTime, serviceTime,
+                    operation.errors.sum(), operation.rejected.sum()));
+        }
+        return new LoadTestResult(mix, rate, concurrency, warmup, duration, expectedInterval, results);
+    }
+
+    private void runOpenLoop(Map<String, OperationStats> stats, long start, long measureStart, long end)
+            throws InterruptedException {
+        var random = new SplittableRandom(randomSeed);
+        var permits = new Semaphore(concurrency);
+        var intervalNanos = 1_000_000_000.0 / rate;
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; ; i++) {
+                var intended = start + (long) (i * intervalNanos);
+                if (intended - end >= 0) {
+                    break;
+                }
+                parkUntil(intended);
+                permits.acquire();
+                var operation = stats.get(mix.pick(random));
+                // 操作は並行に実行されるため、開始順に分割した乱数を渡す
+                var operationRandom = random.split();
+                executor.execute(() -> {
+                    try {
+                        execute(operation, operationRandom, intended, intended - measureStart >= 0);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+        }
+    }
+
+    private void runClosedLoop(Map<String, OperationStats> stats, long measureStart, long end) {
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (var worker = 0; worker < concurrency; worker++) {
+                var random = new SplittableRandom(randomSeed + worker);
+                executor.execute(() -> {
+                    while (true) {
+                        var now = System.nanoTime();
+                        if (now - end >= 0) {
+                            return;
+                        }
+                        execute(stats.get(mix.pick(random)), random, now, now - measureStart >= 0);
+                    }
+                });
+            }
+        }
+    }
+
+    private void execute(OperationStats stats, SplittableRandom random, long intendedStart, boolean measured) {
+        var actualStart = System.nanoTime();
+        try {
+            operations.get(stats.name).run(random);
+        } catch (ConcurrencyLimitExceededException e) {
+            if (measured) {
+                stats.rejected.increment();
+            }
+            return;
+        } catch (Exception e) {
+            if (measured) {
+                stats.errors.increment();
+                if (stats.errorLogged.compareAndSet(false, true)) {
+                    logger.warn("{} failed (further failures are counted without logging)", stats.name, e);
+                }
+            }
+            return;
+        }
+        if (measured) {
+            var completed = System.nanoTime();
+            stats.responseTime.recordValue(completed - intendedStart);
+            stats.serviceTime.recordValue(completed - actualStart);
+        }
+    }
+
+    private static void report(Iterable<OperationStats> stats, Consumer<Histogram> intervalListener) {
+        for (var operation : stats) {
+            var interval = operation.responseTime.getIntervalHistogram();
+            operation.responseTimeTotal.add(interval);
+            operation.serviceTimeTotal.add(operation.serviceTime.getIntervalHistogram());
+            interval.setTag(operation.name);
+            intervalListener.accept(interval);
+            var seconds = (interval.getEndTimeStamp() - interval.getStartTimeStamp()) / 1000.0;
+            if (interval.getTotalCount() > 0 && seconds > 0) {
+                logger.info("{}: {} ops/s, p99 {} ms", operation.name,
+                        String.format("%.1f", interval.getTotalCount() / seconds),
+                        String.format("%.3f", interval.getValueAtPercentile(99) / 1_000_000.0));
+            }
+        }
+    }
+
+    private static long meanLatency(Iterable<OperationStats> stats) {
+        var count = 0L;
+        var sum = 0.0;
+        for (var operation : stats) {
+            count += operation.responseTimeTotal.getTotalCount();
+            sum += operation.responseTimeTotal.getMean() * operation.responseTimeTotal.getTotalCount();
+        }
+        return count == 0 ? 0 : (long) (sum / count);
+    }
+
+    private static void parkUntil(long deadline) throws InterruptedException {
+        while (true) {
+            var remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return;
+            }
+            LockSupport.parkNanos(remaining);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    private static final class OperationStats {
+
+        private final String name;
+        // 予定の開始時刻から完了まで（閉ループでは実際の開始時刻から完了まで）
+        private final Recorder responseTime = new Recorder(SIGNIFICANT_DIGITS);
+        // 実際の開始時刻から完了まで
+        private final Recorder serviceTime = new Recorder(SIGNIFICANT_DIGITS);
+        // 以下は報告を行うスレッド（計測中はreporter、終了後は呼び出し元）のみが更新する
+        private final Histogram responseTimeTotal = new Histogram(SIGNIFICANT_DIGITS);
+        private final Histogram serviceTimeTotal = new Histogram(SIGNIFICANT_DIGITS);
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final AtomicBoolean errorLogged = new AtomicBoolean();
+
+        private OperationStats(String name) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * 負荷試験の結果。
+     *
+     * @param mix              操作の比率
+     * @param rate             1秒あたりに開始した操作の数（0の場合は閉ループ）
+     * @param concurrency      同時に実行する操作の最大数
+     * @param warmup           ウォームアップの時間
+     * @param duration         計測した時間
+     * @param expectedInterval 閉ループでCoordinated Omissionの補正に使用した間隔（ナノ秒、開ループでは0）
+     * @param operations       操作ごとの結果
+     */
+    public record LoadTestResult(LoadTestMix mix, double rate, int concurrency, Duration warmup, Duration duration,
+                                 long expectedInterval, List<OperationResult> operations) {
+
+        /**
+         * 操作ごとの結果。
+         *
+         * @param operation    操作名
+         * @param responseTime 成功した操作のレイテンシ（ナノ秒、Coordinated Omissionを補正済み）
+         * @param serviceTime  成功した操作の実際の開始時刻から完了までの時間（ナノ秒、補正なし）
+         * @param errors       エラーで失敗した操作の数
+         * @param rejected     同時実行数の上限により拒否された操作の数
+         */
+        public record OperationResult(String operation, Histogram responseTime, Histogram serviceTime,
+                                      long errors, long rejected) {
+
+            /**
+             * 計測した時間あたりの成功した操作の数を返します。
+             *
+             * @param duration 計測した時間
+             * @return 1秒あたりの成功した操作の数
+             */
+            public double throughput(Duration duration) {
+                return serviceTime.getTotalCount() / (duration.toNanos() / 1_000_000_000.0);
+            }
+        }
+    }
+}
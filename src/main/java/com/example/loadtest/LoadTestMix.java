@@ -0,0 +1,111 @@
+package com.example.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * 負荷試験で実行する操作の比率。
+ *
+ * <p>{@code findById:70,create:10,save:15,selectAll:5}の形式で、操作名と重みを指定します。
+ * 重みの合計は100である必要はなく、各操作は重みに比例した確率で選ばれます。
+ * </p>
+ *
+ * @param entries 操作名と重みの組（重みは正の値）
+ */
+public record LoadTestMix(List<Entry> entries) {
+
+    /**
+     * 操作名と重みの組。
+     *
+     * @param operation 操作名
+     * @param weight    重み
+     */
+    public record Entry(String operation, int weight) {
+    }
+
+    public LoadTestMix {
+        if (entries.isEmpty()) {
+            throw new IllegalArgumentException("mix must contain at least one operation");
+        }
+        for (var entry : entries) {
+            if (entry.weight() <= 0) {
+                throw new IllegalArgumentException("weight must be positive: " + entry);
+            }
+        }
+        entries = List.copyOf(entries);
+    }
+
+    /**
+     * 文字列から操作の比率を解析します。
+     *
+     * @param text {@code 操作名:重み}をカンマで区切った文字列
+     * @return 操作の比率
+     * @throws IllegalArgumentException 形式が不正な場合、または同じ操作が複数回指定された場合
+     */
+    public static LoadTestMix parse(String text) {
+        var entries = new ArrayList<Entry>();
+        for (var token : text.split(",")) {
+            var trimmed = token.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            var separator = trimmed.indexOf(':');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("mix entry must be <operation>:<weight>: " + trimmed);
+            }
+            var operation = trimmed.substring(0, separator).trim();
+            if (entries.stream().anyMatch(entry -> entry.operation().equals(operation))) {
+                throw new IllegalArgumentException("duplicate operation in mix: " + operation);
+            }
+            try {
+                entries.add(new Entry(operation, Integer.parseInt(trimmed.substring(separator + 1).trim())));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("mix weight must be an integer: " + trimmed, e);
+            }
+        }
+        return new LoadTestMix(entries);
+    }
+
+    /**
+     * 操作名の一覧を指定された順に返します。
+     *
+     * @return 操作名の一覧
+     */
+    public List<String> operations() {
+        return entries.stream().map(Entry::operation).toList();
+    }
+
+    /**
+     * 操作が含まれているかどうかを判定します。
+     *
+     * @param operation 操作名
+     * @return 含まれている場合はtrue
+     */
+    public boolean contains(String operation) {
+        return entries.stream().anyMatch(entry -> entry.operation().equals(operation));
+    }
+
+    /**
+     * 重みに比例した確率で操作を1つ選びます。
+     *
+     * @param random 乱数生成器
+     * @return 選ばれた操作名
+     */
+    public String pick(RandomGenerator random) {
+        var total = entries.stream().mapToInt(Entry::weight).sum();
+        var n = random.nextInt(total);
+        for (var entry : entries) {
+            n -= entry.weight();
+            if (n < 0) {
+                return entry.operation();
+            }
+        }
+        throw new IllegalStateException("unreachable");
+    }
+
+    @Override
+    public String toString() {
+        return String.join(",", entries.stream().map(entry -> entry.operation() + ":" + entry.weight()).toList());
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Locale;
+
+/**
+ * 負荷試験の結果をファイルに出力するレポート。
+ *
+ * <p>出力先のディレクトリに次のファイルを作成します。ビルド間で比較しやすいよう、形式と列の並びは固定です。
+ * </p>
+ * <ul>
+ * <li>{@code summary.txt} - 試験の条件と、操作ごとの件数・スループット・パーセンタイル（ミリ秒）</li>
+ * <li>{@code <操作名>.hgrm} - 操作ごとのレイテンシのパーセンタイル分布（ミリ秒、HdrHistogramの標準形式）</li>
+ * <li>{@code histograms.hlog} - 区間ごとのヒストグラム（ナノ秒、補正前、タグに操作名）。
+ * {@code HistogramLogProcessor}などで再集計できます</li>
+ * </ul>
+ */
+public class LoadTestReport implements AutoCloseable {
+
+    static final String SUMMARY_FILE = "summary.txt";
+    static final String HISTOGRAM_LOG_FILE = "histograms.hlog";
+    static final String PERCENTILES_SUFFIX = ".hgrm";
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final Path directory;
+    private final PrintStream logStream;
+    private final HistogramLogWriter logWriter;
+    private final Instant startTime;
+
+    /**
+     * LoadTestReportを構築し、区間ごとのヒストグラムのログを開きます。
+     *
+     * @param directory 出力先のディレクトリ（存在しない場合は作成します）
+     * @throws IOException ディレクトリまたはファイルを作成できない場合
+     */
+    public LoadTestReport(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        this.directory = directory;
+        this.startTime = Instant.now();
+        this.logStream = new PrintStream(Files.newOutputStream(directory.resolve(HISTOGRAM_LOG_FILE)), false,
+                StandardCharsets.UTF_8);
+        this.logWriter = new HistogramLogWriter(logStream);
+        logWriter.outputLogFormatVersion();
+        logWriter.outputComment("reservation load test, values in nanoseconds, tag = operation");
+        logWriter.outputStartTime(startTime.toEpochMilli());
+        logWriter.setBaseTime(startTime.toEpochMilli());
+        logWriter.outputLegend();
+    }
+
+    /**
+     * 区間のヒストグラムをログに書き込みます。
+     *
+     * <p>{@link LoadGenerator#run}のリスナーとして使用します。
+     *
+     * @param interval 区間のヒストグラム
+     */
+    public void interval(Histogram interval) {
+        logWriter.outputIntervalHistogram(interval);
+    }
+
+    /**
+     * 試験の結果を{@code summary.txt}と操作ごとの{@code .hgrm}に書き込みます。
+     *
+     * @param result 負荷試験の結果
+     * @return {@code summary.txt}のパス
+     * @throws IOException ファイルを書き込めない場合
+     */
+    public Path write(LoadGenerator.LoadTestResult result) throws IOException {
+        for (var operation : result.operations()) {
+            try (var out = new PrintStream(Files.newOutputStream(
+                    directory.resolve(operation.operation() + PERCENTILES_SUFFIX)), false, StandardCharsets.UTF_8)) {
+                operation.responseTime().outputPercentileDistribution(out, 5, NANOS_PER_MILLI);
+            }
+        }
+        var summary = directory.resolve(SUMMARY_FILE);
+        try (var out = new PrintStream(Files.newOutputStream(summary), false, StandardCharsets.UTF_8)) {
+            printSummary(out, result);
+        }
+        return summary;
+    }
+
+    /**
+     * 試験の条件と操作ごとの結果を表形式で出力します。
+     *
+     * @param out    出力先
+     * @param result 負荷試験の結果
+     */
+    void printSummary(PrintStream out, LoadGenerator.LoadTestResult result) {
+        out.printf(Locale.ROOT, "started      %s%n", startTime);
+        out.printf(Locale.ROOT, "java         %s%n", Runtime.version());
+        if (result.rate() > 0) {
+            out.printf(Locale.ROOT, "mode         open-loop, %.1f ops/s, max in-flight %d%n",
+                    result.rate(), result.concurrency());
+            out.println("latency      from intended start time (free of coordinated omission)");
+        } else {
+            out.printf(Locale.ROOT, "mode         closed-loop, %d workers%n", result.concurrency());
+            out.printf(Locale.ROOT, "latency      corrected for coordinated omission, expected interval %.3f ms%n",
+                    result.expectedInterval() / NANOS_PER_MILLI);
+        }
+        out.printf(Locale.ROOT, "mix          %s%n", result.mix());
+        out.printf(Locale.ROOT, "warmup       %s%n", result.warmup());
+        out.printf(Locale.ROOT, "duration     %s%n", result.duration());
+        out.println();
+        out.printf(Locale.ROOT, "%-12s %10s %8s %8s %10s %10s %10s %10s %10s %10s%n", "operation", "count",
+                "errors", "rejected", "ops/s", "p50(ms)", "p90(ms)", "p99(ms)", "p99.9(ms)", "max(ms)");
+        for (var operation : result.operations()) {
+            var latency = operation.responseTime();
+            out.printf(Locale.ROOT, "%-12s %10d %8d %8d %10.1f %10.3f %10.3f %10.3f %10.3f %10.3f%n",
+                    operation.operation(), operation.serviceTime().getTotalCount(), operation.errors(),
+                    operation.rejected(), operation.throughput(result.duration()),
+                    latency.getValueAtPercentile(50) / NANOS_PER_MILLI,
+                    latency.getValueAtPercentile(90) / NANOS_PER_MILLI,
+                    latency.getValueAtPercentile(99) / NANOS_PER_MILLI,
+                    latency.getValueAtPercentile(99.9) / NANOS_PER_MILLI,
+                    latency.getMaxValue() / NANOS_PER_MILLI);
+        }
+    }
+
+    @Override
+    public void close() {
+        logStream.close();
+    }
+}
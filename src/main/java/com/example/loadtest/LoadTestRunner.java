@@ -0,0 +1,153 @@
+package com.example.loadtest;
+
+import com.example.entity.Reservation;
+import com.example.entity.ReservationId;
+import com.example.service.ReservationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * {@code loadtest}プロファイルで起動した場合に、{@link ReservationService}へ混合負荷をかけるランナー。
+ *
+ * <p>{@code reservation.loadtest.seed-rows}件の予約を作成したのち、{@link LoadGenerator}で
+ * {@code reservation.loadtest.mix}の比率に従って次の操作を実行し、結果を
+ * {@code reservation.loadtest.output-dir}に{@link LoadTestReport}として出力します。
+ * </p>
+ * <ul>
+ * <li>{@code findById} - 作成した予約のいずれかを{@link ReservationService#findById}で検索</li>
+ * <li>{@code create} - 新しい予約を{@link ReservationService#create}で作成</li>
+ * <li>{@code save} - 作成した予約のいずれかを検索し、名前を変更して{@link ReservationService#save(Reservation)}で更新
+ * （楽観的排他制御の競合はエラーとして数えます）</li>
+ * <li>{@code selectAll} - すべての予約を{@link ReservationService#streamAll}で読み込んで件数を数える</li>
+ * </ul>
+ *
+ * <p>{@code reservation.loadtest.rate}に正の値を指定すると開ループ（一定の到着率）、
+ * 0の場合は{@code reservation.loadtest.concurrency}個のワーカーによる閉ループで実行します。
+ * ビルド間で比較する場合は、同じデータベースの状態と設定（乱数の種を含む）で実行してください。
+ * {@code application-loadtest.properties}によりWebサーバーは起動せず、試験の完了後にアプリケーションは終了します。
+ * </p>
+ */
+@Component
+@Profile("loadtest")
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class LoadTestRunner implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadTestRunner.class);
+
+    static final String NAME_PREFIX = "loadtest-";
+
+    private final ReservationService service;
+    private final LoadTestMix mix;
+    private final double rate;
+    private final int concurrency;
+    private final Duration warmup;
+    private final Duration duration;
+    private final Duration reportInterval;
+    private final int seedRows;
+    private final long randomSeed;
+    private final Path outputDirectory;
+    private final AtomicLong sequence = new AtomicLong();
+
+    LoadTestRunner(ReservationService service,
+                   @Value("${reservation.loadtest.mix:findById:70,create:10,save:19,selectAll:1}") String mix,
+                   @Value("${reservation.loadtest.rate:0}") double rate,
+                   @Value("${reservation.loadtest.concurrency:16}") int concurrency,
+                   @Value("${reservation.loadtest.warmup:10s}") Duration warmup,
+                   @Value("${reservation.loadtest.duration:60s}") Duration duration,
+                   @Value("${reservation.loadtest.report-interval:1s}") Duration reportInterval,
+                   @Value("${reservation.loadtest.seed-rows:10000}") int seedRows,
+                   @Value("${reservation.loadtest.random-seed:42}") long randomSeed,
+                   @Value("${reservation.loadtest.output-dir:target/loadtest}") Path outputDirectory) {
+        this.mix = LoadTestMix.parse(mix);
+        if (seedRows <= 0 && (this.mix.contains("findById") || this.mix.contains("save"))) {
+            throw new IllegalArgumentException(
+                    "reservation.loadtest.seed-rows must be positive when the mix contains findById or save: "
+                            + seedRows);
+        }
+        this.service = service;
+        this.rate = rate;
+        this.concurrency = concurrency;
+        this.warmup = warmup;
+        this.duration = duration;
+        this.reportInterval = reportInterval;
+        this.seedRows = seedRows;
+        this.randomSeed = randomSeed;
+        this.outputDirectory = outputDirectory;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException, InterruptedException {
+        var ids = seed();
+        var generator = new LoadGenerator(operations(ids), mix, rate, concurrency, warmup, duration,
+                reportInterval, randomSeed);
+        logger.info("Starting load test: mix={}, rate={}, concurrency={}, warmup={}, duration={}",
+                mix, rate, concurrency, warmup, duration);
+        try (var report = new LoadTestReport(outputDirectory)) {
+            var result = generator.run(report::interval);
+            var summary = report.write(result);
+            logger.info("Load test finished, summary written to {}:{}{}", summary.toAbsolutePath(),
+                    System.lineSeparator(), Files.readString(summary));
+        }
+    }
+
+    /**
+     * 操作名と操作の対応を作成します。
+     *
+     * @param ids 検索・更新の対象とする予約ID
+     * @return 操作名と操作の対応
+     */
+    Map<String, LoadGenerator.Operation> operations(long[] ids) {
+        var operations = new LinkedHashMap<String, LoadGenerator.Operation>();
+        operations.put("findById", random -> service.findById(ReservationId.of(randomId(ids, random))));
+        operations.put("create", random -> service.create(newReservation()));
+        operations.put("save", random -> service.findById(ReservationId.of(randomId(ids, random)))
+                .ifPresent(reservation -> {
+                    reservation.name = NAME_PREFIX + sequence.incrementAndGet();
+                    service.save(reservation);
+                }));
+        operations.put("selectAll", random -> service.streamAll(Stream::count));
+        return operations;
+    }
+
+    private long[] seed() {
+        if (seedRows <= 0) {
+            return new long[0];
+        }
+        var start = System.nanoTime();
+        var reservations = new ArrayList<Reservation>(seedRows);
+        for (var i = 0; i < seedRows; i++) {
+            reservations.add(newReservation());
+        }
+        service.saveAll(reservations);
+        logger.info("Seeded {} reservations in {} ms", seedRows, (System.nanoTime() - start) / 1_000_000);
+        return reservations.stream().mapToLong(reservation -> reservation.getId().value()).toArray();
+    }
+
+    private Reservation newReservation() {
+        var reservation = new Reservation();
+        reservation.name = NAME_PREFIX + sequence.incrementAndGet();
+        return reservation;
+    }
+
+    private static long randomId(long[] ids, SplittableRandom random) {
+        return ids[random.nextInt(ids.length)];
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.service;
+
+/**
+ * {@link ReservationBulkService}が扱うPostgreSQLの{@code COPY}のデータ形式。
+ */
+public enum CopyFormat {
+
+    /**
+     * CSV形式（ヘッダー行なし、空のフィールドはNULL）。
+     */
+    CSV("(FORMAT csv)"),
+
+    /**
+     * PostgreSQL独自のバイナリ形式。
+     *
+     * <p>テキストへの変換と解析が不要なためCSVより高速ですが、
+     * カラムの型が一致するPostgreSQLとの間でのみ使用できます。
+     */
+    BINARY("(FORMAT binary)");
+
+    private final String options;
+
+    CopyFormat(String options) {
+        this.options = options;
+    }
+
+    /**
+     * {@code COPY}文に指定するオプションを返します。
+     *
+     * @return {@code COPY}のオプション句
+     */
+    String options() {
+        return options;
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.service;
+
+import java.time.Duration;
+
+/**
+ * {@link ReservationBulkService}によるインポート・エクスポートの結果。
+ *
+ * @param rows    処理した行数（ステージング経由のインポートではマージした行数）
+ * @param bytes   読み書きしたファイルのバイト数
+ * @param elapsed 所要時間
+ */
+public record CopyResult(long rows, long bytes, Duration elapsed) {
+
+    /**
+     * 1秒あたりの行数を返します。
+     *
+     * @return 行数のスループット
+     */
+    public double rowsPerSecond() {
+        return perSecond(rows);
+    }
+
+    /**
+     * 1秒あたりのメガバイト数を返します。
+     *
+     * @return データ量のスループット（MB/s）
+     */
+    public double megabytesPerSecond() {
+        return perSecond(bytes) / (1024 * 1024);
+    }
+
+    private double perSecond(long amount) {
+        var nanos = elapsed.toNanos();
+        return nanos == 0 ? 0 : amount * 1_000_000_000.0 / nanos;
+    }
+}
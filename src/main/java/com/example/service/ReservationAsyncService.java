@@ -0,0 +1,85 @@
+package com.example.service;
+
+import com.example.entity.Reservation;
+import com.example.entity.ReservationId;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * {@link ReservationService}の非同期版を提供するサービスクラス。
+ *
+ * <p>各メソッドは{@code applicationTaskExecutor}上で{@link ReservationService}の
+ * 同名メソッドを（トランザクションプロキシ経由で）呼び出し、結果を{@link CompletableFuture}で返します。
+ * {@code spring.threads.virtual.enabled=true}の場合、Spring Bootはこのエグゼキューターを
+ * 仮想スレッドで構成するため、待ち合わせ中の呼び出しがプラットフォームスレッドを占有しません。
+ * </p>
+ *
+ * <h3>トランザクション</h3>
+ * <p>トランザクションはスレッドに紐づくため、呼び出し元のトランザクションは引き継がれません。
+ * 各呼び出しは実行スレッド上で{@link ReservationService}のトランザクション設計どおりに
+ * 独立して開始・完了し、Futureはコミット後に完了します。
+ * 呼び出し元のトランザクションに参加させたい場合は同期版を使用してください。
+ * </p>
+ *
+ * <h3>キャリアスレッドのピン留め</h3>
+ * <p>Java 24以降（JEP 491）では{@code synchronized}ブロック内のブロッキングでも
+ * 仮想スレッドはキャリアスレッドを解放します。また、PostgreSQL JDBCドライバー（42.6以降）は
+ * I/O待ちの排他制御に{@code ReentrantLock}を使用するため、JDBC呼び出し中にピン留めは発生しません。
+ * ただし、データベースへの同時実行数はコネクションプールのサイズで制限されます。
+ * </p>
+ */
+@Service
+public class ReservationAsyncService {
+
+    private final ReservationService service;
+    private final AsyncTaskExecutor executor;
+
+    /**
+     * ReservationAsyncServiceを構築します。
+     *
+     * @param service  委譲先の同期サービス（トランザクションプロキシ）
+     * @param executor 非同期処理を実行するエグゼキューター
+     */
+    public ReservationAsyncService(ReservationService service,
+                                   @Qualifier("applicationTaskExecutor") AsyncTaskExecutor executor) {
+        this.service = service;
+        this.executor = executor;
+    }
+
+    /**
+     * 指定されたIDで予約を非同期に検索します。
+     *
+     * @param id 予約ID
+     * @return 予約エンティティ（存在しない場合は空のOptional）を返すFuture
+     * @see ReservationService#findById
+     */
+    public CompletableFuture<Optional<Reservation>> findById(ReservationId id) {
+        return executor.submitCompletable(() -> service.findById(id));
+    }
+
+    /**
+     * 新しい予約を非同期に作成します。
+     *
+     * @param entity 作成する予約エンティティ
+     * @return 影響を受けた行数を返すFuture
+     * @see ReservationService#create
+     */
+    public CompletableFuture<Integer> create(Reservation entity) {
+        return executor.submitCompletable(() -> service.create(entity));
+    }
+
+    /**
+     * 予約を非同期に保存します（作成または更新）。
+     *
+     * @param entity 保存する予約エンティティ
+     * @return 影響を受けた行数を返すFuture
+     * @see ReservationService#save(Reservation)
+     */
+    public CompletableFuture<Integer> save(Reservation entity) {
+        return executor.submitCompletable(() -> service.save(entity));
+    }
+}
@@ -0,0 +1,238 @@
+package com.example.service;
+
+import org.postgresql.PGConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+
+/**
+ * PostgreSQLの{@code COPY}プロトコルで予約テーブルを一括インポート・エクスポートするサービスクラス。
+ *
+ * <p>pgjdbcの{@link org.postgresql.copy.CopyManager}を使用し、ファイルと
+ * データベースの間でバイト列をそのまま転送します。エンティティの生成や
+ * 行ごとのSQL実行を行わないため、{@link ReservationService#saveAll}や
+ * {@link ReservationService#streamAll}よりも大量データの転送に適しています。
+ * ファイルは{@link FileChannel}で{@code reservation.bulk.buffer-size}バイトずつ読み書きします。
+ * </p>
+ *
+ * <p>ファイルのカラムは{@code (id, name)}の順です。
+ * </p>
+ *
+ * <h3>トランザクション設計</h3>
+ * <ul>
+ * <li>{@code importFile} - 標準的なトランザクション境界（{@code COPY}とシーケンスの更新）</li>
+ * <li>{@code importFileViaStaging} - 標準的なトランザクション境界
+ * （一時テーブルは{@code ON COMMIT DROP}でトランザクション終了時に削除）</li>
+ * <li>{@code exportFile} - 読み取り専用トランザクション</li>
+ * </ul>
+ *
+ * <p>インポート後、{@link ReservationService#findById}のキャッシュはコミット後にすべてエビクトされます。
+ * </p>
+ */
+@Service
+public class ReservationBulkService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReservationBulkService.class);
+
+    static final String STAGING_TABLE = "reservation_staging";
+
+    private static final String RESET_SEQUENCE = """
+            SELECT setval(pg_get_serial_sequence('reservation', 'id'),
+                          GREATEST(COALESCE(max(id), 0), (SELECT last_value FROM reservation_id_seq)))
+            FROM reservation""";
+    // 制約を引き継がない（IDがNULLの行を受け付ける）ようにCREATE TABLE ASで作成する
+    private static final String CREATE_STAGING = "CREATE TEMPORARY TABLE " + STAGING_TABLE
+            + " ON COMMIT DROP AS SELECT id, name FROM reservation WITH NO DATA";
+    private static final String MERGE_STAGING = """
+            INSERT INTO reservation (id, name)
+            SELECT COALESCE(id, nextval(pg_get_serial_sequence('reservation', 'id'))), name
+            FROM %s
+            ON CONFLICT (id) DO UPDATE SET name = EXCLUDED.name, version = reservation.version + 1""".formatted(STAGING_TABLE);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReservationCache cache;
+    private final int bufferSize;
+
+    /**
+     * ReservationBulkServiceを構築します。
+     *
+     * @param jdbcTemplate 接続の取得と例外変換に使用する{@link JdbcTemplate}
+     * @param cache        インポート後にエビクトする{@link ReservationService#findById}のキャッシュ
+     * @param bufferSize   ファイルの読み書きに使用するバッファのバイト数
+     */
+    ReservationBulkService(JdbcTemplate jdbcTemplate, ReservationCache cache,
+                           @Value("${reservation.bulk.buffer-size:65536}") int bufferSize) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("reservation.bulk.buffer-size must be positive: " + bufferSize);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.cache = cache;
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * ファイルの内容を{@code COPY ... FROM STDIN}で予約テーブルに直接インポートします。
+     *
+     * <p>すべての行にIDが必要で、既存の行と重複するIDがある場合はインポート全体が失敗します。
+     * インポート後、以降に払い出されるブロックが重複しないようにIDのシーケンスを最大値より先に進めます
+     * （シーケンスを戻すことはありません）。
+     * IDはブロック単位でアプリケーションのメモリ上に払い出し済みのため（{@link Reservation}）、
+     * 実行中のアプリケーションが払い出したIDの範囲と重なるIDはインポートしないでください。
+     *
+     * @param source インポートするファイル
+     * @param format ファイルの形式
+     * @return インポートした行数とスループット
+     * @throws UncheckedIOException ファイルの読み込みに失敗した場合
+     * @throws org.springframework.dao.DataAccessException データベースアクセスエラーが発生した場合
+     */
+    @Transactional
+    public CopyResult importFile(Path source, CopyFormat format) {
+        var start = System.nanoTime();
+        var counts = jdbcTemplate.execute((ConnectionCallback<long[]>) connection ->
+                copyIn(connection, "COPY reservation (id, name) FROM STDIN " + format.options(), source));
+        jdbcTemplate.queryForObject(RESET_SEQUENCE, Long.class);
+        cache.evictAllAfterCommit();
+        return result("Imported", counts[0], counts[1], start);
+    }
+
+    /**
+     * ファイルの内容を一時テーブルにインポートしてから予約テーブルにマージします。
+     *
+     * <p>IDが既存の行と一致する場合は名前を更新してバージョンを進め、一致しない場合は挿入します。
+     * IDが空（NULL）の行はシーケンスから採番して挿入します。
+     * ファイル内に同じIDの行が複数ある場合はマージが失敗します。
+     *
+     * @param source インポートするファイル
+     * @param format ファイルの形式
+     * @return マージした行数とスループット
+     * @throws UncheckedIOException ファイルの読み込みに失敗した場合
+     * @throws org.springframework.dao.DataAccessException データベースアクセスエラーが発生した場合
+     */
+    @Transactional
+    public CopyResult importFileViaStaging(Path source, CopyFormat format) {
+        var start = System.nanoTime();
+        jdbcTemplate.execute(CREATE_STAGING);
+        var counts = jdbcTemplate.execute((ConnectionCallback<long[]>) connection ->
+                copyIn(connection, "COPY " + STAGING_TABLE + " (id, name) FROM STDIN " + format.options(), source));
+        var merged = jdbcTemplate.update(MERGE_STAGING);
+        jdbcTemplate.queryForObject(RESET_SEQUENCE, Long.class);
+        cache.evictAllAfterCommit();
+        logger.debug("Staged {} rows, merged {} rows", counts[0], merged);
+        return result("Merged", merged, counts[1], start);
+    }
+
+    /**
+     * 予約テーブルの全行を{@code COPY ... TO STDOUT}でID順にファイルへエクスポートします。
+     *
+     * <p>ファイルが存在する場合は上書きします。
+     *
+     * @param target 出力先のファイル
+     * @param format ファイルの形式
+     * @return エクスポートした行数とスループット
+     * @throws UncheckedIOException ファイルの書き込みに失敗した場合
+     * @throws org.springframework.dao.DataAccessException データベースアクセスエラーが発生した場合
+     */
+    @Transactional(readOnly = true)
+    public CopyResult exportFile(Path target, CopyFormat format) {
+        var start = System.nanoTime();
+        var counts = jdbcTemplate.execute((ConnectionCallback<long[]>) connection ->
+                copyOut(connection, "COPY (SELECT id, name FROM reservation ORDER BY id) TO STDOUT "
+                        + format.options(), target));
+        return result("Exported", counts[0], counts[1], start);
+    }
+
+    /**
+     * ファイルの内容を{@code COPY ... FROM STDIN}で送信します。
+     *
+     * @return 行数とバイト数
+     */
+    private long[] copyIn(Connection connection, String sql, Path source) throws SQLException {
+        var copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(sql);
+        try (var channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            var buffer = ByteBuffer.allocate(bufferSize);
+            var bytes = 0L;
+            while (channel.read(buffer) != -1) {
+                copyIn.writeToCopy(buffer.array(), 0, buffer.position());
+                bytes += buffer.position();
+                buffer.clear();
+            }
+            return new long[]{copyIn.endCopy(), bytes};
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+
+    /**
+     * {@code COPY ... TO STDOUT}の出力をファイルに書き込みます。
+     *
+     * <p>pgjdbcは1行ごとにバイト配列を返すため、バッファにまとめてから書き込みます。
+     *
+     * @return 行数とバイト数
+     */
+    private long[] copyOut(Connection connection, String sql, Path target) throws SQLException {
+        var copyOut = connection.unwrap(PGConnection.class).getCopyAPI().copyOut(sql);
+        try (var channel = FileChannel.open(target, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            var buffer = ByteBuffer.allocate(bufferSize);
+            var bytes = 0L;
+            byte[] row;
+            while ((row = copyOut.readFromCopy()) != null) {
+                if (row.length > buffer.remaining()) {
+                    flush(channel, buffer);
+                }
+                if (row.length > buffer.capacity()) {
+                    write(channel, ByteBuffer.wrap(row));
+                } else {
+                    buffer.put(row);
+                }
+                bytes += row.length;
+            }
+            flush(channel, buffer);
+            return new long[]{copyOut.getHandledRowCount(), bytes};
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (copyOut.isActive()) {
+                copyOut.cancelCopy();
+            }
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        write(channel, buffer);
+        buffer.clear();
+    }
+
+    private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static CopyResult result(String operation, long rows, long bytes, long startNanos) {
+        var result = new CopyResult(rows, bytes, Duration.ofNanos(System.nanoTime() - startNanos));
+        logger.info("{} {} rows ({} bytes) in {} ms: {} rows/s, {} MB/s", operation, rows, bytes,
+                result.elapsed().toMillis(), Math.round(result.rowsPerSecond()),
+                String.format("%.1f", result.megabytesPerSecond()));
+        return result;
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.service;
+
+import com.example.entity.Reservation;
+import com.example.entity.ReservationId;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * {@link ReservationService#findById}のためのリードスルーキャッシュ。
+ *
+ * <p>{@link ReservationId}をキーに、検索結果（存在しない場合の空のOptionalを含む）を
+ * 件数上限とTTLで保持します。ヒット・ミス・エビクションの統計は
+ * {@code cache=reservation.byId}タグ付きのメトリクスとして公開されます。
+ * </p>
+ *
+ * <h3>一貫性</h3>
+ * <ul>
+ * <li>書き込み可能なトランザクション内の読み込みはキャッシュを経由しません
+ * （未コミットの値を他のスレッドに公開しないため）。</li>
+ * <li>書き込み後のエビクションはトランザクションのコミット後に行われます。
+ * トランザクション外で呼ばれた場合は即時にエビクトします。</li>
+ * <li>エンティティは可変なため、呼び出し元にはキャッシュ内の値のコピーを返します。</li>
+ * </ul>
+ *
+ * <p><strong>注意:</strong> このクラスはpackage-privateであり、
+ * 同一パッケージ内の{@link ReservationService}からのみ使用されます。
+ * </p>
+ */
+@Component
+class ReservationCache {
+
+    static final String CACHE_NAME = "reservation.byId";
+
+    private final Cache<ReservationId, Optional<Reservation>> cache;
+
+    /**
+     * ReservationCacheを構築します。
+     *
+     * @param meterRegistry メトリクスの登録先
+     * @param enabled       キャッシュを有効にする場合はtrue
+     * @param maximumSize   保持する最大件数
+     * @param ttl           書き込みからエントリが失効するまでの時間
+     */
+    ReservationCache(MeterRegistry meterRegistry,
+                     @Value("${reservation.cache.enabled:true}") boolean enabled,
+                     @Value("${reservation.cache.maximum-size:10000}") long maximumSize,
+                     @Value("${reservation.cache.ttl:5m}") Duration ttl) {
+        if (enabled) {
+            this.cache = Caffeine.newBuilder()
+                    .maximumSize(maximumSize)
+                    .expireAfterWrite(ttl)
+                    .recordStats()
+                    .build();
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        } else {
+            this.cache = null;
+        }
+    }
+
+    /**
+     * キャッシュから予約を取得し、存在しない場合は{@code loader}で読み込んでキャッシュします。
+     *
+     * @param id     予約ID（nullの場合はキャッシュを経由しません）
+     * @param loader キャッシュミス時にデータベースから読み込む関数
+     * @return 予約エンティティのコピー（存在しない場合は空のOptional）
+     */
+    Optional<Reservation> get(ReservationId id, Function<ReservationId, Optional<Reservation>> loader) {
+        if (cache == null || id == null || isWritableTransactionActive()) {
+            return loader.apply(id);
+        }
+        return cache.get(id, loader).map(ReservationCache::copyOf);
+    }
+
+    /**
+     * 現在のトランザクションのコミット後に指定IDのエントリをエビクトします。
+     *
+     * @param id 予約ID（nullの場合は何もしません）
+     */
+    void evictAfterCommit(ReservationId id) {
+        if (id != null) {
+            evictAfterCommit(List.of(id));
+        }
+    }
+
+    /**
+     * 現在のトランザクションのコミット後に指定IDのエントリをまとめてエビクトします。
+     *
+     * <p>トランザクション同期が有効でない場合（トランザクション外）は即時にエビクトします。
+     * ロールバックされた場合はエビクトしません。
+     *
+     * @param ids 予約IDのコレクション
+     */
+    void evictAfterCommit(Collection<ReservationId> ids) {
+        if (cache == null || ids.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cache.invalidateAll(ids);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cache.invalidateAll(ids);
+            }
+        });
+    }
+
+    /**
+     * 現在のトランザクションのコミット後にすべてのエントリをエビクトします。
+     *
+     * <p>一括インポートなど、変更されたIDを列挙できない書き込みの後に使用します。
+     * トランザクション同期が有効でない場合は即時にエビクトします。
+     */
+    void evictAllAfterCommit() {
+        if (cache == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cache.invalidateAll();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cache.invalidateAll();
+            }
+        });
+    }
+
+    private static boolean isWritableTransactionActive() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    private static Reservation copyOf(Reservation source) {
+        var copy = new Reservation();
+        copy.setId(source.getId());
+        copy.name = source.name;
+        copy.setVersion(source.getVersion());
+        return copy;
+    }
+}
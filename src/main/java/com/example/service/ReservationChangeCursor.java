@@ -0,0 +1,38 @@
+package com.example.service;
+
+import com.example.entity.ReservationChange;
+import com.example.entity.ReservationId;
+
+import java.util.Objects;
+
+/**
+ * 変更フィードのウォーターマークを表す値オブジェクト。
+ *
+ * <p>最後に読み込んだ変更の{@code (changed_xid, id)}を保持します。
+ * 利用側はこの値を永続化しておき、次回はこのカーソルより後の変更のみを読み込みます。
+ * </p>
+ *
+ * @param changedXid 最後に読み込んだ変更のトランザクションID
+ * @param id         最後に読み込んだ変更の予約ID（null不可）
+ */
+public record ReservationChangeCursor(long changedXid, ReservationId id) {
+
+    /**
+     * 指定された値でReservationChangeCursorを生成します。
+     *
+     * @throws NullPointerException idがnullの場合
+     */
+    public ReservationChangeCursor {
+        Objects.requireNonNull(id, "id must not be null");
+    }
+
+    /**
+     * 指定した変更の直後を指すカーソルを返します。
+     *
+     * @param change 変更された予約
+     * @return カーソル
+     */
+    static ReservationChangeCursor of(ReservationChange change) {
+        return new ReservationChangeCursor(change.changedXid(), change.id());
+    }
+}
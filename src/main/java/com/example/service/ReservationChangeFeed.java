@@ -0,0 +1,76 @@
+package com.example.service;
+
+import com.example.dao.ReservationDao;
+import com.example.entity.ReservationChange;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * 予約の変更をウォーターマーク以降の差分として提供するサービス。
+ *
+ * <p>下流のシステムがテーブル全体を{@code selectAll}で読み直す代わりに、
+ * 前回読み込んだ位置（{@link ReservationChangeCursor}）より後に挿入・更新された行のみを
+ * 上限付きのページで読み込みます。
+ * 各行は最後に挿入・更新したトランザクションのID（{@code changed_xid}）を持ち、
+ * {@code (changed_xid, id)}のインデックスで変更された行のみを読むため、
+ * 1回の読み込みのコストはテーブルの件数ではなく変更の件数に比例します。
+ * </p>
+ *
+ * <p>実行中のトランザクションより前に完了した変更のみを返すため、
+ * 長時間実行中のトランザクションがある間は新しい変更の反映が遅れますが、読み飛ばしは発生しません。
+ * 1つの行が複数回更新された場合は最新の値が1回だけ返されます。
+ * 削除は含まれないため、削除を検知する必要がある場合は{@link ReservationSnapshot}などを併用してください。
+ * </p>
+ *
+ * <p>読み取り専用トランザクションで実行するため、読み取りレプリカへの振り分けが有効な場合はレプリカから読み込みます。
+ * </p>
+ */
+@Service
+public class ReservationChangeFeed {
+
+    private final ReservationDao dao;
+    private final int maxPageSize;
+
+    /**
+     * ReservationChangeFeedを構築します。
+     *
+     * @param dao         DAO層への参照
+     * @param maxPageSize 1ページで返す最大件数（指定されたページサイズより小さい場合はこちらが優先）
+     */
+    ReservationChangeFeed(ReservationDao dao,
+                          @Value("${reservation.changes.max-page-size:1000}") int maxPageSize) {
+        if (maxPageSize <= 0) {
+            throw new IllegalArgumentException(
+                    "reservation.changes.max-page-size must be positive: " + maxPageSize);
+        }
+        this.dao = dao;
+        this.maxPageSize = maxPageSize;
+    }
+
+    /**
+     * 指定したカーソルより後の変更を1ページ分取得します。
+     *
+     * @param after 直前のページの{@link ReservationChangePage#next()}（先頭から読む場合はnull）
+     * @param size  ページサイズ（1以上）
+     * @return 1ページ分の変更と次回の読み込みに渡すカーソル
+     * @throws IllegalArgumentException sizeが1未満の場合
+     */
+    @Transactional(readOnly = true)
+    public ReservationChangePage findChangesSince(ReservationChangeCursor after, int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("size must be positive: " + size);
+        }
+        var pageSize = Math.min(size, maxPageSize);
+        // 続きの有無を判定するため1件多く読む
+        var rows = after == null
+                ? dao.selectChangesSince(null, null, pageSize + 1)
+                : dao.selectChangesSince(after.changedXid(), after.id(), pageSize + 1);
+        var hasMore = rows.size() > pageSize;
+        List<ReservationChange> changes = List.copyOf(hasMore ? rows.subList(0, pageSize) : rows);
+        var next = changes.isEmpty() ? after : ReservationChangeCursor.of(changes.getLast());
+        return new ReservationChangePage(changes, next, hasMore);
+    }
+}
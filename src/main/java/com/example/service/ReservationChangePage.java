@@ -0,0 +1,20 @@
+package com.example.service;
+
+import com.example.entity.ReservationChange;
+
+import java.util.List;
+
+/**
+ * 変更フィードの1ページ分の結果。
+ *
+ * <p>{@link ReservationPage}と異なり、最終ページでも{@code next}を返します。
+ * 利用側は{@code hasMore}がfalseになるまで続けて読み込み、その後は間隔を空けて
+ * 同じカーソルから読み込むことで新しい変更を取得します。
+ * </p>
+ *
+ * @param changes 変更された予約のリスト（{@code (changed_xid, id)}順）
+ * @param next    次回の読み込みに渡すカーソル（変更が1件もなかった場合は読み込み時に渡したカーソル）
+ * @param hasMore 現時点で続きの変更が存在する場合はtrue
+ */
+public record ReservationChangePage(List<ReservationChange> changes, ReservationChangeCursor next, boolean hasMore) {
+}
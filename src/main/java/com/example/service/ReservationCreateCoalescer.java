@@ -0,0 +1,310 @@
+package com.example.service;
+
+import com.example.dao.ReservationDao;
+import com.example.entity.Reservation;
+import com.example.entity.ReservationId;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 同時に発生した予約の作成を1つのトランザクションにまとめて書き込むサービスクラス（グループコミット）。
+ *
+ * <p>{@link #create}で受け付けた要求はキューに入り、専用の書き込みスレッドが
+ * 最初の要求から{@code reservation.create.coalescing.window}の間、
+ * または{@code reservation.create.coalescing.max-batch-size}件に達するまで待ち合わせてから、
+ * {@link ReservationDao#insertAll}のJDBCバッチと1回のコミットでまとめて書き込みます。
+ * 呼び出しごとにコミット（WALのフラッシュ）を行う{@link ReservationService#create}と比べ、
+ * 同時実行数が多いほどコミット回数が減ります。同時実行数が少ない場合は、待ち合わせの分だけレイテンシが増えます。
+ * </p>
+ *
+ * <h3>永続性</h3>
+ * <ul>
+ * <li>Futureはコミットが完了した後にのみ正常完了します。完了したFutureの予約は、
+ * {@link ReservationService#create}でコミットした場合と同じ永続性を持ちます。</li>
+ * <li>バッチ内の一部の要求が失敗した場合は、バッチをロールバックしてから要求ごとの
+ * セーブポイントで書き直し、失敗した要求のFutureのみをその例外で完了します。</li>
+ * <li>コミット自体が失敗した場合は、バッチ内のすべてのFutureがその例外で完了します。
+ * 一部の要求だけがコミットされることはありません。</li>
+ * <li>書き込み前にプロセスが停止した場合、キュー内の要求は失われ、そのFutureは完了しません。
+ * 正常なシャットダウンでは、キューに残った要求を書き込んでから停止します。
+ * 停止と同時に受け付けた要求は、書き込まれるか{@link RejectedExecutionException}で完了します。</li>
+ * <li>書き込み中に{@link Error}が発生した場合も、バッチ内の未完了のFutureはその例外で完了し、
+ * 書き込みスレッドは後続の要求の処理を続けます。</li>
+ * </ul>
+ *
+ * <h3>メトリクス</h3>
+ * <ul>
+ * <li>{@code reservation.create.coalescing.batch.size} - 1回のコミットにまとめた件数</li>
+ * <li>{@code reservation.create.coalescing.queue.delay} - 要求を受け付けてからバッチの書き込みを開始するまでの時間</li>
+ * <li>{@code reservation.create.coalescing.queue.size} - 書き込み待ちの要求の件数</li>
+ * </ul>
+ *
+ * <p>{@code reservation.create.coalescing.enabled=true}の場合にのみ有効になります。
+ * </p>
+ */
+@Service
+@ConditionalOnProperty("reservation.create.coalescing.enabled")
+public class ReservationCreateCoalescer implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReservationCreateCoalescer.class);
+
+    static final String BATCH_SIZE_METER = "reservation.create.coalescing.batch.size";
+    static final String QUEUE_DELAY_METER = "reservation.create.coalescing.queue.delay";
+    static final String QUEUE_SIZE_METER = "reservation.create.coalescing.queue.size";
+
+    // 書き込みスレッドに停止を通知するための番兵
+    private static final Request SHUTDOWN = new Request(null, null, 0);
+
+    private final ReservationDao dao;
+    private final ReservationServiceHelper helper;
+    private final ReservationCache cache;
+    private final TransactionTemplate transactionTemplate;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final BlockingQueue<Request> queue;
+    private final DistributionSummary batchSize;
+    private final Timer queueDelay;
+    private final Thread writer;
+    private volatile boolean closed;
+
+    /**
+     * ReservationCreateCoalescerを構築し、書き込みスレッドを開始します。
+     *
+     * @param dao                DAO層への参照
+     * @param helper             部分的な失敗時に要求ごとのセーブポイントで書き直すための内部サービス
+     * @param cache              作成後にエビクトする{@link ReservationService#findById}のキャッシュ
+     * @param transactionManager バッチを書き込むトランザクションのマネージャー
+     * @param meterRegistry      メトリクスの登録先
+     * @param window             最初の要求から後続の要求を待ち合わせる時間
+     * @param maxBatchSize       1回のコミットにまとめる最大件数
+     * @param queueCapacity      書き込み待ちの要求の最大件数（超えた要求は拒否されます）
+     */
+    ReservationCreateCoalescer(ReservationDao dao, ReservationServiceHelper helper, ReservationCache cache,
+                               PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                               @Value("${reservation.create.coalescing.window:2ms}") Duration window,
+                               @Value("${reservation.create.coalescing.max-batch-size:100}") int maxBatchSize,
+                               @Value("${reservation.create.coalescing.queue-capacity:10000}") int queueCapacity) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException(
+                    "reservation.create.coalescing.max-batch-size must be positive: " + maxBatchSize);
+        }
+        this.dao = dao;
+        this.helper = helper;
+        this.cache = cache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+        this.batchSize = DistributionSummary.builder(BATCH_SIZE_METER)
+                .description("Number of reservations written in one coalesced commit")
+                .baseUnit("requests")
+                .register(meterRegistry);
+        this.queueDelay = Timer.builder(QUEUE_DELAY_METER)
+                .description("Time from a create request being queued until its batch starts writing")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder(QUEUE_SIZE_METER, queue, BlockingQueue::size)
+                .description("Number of create requests waiting to be written")
+                .register(meterRegistry);
+        this.writer = Thread.ofPlatform()
+                .name("reservation-create-coalescer")
+                .daemon()
+                .start(this::run);
+    }
+
+    /**
+     * 予約の作成を要求します。
+     *
+     * <p>エンティティは書き込みスレッドで挿入され、採番されたIDが設定されます。
+     * Futureが完了するまでエンティティを変更しないでください。
+     *
+     * @param entity 作成する予約エンティティ
+     * @return コミット後に採番されたIDで完了するFuture。
+     * 書き込みに失敗した場合は{@link org.springframework.dao.DataAccessException}、
+     * キューが満杯または停止済みの場合は{@link RejectedExecutionException}で完了します。
+     */
+    public CompletableFuture<ReservationId> create(Reservation entity) {
+        Objects.requireNonNull(entity, "entity");
+        var future = new CompletableFuture<ReservationId>();
+        if (closed) {
+            future.completeExceptionally(new RejectedExecutionException("Coalescer has been closed"));
+            return future;
+        }
+        var request = new Request(entity, future, System.nanoTime());
+        if (!queue.offer(request)) {
+            future.completeExceptionally(new RejectedExecutionException("Create queue is full"));
+        } else if (closed && queue.remove(request)) {
+            // 停止と競合し、書き込みスレッドが最後にキューを空にした後に入った可能性がある要求は取り戻して拒否する
+            // （書き込みスレッドが先に取り出した場合はremoveがfalseを返し、その要求は書き込まれる）
+            future.completeExceptionally(new RejectedExecutionException("Coalescer has been closed"));
+        }
+        return future;
+    }
+
+    /**
+     * 新しい要求の受け付けを停止し、キューに残った要求を書き込んでから書き込みスレッドを停止します。
+     *
+     * @throws InterruptedException 書き込みスレッドの停止を待つ間に割り込まれた場合
+     */
+    @Override
+    public void close() throws InterruptedException {
+        closed = true;
+        queue.put(SHUTDOWN);
+        writer.join();
+    }
+
+    private void run() {
+        var batch = new ArrayList<Request>(maxBatchSize);
+        var running = true;
+        while (running) {
+            try {
+                running = collect(batch);
+            } catch (InterruptedException e) {
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                writeOrFail(batch);
+                batch.clear();
+            }
+        }
+        // 停止の通知より後に受け付けた要求を書き込む
+        queue.drainTo(batch);
+        batch.remove(SHUTDOWN);
+        for (var from = 0; from < batch.size(); from += maxBatchSize) {
+            writeOrFail(batch.subList(from, Math.min(from + maxBatchSize, batch.size())));
+        }
+    }
+
+    /**
+     * バッチを書き込み、{@link #write}が例外（{@link Error}を含む）をスローした場合は
+     * 未完了のFutureをその例外で完了して、書き込みスレッドを継続します。
+     */
+    private void writeOrFail(List<Request> batch) {
+        try {
+            write(batch);
+        } catch (Throwable e) {
+            logger.error("Coalesced create of {} reservations failed unexpectedly", batch.size(), e);
+            for (var request : batch) {
+                request.future().completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * 最初の要求を待ち、ウィンドウの間または最大件数に達するまで後続の要求を集めます。
+     *
+     * @return 停止が通知されていない場合はtrue
+     */
+    private boolean collect(List<Request> batch) throws InterruptedException {
+        var first = queue.take();
+        if (first == SHUTDOWN) {
+            return false;
+        }
+        batch.add(first);
+        var deadline = System.nanoTime() + windowNanos;
+        while (batch.size() < maxBatchSize) {
+            var remaining = deadline - System.nanoTime();
+            var next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+            if (next == null) {
+                break;
+            }
+            if (next == SHUTDOWN) {
+                return false;
+            }
+            batch.add(next);
+        }
+        return true;
+    }
+
+    private void write(List<Request> batch) {
+        var start = System.nanoTime();
+        for (var request : batch) {
+            queueDelay.record(start - request.enqueuedNanos(), TimeUnit.NANOSECONDS);
+        }
+        batchSize.record(batch.size());
+        var entities = batch.stream().map(Request::entity).toList();
+        var originalIds = entities.stream().map(Reservation::getId).toList();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                dao.insertAll(entities);
+                evictAfterCommit(entities);
+            });
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                batch.getFirst().future().completeExceptionally(e);
+                return;
+            }
+            logger.debug("Coalesced create of {} reservations failed, retrying individually", batch.size(), e);
+            for (var i = 0; i < entities.size(); i++) {
+                entities.get(i).setId(originalIds.get(i));
+            }
+            writeIndividually(batch);
+            return;
+        }
+        for (var request : batch) {
+            request.future().complete(request.entity().getId());
+        }
+    }
+
+    /**
+     * 1つのトランザクション内で要求ごとのセーブポイントを使って書き込み、
+     * 失敗した要求のみを例外で完了します。
+     */
+    private void writeIndividually(List<Request> batch) {
+        var written = new ArrayList<Request>(batch.size());
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (var request : batch) {
+                    try {
+                        helper.create(request.entity());
+                        written.add(request);
+                    } catch (RuntimeException e) {
+                        request.future().completeExceptionally(e);
+                    }
+                }
+                evictAfterCommit(written.stream().map(Request::entity).toList());
+            });
+        } catch (RuntimeException e) {
+            for (var request : written) {
+                request.future().completeExceptionally(e);
+            }
+            return;
+        }
+        for (var request : written) {
+            request.future().complete(request.entity().getId());
+        }
+    }
+
+    private void evictAfterCommit(List<Reservation> entities) {
+        cache.evictAfterCommit(entities.stream().map(Reservation::getId).filter(Objects::nonNull).toList());
+    }
+
+    /**
+     * 書き込み待ちの作成要求。
+     *
+     * @param entity        作成する予約エンティティ
+     * @param future        採番されたIDで完了するFuture
+     * @param enqueuedNanos 要求を受け付けた時刻（{@link System#nanoTime()}）
+     */
+    private record Request(Reservation entity, CompletableFuture<ReservationId> future, long enqueuedNanos) {
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.service;
+
+import com.example.entity.ReservationId;
+
+import java.util.Objects;
+
+/**
+ * 名前順ページングのカーソルを表す値オブジェクト。
+ *
+ * <p>直前のページの最終行の{@code (name, id)}を保持します。
+ * 名前がnullの行は名前順の末尾に並ぶため、{@code name}がnullのカーソルは
+ * 名前なしの行をID順に読んでいる途中であることを表します。
+ * </p>
+ *
+ * @param name 最終行の名前（null可）
+ * @param id   最終行のID（null不可）
+ */
+public record ReservationCursor(String name, ReservationId id) {
+
+    /**
+     * 指定された値でReservationCursorを生成します。
+     *
+     * @throws NullPointerException idがnullの場合
+     */
+    public ReservationCursor {
+        Objects.requireNonNull(id, "id must not be null");
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.service;
+
+import com.example.entity.Reservation;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 名前順ページングの1ページ分の結果。
+ *
+ * @param content 予約エンティティのリスト（名前順、名前なしの行は末尾にID順）
+ * @param next    次のページを取得するためのカーソル（最終ページの場合はnull）
+ */
+public record ReservationPage(List<Reservation> content, ReservationCursor next) {
+
+    /**
+     * 次のページのカーソルを返します。
+     *
+     * @return 次のページのカーソル（最終ページの場合は空のOptional）
+     */
+    public Optional<ReservationCursor> nextCursor() {
+        return Optional.ofNullable(next);
+    }
+
+    /**
+     * 次のページが存在するかを返します。
+     *
+     * @return 次のページが存在する場合はtrue
+     */
+    public boolean hasNext() {
+        return next != null;
+    }
+}
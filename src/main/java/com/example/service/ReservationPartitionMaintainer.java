@@ -0,0 +1,210 @@
+package com.example.service;
+
+import com.example.dao.ReservationDao;
+import com.example.entity.ReservationId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.sql.init.dependency.DependsOnDatabaseInitialization;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * IDの範囲でパーティション分割した予約テーブルのパーティションを管理するサービス。
+ *
+ * <p>{@code reservation.partition.auto-create=true}（デフォルト）の場合、起動直後と
+ * {@code reservation.partition.check-interval}ごとに、シーケンスが払い出したIDより
+ * {@code reservation.partition.premake}個先の範囲までパーティションを作成します。
+ * 範囲のパーティションがないIDの行（一括インポートで指定されたIDなど）はデフォルトパーティションに格納され、
+ * 次回の作成時に該当する範囲のパーティションへ移されます（間の空の範囲は作成しません）。
+ * パーティションの接続中はデフォルトパーティションへの書き込みが待たされるため、
+ * 1回に作成するのは{@code reservation.partition.max-create}個までとし、残りは次回の確認時に作成します。
+ * 作成に失敗した場合はログに記録し、次回の確認時に再試行します。
+ * </p>
+ *
+ * <p>古い行の削除は{@link #dropPartitionsBefore}でパーティション単位で行います。
+ * IDはシーケンスから昇順に払い出されるため、IDの範囲は作成された時期の範囲に対応します。
+ * </p>
+ *
+ * <p>パーティションの作成・削除は{@code @Primary}のデータソースにREAD WRITEのトランザクションで接続するため、
+ * 読み取りレプリカへの振り分けが有効な場合もプライマリで実行されます。
+ * </p>
+ *
+ * <p>{@link com.example.dao.ShardedReservationDao}のシャードは{@link #forShard}で作成したインスタンスが管理します。
+ * シャードのIDはシーケンスの値{@code v}を{@code v * シャード数 + シャード番号}に変換した値のため、
+ * 作成する範囲はシーケンスの値にシャード数を掛けたIDを基準にします。
+ * </p>
+ */
+@Service
+@DependsOnDatabaseInitialization
+public class ReservationPartitionMaintainer implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReservationPartitionMaintainer.class);
+
+    private final ReservationDao dao;
+    private final ReservationCache cache;
+    private final TransactionOperations transactionOperations;
+    private final int partitionSize;
+    private final int premake;
+    private final int idScale;
+    private final int maxCreate;
+    private final String label;
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * ReservationPartitionMaintainerを構築し、自動作成が有効な場合はパーティションの作成を開始します。
+     *
+     * @param dao                DAO層への参照
+     * @param cache              パーティションの削除後に無効化するキャッシュ
+     * @param transactionManager パーティションの作成・削除に使用するトランザクションのマネージャー
+     * @param partitionSize      1つのパーティションに含めるIDの数
+     * @param premake            作成しておく先の範囲の数
+     * @param maxCreate          1回に作成するパーティションの上限
+     * @param autoCreate         パーティションを定期的に作成する場合はtrue
+     * @param checkInterval      パーティションを作成する間隔
+     */
+    @Autowired
+    ReservationPartitionMaintainer(ReservationDao dao, ReservationCache cache,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${reservation.partition.size:1000000}") int partitionSize,
+                                   @Value("${reservation.partition.premake:2}") int premake,
+                                   @Value("${reservation.partition.max-create:100}") int maxCreate,
+                                   @Value("${reservation.partition.auto-create:true}") boolean autoCreate,
+                                   @Value("${reservation.partition.check-interval:1h}") Duration checkInterval) {
+        this(dao, cache, new TransactionTemplate(transactionManager), partitionSize, premake, maxCreate, 1,
+                "primary", autoCreate, checkInterval);
+    }
+
+    private ReservationPartitionMaintainer(ReservationDao dao, ReservationCache cache,
+                                           TransactionOperations transactionOperations,
+                                           int partitionSize, int premake, int maxCreate, int idScale,
+                                           String label, boolean autoCreate, Duration checkInterval) {
+        if (partitionSize <= 0) {
+            throw new IllegalArgumentException("reservation.partition.size must be positive: " + partitionSize);
+        }
+        if (premake < 0) {
+            throw new IllegalArgumentException("reservation.partition.premake must not be negative: " + premake);
+        }
+        if (maxCreate <= 0) {
+            throw new IllegalArgumentException("reservation.partition.max-create must be positive: " + maxCreate);
+        }
+        this.dao = dao;
+        this.cache = cache;
+        this.transactionOperations = transactionOperations;
+        this.partitionSize = partitionSize;
+        this.premake = premake;
+        this.idScale = idScale;
+        this.maxCreate = maxCreate;
+        this.label = label;
+        if (autoCreate) {
+            if (!checkInterval.isPositive()) {
+                throw new IllegalArgumentException(
+                        "reservation.partition.check-interval must be positive: " + checkInterval);
+            }
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform().name("reservation-partition-maintainer-" + label).daemon().factory());
+            scheduler.scheduleWithFixedDelay(this::createPartitionsQuietly,
+                    0, checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+        } else {
+            this.scheduler = null;
+        }
+    }
+
+    /**
+     * {@link com.example.dao.ShardedReservationDao}のシャードのパーティションを管理するインスタンスを作成し、
+     * 自動作成が有効な場合はパーティションの作成を開始します。
+     *
+     * <p>シャードへのアクセスはSpringのトランザクションに参加しないため、ストアドファンクションの呼び出しごとに
+     * オートコミットで実行されます。シャードの行は{@link ReservationCache}に格納されないため、
+     * {@link #dropPartitionsBefore}はキャッシュを無効化しません。
+     *
+     * @param dao           シャードのDAO
+     * @param shard         シャードの番号（スレッド名とログに使用）
+     * @param shardCount    シャードの数（シーケンスの値からIDへの倍率）
+     * @param partitionSize 1つのパーティションに含めるIDの数
+     * @param premake       作成しておく先の範囲の数
+     * @param maxCreate     1回に作成するパーティションの上限
+     * @param autoCreate    パーティションを定期的に作成する場合はtrue
+     * @param checkInterval パーティションを作成する間隔
+     * @return シャードのパーティションを管理するインスタンス（{@link #close()}で定期的な作成を停止）
+     */
+    public static ReservationPartitionMaintainer forShard(ReservationDao dao, int shard, int shardCount,
+                                                          int partitionSize, int premake, int maxCreate,
+                                                          boolean autoCreate, Duration checkInterval) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("shardCount must be positive: " + shardCount);
+        }
+        return new ReservationPartitionMaintainer(dao, null, TransactionOperations.withoutTransaction(),
+                partitionSize, premake, maxCreate, shardCount, "shard-" + shard, autoCreate, checkInterval);
+    }
+
+    /**
+     * シーケンスが払い出したIDより先の範囲と、デフォルトパーティションに行がある範囲のパーティションを作成します。
+     *
+     * <p>作成済みの範囲は作り直しません。デフォルトパーティションにある該当範囲の行は作成したパーティションに移します。
+     * 作成するのは{@code reservation.partition.max-create}個までで、残りは次回の呼び出しで作成します。
+     *
+     * @return 作成したパーティションの数
+     * @throws org.springframework.dao.DataAccessException データベースアクセスエラーが発生した場合
+     */
+    public int createPartitions() {
+        int created = Objects.requireNonNull(transactionOperations.execute(status ->
+                dao.createPartitions(partitionSize, premake, idScale, maxCreate)));
+        if (created > 0) {
+            logger.info("Created {} reservation partitions ({})", created, label);
+        }
+        return created;
+    }
+
+    /**
+     * 指定したIDより前の範囲だけを持つパーティションを削除します。
+     *
+     * <p>指定したIDを含むパーティションの行は削除しません（パーティションの境界より前の行のみが削除されます）。
+     * 行単位の{@code DELETE}と異なり、VACUUMの対象となる不要な行やインデックスの更新は発生しません。
+     * 削除した行はコミット後に{@link ReservationCache}から取り除かれます。
+     * 変更フィード（{@link ReservationChangeFeed}）には削除は含まれません。
+     *
+     * @param id この値より小さいIDの行が削除の対象
+     * @return 削除したパーティションの数
+     * @throws org.springframework.dao.DataAccessException データベースアクセスエラーが発生した場合
+     */
+    public int dropPartitionsBefore(ReservationId id) {
+        Objects.requireNonNull(id, "id must not be null");
+        int dropped = Objects.requireNonNull(transactionOperations.execute(status -> {
+            var count = dao.dropPartitionsBefore(id);
+            if (cache != null) {
+                cache.evictAllAfterCommit();
+            }
+            return count;
+        }));
+        logger.info("Dropped {} reservation partitions before id {} ({})", dropped, id.value(), label);
+        return dropped;
+    }
+
+    /**
+     * パーティションの定期的な作成を停止します。
+     */
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private void createPartitionsQuietly() {
+        try {
+            createPartitions();
+        } catch (RuntimeException e) {
+            logger.warn("Failed to create reservation partitions ({}); retrying at the next check", label, e);
+        }
+    }
+}
@@ -3,12 +3,32 @@ package com.example.service;
 import com.example.dao.ReservationDao;
 import com.example.entity.Reservation;
 import com.example.entity.ReservationId;
+import com.example.entity.ReservationRecord;
+import com.example.entity.ReservationSummary;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.sql.Array;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
 
 /**
  * 予約管理のビジネスロジックを提供するサービスクラス。
@@ -21,8 +41,16 @@ import java.util.Optional;
  * <h3>トランザクション設計</h3>
  * <ul>
  * <li>{@code create} - 標準的なトランザクション境界</li>
- * <li>{@code save} - トランザクションなし（内部サービスに委譲）</li>
- * <li>{@code findById} - 読み取り専用（トランザクションなし）</li>
+ * <li>{@code save} - トランザクションなし（内部サービスに委譲、UPSERT方式で外側のトランザクションがない場合はDAOを直接呼び出し）</li>
+ * <li>{@code update} - トランザクションなし（試行ごとに内部サービスのネストトランザクションに委譲し、競合時は再試行）</li>
+ * <li>{@code saveAll} - トランザクションなし（チャンク単位で内部サービスに委譲）</li>
+ * <li>{@code findById} - 読み取り専用（{@link ReservationCache}経由、キャッシュミス時のみ内部サービスの読み取り専用トランザクション）</li>
+ * <li>{@code streamAll} / {@code forEachAll} - 読み取り専用トランザクション（カーソルフェッチのため）</li>
+ * <li>{@code findPage} - 読み取り専用トランザクション</li>
+ * <li>{@code findAllById} - 読み取り専用トランザクション（キャッシュは経由しません）</li>
+ * <li>{@code findSummaryById} / {@code findSummariesById} - 読み取り専用トランザクション（キャッシュは経由しません）</li>
+ * <li>{@code findSummariesByNamePrefix} / {@code findSummariesByNameContaining} / {@code findSummariesBySimilarName}
+ * - 読み取り専用トランザクション（キャッシュは経由しません）</li>
  * </ul>
  */
 @Service
@@ -30,28 +58,286 @@ public class ReservationService {
 
     private static final Logger logger = LoggerFactory.getLogger(ReservationService.class);
 
+    /**
+     * {@link #findSummariesByNameContaining}の文字列の最小の長さ（トライグラム1つ分）。
+     */
+    static final int MIN_CONTAINING_LENGTH = 3;
+
     private final ReservationDao dao;
     private final ReservationServiceHelper helper;
+    private final ReservationCache cache;
+    private final int chunkSize;
+    private final int lookupChunkSize;
+    private final SaveMode saveMode;
+    private final int maxRetries;
+    private final Duration retryBackoff;
+    private final int maxSearchResults;
 
     /**
      * ReservationServiceを構築します。
      *
-     * @param dao    DAO層への参照
-     * @param helper ネストトランザクション用の内部サービス
+     * @param dao       DAO層への参照
+     * @param helper    ネストトランザクション用の内部サービス
+     * @param cache     {@link #findById}のリードスルーキャッシュ
+     * @param chunkSize       {@link #saveAll}で1回のバッチ・セーブポイントにまとめる件数
+     * @param lookupChunkSize {@link #findAllById}で1回のクエリにまとめるIDの件数
+     * @param saveMode        {@link #save(Reservation)}の保存方式
+     * @param maxRetries      {@link #update(ReservationId, Consumer)}でバージョンが競合した場合の最大再試行回数
+     * @param retryBackoff    最初の再試行までの待機時間（再試行ごとに倍増）
+     * @param maxSearchResults 名前による検索で返す最大件数（指定された件数より小さい場合はこちらが優先）
      */
-    ReservationService(ReservationDao dao, ReservationServiceHelper helper) {
+    ReservationService(ReservationDao dao, ReservationServiceHelper helper, ReservationCache cache,
+                       @Value("${reservation.batch.chunk-size:500}") int chunkSize,
+                       @Value("${reservation.lookup.chunk-size:500}") int lookupChunkSize,
+                       @Value("${reservation.save.mode:nested}") SaveMode saveMode,
+                       @Value("${reservation.update.max-retries:3}") int maxRetries,
+                       @Value("${reservation.update.retry-backoff:10ms}") Duration retryBackoff,
+                       @Value("${reservation.search.max-results:100}") int maxSearchResults) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("reservation.batch.chunk-size must be positive: " + chunkSize);
+        }
+        if (lookupChunkSize <= 0) {
+            throw new IllegalArgumentException("reservation.lookup.chunk-size must be positive: " + lookupChunkSize);
+        }
+        if (maxRetries < 0) {
+            throw new IllegalArgumentException("reservation.update.max-retries must not be negative: " + maxRetries);
+        }
+        if (maxSearchResults <= 0) {
+            throw new IllegalArgumentException(
+                    "reservation.search.max-results must be positive: " + maxSearchResults);
+        }
         this.dao = dao;
         this.helper = helper;
+        this.cache = cache;
+        this.chunkSize = chunkSize;
+        this.lookupChunkSize = lookupChunkSize;
+        this.saveMode = saveMode;
+        this.maxRetries = maxRetries;
+        this.retryBackoff = retryBackoff;
+        this.maxSearchResults = maxSearchResults;
     }
 
     /**
      * 指定されたIDで予約を検索します。
      *
+     * <p>結果は存在しない場合も含めて{@link ReservationCache}にキャッシュされます。
+     * 書き込み可能なトランザクション内ではキャッシュを経由せずに読み込みます。
+     * キャッシュミス時は読み取り専用トランザクションで読み込むため、レプリカに振り分けられます。
+     *
      * @param id 予約ID
      * @return 予約エンティティ（存在しない場合は空のOptional）
      */
     public Optional<Reservation> findById(ReservationId id) {
-        return dao.selectById(id);
+        return cache.get(id, helper::findById);
+    }
+
+    /**
+     * 指定された複数のIDの予約をまとめて検索します。
+     *
+     * @param ids 予約IDの値
+     * @return IDをキーとする予約エンティティのマップ（存在しないIDは含まれません）
+     * @see #findAllById(LongStream)
+     */
+    @Transactional(readOnly = true)
+    public Map<ReservationId, Reservation> findAllById(long... ids) {
+        return findAllById(LongStream.of(ids));
+    }
+
+    /**
+     * 指定された複数のIDの予約をまとめて検索します。
+     *
+     * <p>重複を除いたIDを{@code reservation.lookup.chunk-size}件ごとに分割し、
+     * 1チャンクにつき1回の{@link ReservationDao#selectByIds}で検索します。
+     * IDごとに{@link #findById}を呼ぶ場合と比べ、ラウンドトリップは
+     * ID数ではなくチャンク数に比例します。
+     *
+     * @param ids 予約IDの値
+     * @return IDをキーとする予約エンティティのマップ（存在しないIDは含まれません）
+     */
+    @Transactional(readOnly = true)
+    public Map<ReservationId, Reservation> findAllById(LongStream ids) {
+        var distinct = ids.distinct().toArray();
+        var result = HashMap.<ReservationId, Reservation>newHashMap(distinct.length);
+        selectInChunks(distinct, dao::selectByIds, entity -> result.put(entity.getId(), entity));
+        return result;
+    }
+
+    /**
+     * 指定されたIDの予約のIDと名前のみを検索します。
+     *
+     * <p>{@link #findById}と異なりキャッシュを経由せず、不変の{@link ReservationSummary}を返します。
+     * 一覧表示などIDと名前のみが必要な読み込みに使用します。
+     *
+     * @param id 予約ID
+     * @return 予約のIDと名前（存在しない場合は空のOptional）
+     */
+    @Transactional(readOnly = true)
+    public Optional<ReservationSummary> findSummaryById(ReservationId id) {
+        return dao.selectSummaryById(id);
+    }
+
+    /**
+     * 指定された複数のIDの予約のIDと名前のみをまとめて検索します。
+     *
+     * <p>チャンク分割は{@link #findAllById(LongStream)}と同じです。
+     *
+     * @param ids 予約IDの値
+     * @return IDをキーとする予約のIDと名前のマップ（存在しないIDは含まれません）
+     */
+    @Transactional(readOnly = true)
+    public Map<ReservationId, ReservationSummary> findSummariesById(long... ids) {
+        var distinct = LongStream.of(ids).distinct().toArray();
+        var result = HashMap.<ReservationId, ReservationSummary>newHashMap(distinct.length);
+        selectInChunks(distinct, dao::selectSummariesByIds, summary -> result.put(summary.id(), summary));
+        return result;
+    }
+
+    /**
+     * 名前が指定した文字列で始まる予約のIDと名前を検索します。
+     *
+     * <p>{@code prefix}に含まれるLIKEのワイルドカード（{@code %}・{@code _}）は文字として扱われます。
+     * 結果は名前の文字コード順、IDの順で、件数は{@code limit}と{@code reservation.search.max-results}の小さい方に制限されます。
+     *
+     * @param prefix 名前の接頭辞（空文字の場合は名前が設定されたすべての予約が対象）
+     * @param limit  取得する最大件数（1以上）
+     * @return 予約のIDと名前のリスト
+     * @throws IllegalArgumentException limitが1未満の場合
+     */
+    @Transactional(readOnly = true)
+    public List<ReservationSummary> findSummariesByNamePrefix(String prefix, int limit) {
+        Objects.requireNonNull(prefix, "prefix");
+        return dao.selectSummariesByNamePrefix(prefix, searchLimit(limit));
+    }
+
+    /**
+     * 名前に指定した文字列を含む予約のIDと名前を検索します。
+     *
+     * <p>{@code text}に含まれるLIKEのワイルドカード（{@code %}・{@code _}）は文字として扱われます。
+     * トライグラムのインデックスで絞り込むため、{@code text}は{@value #MIN_CONTAINING_LENGTH}文字以上が必要です。
+     * 結果は名前、IDの順で、件数は{@code limit}と{@code reservation.search.max-results}の小さい方に制限されます。
+     *
+     * @param text  名前に含まれる文字列
+     * @param limit 取得する最大件数（1以上）
+     * @return 予約のIDと名前のリスト
+     * @throws IllegalArgumentException textが{@value #MIN_CONTAINING_LENGTH}文字未満の場合、またはlimitが1未満の場合
+     */
+    @Transactional(readOnly = true)
+    public List<ReservationSummary> findSummariesByNameContaining(String text, int limit) {
+        Objects.requireNonNull(text, "text");
+        if (text.codePointCount(0, text.length()) < MIN_CONTAINING_LENGTH) {
+            throw new IllegalArgumentException(
+                    "text must be at least " + MIN_CONTAINING_LENGTH + " characters: " + text);
+        }
+        return dao.selectSummariesByNameContaining(text, searchLimit(limit));
+    }
+
+    /**
+     * 名前が指定した文字列に類似する予約のIDと名前を、類似度の高い順に検索します。
+     *
+     * <p>表記の揺れや入力の誤りを許容する検索に使用します。類似の判定は{@code pg_trgm}の{@code %}演算子に従います。
+     * 件数は{@code limit}と{@code reservation.search.max-results}の小さい方に制限されます。
+     *
+     * @param name  比較する名前
+     * @param limit 取得する最大件数（1以上）
+     * @return 予約のIDと名前のリスト（nameが空白のみの場合は空のリスト）
+     * @throws IllegalArgumentException limitが1未満の場合
+     */
+    @Transactional(readOnly = true)
+    public List<ReservationSummary> findSummariesBySimilarName(String name, int limit) {
+        Objects.requireNonNull(name, "name");
+        var searchLimit = searchLimit(limit);
+        if (name.isBlank()) {
+            return List.of();
+        }
+        return dao.selectSummariesBySimilarName(name, searchLimit);
+    }
+
+    /**
+     * 全ての予約を名前順のストリームとして関数に渡します。
+     *
+     * <p>結果はカーソルで{@code doma.fetch-size}件ずつ読み込まれるため、
+     * バッチ処理やエクスポートを一定のメモリ量で実行できます。
+     * PostgreSQLのカーソルフェッチにはオートコミット無効の接続が必要なため、
+     * 読み取り専用トランザクション内で実行されます。
+     *
+     * <p>ストリームは{@code mapper}の実行中のみ有効です。
+     * ストリームをメソッド外に持ち出さないでください。
+     *
+     * @param mapper ストリームを処理する関数
+     * @param <R>    処理結果の型
+     * @return {@code mapper}の戻り値
+     */
+    @Transactional(readOnly = true)
+    public <R> R streamAll(Function<Stream<Reservation>, R> mapper) {
+        return dao.selectAll(mapper);
+    }
+
+    /**
+     * 全ての予約を名前順の不変の{@link ReservationRecord}のストリームとして関数に渡します。
+     *
+     * <p>{@link #streamAll}と同様に読み取り専用トランザクション内のカーソルで逐次読み込みます。
+     * 行は{@link ReservationDao#streamAllRecords}で結果セットから直接生成されるため、
+     * 集計やエクスポートなど、読み込んだ予約を変更しない大量の読み込みではこちらを使用してください。
+     *
+     * @param mapper ストリームを処理する関数
+     * @param <R>    処理結果の型
+     * @return {@code mapper}の戻り値
+     */
+    @Transactional(readOnly = true)
+    public <R> R streamAllRecords(Function<Stream<ReservationRecord>, R> mapper) {
+        return dao.streamAllRecords(mapper);
+    }
+
+    /**
+     * 全ての予約を名前順に1件ずつコールバックに渡します。
+     *
+     * <p>{@link #streamAll}と同様にカーソルで逐次読み込みます。
+     *
+     * @param action 各予約に対して実行する処理
+     */
+    @Transactional(readOnly = true)
+    public void forEachAll(Consumer<Reservation> action) {
+        dao.selectAll(stream -> {
+            stream.forEach(action);
+            return null;
+        });
+    }
+
+    /**
+     * 名前順に並べた予約の1ページ分を取得します。
+     *
+     * <p>{@code (name, id)}をカーソルとするキーセットページングのため、
+     * オフセット方式と異なり、どれだけ深いページでも読み込む行数はページサイズ分のみです。
+     * 名前がnullの予約は名前ありの予約の後ろにID順で並びます。
+     *
+     * @param after 直前のページの{@link ReservationPage#next()}（先頭ページの場合はnull）
+     * @param size  ページサイズ（1以上）
+     * @return 1ページ分の予約と次のページのカーソル
+     * @throws IllegalArgumentException sizeが1未満の場合
+     */
+    @Transactional(readOnly = true)
+    public ReservationPage findPage(ReservationCursor after, int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("size must be positive: " + size);
+        }
+        // 次ページの有無を判定するため1件多く読む
+        var limit = size + 1;
+        var rows = new ArrayList<Reservation>(limit);
+        if (after == null || after.name() != null) {
+            rows.addAll(after == null
+                    ? dao.selectPageByName(null, null, limit)
+                    : dao.selectPageByName(after.name(), after.id(), limit));
+        }
+        if (rows.size() < limit) {
+            var afterId = after != null && after.name() == null ? after.id() : null;
+            rows.addAll(dao.selectPageWithoutName(afterId, limit - rows.size()));
+        }
+        if (rows.size() <= size) {
+            return new ReservationPage(List.copyOf(rows), null);
+        }
+        var content = List.copyOf(rows.subList(0, size));
+        var last = content.getLast();
+        return new ReservationPage(content, new ReservationCursor(last.name, last.getId()));
     }
 
     /**
@@ -64,33 +350,220 @@ public class ReservationService {
      */
     @Transactional
     public int create(Reservation entity) {
-        return dao.insert(entity);
+        var affected = dao.insert(entity);
+        cache.evictAfterCommit(entity.getId());
+        return affected;
     }
 
     /**
      * 予約を保存します（作成または更新）。
      *
-     * <p>このメソッドはエンティティのIDの有無により動作を切り替えます：
+     * <p>{@code reservation.save.mode}で設定された{@link SaveMode}で保存します。
+     *
+     * @param entity 保存する予約エンティティ
+     * @return 影響を受けた行数
+     * @see #save(Reservation, SaveMode)
+     */
+    public int save(Reservation entity) {
+        return save(entity, saveMode);
+    }
+
+    /**
+     * 指定した方式で予約を保存します（作成または更新）。
+     *
+     * <p>{@link SaveMode#NESTED}の場合、エンティティのIDの有無により動作を切り替えます：
      * <ul>
      * <li>ID が null の場合: 新規作成（{@link ReservationServiceHelper#create}）</li>
-     * <li>ID が設定済みの場合: 更新（{@link ReservationServiceHelper#update}）</li>
+     * <li>ID が設定済みの場合: 更新（{@link ReservationServiceHelper#update(Reservation)}）</li>
      * </ul>
      *
+     * <p>更新はエンティティのバージョンで楽観的排他制御され、読み込み後に他のトランザクションが
+     * 同じ予約を更新していた場合は{@link OptimisticLockingFailureException}がスローされます。
+     * 競合時に変更を再適用したい場合は{@link #update(ReservationId, Consumer)}を使用してください。
+     *
      * <p>実際のDB操作は{@link ReservationServiceHelper}に委譲され、
      * ネストトランザクション（PROPAGATION_NESTED）で実行されます。
      * これにより、save操作自体は独立したトランザクション境界を持たず、
      * 呼び出し元のトランザクション制御に柔軟性を提供します。
      *
+     * <p>{@link SaveMode#UPSERT}の場合は{@link ReservationDao#upsert}の1文で保存し、
+     * 採番されたIDをエンティティに設定します。外側のトランザクションがなければ
+     * セーブポイントを作成せずに実行し、外側のトランザクションがあれば
+     * 部分的なロールバックのため{@link ReservationServiceHelper#upsert}で実行します。
+     * IDが設定済みの場合はNESTEDと同様にバージョンで楽観的排他制御された更新となり、
+     * 該当行が存在しないかバージョンが一致しなければ{@link OptimisticLockingFailureException}がスローされます
+     * （呼び出し側が決めたIDで挿入することはありません）。
+     *
+     * <p>いずれの場合も、キャッシュのエントリは呼び出し元のトランザクションのコミット後にエビクトされます。
+     *
      * @param entity 保存する予約エンティティ
+     * @param mode   保存方式
      * @return 影響を受けた行数
+     * @throws OptimisticLockingFailureException 更新時に該当行が存在しないか、エンティティのバージョンが一致しない場合
      */
-    public int save(Reservation entity) {
-        if (entity.getId() == null) {
-            return helper.create(entity);
+    public int save(Reservation entity, SaveMode mode) {
+        int affected;
+        if (mode == SaveMode.UPSERT) {
+            var saved = (TransactionSynchronizationManager.isActualTransactionActive()
+                    ? helper.upsert(entity)
+                    : dao.upsert(entity))
+                    .orElseThrow(() -> new OptimisticLockingFailureException(
+                            "Reservation " + entity.getId().value() + " does not exist or version "
+                                    + entity.getVersion() + " is stale"));
+            entity.setId(saved.getId());
+            entity.setVersion(saved.getVersion());
+            affected = 1;
+        } else if (entity.getId() == null) {
+            affected = helper.create(entity);
         } else {
-            return helper.update(entity);
+            affected = helper.update(entity);
+        }
+        cache.evictAfterCommit(entity.getId());
+        return affected;
+    }
+
+    /**
+     * 予約を最新の状態で読み込み、変更を適用して更新します。
+     *
+     * <p>各試行は{@link ReservationServiceHelper#update(ReservationId, Consumer)}により
+     * 読み込み・変更の適用・バージョン付きの更新を1つのネストトランザクションで行います。
+     * 読み込みから更新までの間に他のトランザクションが同じ予約を更新した場合は、
+     * その試行のみをロールバックし、待機したのち最新の行を読み直して{@code change}を再適用します。
+     * 待機時間は{@code reservation.update.retry-backoff}から再試行ごとに倍増し、
+     * 同時に競合した呼び出しが再び衝突しないよう0.5〜1倍のジッターを加えます。
+     * 行ロックは更新文からコミットまでの間しか保持されず、リクエストをまたいで保持されることはありません。
+     *
+     * <p>{@code change}は試行ごとに呼ばれるため、副作用を持たず、
+     * 引数のエンティティのみを変更する関数にしてください。
+     * 外側のトランザクション内で呼ぶ場合、再読み込みで最新の行が見えるのは
+     * READ COMMITTED分離レベルの場合のみです。
+     *
+     * <p>キャッシュのエントリは呼び出し元のトランザクションのコミット後にエビクトされます。
+     *
+     * @param id     予約ID
+     * @param change 読み込んだエンティティに適用する変更
+     * @return 更新後の予約エンティティ（存在しない場合は空のOptional）
+     * @throws OptimisticLockingFailureException {@code reservation.update.max-retries}回再試行しても競合した場合
+     */
+    public Optional<Reservation> update(ReservationId id, Consumer<? super Reservation> change) {
+        for (var attempt = 0; ; attempt++) {
+            try {
+                var updated = helper.update(id, change);
+                cache.evictAfterCommit(id);
+                return updated;
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxRetries) {
+                    logger.debug("update: giving up on {} after {} attempts", id, attempt + 1);
+                    throw e;
+                }
+                logger.debug("update: version conflict on {}, retrying (attempt {})", id, attempt + 1);
+                backOff(attempt, e);
+            }
         }
     }
 
+    /**
+     * 複数の予約を一括保存します（作成または更新）。
+     *
+     * <p>エンティティはIDの有無で新規作成と更新に振り分けられ、
+     * {@code reservation.batch.chunk-size}件ごとのチャンクに分割されます。
+     * 各チャンクは{@link ReservationServiceHelper#createAll}または
+     * {@link ReservationServiceHelper#updateAll}によりJDBCバッチで送信され、
+     * セーブポイントはエンティティごとではなくチャンクごとに1つだけ作成されます。
+     *
+     * <p>チャンクの処理に失敗した場合はそのチャンクのみがロールバックされ、
+     * 例外が呼び出し元に伝播します。それ以前のチャンクの結果は
+     * 呼び出し元のトランザクション制御に従います。
+     *
+     * @param entities 保存する予約エンティティ
+     * @return 影響を受けた行数の合計
+     */
+    public int saveAll(Collection<Reservation> entities) {
+        var creates = new ArrayList<Reservation>();
+        var updates = new ArrayList<Reservation>();
+        for (var entity : entities) {
+            if (entity.getId() == null) {
+                creates.add(entity);
+            } else {
+                updates.add(entity);
+            }
+        }
+        var affected = 0;
+        for (var chunk : chunk(creates)) {
+            affected += IntStream.of(helper.createAll(chunk)).sum();
+        }
+        for (var chunk : chunk(updates)) {
+            affected += IntStream.of(helper.updateAll(chunk)).sum();
+        }
+        cache.evictAfterCommit(entities.stream().map(Reservation::getId).filter(Objects::nonNull).toList());
+        logger.debug("saveAll: created={}, updated={}, affected={}", creates.size(), updates.size(), affected);
+        return affected;
+    }
 
+    /**
+     * 重複を除いたIDを{@code reservation.lookup.chunk-size}件ごとに分割し、
+     * 1チャンクにつき1回のクエリで検索します。
+     *
+     * @param ids    重複を除いた予約IDの値
+     * @param query  配列をバインドして検索するDAOメソッド
+     * @param action 検索結果の各要素に対する処理
+     * @param <T>    検索結果の型
+     */
+    private <T> void selectInChunks(long[] ids, Function<Array, List<T>> query, Consumer<T> action) {
+        for (var from = 0; from < ids.length; from += lookupChunkSize) {
+            var chunk = new Long[Math.min(lookupChunkSize, ids.length - from)];
+            for (var i = 0; i < chunk.length; i++) {
+                chunk[i] = ids[from + i];
+            }
+            var array = dao.createIdArray(chunk);
+            try {
+                query.apply(array).forEach(action);
+            } finally {
+                free(array);
+            }
+        }
+    }
+
+    private int searchLimit(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be positive: " + limit);
+        }
+        return Math.min(limit, maxSearchResults);
+    }
+
+    /**
+     * {@code attempt}回目の再試行の前に、指数的に増やした待機時間にジッターを加えて待機します。
+     *
+     * @param attempt  失敗した試行の番号（0始まり）
+     * @param conflict 待機中に割り込まれた場合にスローする競合の例外
+     */
+    private void backOff(int attempt, OptimisticLockingFailureException conflict) {
+        var delay = retryBackoff.toNanos() << Math.min(attempt, 20);
+        if (delay <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(Duration.ofNanos(ThreadLocalRandom.current().nextLong(delay / 2, delay + 1)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            conflict.addSuppressed(e);
+            throw conflict;
+        }
+    }
+
+    private static void free(Array array) {
+        try {
+            array.free();
+        } catch (SQLException e) {
+            logger.debug("Failed to free JDBC array", e);
+        }
+    }
+
+    private List<List<Reservation>> chunk(List<Reservation> entities) {
+        var chunks = new ArrayList<List<Reservation>>((entities.size() + chunkSize - 1) / chunkSize);
+        for (var from = 0; from < entities.size(); from += chunkSize) {
+            chunks.add(entities.subList(from, Math.min(from + chunkSize, entities.size())));
+        }
+        return chunks;
+    }
 }
@@ -2,10 +2,15 @@ package com.example.service;
 
 import com.example.dao.ReservationDao;
 import com.example.entity.Reservation;
+import com.example.entity.ReservationId;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
 /**
  * 予約操作のためのネストトランザクション専用の内部サービス。
  *
@@ -21,6 +26,10 @@ import org.springframework.transaction.annotation.Transactional;
  * <li>柔軟性: 呼び出し元が異なるトランザクション戦略を選択可能</li>
  * </ul>
  *
+ * <p>また、{@link ReservationService#findById}のキャッシュミス時の読み込みを
+ * 読み取り専用トランザクションで実行し、レプリカに振り分けられるようにします。
+ * </p>
+ *
  * <p><strong>注意:</strong> このクラスはpackage-privateであり、
  * 同一パッケージ内の{@link ReservationService}からのみアクセス可能です。
  * </p>
@@ -74,4 +83,95 @@ class ReservationServiceHelper {
     public int update(Reservation entity) {
         return dao.update(entity);
     }
+
+    /**
+     * 予約を読み込み、変更を適用してネストトランザクション内で更新します。
+     *
+     * <p>{@link ReservationService#update(ReservationId, Consumer)}の1回の試行に相当します。
+     * 読み込みから更新までを1つのセーブポイント（外側のトランザクションがなければ新しいトランザクション）
+     * で実行するため、バージョンの競合で失敗した場合はこの試行のみがロールバックされます。
+     * 行ロックは更新文の実行からこのトランザクションの終了までしか保持されません。
+     * </p>
+     *
+     * @param id     予約ID
+     * @param change 読み込んだエンティティに適用する変更
+     * @return 更新後の予約エンティティ（存在しない場合は空のOptional）
+     * @throws org.springframework.dao.OptimisticLockingFailureException
+     *         読み込みから更新までの間に他のトランザクションが同じ行を更新した場合
+     */
+    @Transactional(propagation = Propagation.NESTED)
+    public Optional<Reservation> update(ReservationId id, Consumer<? super Reservation> change) {
+        var entity = dao.selectById(id);
+        entity.ifPresent(e -> {
+            change.accept(e);
+            dao.update(e);
+        });
+        return entity;
+    }
+
+    /**
+     * 複数の予約を1つのネストトランザクション内で一括作成します。
+     *
+     * <p>チャンク全体に対してセーブポイントを1つだけ作成し、
+     * JDBCバッチで挿入します。失敗した場合はチャンク全体がロールバックされます。
+     * </p>
+     *
+     * @param entities 作成する予約エンティティのリスト
+     * @return 各エンティティごとの影響を受けた行数
+     * @throws org.springframework.dao.DataAccessException データベースアクセスエラーが発生した場合
+     */
+    @Transactional(propagation = Propagation.NESTED)
+    public int[] createAll(List<Reservation> entities) {
+        return dao.insertAll(entities);
+    }
+
+    /**
+     * 複数の既存予約を1つのネストトランザクション内で一括更新します。
+     *
+     * <p>チャンク全体に対してセーブポイントを1つだけ作成し、
+     * JDBCバッチで更新します。失敗した場合はチャンク全体がロールバックされます。
+     * </p>
+     *
+     * @param entities 更新する予約エンティティのリスト
+     * @return 各エンティティごとの影響を受けた行数
+     * @throws org.springframework.dao.DataAccessException データベースアクセスエラーが発生した場合
+     */
+    @Transactional(propagation = Propagation.NESTED)
+    public int[] updateAll(List<Reservation> entities) {
+        return dao.updateAll(entities);
+    }
+
+    /**
+     * 予約をネストトランザクション内でUPSERTします。
+     *
+     * <p>外側のトランザクションがある場合に{@link SaveMode#UPSERT}で使用され、
+     * 失敗時にこの操作のみをロールバックできるようセーブポイントを作成します。
+     * </p>
+     *
+     * @param entity 保存する予約エンティティ
+     * @return 保存後の予約エンティティ（該当行が存在しないかバージョンが一致せず更新されなかった場合は空のOptional）
+     * @throws org.springframework.dao.DataAccessException データベースアクセスエラーが発生した場合
+     */
+    @Transactional(propagation = Propagation.NESTED)
+    public Optional<Reservation> upsert(Reservation entity) {
+        return dao.upsert(entity);
+    }
+
+    /**
+     * 指定されたIDの予約を読み取り専用トランザクション内で検索します。
+     *
+     * <p>{@link ReservationService#findById}のキャッシュミス時に使用されます。
+     * 読み取り専用トランザクションのため、レプリカが設定されている場合はレプリカから読み込みます
+     * （{@link com.example.config.DataSourceRoutingConfig}）。
+     * 外側のトランザクションがある場合はそれに参加します。
+     * </p>
+     *
+     * @param id 予約ID
+     * @return 予約エンティティ（存在しない場合は空のOptional）
+     * @throws org.springframework.dao.DataAccessException データベースアクセスエラーが発生した場合
+     */
+    @Transactional(readOnly = true)
+    public Optional<Reservation> findById(ReservationId id) {
+        return dao.selectById(id);
+    }
 }
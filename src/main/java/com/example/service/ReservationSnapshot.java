@@ -0,0 +1,339 @@
+package com.example.service;
+
+import com.example.dao.ReservationDao;
+import com.example.entity.ReservationId;
+import com.example.entity.ReservationSummary;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 予約テーブルのIDと名前をメモリ上に保持し、変更の通知で差分を反映するスナップショット。
+ *
+ * <p>起動時に全件を読み込み、以降は{@code schema/create_notify_trigger.sql}のトリガーが
+ * {@code reservation_changed}チャネルに{@code NOTIFY}した変更行のIDのみを読み直して反映します。
+ * 複数のノードがそれぞれ{@code selectAll}をポーリングする代わりに、変更された行だけを読み込みます。
+ * ペイロードが{@code *}の通知（大量の変更・{@code TRUNCATE}）と、通知用の接続が切断された後は全件を読み直します。
+ * </p>
+ *
+ * <p>スナップショットは不変のオブジェクトで、変更を反映するたびに新しいスナップショットを作成して置き換えます
+ * （コピーオンライト）。読み込みはロックを取らずに最新のスナップショットを参照するだけです。
+ * 1回の反映のコストは変更件数ではなく全体の件数に比例するため、同時に届いた通知はまとめて反映します。
+ * </p>
+ *
+ * <p>通知の受信と反映は専用のスレッドが行い、通知用の接続を1つ占有します。
+ * 通知・読み直しとも{@code @Primary}のデータソースにトランザクション外（またはREAD WRITEのトランザクション）で
+ * 接続するため、読み取りレプリカへの振り分けが有効な場合もプライマリから読み込みます。
+ * </p>
+ *
+ * <h3>メトリクス</h3>
+ * <ul>
+ * <li>{@code reservation.snapshot.size} - スナップショットの件数</li>
+ * <li>{@code reservation.snapshot.staleness} - スナップショットが最新であることを最後に確認してからの経過秒数
+ * （通知用の接続が切断されている間は増え続けます）</li>
+ * <li>{@code reservation.snapshot.refresh.lag} - 通知を受信してから新しいスナップショットに置き換えるまでの時間</li>
+ * <li>{@code reservation.snapshot.reloads} - 全件を読み直した回数</li>
+ * </ul>
+ *
+ * <p>{@code reservation.snapshot.enabled=true}の場合にのみ有効になります。
+ * </p>
+ */
+@Service
+@ConditionalOnProperty("reservation.snapshot.enabled")
+public class ReservationSnapshot implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReservationSnapshot.class);
+
+    static final String CHANNEL = "reservation_changed";
+    static final String RELOAD_ALL = "*";
+    static final String SIZE_METER = "reservation.snapshot.size";
+    static final String STALENESS_METER = "reservation.snapshot.staleness";
+    static final String REFRESH_LAG_METER = "reservation.snapshot.refresh.lag";
+    static final String RELOADS_METER = "reservation.snapshot.reloads";
+
+    private static final int POLL_TIMEOUT_MILLIS = 500;
+    // 名前順（nullは末尾）、同じ名前はID順
+    private static final Comparator<ReservationSummary> NAME_ORDER = Comparator
+            .comparing(ReservationSummary::name, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparingLong(summary -> summary.id().value());
+
+    private final ReservationDao dao;
+    private final DataSource dataSource;
+    private final TransactionTemplate transactionTemplate;
+    private final int lookupChunkSize;
+    private final Duration reconnectBackoff;
+    private final Timer refreshLag;
+    private final Counter reloads;
+    private final Thread listener;
+    private volatile Snapshot snapshot = new Snapshot(List.of(), Map.of());
+    private volatile long currentAsOfNanos = System.nanoTime();
+    private volatile boolean closed;
+
+    /**
+     * ReservationSnapshotを構築し、全件を読み込んでから通知を受信するスレッドを開始します。
+     *
+     * @param dao                DAO層への参照
+     * @param dataSource         通知の受信に使用するデータソース
+     * @param transactionManager 全件の読み込みに使用するトランザクションのマネージャー
+     * @param meterRegistry      メトリクスの登録先
+     * @param lookupChunkSize    変更行の読み直しで1回のクエリにまとめるIDの件数
+     * @param reconnectBackoff   通知用の接続が切断された場合に再接続するまでの待機時間
+     * @throws SQLException 通知用の接続の確立または{@code LISTEN}に失敗した場合
+     */
+    ReservationSnapshot(ReservationDao dao, DataSource dataSource, PlatformTransactionManager transactionManager,
+                        MeterRegistry meterRegistry,
+                        @Value("${reservation.lookup.chunk-size:500}") int lookupChunkSize,
+                        @Value("${reservation.snapshot.reconnect-backoff:1s}") Duration reconnectBackoff)
+            throws SQLException {
+        if (lookupChunkSize <= 0) {
+            throw new IllegalArgumentException("reservation.lookup.chunk-size must be positive: " + lookupChunkSize);
+        }
+        this.dao = dao;
+        this.dataSource = dataSource;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.lookupChunkSize = lookupChunkSize;
+        this.reconnectBackoff = reconnectBackoff;
+        this.refreshLag = Timer.builder(REFRESH_LAG_METER)
+                .description("Time from receiving a change notification until the snapshot is replaced")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.reloads = Counter.builder(RELOADS_METER)
+                .description("Number of full reloads of the reservation snapshot")
+                .register(meterRegistry);
+        Gauge.builder(SIZE_METER, this, ReservationSnapshot::size)
+                .description("Number of reservations in the snapshot")
+                .register(meterRegistry);
+        Gauge.builder(STALENESS_METER, this, ReservationSnapshot::stalenessSeconds)
+                .description("Seconds since the snapshot was last known to be current")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        // 読み込み中の変更を取りこぼさないよう、LISTENしてから全件を読み込む
+        var connection = listen();
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            closeQuietly(connection);
+            throw e;
+        }
+        this.listener = Thread.ofPlatform()
+                .name("reservation-snapshot-listener")
+                .daemon()
+                .start(() -> run(connection));
+    }
+
+    /**
+     * すべての予約のIDと名前を名前順（nullは末尾、同じ名前はID順）に返します。
+     *
+     * <p>名前の比較は{@link String#compareTo}の順で、データベースの照合順序とは異なる場合があります。
+     *
+     * @return 変更できないリスト
+     */
+    public List<ReservationSummary> findAll() {
+        return snapshot.byName();
+    }
+
+    /**
+     * 指定されたIDの予約のIDと名前を返します。
+     *
+     * @param id 予約ID
+     * @return 予約のIDと名前（存在しない場合は空のOptional）
+     */
+    public Optional<ReservationSummary> findById(ReservationId id) {
+        return Optional.ofNullable(snapshot.byId().get(id));
+    }
+
+    /**
+     * スナップショットの件数を返します。
+     *
+     * @return 件数
+     */
+    public int size() {
+        return snapshot.byName().size();
+    }
+
+    /**
+     * 通知の受信を停止し、通知用の接続を閉じます。
+     *
+     * @throws InterruptedException 受信スレッドの停止を待つ間に割り込まれた場合
+     */
+    @Override
+    public void close() throws InterruptedException {
+        closed = true;
+        listener.join();
+    }
+
+    private double stalenessSeconds() {
+        return (System.nanoTime() - currentAsOfNanos) / 1e9;
+    }
+
+    private void run(Connection initial) {
+        var connection = initial;
+        while (!closed) {
+            try {
+                if (connection == null) {
+                    connection = listen();
+                    // 切断されていた間の通知は失われているため全件を読み直す
+                    reload();
+                }
+                var polledAt = System.nanoTime();
+                var pg = connection.unwrap(PGConnection.class);
+                var notifications = pg.getNotifications(POLL_TIMEOUT_MILLIS);
+                if (notifications != null && notifications.length > 0) {
+                    var received = System.nanoTime();
+                    apply(notifications, pg);
+                    refreshLag.record(System.nanoTime() - received, TimeUnit.NANOSECONDS);
+                }
+                currentAsOfNanos = polledAt;
+            } catch (SQLException | RuntimeException e) {
+                logger.warn("Reservation snapshot listener failed, reconnecting in {}", reconnectBackoff, e);
+                closeQuietly(connection);
+                connection = null;
+                try {
+                    Thread.sleep(reconnectBackoff);
+                } catch (InterruptedException interrupted) {
+                    break;
+                }
+            }
+        }
+        closeQuietly(connection);
+    }
+
+    private Connection listen() throws SQLException {
+        var connection = dataSource.getConnection();
+        try (var statement = connection.createStatement()) {
+            connection.setAutoCommit(true);
+            statement.execute("LISTEN " + CHANNEL);
+            return connection;
+        } catch (SQLException | RuntimeException e) {
+            closeQuietly(connection);
+            throw e;
+        }
+    }
+
+    /**
+     * 受信済みの通知と続けて届いている通知をまとめて反映します。
+     */
+    private void apply(PGNotification[] notifications, PGConnection pg) throws SQLException {
+        var ids = new HashSet<Long>();
+        var reloadAll = false;
+        while (notifications != null && notifications.length > 0) {
+            for (var notification : notifications) {
+                var payload = notification.getParameter();
+                if (RELOAD_ALL.equals(payload)) {
+                    reloadAll = true;
+                } else if (!reloadAll && !payload.isEmpty()) {
+                    for (var id : payload.split(",")) {
+                        ids.add(Long.valueOf(id));
+                    }
+                }
+            }
+            notifications = pg.getNotifications();
+        }
+        if (reloadAll) {
+            reload();
+        } else {
+            refresh(ids);
+        }
+    }
+
+    /**
+     * 全件を読み込んでスナップショットを置き換えます。
+     */
+    private void reload() {
+        List<ReservationSummary> all = transactionTemplate.execute(status -> dao.selectAll(stream -> stream
+                .map(entity -> new ReservationSummary(entity.getId(), entity.name))
+                .toList()));
+        snapshot = Snapshot.of(new ArrayList<>(all));
+        reloads.increment();
+        logger.debug("Reloaded reservation snapshot: {} rows", all.size());
+    }
+
+    /**
+     * 指定されたIDの行のみを読み直し、変更を反映したスナップショットに置き換えます。
+     * 読み直して見つからなかったIDは削除されたものとして取り除きます。
+     */
+    private void refresh(Set<Long> ids) throws SQLException {
+        var changed = new ArrayList<ReservationSummary>(ids.size());
+        var values = ids.toArray(Long[]::new);
+        for (var from = 0; from < values.length; from += lookupChunkSize) {
+            var array = dao.createIdArray(
+                    Arrays.copyOfRange(values, from, Math.min(from + lookupChunkSize, values.length)));
+            try {
+                changed.addAll(dao.selectSummariesByIds(array));
+            } finally {
+                array.free();
+            }
+        }
+        var current = snapshot.byName();
+        var next = new ArrayList<ReservationSummary>(current.size() + changed.size());
+        for (var summary : current) {
+            if (!ids.contains(summary.id().value())) {
+                next.add(summary);
+            }
+        }
+        next.addAll(changed);
+        snapshot = Snapshot.of(next);
+        logger.debug("Refreshed reservation snapshot: {} ids changed, {} rows", ids.size(), next.size());
+    }
+
+    private static void closeQuietly(Connection connection) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            logger.debug("Failed to close snapshot listener connection", e);
+        }
+    }
+
+    /**
+     * ある時点の予約のIDと名前の不変のスナップショット。
+     *
+     * @param byName 名前順のリスト
+     * @param byId   IDをキーとするマップ
+     */
+    private record Snapshot(List<ReservationSummary> byName, Map<ReservationId, ReservationSummary> byId) {
+
+        /**
+         * 要素を名前順に並べ替えてスナップショットを作成します。
+         *
+         * @param summaries 予約のIDと名前（並べ替えられ、スナップショットが保持します）
+         */
+        static Snapshot of(List<ReservationSummary> summaries) {
+            // 直前のスナップショットはソート済みのため、TimSortでは末尾に追加した変更分の併合のみになる
+            summaries.sort(NAME_ORDER);
+            var byId = HashMap.<ReservationId, ReservationSummary>newHashMap(summaries.size());
+            for (var summary : summaries) {
+                byId.put(summary.id(), summary);
+            }
+            return new Snapshot(Collections.unmodifiableList(summaries), Collections.unmodifiableMap(byId));
+        }
+    }
+}
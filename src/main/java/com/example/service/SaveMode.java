@@ -0,0 +1,20 @@
+package com.example.service;
+
+/**
+ * {@link ReservationService#save}の実行方式。
+ */
+public enum SaveMode {
+
+    /**
+     * IDの有無でINSERTとUPDATEを切り替え、それぞれをネストトランザクション（セーブポイント）内で実行します。
+     */
+    NESTED,
+
+    /**
+     * IDがなければ{@code INSERT ... RETURNING}、あれば{@code UPDATE ... RETURNING}の1文で保存します。
+     *
+     * <p>外側のトランザクションがない場合はセーブポイントを作成せず、1回のラウンドトリップで完了します。
+     * 外側のトランザクションがある場合は部分的なロールバックを維持するためセーブポイント内で実行します。
+     */
+    UPSERT
+}
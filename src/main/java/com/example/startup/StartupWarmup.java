@@ -0,0 +1,213 @@
+package com.example.startup;
+
+import com.example.service.ReservationService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.seasar.doma.jdbc.Config;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * 起動時にDomaのSQLファイルとコネクションプールを事前に準備するコンポーネント。
+ *
+ * <p>最初のリクエストで発生していた次の処理を、アプリケーションが準備完了を通知する前に済ませます。
+ * </p>
+ * <ul>
+ * <li>SQLファイルの読み込みと解析 - シングルトンの初期化直後に、クラスパス上の
+ * {@code META-INF/com/example/dao}配下のSQLファイルをすべて{@link org.seasar.doma.jdbc.SqlFileRepository}に読み込みます。
+ * データベースに接続しないため、AOTキャッシュの学習実行（{@code -Dspring.context.exit=onRefresh}）でも実行されます。</li>
+ * <li>コネクションプールの充填 - {@link ApplicationRunner}として、HikariCPの各プールから
+ * {@code minimumIdle}件（他で使用中の接続があれば最大数の残り）の接続を同時に取得して返却します。
+ * ランナーの完了後にReadinessが{@code ACCEPTING_TRAFFIC}になります。</li>
+ * <li>読み取り経路の実行 - 同じくランナーで読み取り専用の検索を1回ずつ実行し、
+ * トランザクション管理・Domaの実行時処理・JDBCドライバーのクラスロードと初期化を済ませます。
+ * {@link com.example.service.ReservationService#findById}のキャッシュには影響しません。</li>
+ * </ul>
+ *
+ * <p>{@code reservation.warmup.enabled=false}で無効にできます。
+ * </p>
+ */
+@Component
+@ConditionalOnProperty(name = "reservation.warmup.enabled", matchIfMissing = true)
+public class StartupWarmup implements SmartInitializingSingleton, ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(StartupWarmup.class);
+
+    static final String SQL_FILE_PATTERN = "classpath*:META-INF/com/example/dao/**/*.sql";
+
+    private final Config config;
+    private final ObjectProvider<DataSource> dataSources;
+    private final ObjectProvider<ReservationService> reservationService;
+
+    /**
+     * StartupWarmupを構築します。
+     *
+     * @param config      Domaの設定（SQLファイルリポジトリとダイアレクト）
+     * @param dataSources 充填対象のデータソース
+     * @param reservationService 読み取り経路のウォームアップに使用するサービス
+     */
+    public StartupWarmup(Config config, ObjectProvider<DataSource> dataSources,
+                         ObjectProvider<ReservationService> reservationService) {
+        this.config = config;
+        this.dataSources = dataSources;
+        this.reservationService = reservationService;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        var start = System.nanoTime();
+        var count = preloadSqlFiles();
+        logger.info("Preloaded {} SQL files in {} ms", count, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws SQLException {
+        var start = System.nanoTime();
+        var count = fillConnectionPools();
+        reservationService.ifAvailable(StartupWarmup::exerciseReadPath);
+        logger.info("Opened {} pooled connections and exercised read path in {} ms", count,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * クラスパス上のDAOのSQLファイルをすべてSQLファイルリポジトリに読み込みます。
+     *
+     * <p>SQLファイルのパス（{@code META-INF/<DAOの完全修飾名>/<メソッド名>.sql}）から
+     * DAOのメソッドを求め、Domaの生成コードと同じ引数で
+     * {@link org.seasar.doma.jdbc.SqlFileRepository#getSqlFile}を呼び出します。
+     * ダイアレクト固有のファイル（{@code <メソッド名>-<ダイアレクト名>.sql}）は
+     * リポジトリがダイアレクトに応じて選択するため、メソッドごとに1回だけ読み込みます。
+     *
+     * @return 読み込んだSQLファイルの数
+     */
+    int preloadSqlFiles() {
+        var repository = config.getSqlFileRepository();
+        var dialect = config.getDialect();
+        var count = 0;
+        for (var path : sqlFilePaths()) {
+            var method = daoMethod(path);
+            if (method == null) {
+                logger.warn("No DAO method found for SQL file: {}", path);
+                continue;
+            }
+            repository.getSqlFile(method, path, dialect);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * HikariCPの各プールから{@code minimumIdle}件の接続を同時に取得して返却します。
+     *
+     * <p>{@link AbstractRoutingDataSource}（読み取りレプリカ）の振り分け先も対象に含めます。
+     * {@code ReservationSnapshot}の通知用の接続など、起動時点で使用中の接続がある場合は
+     * 待ち続けないよう{@code maximumPoolSize}の残りの件数までに抑えます。
+     *
+     * @return 取得した接続の数
+     * @throws SQLException 接続の取得に失敗した場合
+     */
+    int fillConnectionPools() throws SQLException {
+        var pools = new LinkedHashSet<HikariDataSource>();
+        dataSources.orderedStream().forEach(dataSource -> collectPools(dataSource, pools));
+        var count = 0;
+        for (var pool : pools) {
+            var target = pool.getMinimumIdle();
+            var poolStats = pool.getHikariPoolMXBean();
+            if (poolStats != null) {
+                target = Math.min(target, pool.getMaximumPoolSize() - poolStats.getActiveConnections());
+            }
+            var connections = new ArrayList<Connection>(Math.max(target, 0));
+            try {
+                for (var i = 0; i < target; i++) {
+                    connections.add(pool.getConnection());
+                }
+                count += connections.size();
+            } finally {
+                for (var connection : connections) {
+                    connection.close();
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 最初のリクエストと同じ読み取り経路を、結果に影響しない検索で実行します。
+     *
+     * @param service 予約サービス
+     */
+    private static void exerciseReadPath(ReservationService service) {
+        service.findPage(null, 1);
+        // IDは1から採番されるため、0は存在しない
+        service.findAllById(0);
+    }
+
+    private static void collectPools(DataSource dataSource, Set<HikariDataSource> pools) {
+        if (dataSource instanceof AbstractRoutingDataSource routing) {
+            routing.getResolvedDataSources().values().forEach(target -> collectPools(target, pools));
+            return;
+        }
+        var pool = DataSourceUnwrapper.unwrap(dataSource, HikariDataSource.class);
+        if (pool != null) {
+            pools.add(pool);
+        }
+    }
+
+    private static Set<String> sqlFilePaths() {
+        try {
+            var paths = new LinkedHashSet<String>();
+            for (var resource : new PathMatchingResourcePatternResolver().getResources(SQL_FILE_PATTERN)) {
+                var url = resource.getURL().toString();
+                var path = url.substring(url.lastIndexOf("META-INF/"));
+                var fileName = path.substring(path.lastIndexOf('/') + 1);
+                var dialectSuffix = fileName.indexOf('-');
+                if (dialectSuffix >= 0) {
+                    path = path.substring(0, path.lastIndexOf('/') + 1) + fileName.substring(0, dialectSuffix) + ".sql";
+                }
+                paths.add(path);
+            }
+            return paths;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * SQLファイルのパスに対応するDAOのメソッドを求めます。
+     *
+     * @param path SQLファイルのパス（例: {@code META-INF/com/example/dao/ReservationDao/selectById.sql}）
+     * @return DAOのメソッド（見つからない場合はnull）
+     */
+    static Method daoMethod(String path) {
+        var directory = path.substring("META-INF/".length(), path.lastIndexOf('/'));
+        var methodName = path.substring(path.lastIndexOf('/') + 1, path.length() - ".sql".length());
+        try {
+            var daoClass = Class.forName(directory.replace('/', '.'), false, StartupWarmup.class.getClassLoader());
+            return Arrays.stream(daoClass.getMethods())
+                    .filter(method -> method.getName().equals(methodName))
+                    .findFirst()
+                    .orElse(null);
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.transaction;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * トランザクション境界の所要時間をMicrometerに記録する{@link TransactionExecutionListener}。
+ *
+ * <p>新規トランザクションと、{@code PROPAGATION_NESTED}によるセーブポイントの
+ * 開始から完了（コミットまたはロールバック）までの時間を
+ * {@code transaction.execution}タイマーに記録します。
+ * タグは{@code name}（クラス名.メソッド名）、{@code nested}、{@code read-only}、{@code outcome}です。
+ * 既存のトランザクションに参加するだけの呼び出しは記録されません。
+ * </p>
+ *
+ * <p>Spring Bootにより、このBeanはトランザクションマネージャーに自動的に登録されます。
+ * </p>
+ */
+@Component
+public class TransactionMetricsListener implements TransactionExecutionListener {
+
+    static final String METER = "transaction.execution";
+
+    private final MeterRegistry registry;
+    private final ConcurrentMap<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+    private final ThreadLocal<List<Execution>> executions = ThreadLocal.withInitial(ArrayList::new);
+
+    /**
+     * TransactionMetricsListenerを構築します。
+     *
+     * @param registry メトリクスの登録先
+     */
+    public TransactionMetricsListener(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void beforeBegin(TransactionExecution transaction) {
+        executions.get().add(new Execution(transaction, System.nanoTime()));
+    }
+
+    @Override
+    public void afterBegin(TransactionExecution transaction, Throwable beginFailure) {
+        if (beginFailure != null) {
+            complete(transaction, "begin-failure");
+        }
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+        complete(transaction, commitFailure == null ? "commit" : "commit-failure");
+    }
+
+    @Override
+    public void afterRollback(TransactionExecution transaction, Throwable rollbackFailure) {
+        complete(transaction, rollbackFailure == null ? "rollback" : "rollback-failure");
+    }
+
+    private void complete(TransactionExecution transaction, String outcome) {
+        var stack = executions.get();
+        for (var i = stack.size() - 1; i >= 0; i--) {
+            var execution = stack.get(i);
+            if (execution.transaction() == transaction) {
+                stack.remove(i);
+                var key = new TimerKey(shortName(transaction.getTransactionName()), transaction.isNested(),
+                        transaction.isReadOnly(), outcome);
+                timer(key).record(System.nanoTime() - execution.startNanos(), TimeUnit.NANOSECONDS);
+                return;
+            }
+        }
+    }
+
+    private Timer timer(TimerKey key) {
+        var timer = timers.get(key);
+        if (timer == null) {
+            timer = timers.computeIfAbsent(key, k -> Timer.builder(METER)
+                    .description("Duration of transactions and nested savepoints")
+                    .tags("name", k.name(), "nested", Boolean.toString(k.nested()),
+                            "read-only", Boolean.toString(k.readOnly()), "outcome", k.outcome())
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+        return timer;
+    }
+
+    /**
+     * トランザクション名（{@code パッケージ.クラス.メソッド}）からパッケージ名を除きます。
+     *
+     * @param name トランザクション名（null可）
+     * @return {@code クラス.メソッド}形式の名前
+     */
+    static String shortName(String name) {
+        if (name == null || name.isEmpty()) {
+            return "unnamed";
+        }
+        var method = name.lastIndexOf('.');
+        var type = method > 0 ? name.lastIndexOf('.', method - 1) : -1;
+        return name.substring(type + 1);
+    }
+
+    private record Execution(TransactionExecution transaction, long startNanos) {
+    }
+
+    private record TimerKey(String name, boolean nested, boolean readOnly, String outcome) {
+    }
+}
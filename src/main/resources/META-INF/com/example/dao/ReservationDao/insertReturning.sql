@@ -0,0 +1,5 @@
+INSERT INTO reservation (id, name)
+VALUES (nextval(pg_get_serial_sequence('reservation', 'id')), /* entity.name */'a')
+RETURNING id,
+          name,
+          version
\ No newline at end of file
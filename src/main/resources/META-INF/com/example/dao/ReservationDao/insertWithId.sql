@@ -0,0 +1,3 @@
+INSERT INTO reservation (id, name)
+VALUES (/* reservation.id */0,
+        /* reservation.name */'a')
\ No newline at end of file
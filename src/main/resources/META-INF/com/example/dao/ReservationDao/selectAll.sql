@@ -1,4 +1,5 @@
 SELECT id,
-       name
+       name,
+       version
 FROM reservation
-ORDER BY name
\ No newline at end of file
+ORDER BY name, id
\ No newline at end of file
@@ -0,0 +1,5 @@
+SELECT id,
+       name,
+       version
+FROM reservation
+ORDER BY name, id
\ No newline at end of file
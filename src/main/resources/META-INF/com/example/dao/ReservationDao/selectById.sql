@@ -1,3 +1,5 @@
-select *
-from reservation
-where id = /* id */1
\ No newline at end of file
+SELECT id,
+       name,
+       version
+FROM reservation
+WHERE id = /* id */1
\ No newline at end of file
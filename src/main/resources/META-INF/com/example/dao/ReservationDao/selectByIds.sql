@@ -0,0 +1,6 @@
+SELECT id,
+       name,
+       version
+FROM reservation
+-- id = ANY (?) ではパーティションを絞り込めないため、IDごとに該当するパーティションだけを探索する形にする
+WHERE id IN (SELECT unnest(/* ids */'{1}'::bigint[]))
\ No newline at end of file
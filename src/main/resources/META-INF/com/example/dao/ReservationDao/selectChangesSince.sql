@@ -0,0 +1,12 @@
+SELECT id,
+       name,
+       version,
+       changed_xid::text::bigint AS changed_xid
+FROM reservation
+-- 実行中のトランザクションより前に完了したトランザクションの変更のみを返す（後からより小さいIDでコミットされる変更を飛ばさない）
+WHERE changed_xid < pg_snapshot_xmin(pg_current_snapshot())
+/*%if changedXid != null */
+  AND (changed_xid, id) > ((/* changedXid */0)::text::xid8, /* id */0)
+/*%end*/
+ORDER BY changed_xid, id
+LIMIT /* limit */10
\ No newline at end of file
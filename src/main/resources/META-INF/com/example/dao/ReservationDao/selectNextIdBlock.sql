@@ -0,0 +1 @@
+SELECT nextval('reservation_id_seq')
\ No newline at end of file
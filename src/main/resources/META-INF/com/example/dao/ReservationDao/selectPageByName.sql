@@ -0,0 +1,10 @@
+SELECT id,
+       name,
+       version
+FROM reservation
+WHERE name IS NOT NULL
+/*%if name != null */
+  AND (name, id) > (/* name */'a', /* id */0)
+/*%end*/
+ORDER BY name, id
+LIMIT /* limit */10
\ No newline at end of file
@@ -0,0 +1,10 @@
+SELECT id,
+       name,
+       version
+FROM reservation
+WHERE name IS NULL
+/*%if id != null */
+  AND id > /* id */0
+/*%end*/
+ORDER BY id
+LIMIT /* limit */10
\ No newline at end of file
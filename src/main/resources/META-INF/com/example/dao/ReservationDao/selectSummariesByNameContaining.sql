@@ -0,0 +1,6 @@
+SELECT id,
+       name
+FROM reservation
+WHERE name LIKE /* @infix(text) */'%a%' ESCAPE '$'
+ORDER BY name, id
+LIMIT /* limit */10
\ No newline at end of file
@@ -0,0 +1,6 @@
+SELECT id,
+       name
+FROM reservation
+WHERE name LIKE /* @prefix(prefix) */'a%' ESCAPE '$'
+ORDER BY name USING ~<~, id
+LIMIT /* limit */10
\ No newline at end of file
@@ -0,0 +1,6 @@
+SELECT id,
+       name
+FROM reservation
+WHERE name % /* name */'a'
+ORDER BY similarity(name, /* name */'a') DESC, name, id
+LIMIT /* limit */10
\ No newline at end of file
@@ -0,0 +1,4 @@
+SELECT id,
+       name
+FROM reservation
+WHERE id = /* id */1
\ No newline at end of file
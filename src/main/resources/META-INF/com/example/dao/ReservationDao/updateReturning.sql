@@ -0,0 +1,8 @@
+UPDATE reservation
+SET name    = /* entity.name */'a',
+    version = version + 1
+WHERE id = /* entity.id */0
+  AND version = /* entity.version */0
+RETURNING id,
+          name,
+          version
\ No newline at end of file
@@ -0,0 +1,79 @@
+package com.example.actuator;
+
+import com.example.TestConfig;
+import com.example.dao.ReservationDao;
+import com.example.doma.jdbc.SlowQuery;
+import com.example.entity.ReservationId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * しきい値を0にして、すべてのSQLが実行計画とともに記録されることを確認します。
+ */
+@SpringBootTest(classes = TestConfig.class, properties = "reservation.slow-query.threshold=0ms")
+class SlowQueryEndpointTest {
+
+    @Autowired
+    private SlowQueryEndpoint endpoint;
+
+    @Autowired
+    private ReservationDao dao;
+
+    @BeforeEach
+    void setUp() {
+        endpoint.clear();
+    }
+
+    @Test
+    void SQLファイルのパスとバインド変数を埋め込んだSQLと実行計画が記録される() throws InterruptedException {
+        dao.selectById(ReservationId.of(12345));
+
+        var query = awaitPlan();
+        assertThat(query.dao()).isEqualTo("ReservationDao");
+        assertThat(query.method()).isEqualTo("selectById");
+        assertThat(query.sqlFilePath()).endsWith("selectById.sql");
+        assertThat(query.sql()).contains("12345");
+        assertThat(query.plan()).contains("\"Plan\"").contains("reservation");
+    }
+
+    @Test
+    void 配列をバインドしたSQLの実行計画が記録される() throws Exception {
+        var ids = dao.createIdArray(new Long[]{1L, 2L, 3L});
+        try {
+            dao.selectByIds(ids);
+        } finally {
+            ids.free();
+        }
+
+        var query = awaitPlan();
+        assertThat(query.method()).isEqualTo("selectByIds");
+        assertThat(query.plan()).contains("\"Plan\"");
+    }
+
+    @Test
+    void clearで記録が削除される() {
+        dao.selectById(ReservationId.of(1));
+
+        endpoint.clear();
+
+        assertThat(endpoint.slowQueries()).isEmpty();
+    }
+
+    private SlowQuery awaitPlan() throws InterruptedException {
+        var deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (true) {
+            var queries = endpoint.slowQueries();
+            if (!queries.isEmpty() && queries.getFirst().plan() != null || System.nanoTime() > deadline) {
+                assertThat(queries).isNotEmpty();
+                return queries.getFirst();
+            }
+            Thread.sleep(10);
+        }
+    }
+}
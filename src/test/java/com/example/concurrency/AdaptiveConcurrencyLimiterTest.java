@@ -0,0 +1,137 @@
+package com.example.concurrency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 時刻を差し替え、ウィンドウ（10ms）ごとに指定した同時実行数・所要時間で呼び出しを完了させて上限の変化を確認します。
+ */
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final Duration WINDOW = Duration.ofMillis(10);
+
+    private final AtomicLong clock = new AtomicLong();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void 上限に達した呼び出しは待たずに拒否する() {
+        var limiter = limiter(2, 100);
+        var first = limiter.acquire();
+        limiter.acquire();
+
+        assertThatThrownBy(limiter::acquire)
+                .isInstanceOfSatisfying(ConcurrencyLimitExceededException.class, e -> {
+                    assertThat(e.getKind()).isEqualTo("read");
+                    assertThat(e.getLimit()).isEqualTo(2);
+                });
+        assertThat(meterRegistry.get(AdaptiveConcurrencyLimiter.REJECTED_METER).tag("kind", "read").counter()
+                .count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get(AdaptiveConcurrencyLimiter.IN_FLIGHT_METER).tag("kind", "read").gauge()
+                .value()).isEqualTo(2.0);
+
+        first.release();
+        first.release();
+
+        assertThat(limiter.inFlight()).isEqualTo(1);
+        limiter.acquire();
+    }
+
+    @Test
+    void レイテンシが一定で上限まで使われている場合は上限を増やす() {
+        var limiter = limiter(10, 100);
+
+        for (var i = 0; i < 20; i++) {
+            runWindow(limiter, limiter.limit(), 10);
+        }
+
+        assertThat(limiter.limit()).isGreaterThan(20).isLessThanOrEqualTo(100);
+        assertThat(meterRegistry.get(AdaptiveConcurrencyLimiter.LIMIT_METER).tag("kind", "read").gauge().value())
+                .isEqualTo(limiter.limit());
+    }
+
+    @Test
+    void レイテンシが許容範囲を超えて増えると上限を減らす() {
+        var limiter = limiter(20, 100);
+        for (var i = 0; i < 10; i++) {
+            runWindow(limiter, limiter.limit(), 10);
+        }
+        var before = limiter.limit();
+
+        for (var i = 0; i < 10; i++) {
+            runWindow(limiter, limiter.limit(), 50);
+        }
+
+        assertThat(limiter.limit()).isLessThan(before / 2);
+    }
+
+    @Test
+    void 同時実行数が上限の半分に届かない場合は上限を増やさない() {
+        var limiter = limiter(20, 100);
+
+        for (var i = 0; i < 20; i++) {
+            runWindow(limiter, 5, 10);
+        }
+
+        assertThat(limiter.limit()).isEqualTo(20);
+    }
+
+    @Test
+    void 過負荷を示す失敗があった場合は上限を減らす() {
+        var limiter = limiter(20, 100);
+        var permit = limiter.acquire();
+        advance(WINDOW.toMillis());
+
+        permit.drop();
+
+        assertThat(limiter.limit()).isEqualTo(18);
+    }
+
+    @Test
+    void 上限は最小値を下回らない() {
+        var limiter = new AdaptiveConcurrencyLimiter("write", 2, 2, 10, 1.5, WINDOW, meterRegistry, clock::get);
+
+        for (var i = 0; i < 10; i++) {
+            var permit = limiter.acquire();
+            advance(WINDOW.toMillis());
+            permit.drop();
+        }
+
+        assertThat(limiter.limit()).isEqualTo(2);
+    }
+
+    @Test
+    void 上限の範囲が不正な場合は構築できない() {
+        assertThatThrownBy(() -> limiter(0, 10)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> limiter(20, 10)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private AdaptiveConcurrencyLimiter limiter(int initialLimit, int maxLimit) {
+        return new AdaptiveConcurrencyLimiter("read", initialLimit, 1, maxLimit, 1.5, WINDOW, meterRegistry,
+                clock::get);
+    }
+
+    // 同時に concurrency 件を開始し、rttMillis 後にすべて完了させる（10件以上なら1ウィンドウが締まる）
+    private void runWindow(AdaptiveConcurrencyLimiter limiter, int concurrency, long rttMillis) {
+        var permits = new ArrayList<AdaptiveConcurrencyLimiter.Permit>();
+        for (var i = 0; i < Math.max(concurrency, 10); i++) {
+            if (permits.size() == concurrency) {
+                permits.removeFirst().release();
+            }
+            permits.add(limiter.acquire());
+        }
+        advance(Math.max(rttMillis, WINDOW.toMillis()));
+        permits.forEach(AdaptiveConcurrencyLimiter.Permit::release);
+    }
+
+    private void advance(long millis) {
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.concurrency;
+
+import com.example.TestConfig;
+import com.example.entity.Reservation;
+import com.example.entity.ReservationId;
+import com.example.service.ReservationService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.jdbc.JdbcTestUtils;
+
+import java.sql.SQLException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 読み込みの上限を1に固定し、実行中の読み込みがある間の呼び出しが拒否されることを確認します。
+ * 実行中の読み込みは別スレッドで開始するため、テストメソッドをトランザクションで囲まずに後でテーブルを削除します。
+ */
+@SpringBootTest(classes = TestConfig.class, properties = {
+        "reservation.concurrency.enabled=true",
+        "reservation.concurrency.read.initial-limit=1",
+        "reservation.concurrency.read.max-limit=1",
+        "reservation.cache.enabled=false"})
+class ConcurrencyLimitInterceptorTest {
+
+    @Autowired
+    private ReservationService service;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        JdbcTestUtils.deleteFromTables(jdbcTemplate, "reservation");
+    }
+
+    @Test
+    void 読み込みの上限を超えた呼び出しは実行せずに拒否し書き込みは別の上限で実行する() throws InterruptedException {
+        var existing = create("existing");
+        var entered = new CountDownLatch(1);
+        var finish = new CountDownLatch(1);
+        var reader = Thread.ofVirtual().start(() -> service.forEachAll(reservation -> {
+            entered.countDown();
+            awaitQuietly(finish);
+        }));
+        assertThat(entered.await(10, TimeUnit.SECONDS)).isTrue();
+
+        try {
+            assertThat(meterRegistry.get(AdaptiveConcurrencyLimiter.IN_FLIGHT_METER).tag("kind", "read").gauge()
+                    .value()).isEqualTo(1.0);
+            assertThatThrownBy(() -> service.findById(existing.getId()))
+                    .isInstanceOf(ConcurrencyLimitExceededException.class)
+                    .hasMessageContaining("read");
+            create("written while reading");
+        } finally {
+            finish.countDown();
+            reader.join();
+        }
+
+        assertThat(service.findById(existing.getId())).isPresent();
+        assertThat(meterRegistry.get(AdaptiveConcurrencyLimiter.REJECTED_METER).tag("kind", "read").counter()
+                .count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get(AdaptiveConcurrencyLimiter.LIMIT_METER).tag("kind", "write").gauge()
+                .value()).isPositive();
+    }
+
+    @Test
+    void メソッド名で読み込みと書き込みを判別する() throws NoSuchMethodException {
+        assertThat(ConcurrencyLimitInterceptor.isRead(
+                ReservationService.class.getMethod("findById", ReservationId.class))).isTrue();
+        assertThat(ConcurrencyLimitInterceptor.isRead(
+                ReservationService.class.getMethod("forEachAll", Consumer.class))).isTrue();
+        assertThat(ConcurrencyLimitInterceptor.isRead(
+                ReservationService.class.getMethod("save", Reservation.class))).isFalse();
+    }
+
+    @Test
+    void コネクションの取得失敗は過負荷として扱い楽観的排他制御の競合は扱わない() {
+        assertThat(ConcurrencyLimitInterceptor.isOverload(
+                new CannotGetJdbcConnectionException("timeout", new SQLException()))).isTrue();
+        assertThat(ConcurrencyLimitInterceptor.isOverload(new OptimisticLockingFailureException("conflict")))
+                .isFalse();
+    }
+
+    private Reservation create(String name) {
+        var reservation = new Reservation();
+        reservation.name = name;
+        service.create(reservation);
+        return reservation;
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
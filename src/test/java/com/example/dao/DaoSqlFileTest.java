@@ -0,0 +1,62 @@
+package com.example.dao;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * DAOのSQLファイルの静的検査。
+ *
+ * <p>{@code SELECT *}や{@code RETURNING *}は結果型に対応しないカラムまで転送し、
+ * 本番環境では{@code UnknownColumnIgnoreHandler}で黙って捨てられるため、ビルド時に検出します。
+ */
+class DaoSqlFileTest {
+
+    private static final Path SQL_ROOT = Path.of("src/main/resources/META-INF");
+
+    private static final Pattern COMMENT = Pattern.compile("/\\*.*?\\*/|--[^\\n]*", Pattern.DOTALL);
+    private static final Pattern WILDCARD = Pattern.compile(
+            "\\b(?:select(?:\\s+distinct)?|returning)\\s+(?:\\w+\\.)?\\*", Pattern.CASE_INSENSITIVE);
+
+    @Test
+    void SQLファイルでワイルドカードのカラム指定を使用しない() throws IOException {
+        try (var files = Files.walk(SQL_ROOT)) {
+            var violations = files
+                    .filter(path -> path.toString().endsWith(".sql"))
+                    .filter(DaoSqlFileTest::selectsWildcard)
+                    .map(path -> SQL_ROOT.relativize(path).toString())
+                    .toList();
+
+            assertThat(violations)
+                    .as("SQL files selecting all columns; list the mapped columns explicitly")
+                    .isEmpty();
+        }
+    }
+
+    @Test
+    void ワイルドカードの検出() {
+        assertThat(containsWildcard("select * from reservation")).isTrue();
+        assertThat(containsWildcard("SELECT DISTINCT r.* FROM reservation r")).isTrue();
+        assertThat(containsWildcard("INSERT INTO reservation (name) VALUES ('a') RETURNING *")).isTrue();
+        assertThat(containsWildcard("SELECT id, name FROM reservation WHERE id = /* id */1")).isFalse();
+        assertThat(containsWildcard("SELECT count(*) FROM reservation")).isFalse();
+        assertThat(containsWildcard("SELECT id /* select * */ FROM reservation -- select *")).isFalse();
+    }
+
+    private static boolean selectsWildcard(Path path) {
+        try {
+            return containsWildcard(Files.readString(path));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean containsWildcard(String sql) {
+        return WILDCARD.matcher(COMMENT.matcher(sql).replaceAll(" ")).find();
+    }
+}
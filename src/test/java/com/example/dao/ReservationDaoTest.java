@@ -3,16 +3,26 @@ package com.example.dao;
 import com.example.TestConfig;
 import com.example.entity.Reservation;
 import com.example.entity.ReservationId;
+import com.example.entity.ReservationRecord;
+import com.example.entity.ReservationSummary;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.jdbc.JdbcTestUtils;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.assertj.core.groups.Tuple.tuple;
 
 @SpringBootTest(classes = TestConfig.class)
@@ -47,6 +57,74 @@ class ReservationDaoTest {
                 .containsExactly(tuple(entity.getId(), entity.name));
     }
 
+    @Test
+    void selectAll_Stream() {
+        var entity1 = new Reservation();
+        entity1.name = "Bob";
+        dao.insert(entity1);
+        var entity2 = new Reservation();
+        entity2.name = "Alice";
+        dao.insert(entity2);
+
+        var actual = dao.selectAll(stream -> stream.map(r -> r.name).collect(Collectors.toList()));
+
+        assertThat(actual).containsExactly("Alice", "Bob");
+    }
+
+    @Test
+    void streamAllRecords_selectAllと同じ行を同じ順序で返す() {
+        var bob = new Reservation();
+        bob.name = "Bob";
+        var noName = new Reservation();
+        var alice = new Reservation();
+        alice.name = "Alice";
+        dao.insertAll(List.of(bob, noName, alice));
+        bob.name = "Bobby";
+        dao.update(bob);
+
+        var actual = dao.streamAllRecords(Stream::toList);
+
+        assertThat(actual).containsExactly(
+                new ReservationRecord(alice.getId(), "Alice", 1),
+                new ReservationRecord(bob.getId(), "Bobby", 2),
+                new ReservationRecord(noName.getId(), null, 1));
+        assertThat(actual).extracting(ReservationRecord::id)
+                .containsExactlyElementsOf(dao.selectAll().stream().map(Reservation::getId).toList());
+        assertThat(actual.get(1).toReservation())
+                .extracting(Reservation::getId, reservation -> reservation.name, Reservation::getVersion)
+                .containsExactly(bob.getId(), "Bobby", 2);
+    }
+
+    @Test
+    void selectPageByName() {
+        var alice = new Reservation();
+        alice.name = "Alice";
+        var bob = new Reservation();
+        bob.name = "Bob";
+        var noName = new Reservation();
+        dao.insertAll(List.of(bob, noName, alice));
+
+        assertThat(dao.selectPageByName(null, null, 10))
+                .extracting("name")
+                .containsExactly("Alice", "Bob");
+        assertThat(dao.selectPageByName(alice.name, alice.getId(), 10))
+                .extracting("name")
+                .containsExactly("Bob");
+        assertThat(dao.selectPageWithoutName(null, 10))
+                .extracting("id")
+                .containsExactly(noName.getId());
+        assertThat(dao.selectPageWithoutName(noName.getId(), 10)).isEmpty();
+    }
+
+    @Test
+    void selectChangesSince_実行中のトランザクションの変更は含まない() {
+        var entity = new Reservation();
+        entity.name = "foo";
+        dao.insert(entity);
+
+        assertThat(dao.selectChangesSince(null, null, 10)).isEmpty();
+    }
+
     @Test
     void insert() {
         var entity = new Reservation();
@@ -58,6 +136,21 @@ class ReservationDaoTest {
         assertThat(actual.get()).extracting("id", "name").containsExactly(entity.getId(), entity.name);
     }
 
+    @Test
+    void selectById_intの範囲を超えるIDを読み込める() throws Exception {
+        var id = ReservationId.of(3_000_000_000L);
+        jdbcTemplate.update("INSERT INTO reservation (id, name) VALUES (?, 'foo')", id.value());
+
+        assertThat(dao.selectById(id)).get()
+                .extracting("id", "name").containsExactly(id, "foo");
+        var ids = dao.createIdArray(new Long[]{id.value()});
+        try {
+            assertThat(dao.selectByIds(ids)).extracting("id").containsExactly(id);
+        } finally {
+            ids.free();
+        }
+    }
+
     @Test
     void selectById() {
         var entity = new Reservation();
@@ -69,6 +162,89 @@ class ReservationDaoTest {
         assertThat(actual.get()).extracting("id", "name").containsExactly(entity.getId(), "foo");
     }
 
+    @Test
+    void selectByIds() throws Exception {
+        var alice = new Reservation();
+        alice.name = "Alice";
+        var bob = new Reservation();
+        bob.name = "Bob";
+        dao.insertAll(List.of(alice, bob));
+
+        var ids = dao.createIdArray(new Long[]{alice.getId().value(), 999_999L});
+        try {
+            assertThat(dao.selectByIds(ids))
+                    .extracting("id", "name")
+                    .containsExactly(tuple(alice.getId(), "Alice"));
+        } finally {
+            ids.free();
+        }
+    }
+
+    @Test
+    void selectSummaryById() {
+        var entity = new Reservation();
+        entity.name = "foo";
+        dao.insert(entity);
+
+        var actual = dao.selectSummaryById(entity.getId());
+        assertThat(actual).contains(new ReservationSummary(entity.getId(), "foo"));
+    }
+
+    @Test
+    void selectSummariesByIds() throws Exception {
+        var alice = new Reservation();
+        alice.name = "Alice";
+        var bob = new Reservation();
+        bob.name = "Bob";
+        dao.insertAll(List.of(alice, bob));
+
+        var ids = dao.createIdArray(new Long[]{alice.getId().value(), bob.getId().value(), 999_999L});
+        try {
+            assertThat(dao.selectSummariesByIds(ids)).containsExactlyInAnyOrder(
+                    new ReservationSummary(alice.getId(), "Alice"),
+                    new ReservationSummary(bob.getId(), "Bob"));
+        } finally {
+            ids.free();
+        }
+    }
+
+    @Test
+    void selectSummariesByNamePrefix() {
+        var ids = insertNames("Alice", "alice", "Alfred", "Bob", "Al_ice", "Al%", null);
+
+        assertThat(dao.selectSummariesByNamePrefix("Al", 10))
+                .extracting(ReservationSummary::name)
+                .containsExactly("Al%", "Al_ice", "Alfred", "Alice");
+        assertThat(dao.selectSummariesByNamePrefix("Al_", 10))
+                .containsExactly(new ReservationSummary(ids.get(4), "Al_ice"));
+        assertThat(dao.selectSummariesByNamePrefix("Al%", 10))
+                .containsExactly(new ReservationSummary(ids.get(5), "Al%"));
+        assertThat(dao.selectSummariesByNamePrefix("Al", 2)).hasSize(2);
+    }
+
+    @Test
+    void selectSummariesByNameContaining() {
+        insertNames("Alice Smith", "Bob Smithers", "Carol Smyth", "50% off", "500 off");
+
+        assertThat(dao.selectSummariesByNameContaining("mit", 10))
+                .extracting(ReservationSummary::name)
+                .containsExactly("Alice Smith", "Bob Smithers");
+        assertThat(dao.selectSummariesByNameContaining("0% ", 10))
+                .extracting(ReservationSummary::name)
+                .containsExactly("50% off");
+    }
+
+    @Test
+    void selectSummariesBySimilarName() {
+        insertNames("Jonathan", "Jonathon", "Johnathan", "Bob");
+
+        assertThat(dao.selectSummariesBySimilarName("Jonathan", 10))
+                .extracting(ReservationSummary::name)
+                .startsWith("Jonathan")
+                .contains("Jonathon", "Johnathan")
+                .doesNotContain("Bob");
+    }
+
     @Test
     void selectById_NotFound() {
         // Try to select an ID that doesn't exist
@@ -140,6 +316,58 @@ class ReservationDaoTest {
         assertThat(inserted.get().name).isNull();
     }
 
+    @Test
+    void upsert_Insert() {
+        var entity = new Reservation();
+        entity.name = "foo";
+
+        var saved = dao.upsert(entity).orElseThrow();
+
+        assertThat(saved.getId()).isNotNull();
+        assertThat(dao.selectById(saved.getId())).get().extracting("name").isEqualTo("foo");
+    }
+
+    @Test
+    void upsert_Update() {
+        var entity = new Reservation();
+        entity.name = "original";
+        dao.insert(entity);
+
+        entity.name = "updated";
+        var saved = dao.upsert(entity).orElseThrow();
+
+        assertThat(saved.getId()).isEqualTo(entity.getId());
+        assertThat(saved.getVersion()).isEqualTo(2);
+        assertThat(dao.selectAll()).extracting("id", "name").containsExactly(tuple(entity.getId(), "updated"));
+    }
+
+    @Test
+    void upsert_バージョンが一致しない場合は更新せず空を返す() {
+        var entity = new Reservation();
+        entity.name = "original";
+        dao.insert(entity);
+        var stale = dao.selectById(entity.getId()).orElseThrow();
+        entity.name = "first";
+        dao.update(entity);
+
+        stale.name = "second";
+
+        assertThat(dao.upsert(stale)).isEmpty();
+        assertThat(dao.selectAll()).extracting("id", "name", "version")
+                .containsExactly(tuple(entity.getId(), "first", 2));
+    }
+
+    @Test
+    void upsert_存在しないIDは挿入せず空を返す() {
+        var entity = new Reservation();
+        entity.setId(ReservationId.of(12345L));
+        entity.setVersion(1);
+        entity.name = "foo";
+
+        assertThat(dao.upsert(entity)).isEmpty();
+        assertThat(dao.selectAll()).isEmpty();
+    }
+
     @Test
     void update() {
         // First insert a record
@@ -153,6 +381,7 @@ class ReservationDaoTest {
 
         // Verify update was successful
         assertThat(result).isEqualTo(1);
+        assertThat(entity.getVersion()).isEqualTo(2);
 
         var updated = dao.selectById(entity.getId());
         assertThat(updated).isPresent();
@@ -166,10 +395,30 @@ class ReservationDaoTest {
         entity.setId(ReservationId.of(999)); // Non-existent ID
         entity.name = "test";
 
-        int result = dao.update(entity);
+        entity.setVersion(1);
 
-        // Should return 0 (no rows affected)
-        assertThat(result).isEqualTo(0);
+        // Should fail the optimistic lock check (no rows affected)
+        assertThatThrownBy(() -> dao.update(entity)).isInstanceOf(OptimisticLockingFailureException.class);
+    }
+
+    @Test
+    void update_StaleVersion() {
+        var entity = new Reservation();
+        entity.name = "original";
+        dao.insert(entity);
+        assertThat(entity.getVersion()).isEqualTo(1);
+
+        // Another writer updates the same row
+        var other = dao.selectById(entity.getId()).orElseThrow();
+        other.name = "other";
+        dao.update(other);
+        assertThat(other.getVersion()).isEqualTo(2);
+
+        // The stale copy must not overwrite it
+        entity.name = "stale";
+        assertThatThrownBy(() -> dao.update(entity)).isInstanceOf(OptimisticLockingFailureException.class);
+        assertThat(dao.selectById(entity.getId())).get()
+                .extracting("name", "version").containsExactly("other", 2);
     }
 
     @Test
@@ -189,4 +438,70 @@ class ReservationDaoTest {
         assertThat(updated).isPresent();
         assertThat(updated.get().name).isNull();
     }
+
+    @Test
+    void insertAll_AllocatesIdsFromSequenceBlocks() {
+        var entities = IntStream.range(0, 250).mapToObj(i -> {
+            var entity = new Reservation();
+            entity.name = "r" + i;
+            return entity;
+        }).toList();
+        var before = lastSequenceValue();
+
+        dao.insertAll(entities);
+
+        // 250 rows need at most 3 blocks of 100, i.e. at most 3 nextval calls
+        assertThat(lastSequenceValue() - before).isLessThanOrEqualTo(3 * 100);
+        assertThat(entities).extracting(Reservation::getId).doesNotContainNull().doesNotHaveDuplicates();
+        assertThat(JdbcTestUtils.countRowsInTable(jdbcTemplate, "reservation")).isEqualTo(250);
+    }
+
+    @Test
+    void insertAll() {
+        var entity1 = new Reservation();
+        entity1.name = "Alice";
+        var entity2 = new Reservation();
+        entity2.name = "Bob";
+
+        int[] result = dao.insertAll(List.of(entity1, entity2));
+
+        assertThat(result).containsExactly(1, 1);
+        assertThat(entity1.getId()).isNotNull();
+        assertThat(entity2.getId()).isNotNull();
+        assertThat(dao.selectAll())
+                .extracting("id", "name")
+                .containsExactly(tuple(entity1.getId(), "Alice"), tuple(entity2.getId(), "Bob"));
+    }
+
+    @Test
+    void updateAll() {
+        var entity1 = new Reservation();
+        entity1.name = "Alice";
+        var entity2 = new Reservation();
+        entity2.name = "Bob";
+        dao.insertAll(List.of(entity1, entity2));
+
+        entity1.name = "Carol";
+        entity2.name = "Dave";
+        int[] result = dao.updateAll(List.of(entity1, entity2));
+
+        assertThat(result).containsExactly(1, 1);
+        assertThat(dao.selectAll())
+                .extracting("id", "name")
+                .containsExactly(tuple(entity1.getId(), "Carol"), tuple(entity2.getId(), "Dave"));
+    }
+
+    private long lastSequenceValue() {
+        return jdbcTemplate.queryForObject("SELECT last_value FROM reservation_id_seq", Long.class);
+    }
+
+    private List<ReservationId> insertNames(String... names) {
+        var entities = Arrays.stream(names).map(name -> {
+            var entity = new Reservation();
+            entity.name = name;
+            return entity;
+        }).toList();
+        dao.insertAll(entities);
+        return entities.stream().map(Reservation::getId).toList();
+    }
 }
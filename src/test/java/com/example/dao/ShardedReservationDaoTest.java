@@ -0,0 +1,247 @@
+package com.example.dao;
+
+import com.example.TestConfig;
+import com.example.entity.Reservation;
+import com.example.entity.ReservationId;
+import com.example.service.ReservationPartitionMaintainer;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.support.PersistenceExceptionTranslator;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 1つのコンテナに3つのデータベースを作成してシャードとし、
+ * 振り分け先とマージした結果の順序を確認します。
+ */
+@SpringBootTest(classes = TestConfig.class)
+@Testcontainers
+class ShardedReservationDaoTest {
+
+    @Container
+    static final PostgreSQLContainer<?> SHARDS = new PostgreSQLContainer<>("postgres:16-alpine")
+            .withDatabaseName("example")
+            .withUsername("example")
+            .withPassword("example");
+
+    private static final int SHARD_COUNT = 3;
+
+    @Autowired
+    private ShardedReservationDao dao;
+
+    @Autowired
+    private PersistenceExceptionTranslator exceptionTranslator;
+
+    @DynamicPropertySource
+    static void shardProperties(DynamicPropertyRegistry registry) {
+        registry.add("reservation.shards.urls", () -> String.join(",",
+                IntStream.range(0, SHARD_COUNT).mapToObj(ShardedReservationDaoTest::shardUrl).toList()));
+        registry.add("reservation.shards.username", SHARDS::getUsername);
+        registry.add("reservation.shards.password", SHARDS::getPassword);
+    }
+
+    @BeforeAll
+    static void createShards() {
+        var admin = new JdbcTemplate(dataSource(SHARDS.getJdbcUrl()));
+        for (var i = 0; i < SHARD_COUNT; i++) {
+            // マージの順序とSQLの順序を一致させるため照合順序 "C" で作成する
+            admin.execute("CREATE DATABASE shard" + i + " TEMPLATE template0 LC_COLLATE 'C' LC_CTYPE 'C'");
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        for (var i = 0; i < SHARD_COUNT; i++) {
+            new ResourceDatabasePopulator(new FileSystemResource("schema/create_table.sql"),
+                    new FileSystemResource("schema/create_partition_functions.sql")).execute(shard(i));
+        }
+    }
+
+    @Test
+    void 採番したIDのシャードに挿入しIDで検索できる() {
+        var inserted = new ArrayList<Reservation>();
+        for (var i = 0; i < SHARD_COUNT * 2; i++) {
+            inserted.add(insert("r" + i));
+        }
+
+        assertThat(inserted).extracting(Reservation::getId).doesNotHaveDuplicates();
+        for (var reservation : inserted) {
+            var shard = dao.shardOf(reservation.getId());
+            assertThat(names(shard)).contains(reservation.name);
+            assertThat(dao.selectById(reservation.getId())).get()
+                    .extracting(found -> found.name).isEqualTo(reservation.name);
+        }
+        // ラウンドロビンで均等に分散する
+        for (var i = 0; i < SHARD_COUNT; i++) {
+            assertThat(names(i)).hasSize(2);
+        }
+    }
+
+    @Test
+    void 指定したIDはIDのハッシュのシャードに挿入する() {
+        var reservation = new Reservation();
+        reservation.setId(ReservationId.of(1_000_001));
+        reservation.name = "explicit";
+
+        dao.insert(reservation);
+
+        assertThat(dao.shardOf(reservation.getId())).isEqualTo(1_000_001 % SHARD_COUNT);
+        assertThat(names(1_000_001 % SHARD_COUNT)).containsExactly("explicit");
+        assertThat(dao.selectById(ReservationId.of(1_000_001))).isPresent();
+    }
+
+    @Test
+    void 変換後のIDがintの範囲を超えても採番したIDで挿入する() {
+        for (var i = 0; i < SHARD_COUNT; i++) {
+            new JdbcTemplate(shard(i)).queryForObject("SELECT setval('reservation_id_seq', 1000000000)", Long.class);
+        }
+
+        var fresh = freshDao();
+        var inserted = new ArrayList<Reservation>();
+        for (var i = 0; i < SHARD_COUNT; i++) {
+            inserted.add(insert(fresh, "large" + i));
+        }
+
+        for (var reservation : inserted) {
+            assertThat(reservation.getId().value()).isGreaterThan(Integer.MAX_VALUE);
+            assertThat(reservation.getVersion()).isEqualTo(1);
+            assertThat(dao.selectById(reservation.getId())).get()
+                    .extracting(found -> found.name).isEqualTo(reservation.name);
+        }
+    }
+
+    @Test
+    void シャードのパーティションは変換後のIDを基準に作成し行をデフォルトパーティションに残さない() {
+        var fresh = freshDao();
+        for (var i = 0; i < SHARD_COUNT * 2; i++) {
+            insert(fresh, "p" + i);
+        }
+
+        for (var i = 0; i < SHARD_COUNT; i++) {
+            try (var maintainer = ReservationPartitionMaintainer.forShard(dao.shard(i), i, SHARD_COUNT,
+                    100, 1, 100, false, Duration.ofHours(1))) {
+                maintainer.createPartitions();
+            }
+            var jdbcTemplate = new JdbcTemplate(shard(i));
+            // 払い出したブロック（シーケンスの値1〜100）の変換後のID（最大302）より1範囲先まで
+            assertThat(jdbcTemplate.queryForList(
+                    "SELECT name FROM reservation_partition_bounds() ORDER BY upper", String.class))
+                    .last().isEqualTo("reservation_p400");
+            assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM reservation_default", Integer.class))
+                    .isZero();
+            assertThat(names(i)).hasSize(2);
+        }
+    }
+
+    @Test
+    void 更新はIDのシャードで楽観的排他制御を行う() {
+        var reservation = insert("before");
+        var stale = dao.selectById(reservation.getId()).orElseThrow();
+
+        reservation.name = "after";
+        assertThat(dao.update(reservation)).isEqualTo(1);
+
+        assertThat(names(dao.shardOf(reservation.getId()))).containsExactly("after");
+        stale.name = "stale";
+        assertThatThrownBy(() -> dao.update(stale)).isInstanceOf(OptimisticLockingFailureException.class);
+    }
+
+    @Test
+    void 全件をシャードから並列に読み込み名前順にマージする() {
+        for (var name : List.of("d", "b", "f", "a", "e", "c")) {
+            insert(name);
+        }
+        insert(null);
+
+        assertThat(dao.selectAll()).extracting(reservation -> reservation.name)
+                .containsExactly("a", "b", "c", "d", "e", "f", null);
+    }
+
+    @Test
+    void ページングはすべてのシャードの結果をマージして先頭から読み進める() {
+        for (var i = 0; i < 10; i++) {
+            insert("n" + (9 - i));
+        }
+        insert(null);
+        insert(null);
+
+        var named = new ArrayList<Reservation>();
+        List<Reservation> page = dao.selectPageByName(null, null, 3);
+        while (!page.isEmpty()) {
+            named.addAll(page);
+            var last = page.getLast();
+            page = dao.selectPageByName(last.name, last.getId(), 3);
+        }
+        var unnamed = new ArrayList<Reservation>(dao.selectPageWithoutName(null, 1));
+        unnamed.addAll(dao.selectPageWithoutName(unnamed.getLast().getId(), 1));
+
+        assertThat(named).extracting(reservation -> reservation.name)
+                .containsExactly("n0", "n1", "n2", "n3", "n4", "n5", "n6", "n7", "n8", "n9");
+        assertThat(unnamed).extracting(reservation -> reservation.getId().value())
+                .hasSize(2).isSorted();
+    }
+
+    @Test
+    void ソート済みのリストを打ち切り件数までマージする() {
+        var merged = ShardedReservationDao.merge(
+                List.of(List.of(1, 4, 7), List.of(), List.of(2, 3, 8, 9), List.of(5)),
+                Comparator.<Integer>naturalOrder(), 6);
+
+        assertThat(merged).containsExactly(1, 2, 3, 4, 5, 7);
+    }
+
+    private Reservation insert(String name) {
+        return insert(dao, name);
+    }
+
+    private static Reservation insert(ShardedReservationDao dao, String name) {
+        var reservation = new Reservation();
+        reservation.name = name;
+        dao.insert(reservation);
+        return reservation;
+    }
+
+    /**
+     * 同じシャードのDAOで、払い出し済みのIDのブロックを持たないインスタンスを作成します（スキーマを作り直したシーケンスから採番する）。
+     */
+    private ShardedReservationDao freshDao() {
+        return new ShardedReservationDao(IntStream.range(0, SHARD_COUNT).mapToObj(dao::shard).toList(),
+                exceptionTranslator, List.of());
+    }
+
+    private static List<String> names(int shard) {
+        return new JdbcTemplate(shard(shard)).queryForList("SELECT name FROM reservation", String.class);
+    }
+
+    private static DriverManagerDataSource shard(int shard) {
+        return dataSource(shardUrl(shard));
+    }
+
+    private static DriverManagerDataSource dataSource(String url) {
+        return new DriverManagerDataSource(url, SHARDS.getUsername(), SHARDS.getPassword());
+    }
+
+    private static String shardUrl(int shard) {
+        return SHARDS.getJdbcUrl().replace("/example", "/shard" + shard);
+    }
+}
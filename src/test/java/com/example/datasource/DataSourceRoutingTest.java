@@ -0,0 +1,106 @@
+package com.example.datasource;
+
+import com.example.TestConfig;
+import com.example.entity.Reservation;
+import com.example.entity.ReservationId;
+import com.example.service.ReservationService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.jdbc.JdbcTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * プライマリとは別のデータベースをレプリカとして起動し、
+ * 同じIDに異なる値を持たせて読み込み先を確認します。
+ */
+@SpringBootTest(classes = TestConfig.class, properties = {
+        "reservation.cache.enabled=false",
+        "reservation.datasource.read-your-writes=0s"})
+@Testcontainers
+class DataSourceRoutingTest {
+
+    @Container
+    static final PostgreSQLContainer<?> REPLICA = new PostgreSQLContainer<>("postgres:16-alpine")
+            .withDatabaseName("example")
+            .withUsername("example")
+            .withPassword("example");
+
+    private static final ReservationId ID = ReservationId.of(1_000_000);
+
+    @Autowired
+    private ReservationService service;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @DynamicPropertySource
+    static void replicaProperties(DynamicPropertyRegistry registry) {
+        registry.add("reservation.datasource.replica.urls", REPLICA::getJdbcUrl);
+        registry.add("reservation.datasource.replica.username", REPLICA::getUsername);
+        registry.add("reservation.datasource.replica.password", REPLICA::getPassword);
+    }
+
+    @BeforeAll
+    static void setUpReplica() {
+        var replica = replica();
+        new ResourceDatabasePopulator(new FileSystemResource("schema/create_table.sql")).execute(replica);
+        new JdbcTemplate(replica).update("INSERT INTO reservation (id, name) VALUES (1000000, 'replica')");
+    }
+
+    @BeforeEach
+    void setUp() {
+        JdbcTestUtils.deleteFromTables(jdbcTemplate, "reservation");
+        jdbcTemplate.update("INSERT INTO reservation (id, name) VALUES (1000000, 'primary')");
+    }
+
+    @AfterEach
+    void tearDown() {
+        JdbcTestUtils.deleteFromTables(jdbcTemplate, "reservation");
+    }
+
+    @Test
+    void 読み取り専用トランザクションはレプリカから読み込む() {
+        var actual = service.findById(ID).orElseThrow();
+
+        assertThat(actual.name).isEqualTo("replica");
+    }
+
+    @Test
+    void 書き込み可能なトランザクション内の読み込みはプライマリから読み込む() {
+        var actual = transactionTemplate.execute(status -> service.findById(ID).orElseThrow());
+
+        assertThat(actual.name).isEqualTo("primary");
+    }
+
+    @Test
+    void 書き込みはプライマリに反映される() {
+        var entity = new Reservation();
+        entity.name = "foo";
+        service.save(entity);
+
+        assertThat(JdbcTestUtils.countRowsInTable(jdbcTemplate, "reservation")).isEqualTo(2);
+        assertThat(JdbcTestUtils.countRowsInTable(new JdbcTemplate(replica()), "reservation")).isEqualTo(1);
+    }
+
+    private static DriverManagerDataSource replica() {
+        return new DriverManagerDataSource(REPLICA.getJdbcUrl(), REPLICA.getUsername(), REPLICA.getPassword());
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.datasource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.TransactionExecution;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ReplicaRoutingDataSourceTest {
+
+    @Test
+    void レプリカにラウンドロビンで振り分けられる() {
+        var dataSource = newDataSource(Duration.ZERO);
+
+        assertThat(List.of(dataSource.determineCurrentLookupKey(), dataSource.determineCurrentLookupKey(),
+                dataSource.determineCurrentLookupKey())).containsExactly(0, 1, 0);
+    }
+
+    @Test
+    void 書き込みのコミット直後はプライマリに振り分けられる() {
+        var dataSource = newDataSource(Duration.ofHours(1));
+
+        dataSource.afterCommit(execution(false, true), null);
+
+        assertThat(dataSource.determineCurrentLookupKey()).isEqualTo(ReplicaRoutingDataSource.PRIMARY);
+    }
+
+    @Test
+    void 別スレッドのコミットは影響しない() throws InterruptedException {
+        var dataSource = newDataSource(Duration.ofHours(1));
+
+        var thread = Thread.ofVirtual().start(() -> dataSource.afterCommit(execution(false, true), null));
+        thread.join();
+
+        assertThat(dataSource.determineCurrentLookupKey()).isEqualTo(0);
+    }
+
+    @Test
+    void 読み取り専用やネストしたトランザクションのコミットは影響しない() {
+        var dataSource = newDataSource(Duration.ofHours(1));
+
+        dataSource.afterCommit(execution(true, true), null);
+        dataSource.afterCommit(execution(false, false), null);
+        dataSource.afterCommit(execution(false, true), new IllegalStateException());
+
+        assertThat(dataSource.isWithinReadYourWritesWindow()).isFalse();
+    }
+
+    @Test
+    void 期間が0の場合はコミット直後もレプリカに振り分けられる() {
+        var dataSource = newDataSource(Duration.ZERO);
+
+        dataSource.afterCommit(execution(false, true), null);
+
+        assertThat(dataSource.determineCurrentLookupKey()).isEqualTo(0);
+    }
+
+    @Test
+    void レプリカが空の場合は例外() {
+        assertThatThrownBy(() -> new ReplicaRoutingDataSource(new DriverManagerDataSource(), List.of(),
+                Duration.ZERO)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static ReplicaRoutingDataSource newDataSource(Duration readYourWrites) {
+        return new ReplicaRoutingDataSource(new DriverManagerDataSource(),
+                List.of(new DriverManagerDataSource(), new DriverManagerDataSource()), readYourWrites);
+    }
+
+    private static TransactionExecution execution(boolean readOnly, boolean newTransaction) {
+        return new TransactionExecution() {
+            @Override
+            public boolean isNewTransaction() {
+                return newTransaction;
+            }
+
+            @Override
+            public boolean isReadOnly() {
+                return readOnly;
+            }
+        };
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.doma.jdbc;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.seasar.doma.jdbc.SqlKind;
+import org.seasar.doma.jdbc.UtilLoggingJdbcLogger;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for MeteredJdbcLogger.
+ */
+class MeteredJdbcLoggerTest {
+
+    private static final String DAO_IMPL = "com.example.dao.ReservationDaoImpl";
+
+    private SimpleMeterRegistry registry;
+    private MeteredJdbcLogger logger;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        logger = new MeteredJdbcLogger(new UtilLoggingJdbcLogger(), registry);
+    }
+
+    @Nested
+    class MethodTimer {
+
+        @Test
+        void 正常終了したDAOメソッドの実行時間が記録される() {
+            logger.logDaoMethodEntering(DAO_IMPL, "selectAll");
+            logger.logDaoMethodExiting(DAO_IMPL, "selectAll", List.of("a", "b"));
+
+            var timer = registry.get("doma.dao.method")
+                    .tags("dao", "ReservationDao", "method", "selectAll", "outcome", "success")
+                    .timer();
+            assertThat(timer.count()).isEqualTo(1);
+        }
+
+        @Test
+        void 例外で終了したDAOメソッドはfailureとして記録される() {
+            logger.logDaoMethodEntering(DAO_IMPL, "insert");
+            logger.logDaoMethodThrowing(DAO_IMPL, "insert", new IllegalStateException());
+
+            var timer = registry.get("doma.dao.method")
+                    .tags("dao", "ReservationDao", "method", "insert", "outcome", "failure")
+                    .timer();
+            assertThat(timer.count()).isEqualTo(1);
+        }
+
+        @Test
+        void 開始の通知がない終了は無視される() {
+            logger.logDaoMethodExiting(DAO_IMPL, "selectAll", List.of());
+
+            assertThat(registry.find("doma.dao.method").timer()).isNull();
+        }
+    }
+
+    @Nested
+    class Rows {
+
+        @Test
+        void SELECTの行数() {
+            assertThat(MeteredJdbcLogger.rows(SqlKind.SELECT, List.of(1, 2, 3))).isEqualTo(3);
+            assertThat(MeteredJdbcLogger.rows(SqlKind.SELECT, Optional.empty())).isZero();
+            assertThat(MeteredJdbcLogger.rows(SqlKind.SELECT, new Object())).isEqualTo(1);
+            assertThat(MeteredJdbcLogger.rows(SqlKind.SELECT, 10)).isEqualTo(-1);
+        }
+
+        @Test
+        void 更新系の行数() {
+            assertThat(MeteredJdbcLogger.rows(SqlKind.INSERT, 1)).isEqualTo(1);
+            assertThat(MeteredJdbcLogger.rows(SqlKind.BATCH_UPDATE, new int[]{1, 1, 0})).isEqualTo(2);
+            assertThat(MeteredJdbcLogger.rows(SqlKind.UPDATE, null)).isEqualTo(-1);
+        }
+    }
+
+    @Test
+    void DAO名はImplを除いた単純名() {
+        assertThat(MeteredJdbcLogger.daoName(DAO_IMPL)).isEqualTo("ReservationDao");
+        assertThat(MeteredJdbcLogger.daoName("Other")).isEqualTo("Other");
+    }
+}
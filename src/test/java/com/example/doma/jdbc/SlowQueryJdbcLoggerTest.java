@@ -0,0 +1,97 @@
+package com.example.doma.jdbc;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.seasar.doma.jdbc.PreparedSql;
+import org.seasar.doma.jdbc.SqlKind;
+import org.seasar.doma.jdbc.SqlLogType;
+import org.seasar.doma.jdbc.UtilLoggingJdbcLogger;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for SlowQueryJdbcLogger.
+ */
+class SlowQueryJdbcLoggerTest {
+
+    private static final String DAO_IMPL = "com.example.dao.ReservationDaoImpl";
+    private static final PreparedSql SQL = new PreparedSql(SqlKind.SELECT,
+            "select * from reservation where id = ?", "select * from reservation where id = 1",
+            "META-INF/com/example/dao/ReservationDao/selectById.sql", List.of(), SqlLogType.FORMATTED);
+
+    private SlowQueryLog log;
+
+    @BeforeEach
+    void setUp() {
+        log = new SlowQueryLog(16);
+    }
+
+    @Test
+    void しきい値を超えたSQLが記録される() {
+        var logger = new SlowQueryJdbcLogger(new UtilLoggingJdbcLogger(), log, Duration.ZERO, null);
+
+        logger.logDaoMethodEntering(DAO_IMPL, "selectById");
+        logger.logSql(DAO_IMPL, "selectById", SQL);
+        logger.logDaoMethodExiting(DAO_IMPL, "selectById", null);
+
+        assertThat(log.snapshot()).singleElement().satisfies(query -> {
+            assertThat(query.dao()).isEqualTo("ReservationDao");
+            assertThat(query.method()).isEqualTo("selectById");
+            assertThat(query.kind()).isEqualTo(SqlKind.SELECT);
+            assertThat(query.sqlFilePath()).endsWith("selectById.sql");
+            assertThat(query.sql()).isEqualTo("select * from reservation where id = 1");
+            assertThat(query.failed()).isFalse();
+            assertThat(query.plan()).isNull();
+        });
+    }
+
+    @Test
+    void 例外で終了したSQLはfailedとして記録される() {
+        var logger = new SlowQueryJdbcLogger(new UtilLoggingJdbcLogger(), log, Duration.ZERO, null);
+
+        logger.logDaoMethodEntering(DAO_IMPL, "selectById");
+        logger.logSql(DAO_IMPL, "selectById", SQL);
+        logger.logDaoMethodThrowing(DAO_IMPL, "selectById", new IllegalStateException());
+
+        assertThat(log.snapshot()).singleElement().extracting(SlowQuery::failed).isEqualTo(true);
+    }
+
+    @Test
+    void しきい値以下のSQLは記録されない() {
+        var logger = new SlowQueryJdbcLogger(new UtilLoggingJdbcLogger(), log, Duration.ofMinutes(1), null);
+
+        logger.logDaoMethodEntering(DAO_IMPL, "selectById");
+        logger.logSql(DAO_IMPL, "selectById", SQL);
+        logger.logDaoMethodExiting(DAO_IMPL, "selectById", null);
+
+        assertThat(log.snapshot()).isEmpty();
+    }
+
+    @Test
+    void SQLを発行しなかったDAOメソッドは記録されない() {
+        var logger = new SlowQueryJdbcLogger(new UtilLoggingJdbcLogger(), log, Duration.ZERO, null);
+
+        logger.logDaoMethodEntering(DAO_IMPL, "selectById");
+        logger.logDaoMethodExiting(DAO_IMPL, "selectById", null);
+        logger.logDaoMethodExiting(DAO_IMPL, "selectById", null);
+
+        assertThat(log.snapshot()).isEmpty();
+    }
+
+    @Test
+    void 入れ子のDAOメソッドはそれぞれ記録される() {
+        var logger = new SlowQueryJdbcLogger(new UtilLoggingJdbcLogger(), log, Duration.ZERO, null);
+
+        logger.logDaoMethodEntering(DAO_IMPL, "outer");
+        logger.logDaoMethodEntering(DAO_IMPL, "selectById");
+        logger.logSql(DAO_IMPL, "selectById", SQL);
+        logger.logDaoMethodExiting(DAO_IMPL, "selectById", null);
+        logger.logSql(DAO_IMPL, "outer", SQL);
+        logger.logDaoMethodExiting(DAO_IMPL, "outer", null);
+
+        assertThat(log.snapshot()).extracting(SlowQuery::method).containsExactly("outer", "selectById");
+    }
+}
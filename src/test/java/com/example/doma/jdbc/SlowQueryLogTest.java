@@ -0,0 +1,68 @@
+package com.example.doma.jdbc;
+
+import org.junit.jupiter.api.Test;
+import org.seasar.doma.jdbc.SqlKind;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for SlowQueryLog.
+ */
+class SlowQueryLogTest {
+
+    @Test
+    void 新しい順に返される() {
+        var log = new SlowQueryLog(4);
+        add(log, "a");
+        add(log, "b");
+
+        assertThat(log.snapshot()).extracting(SlowQuery::method).containsExactly("b", "a");
+    }
+
+    @Test
+    void 容量を超えると古い記録から上書きされる() {
+        var log = new SlowQueryLog(2);
+        add(log, "a");
+        add(log, "b");
+        add(log, "c");
+
+        assertThat(log.snapshot()).extracting(SlowQuery::method).containsExactly("c", "b");
+    }
+
+    @Test
+    void 上書きされた記録は置き換えられない() {
+        var log = new SlowQueryLog(1);
+        var first = add(log, "a");
+        var second = add(log, "b");
+
+        assertThat(log.replace(first, first.withPlan("[]"))).isFalse();
+        assertThat(log.replace(second, second.withPlan("[]"))).isTrue();
+        assertThat(log.snapshot()).extracting(SlowQuery::plan).containsExactly("[]");
+    }
+
+    @Test
+    void clearですべての記録が削除される() {
+        var log = new SlowQueryLog(2);
+        add(log, "a");
+
+        log.clear();
+
+        assertThat(log.snapshot()).isEmpty();
+    }
+
+    @Test
+    void 容量は1以上() {
+        assertThatThrownBy(() -> new SlowQueryLog(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static SlowQuery add(SlowQueryLog log, String method) {
+        var query = new SlowQuery(log.nextSequence(), Instant.now(), "ReservationDao", method, SqlKind.SELECT,
+                null, "select 1", Duration.ofSeconds(1), false, null);
+        log.add(query);
+        return query;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.doma.jdbc;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.seasar.doma.jdbc.entity.EntityType;
+import org.seasar.doma.jdbc.query.Query;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for UnknownColumnIgnoreHandler.
+ */
+class UnknownColumnIgnoreHandlerTest {
+
+    private SimpleMeterRegistry registry;
+    private UnknownColumnIgnoreHandler handler;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        handler = new UnknownColumnIgnoreHandler(registry);
+    }
+
+    @Test
+    void 無視したカラムがクエリとエンティティ型ごとに数えられる() {
+        var query = query("selectById");
+        var entityType = entityType("Reservation");
+
+        handler.handle(query, entityType, "created_at", () -> "");
+        handler.handle(query, entityType, "created_at", () -> "");
+        handler.handle(query, entityType, "updated_at", () -> "");
+        handler.handle(query("selectAll"), entityType, "created_at", () -> "");
+
+        assertThat(count("selectById", "created_at")).isEqualTo(2.0);
+        assertThat(count("selectById", "updated_at")).isEqualTo(1.0);
+        assertThat(count("selectAll", "created_at")).isEqualTo(1.0);
+    }
+
+    private double count(String method, String column) {
+        return registry.get(UnknownColumnIgnoreHandler.METER)
+                .tags("dao", "ReservationDao", "method", method, "entity", "Reservation", "column", column)
+                .counter()
+                .count();
+    }
+
+    private static Query query(String method) {
+        var query = mock(Query.class);
+        when(query.getClassName()).thenReturn("com.example.dao.ReservationDaoImpl");
+        when(query.getMethodName()).thenReturn(method);
+        return query;
+    }
+
+    private static EntityType<?> entityType(String name) {
+        EntityType<?> entityType = mock(EntityType.class);
+        when(entityType.getName()).thenReturn(name);
+        return entityType;
+    }
+}
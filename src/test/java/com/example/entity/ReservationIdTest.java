@@ -16,7 +16,7 @@ class ReservationIdTest {
 
         @Test
         void 値を指定してReservationIdを作成できる() {
-            var id = new ReservationId(123);
+            var id = new ReservationId(123L);
             assertThat(id.value()).isEqualTo(123);
         }
 
@@ -51,6 +51,87 @@ class ReservationIdTest {
             assertThat(id).isNotNull();
             assertThat(id.value()).isEqualTo(0);
         }
+
+        @Test
+        void intの範囲を超える値からReservationIdを作成できる() {
+            var id = ReservationId.of(3_000_000_000L);
+            assertThat(id.value()).isEqualTo(3_000_000_000L);
+        }
+    }
+
+    @Nested
+    class OfLong {
+
+        @Test
+        void プリミティブの値からReservationIdを作成できる() {
+            var id = ReservationId.of(1_000);
+            assertThat(id).isEqualTo(new ReservationId(1_000L));
+        }
+
+        @Test
+        void キャッシュがなければ毎回新しいインスタンスを作成する() {
+            assertThat(ReservationId.of(1_000)).isNotSameAs(ReservationId.of(1_000));
+        }
+    }
+
+    @Nested
+    class Cache {
+
+        @Test
+        void 範囲内の値は同じインスタンスを返す() {
+            try (var cache = ReservationIdCache.install(1_000, 10)) {
+                assertThat(cache.low()).isEqualTo(1_000);
+                assertThat(cache.size()).isEqualTo(10);
+                assertThat(ReservationId.of(1_000)).isSameAs(ReservationId.of(Long.valueOf(1_000)));
+                assertThat(ReservationId.of(1_009)).isSameAs(ReservationId.of(1_009))
+                        .isEqualTo(new ReservationId(1_009L));
+            }
+        }
+
+        @Test
+        void 範囲外の値は新しいインスタンスを作成する() {
+            try (var ignored = ReservationIdCache.install(1_000, 10)) {
+                assertThat(ReservationId.of(999)).isNotSameAs(ReservationId.of(999));
+                assertThat(ReservationId.of(1_010)).isNotSameAs(ReservationId.of(1_010));
+                assertThat(ReservationId.of(Long.MAX_VALUE)).isNotSameAs(ReservationId.of(Long.MAX_VALUE));
+                assertThat(ReservationId.of(Long.MIN_VALUE)).isEqualTo(new ReservationId(Long.MIN_VALUE));
+            }
+        }
+
+        @Test
+        void クローズするとキャッシュを使わない() {
+            var cache = ReservationIdCache.install(1_000, 10);
+            cache.close();
+
+            assertThat(ReservationId.of(1_000)).isNotSameAs(ReservationId.of(1_000));
+        }
+
+        @Test
+        void 置き換えられたキャッシュをクローズしても新しいキャッシュは残る() {
+            var replaced = ReservationIdCache.install(0, 10);
+            try (var ignored = ReservationIdCache.install(1_000, 10)) {
+                replaced.close();
+
+                assertThat(ReservationId.of(1_000)).isSameAs(ReservationId.of(1_000));
+            }
+        }
+
+        @Test
+        void nullはキャッシュがあってもofで例外() {
+            try (var ignored = ReservationIdCache.install(0, 10)) {
+                assertThatThrownBy(() -> ReservationId.of(null))
+                        .isInstanceOf(NullPointerException.class)
+                        .hasMessageContaining("value must not be null");
+            }
+        }
+
+        @Test
+        void 範囲が不正な場合はインストールできない() {
+            assertThatThrownBy(() -> ReservationIdCache.install(0, 0))
+                    .isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> ReservationIdCache.install(Long.MAX_VALUE, 2))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
     }
 
     @Nested
@@ -58,33 +139,33 @@ class ReservationIdTest {
 
         @Test
         void 同じ値のReservationIdは等しい() {
-            var id1 = new ReservationId(123);
-            var id2 = new ReservationId(123);
+            var id1 = new ReservationId(123L);
+            var id2 = new ReservationId(123L);
             assertThat(id1).isEqualTo(id2);
         }
 
         @Test
         void 異なる値のReservationIdは等しくない() {
-            var id1 = new ReservationId(123);
-            var id2 = new ReservationId(456);
+            var id1 = new ReservationId(123L);
+            var id2 = new ReservationId(456L);
             assertThat(id1).isNotEqualTo(id2);
         }
 
         @Test
         void 自分自身と等しい() {
-            var id = new ReservationId(123);
+            var id = new ReservationId(123L);
             assertThat(id).isSameAs(id);
         }
 
         @Test
         void nullとは等しくない() {
-            var id = new ReservationId(123);
+            var id = new ReservationId(123L);
             assertThat(id).isNotEqualTo(null);
         }
 
         @Test
         void 他の型とは等しくない() {
-            var id = new ReservationId(123);
+            var id = new ReservationId(123L);
             assertThat(id).isNotEqualTo("123");
         }
     }
@@ -94,8 +175,8 @@ class ReservationIdTest {
 
         @Test
         void 同じ値のReservationIdは同じハッシュコードを持つ() {
-            var id1 = new ReservationId(123);
-            var id2 = new ReservationId(123);
+            var id1 = new ReservationId(123L);
+            var id2 = new ReservationId(123L);
             assertThat(id1.hashCode()).isEqualTo(id2.hashCode());
         }
     }
@@ -105,7 +186,7 @@ class ReservationIdTest {
 
         @Test
         void toString_正常な値() {
-            var id = new ReservationId(123);
+            var id = new ReservationId(123L);
             assertThat(id.toString()).isEqualTo("ReservationId{value=123}");
         }
     }
@@ -0,0 +1,155 @@
+package com.example.loadtest;
+
+import com.example.concurrency.ConcurrencyLimitExceededException;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 所要時間を固定した操作で、開ループ・閉ループそれぞれのレイテンシの記録とレポートの出力を確認します。
+ */
+class LoadGeneratorTest {
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    @Test
+    void 開ループでは予定の開始時刻から完了までをレイテンシとして記録する() throws InterruptedException {
+        // 10msかかる操作を1件ずつしか実行できないため、200 ops/sの予定に対して開始が遅れていく
+        var generator = new LoadGenerator(Map.of("sleep", random -> sleep(10)), LoadTestMix.parse("sleep:1"),
+                200, 1, Duration.ZERO, Duration.ofMillis(500), Duration.ofMillis(100), 1);
+
+        var result = generator.run(interval -> {
+        });
+
+        var sleep = result.operations().getFirst();
+        assertThat(result.expectedInterval()).isZero();
+        assertThat(sleep.serviceTime().getTotalCount()).isEqualTo(100);
+        assertThat(sleep.responseTime().getTotalCount()).isEqualTo(100);
+        assertThat(sleep.serviceTime().getValueAtPercentile(99) / NANOS_PER_MILLI).isLessThan(100);
+        assertThat(sleep.responseTime().getMaxValue() / NANOS_PER_MILLI).isGreaterThan(300);
+    }
+
+    @Test
+    void 閉ループでは平均レイテンシを間隔としてCoordinatedOmissionを補正する() throws InterruptedException {
+        var calls = new AtomicInteger();
+        // 10回目だけ200ms停止する
+        LoadGenerator.Operation operation = random -> sleep(calls.incrementAndGet() == 10 ? 200 : 2);
+        var generator = new LoadGenerator(Map.of("op", operation), LoadTestMix.parse("op:1"),
+                0, 1, Duration.ZERO, Duration.ofMillis(500), Duration.ofMillis(100), 1);
+
+        var result = generator.run(interval -> {
+        });
+
+        var op = result.operations().getFirst();
+        assertThat(result.expectedInterval()).isPositive();
+        assertThat(op.responseTime().getTotalCount()).isGreaterThan(op.serviceTime().getTotalCount());
+        assertThat(op.responseTime().getValueAtPercentile(90))
+                .isGreaterThan(op.serviceTime().getValueAtPercentile(90));
+        assertThat(op.throughput(result.duration())).isPositive();
+    }
+
+    @Test
+    void 失敗した操作は拒否とエラーに分けて数えレイテンシを記録しない() throws InterruptedException {
+        var intervals = new ArrayList<Histogram>();
+        var generator = new LoadGenerator(Map.of(
+                "ok", random -> sleep(1),
+                "fail", random -> {
+                    throw new IllegalStateException("failure");
+                },
+                "reject", random -> {
+                    throw new ConcurrencyLimitExceededException("read", 1);
+                }), LoadTestMix.parse("ok:1,fail:1,reject:1"),
+                0, 2, Duration.ofMillis(50), Duration.ofMillis(200), Duration.ofMillis(50), 1);
+
+        var result = generator.run(intervals::add);
+
+        assertThat(result.operations()).extracting(LoadGenerator.LoadTestResult.OperationResult::operation)
+                .containsExactly("ok", "fail", "reject");
+        var ok = result.operations().get(0);
+        var fail = result.operations().get(1);
+        var reject = result.operations().get(2);
+        assertThat(ok.serviceTime().getTotalCount()).isPositive();
+        assertThat(ok.errors() + ok.rejected()).isZero();
+        assertThat(fail.errors()).isPositive();
+        assertThat(fail.serviceTime().getTotalCount()).isZero();
+        assertThat(reject.rejected()).isPositive();
+        assertThat(reject.errors()).isZero();
+        assertThat(intervals).extracting(Histogram::getTag).contains("ok", "fail", "reject");
+        assertThat(intervals.stream().filter(interval -> "ok".equals(interval.getTag()))
+                .mapToLong(Histogram::getTotalCount).sum()).isEqualTo(ok.serviceTime().getTotalCount());
+    }
+
+    @Test
+    void 同じ乱数の種では操作に同じ乱数の列を渡す() throws InterruptedException {
+        var first = drawnValues(7);
+        var second = drawnValues(7);
+        var other = drawnValues(8);
+
+        var common = Math.min(first.size(), second.size());
+        assertThat(common).isPositive();
+        assertThat(first.subList(0, common)).isEqualTo(second.subList(0, common));
+        assertThat(other).isNotEmpty();
+        assertThat(other.getFirst()).isNotEqualTo(first.getFirst());
+    }
+
+    @Test
+    void 比率に未知の操作が含まれる場合は構築できない() {
+        assertThatThrownBy(() -> new LoadGenerator(Map.of("op", random -> {
+        }), LoadTestMix.parse("op:1,unknown:1"), 0, 1, Duration.ZERO, Duration.ofSeconds(1),
+                Duration.ofSeconds(1), 1))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("unknown");
+    }
+
+    @Test
+    void 結果をサマリーとパーセンタイル分布と区間のログに出力する(@TempDir Path directory)
+            throws IOException, InterruptedException {
+        var generator = new LoadGenerator(Map.of("findById", random -> sleep(1), "create", random -> sleep(2)),
+                LoadTestMix.parse("findById:3,create:1"), 100, 4, Duration.ZERO, Duration.ofMillis(300),
+                Duration.ofMillis(100), 1);
+
+        Path summary;
+        try (var report = new LoadTestReport(directory.resolve("out"))) {
+            summary = report.write(generator.run(report::interval));
+        }
+
+        assertThat(Files.readString(summary))
+                .contains("open-loop, 100.0 ops/s", "findById:3,create:1", "p99(ms)")
+                .containsPattern("(?m)^findById +\\d+ +0 +0 ")
+                .containsPattern("(?m)^create +\\d+ +0 +0 ");
+        assertThat(Files.readString(directory.resolve("out/findById.hgrm"))).contains("#[Mean");
+        assertThat(Files.readString(directory.resolve("out/create.hgrm"))).contains("#[Mean");
+        assertThat(Files.readString(directory.resolve("out/" + LoadTestReport.HISTOGRAM_LOG_FILE)))
+                .contains("#[StartTime:", "Tag=findById", "Tag=create");
+    }
+
+    private static List<Long> drawnValues(long randomSeed) throws InterruptedException {
+        var values = new CopyOnWriteArrayList<Long>();
+        var generator = new LoadGenerator(Map.of("op", random -> {
+            values.add(random.nextLong());
+            sleep(1);
+        }), LoadTestMix.parse("op:1"), 0, 1, Duration.ZERO, Duration.ofMillis(100), Duration.ofMillis(50),
+                randomSeed);
+        generator.run(interval -> {
+        });
+        return values;
+    }
+
+    private static void sleep(long millis) throws InterruptedException {
+        TimeUnit.MILLISECONDS.sleep(millis);
+    }
+}
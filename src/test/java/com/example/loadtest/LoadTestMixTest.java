@@ -0,0 +1,47 @@
+package com.example.loadtest;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LoadTestMixTest {
+
+    @Test
+    void 操作名と重みを解析する() {
+        var mix = LoadTestMix.parse(" findById:70, create:10 ,save:15,selectAll:5,");
+
+        assertThat(mix.operations()).containsExactly("findById", "create", "save", "selectAll");
+        assertThat(mix.contains("save")).isTrue();
+        assertThat(mix.contains("delete")).isFalse();
+        assertThat(mix).hasToString("findById:70,create:10,save:15,selectAll:5");
+    }
+
+    @Test
+    void 重みに比例した確率で操作を選ぶ() {
+        var mix = LoadTestMix.parse("a:3,b:1");
+        var random = new SplittableRandom(1);
+        var counts = new HashMap<String, Integer>();
+
+        for (var i = 0; i < 40_000; i++) {
+            counts.merge(mix.pick(random), 1, Integer::sum);
+        }
+
+        assertThat(counts.get("a")).isBetween(29_000, 31_000);
+        assertThat(counts.get("b")).isBetween(9_000, 11_000);
+    }
+
+    @Test
+    void 形式が不正な場合は解析できない() {
+        assertThatThrownBy(() -> LoadTestMix.parse("")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> LoadTestMix.parse("findById")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> LoadTestMix.parse("findById:x")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> LoadTestMix.parse("findById:0")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> LoadTestMix.parse("save:1,save:2"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("duplicate");
+    }
+}
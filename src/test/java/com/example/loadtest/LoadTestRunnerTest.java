@@ -0,0 +1,61 @@
+package com.example.loadtest;
+
+import com.example.TestConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.jdbc.JdbcTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@code loadtest}プロファイルで起動し、コンテキストの起動時に実行された負荷試験の出力を確認します。
+ */
+@SpringBootTest(classes = TestConfig.class, properties = {
+        "reservation.loadtest.warmup=0s",
+        "reservation.loadtest.duration=1s",
+        "reservation.loadtest.report-interval=500ms",
+        "reservation.loadtest.concurrency=4",
+        "reservation.loadtest.seed-rows=50"})
+@ActiveProfiles("loadtest")
+class LoadTestRunnerTest {
+
+    private static Path outputDirectory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void outputDirectory(DynamicPropertyRegistry registry) throws IOException {
+        outputDirectory = Files.createTempDirectory("loadtest");
+        registry.add("reservation.loadtest.output-dir", outputDirectory::toString);
+    }
+
+    @AfterEach
+    void tearDown() {
+        JdbcTestUtils.deleteFromTables(jdbcTemplate, "reservation");
+    }
+
+    @Test
+    void 起動時に混合負荷を実行してサマリーとヒストグラムを出力する() throws IOException {
+        var summary = Files.readString(outputDirectory.resolve(LoadTestReport.SUMMARY_FILE));
+
+        assertThat(summary).contains("closed-loop, 4 workers", "findById:70,create:10,save:19,selectAll:1");
+        for (var operation : new String[]{"findById", "create", "save"}) {
+            assertThat(summary).containsPattern("(?m)^" + operation + " +[1-9]\\d* ");
+            assertThat(outputDirectory.resolve(operation + LoadTestReport.PERCENTILES_SUFFIX)).isNotEmptyFile();
+        }
+        assertThat(outputDirectory.resolve(LoadTestReport.HISTOGRAM_LOG_FILE)).isNotEmptyFile();
+        assertThat(JdbcTestUtils.countRowsInTableWhere(jdbcTemplate, "reservation",
+                "name LIKE '" + LoadTestRunner.NAME_PREFIX + "%'")).isGreaterThan(50);
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.service;
+
+import com.example.TestConfig;
+import com.example.entity.Reservation;
+import com.example.entity.ReservationId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.jdbc.JdbcTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 非同期呼び出しは別スレッドの独立したトランザクションでコミットされるため、
+ * テストメソッドをトランザクションで囲まずに前後でテーブルを削除します。
+ */
+@SpringBootTest(classes = TestConfig.class)
+class ReservationAsyncServiceTest {
+
+    @Autowired
+    private ReservationAsyncService service;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        JdbcTestUtils.deleteFromTables(jdbcTemplate, "reservation");
+    }
+
+    @AfterEach
+    void tearDown() {
+        JdbcTestUtils.deleteFromTables(jdbcTemplate, "reservation");
+    }
+
+    @Test
+    void 作成した予約を非同期に検索できる() {
+        var entity = new Reservation();
+        entity.name = "foo";
+        assertThat(service.create(entity).join()).isEqualTo(1);
+
+        var actual = service.findById(entity.getId()).join().orElseThrow();
+        assertThat(actual).extracting("id", "name").containsExactly(entity.getId(), "foo");
+    }
+
+    @Test
+    void 非同期の保存で更新されコミット後に検索結果へ反映される() {
+        var entity = new Reservation();
+        entity.name = "foo";
+        service.save(entity).join();
+        service.findById(entity.getId()).join();
+
+        entity.name = "bar";
+        assertThat(service.save(entity).join()).isEqualTo(1);
+
+        var actual = service.findById(entity.getId()).join().orElseThrow();
+        assertThat(actual.name).isEqualTo("bar");
+    }
+
+    @Test
+    void 存在しないIDの場合は空のOptionalで完了する() {
+        assertThat(service.findById(ReservationId.of(Integer.MAX_VALUE)).join()).isEmpty();
+    }
+
+    @Test
+    void 複数の呼び出しを並行して実行できる() {
+        var futures = IntStream.range(0, 50)
+                .mapToObj(i -> {
+                    var entity = new Reservation();
+                    entity.name = "name" + i;
+                    return service.create(entity);
+                })
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(futures).join();
+
+        assertThat(JdbcTestUtils.countRowsInTable(jdbcTemplate, "reservation")).isEqualTo(50);
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.service;
+
+import com.example.TestConfig;
+import com.example.entity.Reservation;
+import com.example.entity.ReservationId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.jdbc.JdbcTestUtils;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.groups.Tuple.tuple;
+
+@SpringBootTest(classes = TestConfig.class)
+@Transactional
+class ReservationBulkServiceTest {
+
+    @Autowired
+    private ReservationBulkService bulkService;
+
+    @Autowired
+    private ReservationService service;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @TempDir
+    private Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        JdbcTestUtils.deleteFromTables(jdbcTemplate, "reservation");
+    }
+
+    @ParameterizedTest
+    @EnumSource(CopyFormat.class)
+    void エクスポートしたファイルをインポートすると同じ行が復元される(CopyFormat format) {
+        var alice = new Reservation();
+        alice.name = "Alice, \"A\"";
+        var bob = new Reservation();
+        service.saveAll(List.of(alice, bob));
+        var file = tempDir.resolve("reservation." + format.name().toLowerCase());
+
+        var exported = bulkService.exportFile(file, format);
+        JdbcTestUtils.deleteFromTables(jdbcTemplate, "reservation");
+        var imported = bulkService.importFile(file, format);
+
+        assertThat(exported.rows()).isEqualTo(2);
+        assertThat(exported.bytes()).isEqualTo(fileSize(file));
+        assertThat(imported.rows()).isEqualTo(2);
+        assertThat(imported.bytes()).isEqualTo(fileSize(file));
+        assertThat(service.findAllById(alice.getId().value(), bob.getId().value()).values())
+                .extracting("id", "name")
+                .containsExactlyInAnyOrder(tuple(alice.getId(), "Alice, \"A\""), tuple(bob.getId(), null));
+    }
+
+    @Test
+    void インポート後の採番はインポートしたIDと重複しない() throws IOException {
+        var file = Files.writeString(tempDir.resolve("reservation.csv"), "1000,foo\n1001,bar\n");
+
+        bulkService.importFile(file, CopyFormat.CSV);
+        var entity = new Reservation();
+        entity.name = "baz";
+        service.create(entity);
+
+        assertThat(entity.getId().value()).isNotIn(1000, 1001);
+        assertThat(jdbcTemplate.queryForObject("SELECT nextval('reservation_id_seq')", Long.class))
+                .isGreaterThan(1001L);
+    }
+
+    @Test
+    void IDが重複する場合は直接インポートが失敗する() throws IOException {
+        var file = Files.writeString(tempDir.resolve("reservation.csv"), "1000,foo\n1000,bar\n");
+
+        assertThatThrownBy(() -> bulkService.importFile(file, CopyFormat.CSV))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    void ステージング経由のインポートでは既存の行を更新し新しい行を挿入する() throws IOException {
+        var existing = new Reservation();
+        existing.name = "old";
+        service.create(existing);
+        var id = existing.getId().value();
+        var file = Files.writeString(tempDir.resolve("reservation.csv"),
+                id + ",new\n" + 2_000_000 + ",inserted\n,generated\n");
+
+        var result = bulkService.importFileViaStaging(file, CopyFormat.CSV);
+
+        assertThat(result.rows()).isEqualTo(3);
+        assertThat(service.findById(existing.getId()).orElseThrow().name).isEqualTo("new");
+        assertThat(service.findById(ReservationId.of(2_000_000)).orElseThrow().name).isEqualTo("inserted");
+        assertThat(jdbcTemplate.queryForObject("SELECT id FROM reservation WHERE name = 'generated'", Integer.class))
+                .isNotIn(id, 2_000_000);
+        assertThat(JdbcTestUtils.countRowsInTable(jdbcTemplate, "reservation")).isEqualTo(3);
+    }
+
+    @Test
+    void スループットが計算される() {
+        var result = new CopyResult(1_000, 2 * 1024 * 1024, java.time.Duration.ofMillis(500));
+
+        assertThat(result.rowsPerSecond()).isEqualTo(2_000.0);
+        assertThat(result.megabytesPerSecond()).isEqualTo(4.0);
+    }
+
+    private static long fileSize(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
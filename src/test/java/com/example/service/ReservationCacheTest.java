@@ -0,0 +1,128 @@
+package com.example.service;
+
+import com.example.entity.Reservation;
+import com.example.entity.ReservationId;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for ReservationCache.
+ */
+class ReservationCacheTest {
+
+    private SimpleMeterRegistry registry;
+    private ReservationCache cache;
+    private AtomicInteger loads;
+    private Function<ReservationId, Optional<Reservation>> loader;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        cache = new ReservationCache(registry, true, 100, Duration.ofMinutes(5));
+        loads = new AtomicInteger();
+        loader = id -> {
+            loads.incrementAndGet();
+            if (id.value() >= 100) {
+                return Optional.empty();
+            }
+            var entity = new Reservation();
+            entity.setId(id);
+            entity.name = "name-" + id.value();
+            return Optional.of(entity);
+        };
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Nested
+    class Get {
+
+        @Test
+        void 二回目以降はキャッシュから返される() {
+            cache.get(ReservationId.of(1), loader);
+            var actual = cache.get(ReservationId.of(1), loader);
+
+            assertThat(actual).get().extracting("name").isEqualTo("name-1");
+            assertThat(loads).hasValue(1);
+            assertThat(registry.get("cache.gets").tag("result", "hit").functionCounter().count()).isEqualTo(1);
+            assertThat(registry.get("cache.gets").tag("result", "miss").functionCounter().count()).isEqualTo(1);
+        }
+
+        @Test
+        void 存在しないIDの結果もキャッシュされる() {
+            cache.get(ReservationId.of(100), loader);
+            var actual = cache.get(ReservationId.of(100), loader);
+
+            assertThat(actual).isEmpty();
+            assertThat(loads).hasValue(1);
+        }
+
+        @Test
+        void 返されたエンティティを変更してもキャッシュには影響しない() {
+            cache.get(ReservationId.of(1), loader).orElseThrow().name = "changed";
+
+            assertThat(cache.get(ReservationId.of(1), loader)).get().extracting("name").isEqualTo("name-1");
+        }
+
+        @Test
+        void nullのIDはキャッシュを経由しない() {
+            var actual = cache.get(null, id -> Optional.empty());
+
+            assertThat(actual).isEmpty();
+        }
+
+        @Test
+        void 無効化されている場合は常に読み込まれる() {
+            var disabled = new ReservationCache(registry, false, 100, Duration.ofMinutes(5));
+            disabled.get(ReservationId.of(1), loader);
+            disabled.get(ReservationId.of(1), loader);
+
+            assertThat(loads).hasValue(2);
+        }
+    }
+
+    @Nested
+    class EvictAfterCommit {
+
+        @Test
+        void トランザクション外では即時にエビクトされる() {
+            cache.get(ReservationId.of(1), loader);
+            cache.evictAfterCommit(ReservationId.of(1));
+            cache.get(ReservationId.of(1), loader);
+
+            assertThat(loads).hasValue(2);
+        }
+
+        @Test
+        void トランザクション内ではコミット後にエビクトされる() {
+            cache.get(ReservationId.of(1), loader);
+            TransactionSynchronizationManager.initSynchronization();
+            cache.evictAfterCommit(ReservationId.of(1));
+
+            cache.get(ReservationId.of(1), loader);
+            assertThat(loads).hasValue(1);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            TransactionSynchronizationManager.clearSynchronization();
+            cache.get(ReservationId.of(1), loader);
+            assertThat(loads).hasValue(2);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.service;
+
+import com.example.TestConfig;
+import com.example.dao.ReservationDao;
+import com.example.entity.Reservation;
+import com.example.entity.ReservationChange;
+import com.example.entity.ReservationId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.jdbc.JdbcTestUtils;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.groups.Tuple.tuple;
+
+/**
+ * 変更フィードはコミット済みの変更のみを返すため、テストメソッドをトランザクションで囲まずに前後でテーブルを削除します。
+ */
+@SpringBootTest(classes = TestConfig.class)
+class ReservationChangeFeedTest {
+
+    @Autowired
+    private ReservationChangeFeed feed;
+
+    @Autowired
+    private ReservationService service;
+
+    @Autowired
+    private ReservationDao dao;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        JdbcTestUtils.deleteFromTables(jdbcTemplate, "reservation");
+    }
+
+    @AfterEach
+    void tearDown() {
+        JdbcTestUtils.deleteFromTables(jdbcTemplate, "reservation");
+    }
+
+    @Test
+    void 変更をページに分けて読み込み最後のカーソルから再開できる() {
+        var reservations = List.of(reservation("Alice"), reservation("Bob"), reservation("Carol"));
+        service.saveAll(reservations);
+
+        var first = feed.findChangesSince(null, 2);
+        assertThat(first.changes()).extracting(ReservationChange::name).containsExactly("Alice", "Bob");
+        assertThat(first.hasMore()).isTrue();
+
+        var second = feed.findChangesSince(first.next(), 2);
+        assertThat(second.changes()).extracting(ReservationChange::name).containsExactly("Carol");
+        assertThat(second.hasMore()).isFalse();
+
+        var empty = feed.findChangesSince(second.next(), 2);
+        assertThat(empty.changes()).isEmpty();
+        assertThat(empty.next()).isEqualTo(second.next());
+
+        service.update(reservations.get(0).getId(), entity -> entity.name = "Dave");
+
+        var updated = feed.findChangesSince(empty.next(), 2);
+        assertThat(updated.changes())
+                .extracting(ReservationChange::id, ReservationChange::name, ReservationChange::version)
+                .containsExactly(tuple(reservations.get(0).getId(), "Dave", 2));
+    }
+
+    @Test
+    void 実行中のトランザクションがコミットするまで以降の変更を返さない() throws SQLException {
+        try (var connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            // 先に開始したトランザクションの方が小さいトランザクションIDを持つ
+            ReservationId pending;
+            try (var statement = connection.prepareStatement(
+                    "INSERT INTO reservation (name) VALUES ('Pending') RETURNING id")) {
+                var resultSet = statement.executeQuery();
+                resultSet.next();
+                pending = ReservationId.of(resultSet.getInt(1));
+            }
+            service.create(reservation("Committed"));
+
+            var before = feed.findChangesSince(null, 10);
+            assertThat(before.changes()).isEmpty();
+            assertThat(before.next()).isNull();
+
+            connection.commit();
+
+            var after = feed.findChangesSince(before.next(), 10);
+            assertThat(after.changes()).extracting(ReservationChange::name).containsExactly("Pending", "Committed");
+            assertThat(after.changes().getFirst().id()).isEqualTo(pending);
+        }
+    }
+
+    @Test
+    void ページサイズは設定の上限に制限される() {
+        var reservations = new ArrayList<Reservation>();
+        for (var i = 0; i < 5; i++) {
+            reservations.add(reservation("R" + i));
+        }
+        service.saveAll(reservations);
+        var limited = new ReservationChangeFeed(dao, 3);
+
+        var page = limited.findChangesSince(null, 100);
+
+        assertThat(page.changes()).hasSize(3);
+        assertThat(page.hasMore()).isTrue();
+    }
+
+    @Test
+    void ページサイズが1未満の場合は例外() {
+        assertThatThrownBy(() -> feed.findChangesSince(null, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static Reservation reservation(String name) {
+        var entity = new Reservation();
+        entity.name = name;
+        return entity;
+    }
+}
@@ -0,0 +1,208 @@
+package com.example.service;
+
+import com.example.TestConfig;
+import com.example.dao.ReservationDao;
+import com.example.entity.Reservation;
+import com.example.entity.ReservationId;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.jdbc.JdbcTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 作成は書き込みスレッドの独立したトランザクションでコミットされるため、
+ * テストメソッドをトランザクションで囲まずに前後でテーブルを削除します。
+ */
+@SpringBootTest(classes = TestConfig.class, properties = {
+        "reservation.create.coalescing.enabled=true",
+        "reservation.create.coalescing.window=200ms",
+        "reservation.create.coalescing.max-batch-size=100"
+})
+class ReservationCreateCoalescerTest {
+
+    @Autowired
+    private ReservationCreateCoalescer coalescer;
+
+    @Autowired
+    private ReservationService service;
+
+    @Autowired
+    private ReservationDao dao;
+
+    @Autowired
+    private ReservationServiceHelper helper;
+
+    @Autowired
+    private ReservationCache cache;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        JdbcTestUtils.deleteFromTables(jdbcTemplate, "reservation");
+    }
+
+    @AfterEach
+    void tearDown() {
+        JdbcTestUtils.deleteFromTables(jdbcTemplate, "reservation");
+    }
+
+    @Test
+    void 同時の作成要求が1回のコミットにまとめられる() {
+        var batches = meterRegistry.summary(ReservationCreateCoalescer.BATCH_SIZE_METER);
+        var delays = meterRegistry.timer(ReservationCreateCoalescer.QUEUE_DELAY_METER);
+        var batchesBefore = batches.count();
+        var totalBefore = batches.totalAmount();
+        var delaysBefore = delays.count();
+
+        var futures = IntStream.range(0, 10).mapToObj(i -> coalescer.create(reservation("r" + i))).toList();
+        var ids = futures.stream().map(CompletableFuture::join).toList();
+
+        assertThat(ids).doesNotContainNull().doesNotHaveDuplicates();
+        assertThat(service.findById(ids.getFirst()).orElseThrow().name).isEqualTo("r0");
+        assertThat(JdbcTestUtils.countRowsInTable(jdbcTemplate, "reservation")).isEqualTo(10);
+        assertThat(batches.count()).isEqualTo(batchesBefore + 1);
+        assertThat(batches.totalAmount()).isEqualTo(totalBefore + 10);
+        assertThat(delays.count()).isEqualTo(delaysBefore + 10);
+    }
+
+    @Test
+    void 失敗した要求のみが例外で完了し他の要求はコミットされる() {
+        var ok1 = coalescer.create(reservation("ok1"));
+        var tooLong = coalescer.create(reservation("x".repeat(101)));
+        var ok2 = coalescer.create(reservation("ok2"));
+
+        var id1 = ok1.join();
+        var id2 = ok2.join();
+
+        assertThatThrownBy(tooLong::join)
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(DataAccessException.class);
+        assertThat(service.findById(id1).orElseThrow().name).isEqualTo("ok1");
+        assertThat(service.findById(id2).orElseThrow().name).isEqualTo("ok2");
+        assertThat(JdbcTestUtils.countRowsInTable(jdbcTemplate, "reservation")).isEqualTo(2);
+    }
+
+    @Test
+    void 作成前に検索した存在しないIDのキャッシュがエビクトされる() {
+        var id = ReservationId.of(2_000_000);
+        assertThat(service.findById(id)).isEmpty();
+
+        var entity = reservation("created");
+        entity.setId(id);
+        assertThat(coalescer.create(entity).join()).isEqualTo(id);
+
+        assertThat(service.findById(id)).get().extracting("name").isEqualTo("created");
+    }
+
+    @Test
+    void 停止時にキューに残った要求を書き込み以降の要求は拒否される() throws Exception {
+        var stopping = new ReservationCreateCoalescer(dao, helper, cache, transactionManager,
+                new SimpleMeterRegistry(), Duration.ofSeconds(10), 100, 100);
+        List<CompletableFuture<ReservationId>> futures = IntStream.range(0, 3)
+                .mapToObj(i -> stopping.create(reservation("r" + i)))
+                .toList();
+
+        stopping.close();
+
+        assertThat(futures).allSatisfy(future -> assertThat(future).isCompleted());
+        assertThat(JdbcTestUtils.countRowsInTable(jdbcTemplate, "reservation")).isEqualTo(3);
+        assertThatThrownBy(() -> stopping.create(reservation("late")).join())
+                .hasCauseInstanceOf(RejectedExecutionException.class);
+    }
+
+    @Test
+    void 書き込み中のErrorでFutureを完了し後続の要求を処理し続ける() throws Exception {
+        var failNext = new AtomicBoolean(true);
+        var failing = (ReservationDao) Proxy.newProxyInstance(ReservationDao.class.getClassLoader(),
+                new Class<?>[]{ReservationDao.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("insertAll") && failNext.getAndSet(false)) {
+                        throw new Error("simulated failure");
+                    }
+                    try {
+                        return method.invoke(dao, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+        try (var coalescer = new ReservationCreateCoalescer(failing, helper, cache, transactionManager,
+                new SimpleMeterRegistry(), Duration.ZERO, 100, 100)) {
+            assertThatThrownBy(() -> coalescer.create(reservation("failed")).join())
+                    .hasCauseInstanceOf(Error.class)
+                    .hasRootCauseMessage("simulated failure");
+
+            var id = coalescer.create(reservation("after")).get(10, TimeUnit.SECONDS);
+
+            assertThat(service.findById(id)).get().extracting("name").isEqualTo("after");
+        }
+    }
+
+    @Test
+    void 停止と同時に受け付けた要求も書き込みか拒否で完了する() throws Exception {
+        var stopping = new ReservationCreateCoalescer(dao, helper, cache, transactionManager,
+                new SimpleMeterRegistry(), Duration.ZERO, 100, 10_000);
+        var futures = new ConcurrentLinkedQueue<CompletableFuture<ReservationId>>();
+        var start = new CountDownLatch(1);
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (var t = 0; t < 4; t++) {
+                executor.submit(() -> {
+                    start.await();
+                    for (var i = 0; i < 200; i++) {
+                        futures.add(stopping.create(reservation("r" + i)));
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+            stopping.close();
+        }
+
+        assertThat(futures).hasSize(800);
+        // 完了しないFutureがあればTimeoutExceptionで失敗する
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                .exceptionally(e -> null)
+                .get(10, TimeUnit.SECONDS);
+        assertThat(futures.stream().filter(CompletableFuture::isCompletedExceptionally))
+                .allSatisfy(future -> assertThatThrownBy(future::join)
+                        .hasCauseInstanceOf(RejectedExecutionException.class));
+        var written = futures.stream().filter(future -> !future.isCompletedExceptionally()).count();
+        assertThat(JdbcTestUtils.countRowsInTable(jdbcTemplate, "reservation")).isEqualTo(written);
+    }
+
+    private static Reservation reservation(String name) {
+        var entity = new Reservation();
+        entity.name = name;
+        return entity;
+    }
+}
@@ -0,0 +1,215 @@
+package com.example.service;
+
+import com.example.TestConfig;
+import com.example.dao.ReservationDao;
+import com.example.entity.ReservationId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * パーティションの作成・削除はDDLのため、テストメソッドをトランザクションで囲まずに毎回スキーマを作り直します。
+ * 行はシーケンスを使わずにIDを指定して挿入します。
+ */
+@SpringBootTest(classes = TestConfig.class,
+        properties = {"reservation.partition.size=1000", "reservation.partition.premake=1",
+                "reservation.partition.auto-create=false"})
+class ReservationPartitionMaintainerTest {
+
+    @Autowired
+    private ReservationPartitionMaintainer maintainer;
+
+    @Autowired
+    private ReservationService service;
+
+    @Autowired
+    private ReservationDao dao;
+
+    @Autowired
+    private ReservationCache cache;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        new ResourceDatabasePopulator(
+                new FileSystemResource("schema/create_table.sql"),
+                new FileSystemResource("schema/create_partition_functions.sql"))
+                .execute(dataSource);
+    }
+
+    @Test
+    void 払い出したIDより先の範囲まで作成しデフォルトパーティションの行を移す() {
+        insertRows(1, 2500);
+
+        // 未使用のシーケンスが次に払い出すID（1）から1範囲先までと、行がある範囲
+        assertThat(maintainer.createPartitions()).isEqualTo(3);
+
+        assertThat(rowsByPartition()).containsExactly(
+                "reservation_p0=999", "reservation_p1000=1000", "reservation_p2000=501");
+        assertThat(partitions()).containsExactly("reservation_p0", "reservation_p1000", "reservation_p2000");
+        assertThat(maintainer.createPartitions()).isZero();
+    }
+
+    @Test
+    void 遠く離れたIDの行は間の範囲を作成せずその範囲だけを作成する() {
+        insertRows(1, 10);
+        insertRows(10_000_000_000L, 10_000_000_000L);
+
+        assertThat(maintainer.createPartitions()).isEqualTo(3);
+
+        assertThat(partitions()).containsExactly("reservation_p0", "reservation_p1000", "reservation_p10000000000");
+        assertThat(rowsByPartition()).containsExactly("reservation_p0=10", "reservation_p10000000000=1");
+    }
+
+    @Test
+    void bigintの最大値に近いIDの範囲は上限をMAXVALUEにして作成する() {
+        insertRows(Long.MAX_VALUE, Long.MAX_VALUE);
+
+        assertThat(maintainer.createPartitions()).isEqualTo(3);
+
+        assertThat(partitions()).last().isEqualTo("reservation_p9223372036854775000");
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM reservation_default", Integer.class)).isZero();
+        assertThat(maintainer.createPartitions()).isZero();
+    }
+
+    @Test
+    void 一度に作成するパーティションの数を制限し残りは次回に作成する() {
+        insertRows(5000, 5000);
+        insertRows(7000, 7000);
+        insertRows(9000, 9000);
+
+        try (var limited = new ReservationPartitionMaintainer(dao, cache, transactionManager,
+                1000, 1, 2, false, Duration.ofHours(1))) {
+            // 払い出すIDの範囲を優先して作成する
+            assertThat(limited.createPartitions()).isEqualTo(2);
+            assertThat(partitions()).containsExactly("reservation_p0", "reservation_p1000");
+            assertThat(limited.createPartitions()).isEqualTo(2);
+            assertThat(limited.createPartitions()).isEqualTo(1);
+            assertThat(limited.createPartitions()).isZero();
+        }
+
+        assertThat(rowsByPartition()).containsExactly(
+                "reservation_p5000=1", "reservation_p7000=1", "reservation_p9000=1");
+    }
+
+    @Test
+    void シーケンスが払い出したIDも作成する範囲に含める() {
+        jdbcTemplate.queryForObject("SELECT setval('reservation_id_seq', 4500)", Long.class);
+
+        maintainer.createPartitions();
+
+        // 払い出し済みのブロック（4500〜4599）の次のIDから1範囲先まで
+        assertThat(partitions()).last().isEqualTo("reservation_p5000");
+    }
+
+    @Test
+    void 境界より前のパーティションを削除しキャッシュから取り除く() {
+        insertRows(1, 2500);
+        maintainer.createPartitions();
+        assertThat(service.findById(ReservationId.of(5))).isPresent();
+
+        assertThat(maintainer.dropPartitionsBefore(ReservationId.of(2500))).isEqualTo(2);
+
+        assertThat(partitions()).containsExactly("reservation_p2000");
+        assertThat(jdbcTemplate.queryForObject("SELECT min(id) FROM reservation", Integer.class)).isEqualTo(2000);
+        assertThat(service.findById(ReservationId.of(5))).isEmpty();
+        assertThat(service.findById(ReservationId.of(2000))).isPresent();
+    }
+
+    @Test
+    void 範囲のパーティションがないIDの行も削除する() {
+        insertRows(1, 10);
+
+        assertThat(maintainer.dropPartitionsBefore(ReservationId.of(6))).isZero();
+
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM reservation", Integer.class)).isEqualTo(5);
+    }
+
+    @Test
+    void 自動作成が有効な場合は起動時に作成する() throws InterruptedException {
+        insertRows(1, 10);
+
+        try (var automatic = new ReservationPartitionMaintainer(dao, cache, transactionManager,
+                1000, 1, 100, true, Duration.ofHours(1))) {
+            await(() -> partitions().size() == 2);
+        }
+
+        assertThat(partitions()).containsExactly("reservation_p0", "reservation_p1000");
+    }
+
+    @Test
+    void 既存のテーブルを最初のパーティションとして移行する() {
+        new ResourceDatabasePopulator(new ClassPathResource("schema/create_table_before_partitioning.sql"))
+                .execute(dataSource);
+        insertRows(1, 1500);
+        jdbcTemplate.queryForObject("SELECT setval('reservation_id_seq', 1500)", Long.class);
+
+        new ResourceDatabasePopulator(
+                new FileSystemResource("schema/migrate_to_partitioned.sql"),
+                new FileSystemResource("schema/create_partition_functions.sql"))
+                .execute(dataSource);
+
+        assertThat(rowsByPartition()).containsExactly("reservation_p0=1500");
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT upper FROM reservation_partition_bounds() WHERE name = 'reservation_p0'", Long.class))
+                .isEqualTo(1_000_000L);
+        // 既存のインデックスが親テーブルのインデックスに対応付けられている（作り直されていない）
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT inhparent::regclass::text FROM pg_inherits "
+                        + "WHERE inhrelid = 'reservation_p0_name_id_idx'::regclass", String.class))
+                .isEqualTo("reservation_name_id_idx");
+        // 移行後も採番・変更フィードのトリガーが親テーブル経由で動作する
+        var xid = jdbcTemplate.queryForObject(
+                "UPDATE reservation SET name = 'updated' WHERE id = 1 RETURNING changed_xid::text::bigint", Long.class);
+        assertThat(xid).isEqualTo(jdbcTemplate.queryForObject(
+                "SELECT changed_xid::text::bigint FROM reservation WHERE id = 1", Long.class));
+        var id = jdbcTemplate.queryForObject("INSERT INTO reservation (name) VALUES ('new') RETURNING id", Integer.class);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT tableoid::regclass::text FROM reservation WHERE id = ?", String.class, id))
+                .isEqualTo("reservation_p0");
+    }
+
+    private void insertRows(long from, long to) {
+        jdbcTemplate.update("INSERT INTO reservation (id, name) SELECT g, 'r' || g FROM generate_series(?, ?) g",
+                from, to);
+    }
+
+    private List<String> partitions() {
+        return jdbcTemplate.queryForList("SELECT name FROM reservation_partition_bounds() ORDER BY upper",
+                String.class);
+    }
+
+    private List<String> rowsByPartition() {
+        return jdbcTemplate.queryForList("SELECT tableoid::regclass || '=' || count(*) FROM reservation "
+                + "GROUP BY tableoid ORDER BY min(id)", String.class);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        var deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met within 10s").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+}
@@ -3,17 +3,30 @@ package com.example.service;
 import com.example.TestConfig;
 import com.example.entity.Reservation;
 import com.example.entity.ReservationId;
+import com.example.entity.ReservationRecord;
+import com.example.entity.ReservationSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.jdbc.JdbcTestUtils;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+import static org.assertj.core.api.Assertions.tuple;
 
 @SpringBootTest(classes = TestConfig.class)
 @Transactional
@@ -25,6 +38,9 @@ class ReservationServiceTest {
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @BeforeEach
     void setUp() {
         JdbcTestUtils.deleteFromTables(jdbcTemplate, "reservation");
@@ -47,6 +63,24 @@ class ReservationServiceTest {
             assertThat(actual).extracting("id", "name").containsExactly(entity.getId(), "foo");
         }
 
+        @Test
+        void ネストトランザクションのセーブポイントとDAOメソッドの実行時間が記録される() {
+            var savepoints = meterRegistry.timer("transaction.execution",
+                    "name", "ReservationServiceHelper.create", "nested", "true", "read-only", "false",
+                    "outcome", "commit");
+            var inserts = meterRegistry.timer("doma.dao.method",
+                    "dao", "ReservationDao", "method", "insert", "outcome", "success");
+            var savepointsBefore = savepoints.count();
+            var insertsBefore = inserts.count();
+
+            var entity = new Reservation();
+            entity.name = "foo";
+            service.save(entity);
+
+            assertThat(savepoints.count()).isEqualTo(savepointsBefore + 1);
+            assertThat(inserts.count()).isEqualTo(insertsBefore + 1);
+        }
+
         @Test
         void データがあるのでUpdateで更新される() {
 
@@ -62,6 +96,126 @@ class ReservationServiceTest {
 
         }
 
+        @Test
+        void 古いバージョンのエンティティでは更新されない() {
+            var entity = new Reservation();
+            entity.name = "foo";
+            service.save(entity);
+            var stale = service.findById(entity.getId()).orElseThrow();
+
+            entity.name = "bar";
+            service.save(entity);
+
+            stale.name = "baz";
+            assertThatThrownBy(() -> service.save(stale)).isInstanceOf(OptimisticLockingFailureException.class);
+            assertThat(service.findById(entity.getId()).orElseThrow().name).isEqualTo("bar");
+        }
+
+    }
+
+    @Nested
+    class SaveUpsert {
+
+        @Test
+        void データがないのでinsertされIDが設定される() {
+            var entity = new Reservation();
+            entity.name = "foo";
+
+            int result = service.save(entity, SaveMode.UPSERT);
+
+            assertThat(result).isEqualTo(1);
+            assertThat(entity.getId()).isNotNull();
+            var actual = service.findById(entity.getId()).orElseThrow();
+            assertThat(actual).extracting("id", "name").containsExactly(entity.getId(), "foo");
+        }
+
+        @Test
+        void データがあるので更新される() {
+            var entity = new Reservation();
+            entity.name = "foo";
+            service.save(entity, SaveMode.UPSERT);
+
+            entity.name = "bar";
+            service.save(entity, SaveMode.UPSERT);
+
+            var actual = service.findById(entity.getId()).orElseThrow();
+            assertThat(actual).extracting("id", "name").containsExactly(entity.getId(), "bar");
+            assertThat(JdbcTestUtils.countRowsInTable(jdbcTemplate, "reservation")).isEqualTo(1);
+        }
+
+        @Test
+        void 読み込み後に他で更新されていればOptimisticLockingFailureExceptionになる() {
+            var entity = new Reservation();
+            entity.name = "foo";
+            service.save(entity, SaveMode.UPSERT);
+            var stale = service.findById(entity.getId()).orElseThrow();
+            entity.name = "bar";
+            service.save(entity, SaveMode.UPSERT);
+
+            stale.name = "baz";
+
+            assertThatThrownBy(() -> service.save(stale, SaveMode.UPSERT))
+                    .isInstanceOf(OptimisticLockingFailureException.class);
+            var actual = service.findById(entity.getId()).orElseThrow();
+            assertThat(actual).extracting("name", "version").containsExactly("bar", 2);
+        }
+
+        @Test
+        void 存在しないIDを指定すると挿入せずOptimisticLockingFailureExceptionになる() {
+            var entity = new Reservation();
+            entity.setId(ReservationId.of(12345L));
+            entity.setVersion(1);
+            entity.name = "foo";
+
+            assertThatThrownBy(() -> service.save(entity, SaveMode.UPSERT))
+                    .isInstanceOf(OptimisticLockingFailureException.class);
+            assertThat(JdbcTestUtils.countRowsInTable(jdbcTemplate, "reservation")).isZero();
+        }
+
+    }
+
+    @Nested
+    class SaveAll {
+
+        @Test
+        void IDの有無で一括insertと一括updateに振り分けられる() {
+            var existing = new Reservation();
+            existing.name = "before";
+            service.save(existing);
+
+            existing.name = "after";
+            var created = new Reservation();
+            created.name = "new";
+
+            int result = service.saveAll(List.of(existing, created));
+
+            assertThat(result).isEqualTo(2);
+            assertThat(created.getId()).isNotNull();
+            assertThat(service.findById(existing.getId()).orElseThrow().name).isEqualTo("after");
+            assertThat(service.findById(created.getId()).orElseThrow().name).isEqualTo("new");
+        }
+
+        @Test
+        void チャンクサイズを超える件数でも全件保存される() {
+            var entities = new ArrayList<Reservation>();
+            for (var i = 0; i < 1_201; i++) {
+                var entity = new Reservation();
+                entity.name = "bulk-" + i;
+                entities.add(entity);
+            }
+
+            int result = service.saveAll(entities);
+
+            assertThat(result).isEqualTo(1_201);
+            assertThat(entities).allSatisfy(entity -> assertThat(entity.getId()).isNotNull());
+            assertThat(JdbcTestUtils.countRowsInTable(jdbcTemplate, "reservation")).isEqualTo(1_201);
+        }
+
+        @Test
+        void 空のコレクションでは何もしない() {
+            assertThat(service.saveAll(List.of())).isZero();
+        }
+
     }
 
     @Nested
@@ -84,6 +238,229 @@ class ReservationServiceTest {
 
     }
 
+    @Nested
+    class StreamAll {
+
+        @Test
+        void 名前順にストリームで取得できる() {
+            var bob = new Reservation();
+            bob.name = "Bob";
+            var alice = new Reservation();
+            alice.name = "Alice";
+            service.saveAll(List.of(bob, alice));
+
+            var actual = service.streamAll(stream -> stream.map(r -> r.name).toList());
+
+            assertThat(actual).containsExactly("Alice", "Bob");
+        }
+
+        @Test
+        void forEachAllで全件がコールバックに渡される() {
+            var bob = new Reservation();
+            bob.name = "Bob";
+            var alice = new Reservation();
+            alice.name = "Alice";
+            service.saveAll(List.of(bob, alice));
+
+            var names = new ArrayList<String>();
+            service.forEachAll(r -> names.add(r.name));
+
+            assertThat(names).containsExactly("Alice", "Bob");
+        }
+
+        @Test
+        void 不変のレコードとして名前順にストリームで取得できる() {
+            var bob = new Reservation();
+            bob.name = "Bob";
+            var alice = new Reservation();
+            alice.name = "Alice";
+            service.saveAll(List.of(bob, alice));
+
+            var actual = service.streamAllRecords(Stream::toList);
+
+            assertThat(actual).extracting(ReservationRecord::id, ReservationRecord::name)
+                    .containsExactly(tuple(alice.getId(), "Alice"), tuple(bob.getId(), "Bob"));
+        }
+
+    }
+
+    @Nested
+    class FindPage {
+
+        @Test
+        void カーソルをたどると名前順に全件を取得できる() {
+            var entities = new ArrayList<Reservation>();
+            for (var name : new String[]{"Carol", null, "Alice", "Bob", null, "Alice"}) {
+                var entity = new Reservation();
+                entity.name = name;
+                entities.add(entity);
+            }
+            service.saveAll(entities);
+
+            var names = new ArrayList<String>();
+            var pages = 0;
+            ReservationCursor cursor = null;
+            do {
+                var page = service.findPage(cursor, 2);
+                assertThat(page.content()).hasSizeLessThanOrEqualTo(2);
+                page.content().forEach(r -> names.add(r.name));
+                cursor = page.next();
+                pages++;
+            } while (cursor != null);
+
+            assertThat(names).containsExactly("Alice", "Alice", "Bob", "Carol", null, null);
+            assertThat(pages).isEqualTo(3);
+        }
+
+        @Test
+        void 最終ページでは次のカーソルがない() {
+            var entity = new Reservation();
+            entity.name = "only";
+            service.save(entity);
+
+            var page = service.findPage(null, 10);
+
+            assertThat(page.content()).extracting("name").containsExactly("only");
+            assertThat(page.hasNext()).isFalse();
+            assertThat(page.nextCursor()).isEmpty();
+        }
+
+        @Test
+        void データがない場合は空のページが返される() {
+            var page = service.findPage(null, 10);
+
+            assertThat(page.content()).isEmpty();
+            assertThat(page.hasNext()).isFalse();
+        }
+
+    }
+
+    @Nested
+    class FindAllById {
+
+        @Test
+        void 複数のIDをまとめて検索できる() {
+            var alice = new Reservation();
+            alice.name = "Alice";
+            var bob = new Reservation();
+            bob.name = "Bob";
+            service.saveAll(List.of(alice, bob));
+
+            var actual = service.findAllById(alice.getId().value(), bob.getId().value(), 999_999);
+
+            assertThat(actual).containsOnlyKeys(alice.getId(), bob.getId());
+            assertThat(actual.get(alice.getId()).name).isEqualTo("Alice");
+            assertThat(actual.get(bob.getId()).name).isEqualTo("Bob");
+        }
+
+        @Test
+        void チャンクサイズを超える件数でも全件検索できる() {
+            var entities = new ArrayList<Reservation>();
+            for (var i = 0; i < 1_200; i++) {
+                var entity = new Reservation();
+                entity.name = "lookup-" + i;
+                entities.add(entity);
+            }
+            service.saveAll(entities);
+
+            var actual = service.findAllById(entities.stream().mapToLong(e -> e.getId().value()));
+
+            assertThat(actual).hasSize(1_200);
+        }
+
+        @Test
+        void IDが空の場合は空のマップが返される() {
+            assertThat(service.findAllById()).isEmpty();
+        }
+
+    }
+
+    @Nested
+    class FindSummary {
+
+        @Test
+        void IDと名前のみを検索できる() {
+            var entity = new Reservation();
+            entity.name = "foo";
+            service.save(entity);
+
+            assertThat(service.findSummaryById(entity.getId()))
+                    .contains(new ReservationSummary(entity.getId(), "foo"));
+            assertThat(service.findSummaryById(ReservationId.of(999_999))).isEmpty();
+        }
+
+        @Test
+        void 複数のIDのIDと名前をまとめて検索できる() {
+            var alice = new Reservation();
+            alice.name = "Alice";
+            var bob = new Reservation();
+            bob.name = "Bob";
+            service.saveAll(List.of(alice, bob));
+
+            var actual = service.findSummariesById(alice.getId().value(), bob.getId().value(), 999_999);
+
+            assertThat(actual).containsOnly(
+                    entry(alice.getId(), new ReservationSummary(alice.getId(), "Alice")),
+                    entry(bob.getId(), new ReservationSummary(bob.getId(), "Bob")));
+        }
+    }
+
+    @Nested
+    class SearchByName {
+
+        @Test
+        void 前方一致ではワイルドカードが文字として扱われる() {
+            saveNames("100% cotton", "100 yen", "1000");
+
+            assertThat(service.findSummariesByNamePrefix("100%", 10))
+                    .extracting(ReservationSummary::name)
+                    .containsExactly("100% cotton");
+            assertThat(service.findSummariesByNamePrefix("100", 10)).hasSize(3);
+        }
+
+        @Test
+        void 部分一致で名前に文字列を含む予約が返される() {
+            saveNames("Alice Smith", "Bob Smithers", "Carol");
+
+            assertThat(service.findSummariesByNameContaining("Smith", 10))
+                    .extracting(ReservationSummary::name)
+                    .containsExactly("Alice Smith", "Bob Smithers");
+        }
+
+        @Test
+        void 部分一致の文字列が短すぎる場合は例外() {
+            assertThatThrownBy(() -> service.findSummariesByNameContaining("ab", 10))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+
+        @Test
+        void 類似検索では表記の揺れを含む予約が類似度の高い順に返される() {
+            saveNames("Jonathon", "Jonathan", "Bob");
+
+            assertThat(service.findSummariesBySimilarName("Jonathan", 10))
+                    .extracting(ReservationSummary::name)
+                    .containsExactly("Jonathan", "Jonathon");
+            assertThat(service.findSummariesBySimilarName(" ", 10)).isEmpty();
+        }
+
+        @Test
+        void 件数は設定された最大件数に制限される() {
+            saveNames(IntStream.range(0, 101).mapToObj(i -> "name" + i).toArray(String[]::new));
+
+            assertThat(service.findSummariesByNamePrefix("name", 1000)).hasSize(100);
+            assertThatThrownBy(() -> service.findSummariesByNamePrefix("name", 0))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+
+        private void saveNames(String... names) {
+            service.saveAll(Arrays.stream(names).map(name -> {
+                var entity = new Reservation();
+                entity.name = name;
+                return entity;
+            }).toList());
+        }
+    }
+
     @Nested
     class FindById {
 
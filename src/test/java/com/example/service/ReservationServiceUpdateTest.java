@@ -0,0 +1,147 @@
+package com.example.service;
+
+import com.example.TestConfig;
+import com.example.entity.Reservation;
+import com.example.entity.ReservationId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.jdbc.JdbcTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 競合する更新は別スレッドの独立したトランザクションでコミットする必要があるため、
+ * テストメソッドをトランザクションで囲まずに前後でテーブルを削除します。
+ */
+@SpringBootTest(classes = TestConfig.class, properties = {
+        "reservation.update.max-retries=3",
+        "reservation.update.retry-backoff=1ms"
+})
+class ReservationServiceUpdateTest {
+
+    @Autowired
+    private ReservationService service;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        JdbcTestUtils.deleteFromTables(jdbcTemplate, "reservation");
+    }
+
+    @AfterEach
+    void tearDown() {
+        JdbcTestUtils.deleteFromTables(jdbcTemplate, "reservation");
+    }
+
+    @Test
+    void 変更が適用されバージョンが進む() {
+        var id = create("foo");
+
+        var actual = service.update(id, entity -> entity.name = "bar").orElseThrow();
+
+        assertThat(actual).extracting("id", "name", "version").containsExactly(id, "bar", 2);
+        assertThat(service.findById(id).orElseThrow()).extracting("name", "version").containsExactly("bar", 2);
+    }
+
+    @Test
+    void 存在しないIDの場合は空のOptionalが返される() {
+        var calls = new AtomicInteger();
+
+        var actual = service.update(ReservationId.of(999_999), entity -> calls.incrementAndGet());
+
+        assertThat(actual).isEmpty();
+        assertThat(calls).hasValue(0);
+    }
+
+    @Test
+    void 読み込み後に他のトランザクションが更新した場合は読み直して再適用される() {
+        var id = create("foo");
+        var calls = new AtomicInteger();
+
+        var actual = service.update(id, entity -> {
+            if (calls.incrementAndGet() == 1) {
+                updateConcurrently(id, "other");
+            }
+            entity.name = entity.name + "!";
+        }).orElseThrow();
+
+        assertThat(calls).hasValue(2);
+        assertThat(actual).extracting("name", "version").containsExactly("other!", 3);
+    }
+
+    @Test
+    void 再試行回数を超えて競合した場合は例外がスローされる() {
+        var id = create("foo");
+        var calls = new AtomicInteger();
+
+        assertThatThrownBy(() -> service.update(id, entity -> {
+            calls.incrementAndGet();
+            updateConcurrently(id, "other");
+            entity.name = "lost";
+        })).isInstanceOf(OptimisticLockingFailureException.class);
+
+        assertThat(calls).hasValue(4);
+        assertThat(service.findById(id).orElseThrow().name).isEqualTo("other");
+    }
+
+    @Test
+    void 同時に更新しても変更が失われない() {
+        var id = create("");
+        var threads = 4;
+        var updatesPerThread = 5;
+
+        var futures = IntStream.range(0, threads)
+                .mapToObj(thread -> CompletableFuture.runAsync(() -> {
+                    for (var i = 0; i < updatesPerThread; i++) {
+                        updateWithRetry(id);
+                    }
+                }))
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(futures).join();
+
+        var actual = service.findById(id).orElseThrow();
+        assertThat(actual.name).hasSize(threads * updatesPerThread);
+        assertThat(actual.getVersion()).isEqualTo(1 + threads * updatesPerThread);
+    }
+
+    private ReservationId create(String name) {
+        var entity = new Reservation();
+        entity.name = name;
+        service.create(entity);
+        return entity.getId();
+    }
+
+    /**
+     * 別スレッドの自動コミットで同じ行を更新します。
+     */
+    private void updateConcurrently(ReservationId id, String name) {
+        CompletableFuture.runAsync(() -> jdbcTemplate.update(
+                "UPDATE reservation SET name = ?, version = version + 1 WHERE id = ?", name, id.value())).join();
+    }
+
+    /**
+     * 設定された再試行回数では足りないほど競合が続いた場合も、呼び出し元で再度呼び出して成功させます。
+     */
+    private void updateWithRetry(ReservationId id) {
+        while (true) {
+            try {
+                service.update(id, entity -> entity.name = entity.name + "x");
+                return;
+            } catch (OptimisticLockingFailureException e) {
+                // 再度呼び出す
+            }
+        }
+    }
+}
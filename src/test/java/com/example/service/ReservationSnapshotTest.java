@@ -0,0 +1,127 @@
+package com.example.service;
+
+import com.example.TestConfig;
+import com.example.entity.Reservation;
+import com.example.entity.ReservationSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.jdbc.JdbcTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 変更の通知はコミット後に届くため、テストメソッドをトランザクションで囲まずに前後でテーブルを削除します。
+ */
+@SpringBootTest(classes = TestConfig.class, properties = "reservation.snapshot.enabled=true")
+class ReservationSnapshotTest {
+
+    @Autowired
+    private ReservationSnapshot snapshot;
+
+    @Autowired
+    private ReservationService service;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        JdbcTestUtils.deleteFromTables(jdbcTemplate, "reservation");
+        await(() -> snapshot.size() == 0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        JdbcTestUtils.deleteFromTables(jdbcTemplate, "reservation");
+    }
+
+    @Test
+    void 作成と更新が名前順のスナップショットに反映される() throws InterruptedException {
+        var bob = reservation("Bob");
+        var alice = reservation("Alice");
+        service.saveAll(List.of(bob, alice));
+
+        await(() -> snapshot.size() == 2);
+        assertThat(snapshot.findAll()).containsExactly(
+                new ReservationSummary(alice.getId(), "Alice"),
+                new ReservationSummary(bob.getId(), "Bob"));
+
+        service.update(alice.getId(), entity -> entity.name = "Carol");
+
+        await(() -> snapshot.findById(alice.getId()).map(ReservationSummary::name).orElse("").equals("Carol"));
+        assertThat(snapshot.findAll()).extracting(ReservationSummary::name).containsExactly("Bob", "Carol");
+    }
+
+    @Test
+    void 削除した行はスナップショットから取り除かれる() throws InterruptedException {
+        var entity = reservation("deleted");
+        service.create(entity);
+        await(() -> snapshot.findById(entity.getId()).isPresent());
+
+        jdbcTemplate.update("DELETE FROM reservation WHERE id = ?", entity.getId().value());
+
+        await(() -> snapshot.findById(entity.getId()).isEmpty());
+    }
+
+    @Test
+    void 桁数の多いIDを1文で多数変更しても通知の上限を超えずに反映される() throws InterruptedException {
+        var reloads = meterRegistry.counter(ReservationSnapshot.RELOADS_METER).count();
+
+        // 19桁のIDを1000件（区切りを含めて約20000バイト）挿入する
+        jdbcTemplate.update("INSERT INTO reservation (id, name) "
+                + "SELECT 1000000000000000000 + g, 'r' || g FROM generate_series(1, 1000) g");
+
+        await(() -> snapshot.size() == 1000);
+        assertThat(meterRegistry.counter(ReservationSnapshot.RELOADS_METER).count()).isEqualTo(reloads);
+    }
+
+    @Test
+    void TRUNCATEでは全件を読み直す() throws InterruptedException {
+        service.create(reservation("before"));
+        await(() -> snapshot.size() == 1);
+        var reloads = meterRegistry.counter(ReservationSnapshot.RELOADS_METER).count();
+
+        jdbcTemplate.execute("TRUNCATE reservation");
+
+        await(() -> snapshot.size() == 0);
+        assertThat(meterRegistry.counter(ReservationSnapshot.RELOADS_METER).count()).isEqualTo(reloads + 1);
+    }
+
+    @Test
+    void 反映までの時間と鮮度がメトリクスに記録される() throws InterruptedException {
+        var lag = meterRegistry.timer(ReservationSnapshot.REFRESH_LAG_METER);
+        var before = lag.count();
+
+        service.create(reservation("metered"));
+
+        await(() -> lag.count() > before);
+        assertThat(meterRegistry.get(ReservationSnapshot.SIZE_METER).gauge().value()).isEqualTo(1);
+        assertThat(meterRegistry.get(ReservationSnapshot.STALENESS_METER).gauge().value()).isLessThan(5);
+    }
+
+    private static Reservation reservation(String name) {
+        var entity = new Reservation();
+        entity.name = name;
+        return entity;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        var deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met within 10s").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+}
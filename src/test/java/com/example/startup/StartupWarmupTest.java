@@ -0,0 +1,74 @@
+package com.example.startup;
+
+import com.example.dao.ReservationDao;
+import org.junit.jupiter.api.Test;
+import org.seasar.doma.jdbc.Config;
+import org.seasar.doma.jdbc.GreedyCacheSqlFileRepository;
+import org.seasar.doma.jdbc.SqlFileRepository;
+import org.seasar.doma.jdbc.dialect.Dialect;
+import org.seasar.doma.jdbc.dialect.PostgresDialect;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StartupWarmupTest {
+
+    @Test
+    void DAOのSQLファイルがすべてリポジトリにキャッシュされる() throws IOException {
+        var repository = new CountingSqlFileRepository();
+        var warmup = new StartupWarmup(config(repository), null, null);
+
+        var count = warmup.preloadSqlFiles();
+
+        try (var files = Files.walk(Path.of("src/main/resources/META-INF/com/example/dao"))) {
+            assertThat(count).isEqualTo(files.filter(path -> path.toString().endsWith(".sql")).count());
+        }
+        assertThat(repository.cachedFiles()).isEqualTo(count);
+    }
+
+    @Test
+    void SQLファイルのパスからDAOのメソッドを求める() {
+        var method = StartupWarmup.daoMethod("META-INF/com/example/dao/ReservationDao/selectById.sql");
+
+        assertThat(method).isNotNull();
+        assertThat(method.getDeclaringClass()).isEqualTo(ReservationDao.class);
+        assertThat(method.getName()).isEqualTo("selectById");
+    }
+
+    @Test
+    void 存在しないDAOやメソッドの場合はnull() {
+        assertThat(StartupWarmup.daoMethod("META-INF/com/example/dao/ReservationDao/unknown.sql")).isNull();
+        assertThat(StartupWarmup.daoMethod("META-INF/com/example/dao/UnknownDao/selectById.sql")).isNull();
+    }
+
+    private static Config config(SqlFileRepository repository) {
+        var dialect = new PostgresDialect();
+        return new Config() {
+            @Override
+            public DataSource getDataSource() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Dialect getDialect() {
+                return dialect;
+            }
+
+            @Override
+            public SqlFileRepository getSqlFileRepository() {
+                return repository;
+            }
+        };
+    }
+
+    private static final class CountingSqlFileRepository extends GreedyCacheSqlFileRepository {
+
+        int cachedFiles() {
+            return sqlFileMap.size();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+-- パーティション分割前の schema/create_table.sql（migrate_to_partitioned.sql のテスト用）
+DROP TABLE IF EXISTS reservation;
+DROP SEQUENCE IF EXISTS reservation_id_seq;
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+-- INCREMENT BY は Reservation の @SequenceGenerator(allocationSize) と一致させる
+CREATE SEQUENCE reservation_id_seq INCREMENT BY 100;
+CREATE TABLE reservation
+(
+    id          integer primary key default nextval('reservation_id_seq'),
+    name        varchar(100),
+    version     integer not null default 1,
+    -- 最後に挿入・更新したトランザクションのID（変更フィードのウォーターマーク）
+    changed_xid xid8    not null default pg_current_xact_id()
+);
+ALTER SEQUENCE reservation_id_seq OWNED BY reservation.id;
+CREATE OR REPLACE FUNCTION reservation_set_changed_xid() RETURNS trigger
+    LANGUAGE plpgsql AS
+'
+BEGIN
+    NEW.changed_xid := pg_current_xact_id();
+    RETURN NEW;
+END
+';
+CREATE TRIGGER reservation_set_changed_xid
+    BEFORE UPDATE ON reservation
+    FOR EACH ROW EXECUTE FUNCTION reservation_set_changed_xid();
+CREATE INDEX reservation_name_id_idx ON reservation (name, id);
+-- 名前の前方一致検索（照合順序によらず LIKE 'abc%' と ORDER BY name USING ~<~ に使用）
+CREATE INDEX reservation_name_pattern_idx ON reservation (name text_pattern_ops, id);
+-- 名前の部分一致・類似検索（LIKE '%abc%' と pg_trgm の % 演算子に使用）
+CREATE INDEX reservation_name_trgm_idx ON reservation USING gin (name gin_trgm_ops);
+-- 変更フィード（(changed_xid, id) のキーセットページング）
+CREATE INDEX reservation_changed_xid_id_idx ON reservation (changed_xid, id);
\ No newline at end of file